@@ -1,6 +1,7 @@
 package com.votzz.backend.config;
 
 import com.votzz.backend.config.security.SecurityFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -49,6 +50,9 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
+                // Redespacho assíncrono (respostas em streaming) de uma requisição que já foi autorizada
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                 // === ROTAS PÚBLICAS ===
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
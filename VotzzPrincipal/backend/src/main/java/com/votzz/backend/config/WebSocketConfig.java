@@ -1,13 +1,21 @@
 package com.votzz.backend.config;
 
+import com.votzz.backend.config.security.StompAuthInterceptor;
+import com.votzz.backend.core.cluster.ClusterFanOut;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ClusterFanOut clusterFanOut;
+    private final StompAuthInterceptor stompAuthInterceptor;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Libera CORS para qualquer origem (desenvolvimento)
@@ -21,8 +29,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Prefixo para mensagens enviadas DO servidor PARA o cliente
         registry.enableSimpleBroker("/topic", "/queue"); 
+
+        // Repasse de /topic/** e /user/** entre nós (votzz.cluster.relay = local | postgres)
+        registry.configureBrokerChannel().interceptors(clusterFanOut);
         
         // Prefixo para mensagens enviadas DO cliente PARA o servidor
         registry.setApplicationDestinationPrefixes("/app"); 
+
+        // Filas por usuário: /user/queue/notifications (nome do Principal = id do usuário)
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // JWT no CONNECT -> Principal da sessão
+        registration.interceptors(stompAuthInterceptor);
     }
 }
\ No newline at end of file
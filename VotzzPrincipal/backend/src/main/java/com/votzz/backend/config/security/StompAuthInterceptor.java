@@ -0,0 +1,96 @@
+package com.votzz.backend.config.security;
+
+import com.votzz.backend.service.TokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Autenticação da sessão STOMP: no CONNECT valida o mesmo JWT do REST (header nativo
+ * Authorization) e escolhe o usuário do condomínio pedido em X-Tenant-ID, como o
+ * SecurityFilter (sem tenant, ou sem acesso a ele, fica o primeiro cadastro do e-mail).
+ * O Principal da sessão tem o id do usuário como nome, que é a chave das destinations
+ * /user/{id}/queue/** (caixa de notificações).
+ *
+ * Sem token a conexão continua anônima (sala de votação pública); só as filas por usuário
+ * exigem login. Inscrição direta em /queue/** é recusada: o caminho é sempre /user/queue/**.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private final TokenService tokenService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) return message;
+
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            UUID userId = authenticate(accessor.getFirstNativeHeader("Authorization"), accessor.getFirstNativeHeader("X-Tenant-ID"));
+            if (userId != null) accessor.setUser(new StompPrincipal(userId.toString()));
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            String destination = accessor.getDestination();
+            // /topic/cluster/** é a troca interna entre nós (ex: contagem de presença por nó)
+            if (destination != null && (destination.startsWith("/queue/") || destination.startsWith("/topic/cluster/"))) {
+                throw new MessagingException("Inscrição não permitida: " + destination);
+            }
+            if (destination != null && destination.startsWith("/user/") && accessor.getUser() == null) {
+                throw new MessagingException("Login necessário para " + destination);
+            }
+        }
+        return message;
+    }
+
+    private UUID authenticate(String authHeader, String tenantHeader) {
+        if (authHeader == null || authHeader.isBlank()) return null;
+        try {
+            String login = tokenService.validateToken(authHeader.replace("Bearer ", ""));
+            if (login == null || login.isEmpty()) return null;
+
+            // JDBC direto: aqui não há sessão JPA aberta para carregar user_tenants (lazy)
+            UUID tenantId = parseUuid(tenantHeader);
+            List<UUID> ids = jdbcTemplate.queryForList(
+                    "SELECT u.id FROM users u WHERE u.email_norm = lower(btrim(?)) " +
+                    "ORDER BY (u.tenant_id = ? OR EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id = ?)) DESC NULLS LAST, " +
+                    // Desempate estável: sem tenant (ou sem acesso), sempre o cadastro mais antigo do e-mail
+                    "u.created_at NULLS LAST, u.id " +
+                    "LIMIT 1",
+                    UUID.class, login, tenantId, tenantId);
+            return ids.isEmpty() ? null : ids.get(0);
+        } catch (Exception e) {
+            log.warn("Falha ao autenticar CONNECT STOMP: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private UUID parseUuid(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public record StompPrincipal(String name) implements Principal {
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
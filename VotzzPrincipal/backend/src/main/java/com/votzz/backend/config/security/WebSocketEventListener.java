@@ -1,14 +1,26 @@
 package com.votzz.backend.config.security;
 
+import com.votzz.backend.service.PresenceService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
+@RequiredArgsConstructor
 public class WebSocketEventListener {
 
+    private static final String ASSEMBLY_TOPIC = "/topic/assembly/";
+
+    private final PresenceService presenceService;
     private final AtomicInteger onlineUsers = new AtomicInteger(0);
 
     @EventListener
@@ -16,12 +28,46 @@ public class WebSocketEventListener {
         onlineUsers.incrementAndGet();
     }
 
+    // Presença por assembleia: só sessões autenticadas no CONNECT (StompAuthInterceptor) contam.
+    // Nome e unidades vêm do cadastro, nunca de headers do cliente.
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(ASSEMBLY_TOPIC)) return;
+
+        UUID assemblyId = parseUuid(destination.substring(ASSEMBLY_TOPIC.length()));
+        if (assemblyId == null) return;
+
+        Principal principal = event.getUser();
+        UUID userId = principal != null ? parseUuid(principal.getName()) : null;
+        if (userId == null) return;
+
+        presenceService.join(accessor.getSessionId(), accessor.getSubscriptionId(), assemblyId, userId);
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        presenceService.leave(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
     @EventListener
     public void handleSessionDisconnect(SessionDisconnectEvent event) {
         onlineUsers.decrementAndGet();
+        presenceService.disconnect(event.getSessionId());
     }
 
     public int getOnlineCount() {
         return Math.max(0, onlineUsers.get());
     }
-}
\ No newline at end of file
+
+    private UUID parseUuid(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
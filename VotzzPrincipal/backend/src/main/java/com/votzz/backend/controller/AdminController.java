@@ -12,17 +12,27 @@ import com.votzz.backend.dto.AdminDashboardStats;
 import com.votzz.backend.dto.AuthDTOs; // Import full class to access inner static class
 import com.votzz.backend.dto.AuthDTOs.LoginResponse;
 import com.votzz.backend.dto.UserDTO;
+import com.votzz.backend.dto.UserDirectoryPage;
+import com.votzz.backend.dto.UserFolder;
 import com.votzz.backend.repository.TenantRepository;
 import com.votzz.backend.repository.UserRepository;
 import com.votzz.backend.service.AdminService;
+import com.votzz.backend.service.AdminStatsStream;
+import com.votzz.backend.service.AuditArchiveService;
+import com.votzz.backend.service.AuditArchiveService.AuditArchiveDTO;
+import com.votzz.backend.service.PlatformMetricsService;
+import com.votzz.backend.service.PlatformMetricsService.PlatformMetrics;
 import com.votzz.backend.service.TokenService;
+import com.votzz.backend.service.UserDirectoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -42,6 +52,10 @@ public class AdminController {
     private final TenantRepository tenantRepository;
     private final TokenService tokenService;
     private final WebSocketEventListener webSocketEventListener;
+    private final AuditArchiveService auditArchiveService;
+    private final PlatformMetricsService platformMetricsService;
+    private final AdminStatsStream adminStatsStream;
+    private final UserDirectoryService userDirectoryService;
 
     @Value("${votzz.admin.id}")
     private String superAdminId;
@@ -63,8 +77,35 @@ public class AdminController {
         return ResponseEntity.ok(updated); 
     }
 
-    @GetMapping("/organized-users")
-    public ResponseEntity<Map<String, Object>> listOrganized() { return ResponseEntity.ok(adminService.listOrganizedUsers()); }
+    // Push das mesmas métricas (SSE): snapshot ao conectar, depois só deltas, no máximo 1/s
+    @GetMapping(value = "/dashboard-stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStats() {
+        return adminStatsStream.subscribe();
+    }
+
+    // Snapshot completo (inclui MRR por ciclo e o horário do último recálculo)
+    @GetMapping("/platform-metrics")
+    public ResponseEntity<PlatformMetrics> getPlatformMetrics() {
+        return ResponseEntity.ok(platformMetricsService.getSnapshot());
+    }
+
+    // Diretório de usuários: pastas com contagem, depois páginas sob demanda
+    @GetMapping("/users/folders")
+    public ResponseEntity<List<UserFolder>> listUserFolders() {
+        return ResponseEntity.ok(userDirectoryService.listFolders());
+    }
+
+    @GetMapping("/users/folders/{folder}")
+    public ResponseEntity<UserDirectoryPage> listUsersInFolder(@PathVariable String folder,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userDirectoryService.listFolder(folder, cursor, limit));
+    }
+
+    @GetMapping("/users/search")
+    public ResponseEntity<List<UserDTO>> searchUsers(@RequestParam String q) {
+        return ResponseEntity.ok(userDirectoryService.search(q));
+    }
 
     @GetMapping("/admins")
     public ResponseEntity<List<UserDTO>> listAdmins() { return ResponseEntity.ok(adminService.listAllAdmins()); }
@@ -80,6 +121,18 @@ public class AdminController {
         return ResponseEntity.ok(adminService.listAuditLogs());
     }
 
+    // Arquivo morto da auditoria (partições mensais exportadas para o S3)
+    @GetMapping("/audit-archives")
+    public ResponseEntity<List<AuditArchiveDTO>> listAuditArchives() {
+        return ResponseEntity.ok(auditArchiveService.listArchives());
+    }
+
+    // Pedido jurídico: restaura o período em uma tabela de consulta separada
+    @PostMapping("/audit-archives/{partition}/rehydrate")
+    public ResponseEntity<AuditArchiveDTO> rehydrateAuditArchive(@PathVariable String partition) {
+        return ResponseEntity.ok(auditArchiveService.rehydrate(partition));
+    }
+
     @PostMapping("/impersonate/{tenantId}")
     public ResponseEntity<LoginResponse> impersonateTenant(@PathVariable UUID tenantId) {
         Tenant tenant = tenantRepository.findById(tenantId)
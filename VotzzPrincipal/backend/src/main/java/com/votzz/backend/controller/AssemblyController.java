@@ -7,9 +7,18 @@ import com.lowagie.text.pdf.PdfWriter;
 import com.votzz.backend.domain.*;
 import com.votzz.backend.repository.*;
 import com.votzz.backend.service.AuditService;
+import com.votzz.backend.service.EmailOutboxService;
+import com.votzz.backend.service.EmailOutboxService.DeliverySummary;
 import com.votzz.backend.service.EmailService;
+import com.votzz.backend.service.IntegrityChainService;
+import com.votzz.backend.service.IntegrityChainService.IntegrityReport;
+import com.votzz.backend.service.PresenceService;
+import com.votzz.backend.service.PresenceService.PresenceEntry;
+import com.votzz.backend.service.VoteMerkleService;
+import com.votzz.backend.service.VoteMerkleService.MerkleRoot;
 import com.votzz.backend.core.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -43,6 +52,10 @@ public class AssemblyController {
     private final UserRepository userRepository;
     private final AuditService auditService;
     private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final PresenceService presenceService;
+    private final IntegrityChainService integrityChainService;
+    private final VoteMerkleService voteMerkleService;
     
     // Repositórios para o Dossiê
     private final ChatMessageRepository chatMessageRepository;
@@ -99,26 +112,15 @@ public class AssemblyController {
             Assembly saved = assemblyRepository.save(assembly);
             auditService.log(currentUser, targetTenant, "CRIAR_ASSEMBLEIA", "Criou a assembleia: " + saved.getTitulo(), "ASSEMBLEIA");
 
-            // Notificação Automática (Try-Catch para não bloquear criação se falhar email)
-            try {
-                List<User> residents = userRepository.findByTenantId(tenantId);
-                List<String> emails = residents.stream()
-                        .map(User::getEmail)
-                        .filter(email -> email != null && !email.isEmpty())
-                        .collect(Collectors.toList());
-
-                if (!emails.isEmpty()) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-                    String inicio = saved.getDataInicio().format(formatter);
-                    String fim = saved.getDataFim() != null ? saved.getDataFim().format(formatter) : "Indefinido";
-                    String periodo = "De " + inicio + " até " + fim;
-                    String link = "https://www.votzz.com.br/#/voting-room/" + saved.getId();
-                    String tName = currentUser.getTenant() != null ? currentUser.getTenant().getNome() : "Condomínio";
-                    emailService.sendNewAssemblyNotification(emails, saved.getTitulo(), saved.getDescription(), periodo, link, tName);
-                }
-            } catch (Exception e) {
-                logger.error("Falha ao processar notificações automáticas: {}", e.getMessage());
-            }
+            // Convocação automática: gravada no outbox na mesma transação da assembleia
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+            String inicio = saved.getDataInicio().format(formatter);
+            String fim = saved.getDataFim() != null ? saved.getDataFim().format(formatter) : "Indefinido";
+            String periodo = "De " + inicio + " até " + fim;
+            String link = "https://www.votzz.com.br/#/voting-room/" + saved.getId();
+            String tName = currentUser.getTenant() != null ? currentUser.getTenant().getNome() : "Condomínio";
+            emailOutboxService.enqueueForTenant(tenantId, EmailOutboxService.REF_ASSEMBLY, saved.getId(),
+                    emailService.buildAssemblyNotification(saved.getTitulo(), saved.getDescription(), periodo, link, tName));
             
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
@@ -158,6 +160,70 @@ public class AssemblyController {
          }).orElse(ResponseEntity.notFound().build());
     }
 
+    // Presença ao vivo (memória do nó, não consulta o banco)
+    @GetMapping("/{id}/presence")
+    public ResponseEntity<?> getPresence(@PathVariable UUID id) {
+        return ResponseEntity.ok(Map.of(
+            "online", presenceService.getOnlineCount(id),
+            "users", presenceService.getOnline(id)
+        ));
+    }
+
+    // Recalcula a cadeia de hashes (votos + auditoria) no período coberto pelo dossiê
+    @GetMapping("/{id}/integrity")
+    public ResponseEntity<?> verificarIntegridade(@PathVariable UUID id, @AuthenticationPrincipal User currentUser) {
+        Assembly assembly = assemblyRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Assembleia não encontrada"));
+        if (currentUser == null || currentUser.getTenant() == null || assembly.getTenant() == null ||
+            !currentUser.getTenant().getId().equals(assembly.getTenant().getId())) {
+            return ResponseEntity.status(403).body("Acesso negado.");
+        }
+        return ResponseEntity.ok(verifyWindow(assembly));
+    }
+
+    // Raiz publicada da árvore de Merkle dos votos (congelada no encerramento)
+    @GetMapping("/{id}/merkle-root")
+    public ResponseEntity<?> getMerkleRoot(@PathVariable UUID id) {
+        return ResponseEntity.ok(voteMerkleService.getRoot(id));
+    }
+
+    // Prova de inclusão do voto a partir do recibo (hash completo ou prefixo)
+    @GetMapping("/{id}/votes/{receipt}/proof")
+    public ResponseEntity<?> getVoteProof(@PathVariable UUID id, @PathVariable String receipt) {
+        try {
+            return ResponseEntity.ok(voteMerkleService.getProof(id, receipt));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Status de entrega da convocação por destinatário
+    @GetMapping("/{id}/deliveries")
+    public ResponseEntity<?> getDeliveries(@PathVariable UUID id, @AuthenticationPrincipal User currentUser) {
+        Assembly assembly = assemblyRepository.findById(id).orElse(null);
+        if (assembly == null) return ResponseEntity.notFound().build();
+        if (currentUser == null || currentUser.getTenant() == null || assembly.getTenant() == null
+                || !currentUser.getTenant().getId().equals(assembly.getTenant().getId())) {
+            return ResponseEntity.status(403).body("Acesso negado.");
+        }
+        return ResponseEntity.ok(Map.of(
+                "summary", emailOutboxService.getDeliverySummary(EmailOutboxService.REF_ASSEMBLY, id),
+                "deliveries", emailOutboxService.listDeliveries(EmailOutboxService.REF_ASSEMBLY, id)));
+    }
+
+    private IntegrityReport verifyWindow(Assembly assembly) {
+        LocalDateTime start = assembly.getDataInicio().minusDays(5);
+        return integrityChainService.verify(assembly.getTenant().getId(), start, logWindowEnd(assembly));
+    }
+
+    // Janela fixa depois do encerramento: min(agora, fim + 4h). Assembleia encerrada sempre verifica
+    // a mesma faixa, em vez de todo o histórico do condomínio até hoje.
+    private static LocalDateTime logWindowEnd(Assembly assembly) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime closeLimit = assembly.getDataFim().plusHours(4);
+        return now.isBefore(closeLimit) ? now : closeLimit;
+    }
+
     // ==================================================================================
     // GERAÇÃO DO DOSSIÊ JURÍDICO EM PDF (FINAL COM LOGO E LINK)
     // ==================================================================================
@@ -182,7 +248,7 @@ public class AssemblyController {
 
             // Logs
             LocalDateTime startLog = assembly.getDataInicio().minusDays(5); 
-            LocalDateTime endLog = LocalDateTime.now().isAfter(assembly.getDataFim()) ? LocalDateTime.now() : assembly.getDataFim().plusHours(4);
+            LocalDateTime endLog = logWindowEnd(assembly);
             
             List<AuditLog> allLogs = auditLogRepository.findByTenantIdOrderByCreatedAtDesc(assembly.getTenant().getId());
             List<AuditLog> logs = allLogs.stream()
@@ -314,6 +380,12 @@ public class AssemblyController {
             addInfoRow(infoTable, "Encerramento Efetivo:", encerramentoReal, 
                 "ENCERRADA".equalsIgnoreCase(statusFinal) ? statusFont : textFont);
             
+            DeliverySummary convocacao = emailOutboxService.getDeliverySummary(EmailOutboxService.REF_ASSEMBLY, id);
+            addInfoRow(infoTable, "Convocação por e-mail:", convocacao.total() == 0 ? "Nenhum envio registrado"
+                    : String.format("%d de %d aceitos pelo servidor de e-mail (%s a %s), %d falha(s), %d pendente(s)",
+                        convocacao.sent(), convocacao.total(), formatDate(convocacao.firstSentAt()), formatDate(convocacao.lastSentAt()),
+                        convocacao.failed(), convocacao.pending()), textFont);
+
             addInfoRow(infoTable, "Gerado por:", currentUser.getNome() + " (CPF: " + currentUser.getCpf() + ")", textFont);
             
             document.add(infoTable);
@@ -398,6 +470,30 @@ public class AssemblyController {
 
             // === 2. LISTA DE PRESENÇA ===
             addSectionHeader(document, "2. LISTA DE PRESENÇA DIGITAL (IP & Acessos)", headerFont);
+            document.add(new Paragraph("Permanência na sala de votação (entrada e saída por participante):", textFont));
+
+            PdfPTable attendanceTable = new PdfPTable(4);
+            attendanceTable.setWidthPercentage(100);
+            attendanceTable.setWidths(new float[]{3, 3, 2, 2});
+            attendanceTable.setSpacingBefore(5);
+            addTableHeader(attendanceTable, "Participante", "Unidade(s)", "Entrada", "Saída", headerFont);
+
+            List<PresenceEntry> attendance = presenceService.getAttendance(id);
+            for (PresenceEntry entry : attendance) {
+                attendanceTable.addCell(new Phrase(entry.userName() != null ? entry.userName() : "Participante", smallFont));
+                attendanceTable.addCell(new Phrase(entry.units() != null ? entry.units() : "-", smallFont));
+                attendanceTable.addCell(new Phrase(formatDate(entry.joinedAt()), smallFont));
+                attendanceTable.addCell(new Phrase(entry.leftAt() != null ? formatDate(entry.leftAt()) : "Em sala", smallFont));
+            }
+            if (attendance.isEmpty()) {
+                PdfPCell c = new PdfPCell(new Phrase("Nenhuma presença registrada na sala.", smallFont));
+                c.setColspan(4);
+                attendanceTable.addCell(c);
+            }
+            document.add(attendanceTable);
+            document.add(new Paragraph("Total de participantes: " + attendance.stream().map(PresenceEntry::userId).distinct().count(), smallFont));
+            document.add(new Paragraph(" "));
+
             document.add(new Paragraph("Registro de atividades (Login, Votos, Chat) durante a sessão:", textFont));
             
             PdfPTable presenceTable = new PdfPTable(4);
@@ -445,6 +541,17 @@ public class AssemblyController {
                 }
             }
             document.add(voteTable);
+
+            IntegrityReport integrity = verifyWindow(assembly);
+            String integrityText = integrity.intact()
+                    ? String.format("Cadeia de integridade verificada: ÍNTEGRA (%d registros encadeados", integrity.checked())
+                      + (integrity.unsealed() > 0 ? ", " + integrity.unsealed() + " aguardando selagem)." : ").")
+                    : "Cadeia de integridade verificada: VIOLADA no elo " + integrity.brokenAtSeq() + " - " + integrity.reason();
+            document.add(new Paragraph(integrityText, smallFont));
+
+            MerkleRoot merkle = voteMerkleService.getRoot(id);
+            document.add(new Paragraph("Raiz Merkle dos votos" + (merkle.frozenAt() != null ? " (congelada em " + formatDate(merkle.frozenAt()) + ")" : " (parcial)")
+                    + ": " + (merkle.root() != null ? merkle.root() + " - " + merkle.size() + " votos" : "sem votos"), smallFont));
             document.add(new Paragraph(" "));
 
             // === 5. CHAT ===
@@ -483,7 +590,8 @@ public class AssemblyController {
             document.add(new Paragraph(" "));
             document.add(new Paragraph(" "));
 
-            Paragraph hashLine = new Paragraph("Hash de Integridade do Arquivo: " + UUID.randomUUID(), smallFont);
+            Paragraph hashLine = new Paragraph("Hash de Integridade (último elo da cadeia): "
+                    + (integrity.lastHash() != null ? integrity.lastHash() : "sem registros selados"), smallFont);
             hashLine.setAlignment(Element.ALIGN_CENTER);
             document.add(hashLine);
             
@@ -578,20 +686,16 @@ public class AssemblyController {
         try {
             Assembly assembly = assemblyRepository.findById(id).orElseThrow(() -> new RuntimeException("404"));
             
-            // Segurança básica
-            List<User> residents = userRepository.findByTenantId(assembly.getTenant().getId());
-            List<String> recipients = residents.stream().map(User::getEmail).filter(e -> e != null && e.contains("@")).collect(Collectors.toList());
-            
-            if (!recipients.isEmpty()) {
-                String link = "https://www.votzz.com.br/#/voting-room/" + assembly.getId();
-                // Passa o nome do condomínio para o email
-                String tName = assembly.getTenant() != null ? assembly.getTenant().getNome() : "Seu Condomínio";
-                
-                emailService.sendNewAssemblyNotification(recipients, assembly.getTitulo(), assembly.getDescription(), "Ver detalhes", link, tName);
-                
-                auditService.log(currentUser, assembly.getTenant(), "NOTIFICAR_ASSEMBLEIA", "Disparou notificações.", "ASSEMBLEIA");
+            String link = "https://www.votzz.com.br/#/voting-room/" + assembly.getId();
+            // Passa o nome do condomínio para o email
+            String tName = assembly.getTenant() != null ? assembly.getTenant().getNome() : "Seu Condomínio";
+
+            int recipients = emailOutboxService.enqueueForTenant(assembly.getTenant().getId(), EmailOutboxService.REF_ASSEMBLY, assembly.getId(),
+                    emailService.buildAssemblyNotification(assembly.getTitulo(), assembly.getDescription(), "Ver detalhes", link, tName));
+            if (recipients > 0) {
+                auditService.log(currentUser, assembly.getTenant(), "NOTIFICAR_ASSEMBLEIA", "Disparou notificações para " + recipients + " destinatário(s).", "ASSEMBLEIA");
             }
-            return ResponseEntity.ok(Map.of("message", "Notificações enviadas."));
+            return ResponseEntity.ok(Map.of("message", "Notificações enviadas.", "recipients", recipients));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -600,7 +704,8 @@ public class AssemblyController {
     @PostMapping("/{id}/vote")
     @Transactional
     public ResponseEntity<?> votar(@PathVariable UUID id, @RequestBody VoteRequest request, @AuthenticationPrincipal User currentUser) {
-        var assemblyOpt = assemblyRepository.findById(id);
+        // Lock compartilhado até o commit: um voto que passou da checagem de status entra na raiz Merkle
+        var assemblyOpt = assemblyRepository.findByIdForVote(id);
         if (assemblyOpt.isEmpty()) return ResponseEntity.notFound().build();
         Assembly assembly = assemblyOpt.get();
 
@@ -618,10 +723,12 @@ public class AssemblyController {
                 v.setTenant(assembly.getTenant());
                 v.setOptionId(request.optionId());
                 v.setUnidade(u);
-                v.setHash(UUID.randomUUID().toString());
+                // Compromisso do voto: entra no payload encadeado, então o recibo não pode ser trocado depois
+                v.setHash(DigestUtils.sha256Hex(id + "|" + voter.getId() + "|" + u + "|" + request.optionId() + "|"
+                        + LocalDateTime.now() + "|" + UUID.randomUUID()));
                 v.setFraction(BigDecimal.ONE);
                 voteRepository.save(v);
-                receipt.append(v.getHash().substring(0,8)).append(";");
+                receipt.append(v.getHash()).append(";");
             }
         }
         auditService.log(voter, assembly.getTenant(), "VOTO_REGISTRADO", "Votou na assembleia", "VOTACAO");
@@ -629,11 +736,16 @@ public class AssemblyController {
     }
 
     @PatchMapping("/{id}/close") 
+    @Transactional
     public ResponseEntity<?> encerrar(@PathVariable UUID id, @AuthenticationPrincipal User currentUser) {
-        return assemblyRepository.findById(id).map(assembly -> {
+        // Lock exclusivo: espera os votos em andamento; o freeze (mesma transação) já os enxerga
+        return assemblyRepository.findByIdForClose(id).map(assembly -> {
             assembly.setStatus("ENCERRADA"); 
             assemblyRepository.save(assembly);
-            auditService.log(currentUser, assembly.getTenant(), "ENCERRAR_ASSEMBLEIA", "Encerrou a assembleia", "ASSEMBLEIA");
+            MerkleRoot merkle = voteMerkleService.freeze(id);
+            // A raiz vai para o log (e portanto para a cadeia de integridade)
+            auditService.log(currentUser, assembly.getTenant(), "ENCERRAR_ASSEMBLEIA",
+                    "Encerrou a assembleia. Raiz Merkle dos votos: " + merkle.root() + " (" + merkle.size() + " votos)", "ASSEMBLEIA");
             return ResponseEntity.ok(Map.of("message", "Encerrada com sucesso."));
         }).orElse(ResponseEntity.notFound().build());
     }
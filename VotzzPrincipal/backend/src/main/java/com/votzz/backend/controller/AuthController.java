@@ -213,10 +213,7 @@ public class AuthController {
         if (selectedUser.getTenant() != null && selectedUser.getCpf() != null) {
             // Busca outras unidades do mesmo morador neste condomínio
             User finalUser = selectedUser;
-            List<User> multiUnits = userRepository.findAll().stream()
-                .filter(u -> u.getCpf() != null && u.getCpf().equals(finalUser.getCpf()))
-                .filter(u -> u.getTenant() != null && u.getTenant().getId().equals(finalUser.getTenant().getId()))
-                .toList();
+            List<User> multiUnits = userRepository.findByCpfAndTenant_Id(finalUser.getCpf(), finalUser.getTenant().getId());
 
             unidadesDoMorador = multiUnits.stream()
                 .map(u -> {
@@ -278,10 +275,7 @@ public class AuthController {
         List<String> unidadesDoMorador = new ArrayList<>();
         if (user.getTenant() != null && user.getCpf() != null) {
             User finalUser = user;
-            List<User> multiUnits = userRepository.findAll().stream()
-                .filter(u -> u.getCpf() != null && u.getCpf().equals(finalUser.getCpf()))
-                .filter(u -> u.getTenant() != null && u.getTenant().getId().equals(finalUser.getTenant().getId()))
-                .toList();
+            List<User> multiUnits = userRepository.findByCpfAndTenant_Id(finalUser.getCpf(), finalUser.getTenant().getId());
 
             unidadesDoMorador = multiUnits.stream()
                 .map(u -> {
@@ -1,10 +1,8 @@
 package com.votzz.backend.controller;
 
-import com.votzz.backend.domain.Assembly;
-import com.votzz.backend.domain.ChatMessage;
-import com.votzz.backend.domain.Tenant;
-import com.votzz.backend.domain.User;
-import com.votzz.backend.repository.ChatMessageRepository;
+import com.votzz.backend.service.ChatHistoryService;
+import com.votzz.backend.service.ChatPersistenceService;
+import com.votzz.backend.service.ChatPersistenceService.PendingChatMessage;
 import com.votzz.backend.service.ChatService; // Importado
 import com.votzz.backend.service.GeminiService; // Importado
 import lombok.Data;
@@ -17,23 +15,22 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
 public class ChatController {
 
-    private final ChatMessageRepository chatMessageRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final GeminiService geminiService; // Injetado para o chat da IA
     private final ChatService chatService;     // Injetado para o resumo em PDF
+    private final ChatPersistenceService chatPersistenceService;
+    private final ChatHistoryService chatHistoryService;
 
     // --- Endpoint para o Chat da S.I.R.I.U.S. (IA) ---
     @PostMapping("/api/chat/ask-ai")
@@ -60,70 +57,54 @@ public class ChatController {
                 .body(pdf);
     }
 
+    // Janela recente em memória: entrar/reconectar na sala não faz varredura do histórico
     @GetMapping("/api/chat/assemblies/{assemblyId}")
     @ResponseBody
-    @Transactional(readOnly = true)
     public ResponseEntity<List<ChatMessageDTO>> getHistory(@PathVariable UUID assemblyId) {
-        List<ChatMessage> messages = chatMessageRepository.findByAssemblyIdOrderByCreatedAtAsc(assemblyId);
-        
-        List<ChatMessageDTO> dtos = messages.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
-            
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(chatHistoryService.getRecent(assemblyId));
+    }
+
+    // Histórico antigo paginado por keyset: ?before=<cursor>&limit=
+    @GetMapping("/api/chat/assemblies/{assemblyId}/history")
+    @ResponseBody
+    public ResponseEntity<ChatHistoryPage> getHistoryPage(@PathVariable UUID assemblyId,
+                                                          @RequestParam(required = false) String before,
+                                                          @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(chatHistoryService.getPage(assemblyId, before, limit));
     }
 
     @MessageMapping("/chat/{assemblyId}/send")
-    @Transactional
     public void sendMessage(@DestinationVariable UUID assemblyId, @Payload ChatMessageDTO messageDTO) {
         try {
+            messageDTO.setId(UUID.randomUUID());
             messageDTO.setTimestamp(LocalDateTime.now());
             messageDTO.setAssemblyId(assemblyId);
+            messageDTO.setType("CHAT");
 
-            ChatMessage entity = new ChatMessage();
-            
-            Assembly asm = new Assembly();
-            asm.setId(assemblyId);
-            entity.setAssembly(asm);
-
-            if (messageDTO.getUserId() != null) {
-                User u = new User();
-                u.setId(messageDTO.getUserId());
-                entity.setUser(u);
-            }
-            if (messageDTO.getTenantId() != null) {
-                Tenant t = new Tenant();
-                t.setId(messageDTO.getTenantId());
-                entity.setTenant(t);
-            }
-
-            entity.setSenderName(messageDTO.getSenderName());
-            entity.setContent(messageDTO.getContent());
-            entity.setType("CHAT");
-            
-            chatMessageRepository.save(entity);
-
+            // 1. Broadcast imediato: o chat não espera a latência do banco
             messagingTemplate.convertAndSend("/topic/assembly/" + assemblyId, messageDTO);
+            chatHistoryService.append(messageDTO);
+
+            // 2. Persistência write-behind (lote JDBC + spill em disco)
+            chatPersistenceService.enqueue(new PendingChatMessage(
+                messageDTO.getId(),
+                assemblyId,
+                messageDTO.getUserId(),
+                messageDTO.getTenantId(),
+                messageDTO.getSenderName(),
+                messageDTO.getContent(),
+                messageDTO.getType(),
+                messageDTO.getTimestamp()
+            ));
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private ChatMessageDTO convertToDTO(ChatMessage entity) {
-        ChatMessageDTO dto = new ChatMessageDTO();
-        dto.setSenderName(entity.getSenderName());
-        dto.setContent(entity.getContent());
-        dto.setTimestamp(entity.getCreatedAt());
-        dto.setType(entity.getType());
-        dto.setAssemblyId(entity.getAssembly().getId());
-        if (entity.getUser() != null) dto.setUserId(entity.getUser().getId());
-        if (entity.getTenant() != null) dto.setTenantId(entity.getTenant().getId());
-        return dto;
-    }
-
     @Data
     public static class ChatMessageDTO {
+        private UUID id;
         private String senderName;
         private String content;
         private LocalDateTime timestamp;
@@ -132,4 +113,6 @@ public class ChatController {
         private UUID tenantId; 
         private String type;
     }
+
+    public record ChatHistoryPage(List<ChatMessageDTO> messages, String nextCursor) {}
 }
\ No newline at end of file
@@ -5,7 +5,10 @@ import com.votzz.backend.domain.enums.Role;
 import com.votzz.backend.integration.AsaasClient;
 import com.votzz.backend.repository.*;
 import com.votzz.backend.service.AuditService; 
+import com.votzz.backend.service.EmailService;
 import com.votzz.backend.service.FileStorageService; 
+import com.votzz.backend.service.NotificationService;
+import com.votzz.backend.service.NotificationService.Notice;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -35,6 +38,8 @@ public class FacilitiesController {
     private final AsaasClient asaasClient;
     private final AuditService auditService; 
     private final FileStorageService fileStorageService; 
+    private final NotificationService notificationService;
+    private final EmailService emailService;
 
     // --- LISTAR ÁREAS ---
     @GetMapping("/areas")
@@ -134,6 +139,17 @@ public class FacilitiesController {
                 "FINANCEIRO"
             );
 
+            if (booking.getUser() != null) {
+                String area = booking.getCommonArea() != null ? booking.getCommonArea().getName() : "área comum";
+                String title = isValid ? "Reserva confirmada" : "Comprovante recusado";
+                String body = isValid
+                        ? "Sua reserva de " + area + " em " + booking.getBookingDate() + " foi confirmada."
+                        : "O comprovante da reserva de " + area + " em " + booking.getBookingDate() + " foi recusado. Envie um novo comprovante.";
+                notificationService.notifyUser(booking.getUser().getId(), booking.getTenant().getId(),
+                        new Notice(NotificationService.TYPE_BOOKING, title, body, "/spaces", booking.getId()),
+                        booking.getUser().getEmail(), emailService.buildGenericNotification(title, body));
+            }
+
             return ResponseEntity.ok(booking);
 
         } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.votzz.backend.controller;
 
 import com.votzz.backend.service.GeminiService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -29,20 +30,21 @@ public class GeminiController {
     @PostMapping("/generate-description")
     public Map<String, String> generateDescription(@RequestBody Map<String, String> payload) {
         String prompt = "Gere uma descrição profissional para uma assembleia sobre: " + payload.get("topic") + ". Detalhes: " + payload.get("details");
-        return Map.of("response", geminiService.getAiResponse(prompt, "Secretário de Assembleia"));
+        return Map.of("response", geminiService.draftText(prompt, "Secretário de Assembleia"));
     }
 
     @PostMapping("/generate-notification")
     public Map<String, String> generateNotification(@RequestBody Map<String, String> payload) {
         String prompt = "Gere um rascunho de notificação para a assembleia: " + payload.get("assemblyTitle") + " que encerra em: " + payload.get("endDate");
-        return Map.of("response", geminiService.getAiResponse(prompt, "Gestor de Comunicação"));
+        return Map.of("response", geminiService.draftText(prompt, "Gestor de Comunicação"));
     }
 
     @PostMapping("/analyze-sentiment")
-    @SuppressWarnings("unchecked")
-    public Map<String, String> analyzeSentiment(@RequestBody Map<String, Object> payload) {
-        List<String> messages = (List<String>) payload.get("messages");
-        // Nota: Garanta que este método existe no seu GeminiService
-        return Map.of("response", geminiService.summarizeChat(messages));
+    public ResponseEntity<Map<String, String>> analyzeSentiment(@RequestBody Map<String, Object> payload) {
+        if (!(payload.get("messages") instanceof List<?> raw)) {
+            return ResponseEntity.badRequest().body(Map.of("response", "Envie a lista de mensagens do chat em \"messages\"."));
+        }
+        List<String> messages = raw.stream().map(m -> m == null ? "" : m.toString()).toList();
+        return ResponseEntity.ok(Map.of("response", geminiService.summarizeChat(messages)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.votzz.backend.controller;
+
+import com.votzz.backend.domain.User;
+import com.votzz.backend.service.NotificationService;
+import com.votzz.backend.service.NotificationService.InboxPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caixa de notificações do usuário logado. O tempo real vem por STOMP em
+ * /user/queue/notifications; estes endpoints servem a carga inicial e a leitura.
+ */
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    @GetMapping
+    public ResponseEntity<InboxPage> inbox(@RequestParam(required = false) Long before,
+                                           @RequestParam(required = false) Integer limit,
+                                           @AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(notificationService.inbox(currentUser.getId(), before, limit));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> unreadCount(@AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(Map.of("unread", notificationService.unreadCount(currentUser.getId())));
+    }
+
+    @PostMapping("/read")
+    public ResponseEntity<Map<String, Long>> markRead(@RequestBody MarkReadRequest request, @AuthenticationPrincipal User currentUser) {
+        List<Long> ids = request != null && request.ids() != null ? request.ids() : List.of();
+        return ResponseEntity.ok(Map.of("unread", notificationService.markRead(currentUser.getId(), ids)));
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<Map<String, Long>> markAllRead(@AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(Map.of("unread", notificationService.markRead(currentUser.getId(), null)));
+    }
+
+    public record MarkReadRequest(List<Long> ids) {}
+}
@@ -1,25 +1,28 @@
 package com.votzz.backend.controller;
 
 import com.votzz.backend.core.tenant.TenantContext;
-import com.votzz.backend.domain.AuditLog;
 import com.votzz.backend.domain.Tenant;
 import com.votzz.backend.domain.User;
 import com.votzz.backend.domain.enums.Role;
-import com.votzz.backend.repository.AuditLogRepository;
 import com.votzz.backend.repository.TenantRepository;
 import com.votzz.backend.repository.UserRepository;
+import com.votzz.backend.service.AuditQueryService;
+import com.votzz.backend.service.AuditQueryService.AuditLogFilter;
+import com.votzz.backend.service.AuditService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/tenants")
@@ -29,7 +32,8 @@ public class TenantController {
 
     private final TenantRepository tenantRepository;
     private final UserRepository userRepository;
-    private final AuditLogRepository auditLogRepository;
+    private final AuditService auditService;
+    private final AuditQueryService auditQueryService;
 
     @GetMapping("/public-list")
     public List<TenantDTO> listPublic() {
@@ -132,46 +136,66 @@ public class TenantController {
         tenantRepository.save(tenant);
 
         // Log de auditoria
-        AuditLog log = new AuditLog();
-        log.setAction("EXCLUIR_CONDOMINIO");
-        log.setDetails("Soft delete do condomínio: " + tenant.getNome());
-        log.setUserId(user.getId().toString());
-        log.setUserName(user.getNome());
-        log.setResourceType("TENANT");
-        log.setTimestamp(LocalDateTime.now().toString());
-        auditLogRepository.save(log);
+        auditService.log(user, tenant, "EXCLUIR_CONDOMINIO", "Soft delete do condomínio: " + tenant.getNome(), "TENANT");
 
         return ResponseEntity.ok().build();
     }
 
     // --- AUDIT LOGS ---
+    // Legado (painel do síndico): apenas os registros mais recentes. Histórico completo em /audit-logs/page
     @GetMapping("/audit-logs")
     public ResponseEntity<List<AuditLogResponse>> getAuditLogs(@AuthenticationPrincipal User user) {
-        UUID tenantId = resolveTenantId(user);
-        List<AuditLog> logs;
+        AuditLogFilter filter = resolveAuditFilter(user, null, null, null, null, null, null);
+        if (filter == null) return ResponseEntity.ok(List.of());
+        return ResponseEntity.ok(auditQueryService.findPage(filter, null, 200).items());
+    }
 
-        if (tenantId != null && hasManagerRole(user)) {
-            logs = auditLogRepository.findByTenantIdOrderByCreatedAtDesc(tenantId);
-        } else if (user.getRole() == Role.ADMIN) {
-            logs = auditLogRepository.findAllByOrderByCreatedAtDesc();
-        } else {
-            logs = List.of();
-        }
+    // Paginação por cursor com filtros no servidor (tela de Relatórios)
+    @GetMapping("/audit-logs/page")
+    public ResponseEntity<AuditLogPage> getAuditLogsPage(@AuthenticationPrincipal User user,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String action,
+                                                         @RequestParam(required = false) String resourceType,
+                                                         @RequestParam(required = false) String userId,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                         @RequestParam(required = false) String q) {
+        AuditLogFilter filter = resolveAuditFilter(user, action, resourceType, userId, from, to, q);
+        if (filter == null) return ResponseEntity.status(403).build();
+        return ResponseEntity.ok(auditQueryService.findPage(filter, cursor, limit));
+    }
 
-        List<AuditLogResponse> response = logs.stream()
-                .map(log -> new AuditLogResponse(
-                        log.getId(),
-                        log.getAction(),
-                        log.getUserName(),
-                        log.getUserId(),
-                        log.getDetails(),
-                        log.getTimestamp(),
-                        log.getResourceType(),
-                        log.getIpAddress()
-                ))
-                .collect(Collectors.toList());
+    // Exportação completa em NDJSON (streaming, sem montar a lista em memória)
+    @GetMapping("/audit-logs/export")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(@AuthenticationPrincipal User user,
+                                                                 @RequestParam(required = false) String action,
+                                                                 @RequestParam(required = false) String resourceType,
+                                                                 @RequestParam(required = false) String userId,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 @RequestParam(required = false) String q) {
+        AuditLogFilter filter = resolveAuditFilter(user, action, resourceType, userId, from, to, q);
+        if (filter == null) return ResponseEntity.status(403).build();
+
+        StreamingResponseBody body = out -> auditQueryService.exportNdjson(filter, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=auditoria_" + LocalDate.now() + ".ndjson")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 
-        return ResponseEntity.ok(response);
+    // Síndico/ADM vê o próprio condomínio; ADMIN sem condomínio vê a plataforma
+    private AuditLogFilter resolveAuditFilter(User user, String action, String resourceType, String userId,
+                                              LocalDate from, LocalDate to, String q) {
+        UUID tenantId = resolveTenantId(user);
+        if (tenantId != null && hasManagerRole(user)) {
+            return new AuditLogFilter(tenantId, action, resourceType, userId, from, to, q);
+        }
+        if (user.getRole() == Role.ADMIN) {
+            return new AuditLogFilter(null, action, resourceType, userId, from, to, q);
+        }
+        return null;
     }
 
     // --- UPDATE SECRET KEYWORD ---
@@ -221,6 +245,7 @@ public class TenantController {
     // Records (mantidos iguais, mas com nomes mais claros)
     public record TenantDTO(UUID id, String nome) {}
     public record BankInfoDTO(String bankName, String agency, String account, String pixKey, String asaasWalletId) {}
+    public record AuditLogPage(List<AuditLogResponse> items, String nextCursor) {}
     public record AuditLogResponse(
             UUID id,
             String action,
@@ -5,12 +5,16 @@ import com.votzz.backend.domain.User;
 import com.votzz.backend.domain.enums.Role;
 import com.votzz.backend.repository.UserRepository;
 import com.votzz.backend.service.AuditService;
+import com.votzz.backend.service.IdentityService;
+import com.votzz.backend.service.UserImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +40,12 @@ public class UserController {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private IdentityService identityService;
+
+    @Autowired
+    private UserImportService userImportService;
+
     // =================================================================================
     // 1. CRIAR NOVO USUÁRIO (POST) - CORRIGIDO PARA PERFIL UNIVERSAL
     // =================================================================================
@@ -67,8 +77,7 @@ public class UserController {
         // Se informado, o CPF deve ser único para a PESSOA, não para a conta.
         // Se o e-mail for diferente, mas o CPF for igual, bloqueamos (uma pessoa = um CPF).
         if (data.cpf() != null && !data.cpf().isEmpty()) {
-            boolean cpfUsedByAnotherPerson = userRepository.findAll().stream()
-                    .anyMatch(u -> data.cpf().equals(u.getCpf()) && !u.getEmail().equalsIgnoreCase(data.email()));
+            boolean cpfUsedByAnotherPerson = identityService.isCpfTakenByAnother(data.cpf(), data.email());
             
             if (cpfUsedByAnotherPerson) {
                 return ResponseEntity.badRequest().body("Erro: Este CPF já está vinculado a um e-mail diferente.");
@@ -142,6 +151,12 @@ public class UserController {
         }
 
         // 7. Persistência
+        // Garantia atômica "um CPF = um e-mail" (corrida entre dois cadastros simultâneos)
+        try {
+            identityService.claimCpf(newUser.getCpf(), newUser.getEmail());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Erro: Este CPF já está vinculado a um e-mail diferente.");
+        }
         User savedUser = userRepository.save(newUser);
         
         // 8. Auditoria
@@ -156,6 +171,26 @@ public class UserController {
         return ResponseEntity.ok("Usuário criado com sucesso!");
     }
 
+    // =================================================================================
+    // 1.1 IMPORTAÇÃO EM LOTE (CSV) - processada em segundo plano, consulte o relatório
+    // =================================================================================
+    @PostMapping("/import")
+    public ResponseEntity<?> importUsers(@RequestParam("file") MultipartFile file, @AuthenticationPrincipal User currentUser) {
+        if (currentUser.getTenant() == null
+                || (currentUser.getRole() != Role.SINDICO && currentUser.getRole() != Role.ADM_CONDO)) {
+            return ResponseEntity.status(403).body("Apenas o síndico ou a administração do condomínio podem importar moradores.");
+        }
+        return ResponseEntity.accepted().body(userImportService.startImport(file, currentUser));
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> importReport(@PathVariable UUID jobId, @AuthenticationPrincipal User currentUser) {
+        if (currentUser.getTenant() == null) {
+            return ResponseEntity.status(403).body("Você precisa estar vinculado a um condomínio.");
+        }
+        return ResponseEntity.ok(userImportService.getReport(jobId, currentUser.getTenant().getId()));
+    }
+
     // =================================================================================
     // 2. ATUALIZAR USUÁRIO (PATCH)
     // =================================================================================
@@ -225,6 +260,7 @@ public class UserController {
                   return ResponseEntity.badRequest().body("O novo e-mail já está em uso.");
              }
              
+            identityService.changeEmail(user.getEmail(), data.email());
             user.setEmail(data.email());
             changes.append("Email alterado. ");
         }
@@ -232,10 +268,18 @@ public class UserController {
         // 2. CPF (Sincronizado)
         if (data.cpf() != null && !data.cpf().isEmpty() && !data.cpf().equals(user.getCpf())) {
             // Verifica duplicidade global
-            boolean cpfExists = userRepository.findAll().stream()
-                    .anyMatch(u -> data.cpf().equals(u.getCpf()) && !u.getEmail().equalsIgnoreCase(user.getEmail()));
+            boolean cpfExists = identityService.isCpfTakenByAnother(data.cpf(), user.getEmail());
             
             if (cpfExists) {
+                // Desfaz a troca de e-mail já aplicada acima
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ResponseEntity.badRequest().body("O novo CPF já está cadastrado em outra conta.");
+            }
+            // O filtro pode estar defasado (outro nó, rebuild): a reserva no banco é quem decide
+            try {
+                identityService.changeCpf(user.getEmail(), user.getCpf(), data.cpf());
+            } catch (RuntimeException e) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
                 return ResponseEntity.badRequest().body("O novo CPF já está cadastrado em outra conta.");
             }
             user.setCpf(data.cpf());
@@ -373,4 +417,10 @@ public class UserController {
         String role, 
         String password
     ) {}
+
+    public record ImportJobStatus(UUID id, String status, String fileName, int lastRow, int created, int errors, String message) {}
+
+    public record ImportRowResult(int row, String status, String email, String message) {}
+
+    public record ImportReport(ImportJobStatus job, List<ImportRowResult> rows) {}
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.votzz.backend.core.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Porta única para o LLM (Gemini generateContent).
+ *
+ * - Um HttpClient compartilhado (conexões reaproveitadas, HTTP/2 quando o servidor aceita)
+ *   com timeout de conexão e de resposta; nada espera o upstream para sempre.
+ * - Bulkhead por raia: PUBLIC (rotas abertas como /api/chat/ask-ai e /api/ai/**) e INTERNAL
+ *   (resumos de assembleia, usuário autenticado). Cada raia tem seu limite de chamadas
+ *   simultâneas; quem não consegue vaga em max-wait-ms recebe o fallback na hora, então um
+ *   pico na rota pública prende no máximo public-max-concurrent threads do Tomcat.
+ * - Disjuntor compartilhado: com o upstream falhando ou lento, as chamadas são recusadas
+ *   sem sair da máquina até o teste de meio-aberto passar.
+ *
+ * Nunca lança: devolve um AiReply com o resultado, e quem chama decide o texto de fallback.
+ * Com votzz.ai.transport=stub o endereço do StubAiServer local substitui o do Google.
+ */
+@Component
+@Slf4j
+public class AiGateway {
+
+    public static final String FALLBACK_MESSAGE =
+            "A S.I.R.I.U.S. está indisponível no momento. Por favor, tente novamente em instantes ou contate **suporte@votzz.com.br**.";
+
+    public enum Lane { PUBLIC, INTERNAL }
+
+    public enum Outcome { OK, EMPTY, ERROR, TIMEOUT, REJECTED, OPEN, DISABLED }
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<StubAiServer> stubServer;
+
+    @Value("${votzz.ai.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String baseUrl;
+
+    @Value("${gemini.api.key:}")
+    private String apiKey;
+
+    @Value("${votzz.ai.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${votzz.ai.read-timeout-ms:20000}")
+    private long readTimeoutMs;
+
+    // Resumo de assembleia inteira demora mais que uma pergunta curta
+    @Value("${votzz.ai.internal-read-timeout-ms:60000}")
+    private long internalReadTimeoutMs;
+
+    @Value("${votzz.ai.bulkhead.public-max-concurrent:8}")
+    private int publicMaxConcurrent;
+
+    @Value("${votzz.ai.bulkhead.internal-max-concurrent:4}")
+    private int internalMaxConcurrent;
+
+    @Value("${votzz.ai.bulkhead.max-wait-ms:100}")
+    private long maxWaitMs;
+
+    @Value("${votzz.ai.breaker.window:20}")
+    private int breakerWindow;
+
+    @Value("${votzz.ai.breaker.min-calls:10}")
+    private int breakerMinCalls;
+
+    @Value("${votzz.ai.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${votzz.ai.breaker.open-seconds:30}")
+    private long breakerOpenSeconds;
+
+    private HttpClient httpClient;
+    private ExecutorService httpExecutor;
+    private CircuitBreaker breaker;
+    private final Map<Lane, Semaphore> bulkheads = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> limits = new EnumMap<>(Lane.class);
+    private String endpoint;
+
+    public AiGateway(ObjectMapper objectMapper, MeterRegistry meterRegistry, ObjectProvider<StubAiServer> stubServer) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.stubServer = stubServer;
+    }
+
+    @PostConstruct
+    public void start() {
+        StubAiServer stub = stubServer.getIfAvailable();
+        this.endpoint = stub != null ? stub.getBaseUrl() : baseUrl.replaceAll("/+$", "");
+        if (stub != null) log.info("IA apontando para o stub local {}", endpoint);
+
+        // Threads internas do HttpClient (seleção/IO); as chamadas em si rodam na thread de quem pede
+        AtomicInteger seq = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "ai-http-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(httpExecutor)
+                .build();
+        this.breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, breakerFailureRate,
+                TimeUnit.SECONDS.toMillis(breakerOpenSeconds));
+
+        limits.put(Lane.PUBLIC, Math.max(1, publicMaxConcurrent));
+        limits.put(Lane.INTERNAL, Math.max(1, internalMaxConcurrent));
+        for (Lane lane : Lane.values()) {
+            Semaphore bulkhead = new Semaphore(limits.get(lane));
+            bulkheads.put(lane, bulkhead);
+            int limit = limits.get(lane);
+            Gauge.builder("votzz.ai.inflight", bulkhead, s -> limit - s.availablePermits())
+                    .description("Chamadas ao LLM em andamento")
+                    .tag("lane", lane.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("votzz.ai.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("0 = fechado, 1 = meio-aberto, 2 = aberto")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpExecutor.shutdownNow();
+    }
+
+    /**
+     * Gera uma resposta para o prompt. Nunca bloqueia além de max-wait-ms + timeouts.
+     */
+    public AiReply generate(Lane lane, String model, String prompt) {
+        long start = System.nanoTime();
+        AiReply reply = call(lane, model, prompt);
+        Timer.builder("votzz.ai.requests")
+                .description("Chamadas ao LLM por raia e resultado")
+                .tag("lane", lane.name().toLowerCase())
+                .tag("outcome", reply.outcome().name().toLowerCase())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return reply;
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    private AiReply call(Lane lane, String model, String prompt) {
+        if (apiKey.isBlank() && stubServer.getIfAvailable() == null) return AiReply.of(Outcome.DISABLED);
+        if (!breaker.tryAcquire()) return AiReply.of(Outcome.OPEN);
+
+        Semaphore bulkhead = bulkheads.get(lane);
+        try {
+            if (!bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                breaker.release();
+                log.warn("IA: raia {} cheia ({} simultâneas), pedido recusado.", lane, limits.get(lane));
+                return AiReply.of(Outcome.REJECTED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.release();
+            return AiReply.of(Outcome.REJECTED);
+        }
+
+        try {
+            return send(lane, model, prompt);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private AiReply send(Lane lane, String model, String prompt) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of(
+                    "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt))))));
+            // Chave no cabeçalho, não na URL: não vaza em log nem em mensagem de erro
+            HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + "/models/" + model + ":generateContent"))
+                    .timeout(Duration.ofMillis(lane == Lane.INTERNAL ? internalReadTimeoutMs : readTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .header("x-goog-api-key", apiKey.trim())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+            int status = response.statusCode();
+            if (status == 429 || status >= 500) {
+                breaker.onFailure();
+                log.warn("IA: upstream respondeu HTTP {} ({}).", status, model);
+                return AiReply.of(Outcome.ERROR);
+            }
+            // 4xx de requisição (modelo, chave) não é sinal de upstream doente
+            breaker.onSuccess();
+            if (status >= 400) {
+                log.error("IA: requisição recusada com HTTP {} ({}).", status, model);
+                return AiReply.of(Outcome.ERROR);
+            }
+            JsonNode text = objectMapper.readTree(response.body())
+                    .path("candidates").path(0).path("content").path("parts").path(0).path("text");
+            return text.isTextual() ? new AiReply(text.asText(), Outcome.OK) : AiReply.of(Outcome.EMPTY);
+        } catch (HttpTimeoutException e) {
+            breaker.onFailure();
+            log.warn("IA: timeout na raia {} ({}).", lane, model);
+            return AiReply.of(Outcome.TIMEOUT);
+        } catch (IOException e) {
+            breaker.onFailure();
+            log.warn("IA: falha de comunicação ({}): {}", model, e.getMessage());
+            return AiReply.of(Outcome.ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.release();
+            return AiReply.of(Outcome.ERROR);
+        }
+    }
+
+    public record AiReply(String text, Outcome outcome) {
+        static AiReply of(Outcome outcome) {
+            return new AiReply(null, outcome);
+        }
+
+        public boolean isOk() {
+            return outcome == Outcome.OK;
+        }
+
+        public String textOr(String fallback) {
+            return isOk() ? text : fallback;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.votzz.backend.core.ai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disjuntor por contagem: olha os últimos {@code windowSize} resultados e abre quando a
+ * taxa de falha passa de {@code failureRate} (com pelo menos {@code minCalls} na janela).
+ *
+ * Aberto, recusa na hora durante {@code openMillis}; depois deixa passar uma única chamada
+ * de teste (meio-aberto). Sucesso fecha e zera a janela, falha abre de novo.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final boolean[] window;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int windowSize, int minCalls, double failureRate, long openMillis) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+        this.failureRate = failureRate;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * true = pode chamar; quem recebe true deve informar o resultado com onSuccess/onFailure
+     * (ou release, se a chamada nem chegou a sair).
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) return true;
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        // HALF_OPEN: uma chamada de teste por vez
+        if (probeInFlight) return false;
+        probeInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minCalls && failures >= failureRate * recorded) open();
+    }
+
+    /**
+     * Permissão devolvida sem resultado (ex.: recusada pelo bulkhead depois do disjuntor).
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        probeInFlight = false;
+    }
+}
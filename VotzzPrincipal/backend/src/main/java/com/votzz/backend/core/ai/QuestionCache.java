@@ -0,0 +1,236 @@
+package com.votzz.backend.core.ai;
+
+import com.votzz.backend.core.minhash.MinHash;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de respostas por pergunta normalizada, com casamento de quase-duplicatas.
+ *
+ * A pergunta é normalizada (minúsculas, sem acento, sem pontuação, sem palavras vazias,
+ * palavras em ordem alfabética). Igual a uma já respondida para o mesmo perfil = acerto
+ * exato ("Quais são os planos?" = "quais sao os planos da Votzz"). Senão, os trigramas de
+ * caracteres passam por MinHash + LSH e os candidatos da mesma banda são conferidos pelo
+ * Jaccard exato (>= threshold): "programa de afiliados" responde "programa de afiliado".
+ * Números precisam bater exatamente ("80 unidades" nunca responde "200 unidades").
+ *
+ * LRU limitado a maxEntries, com TTL. Operações de microssegundos sob um único lock.
+ */
+public class QuestionCache {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos", "e", "em", "na", "no",
+            "nas", "nos", "para", "pra", "pro", "por", "com", "que", "se", "me", "eu", "voce", "voces", "vc", "vcs",
+            "ao", "aos", "sao", "eh", "ser", "tem", "ha", "la", "ai", "ola", "oi", "bom", "boa", "dia", "tarde",
+            "noite", "favor", "obrigado", "obrigada", "gostaria", "queria", "quero", "saber", "sobre", "votzz",
+            "sirius", "s", "i", "r", "u", "disponivel", "disponiveis", "atual", "atuais", "atualmente", "hoje");
+
+    private final MinHash minHash = new MinHash(BANDS * ROWS, 0x5151_2024L);
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final double threshold;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QuestionCache(int maxEntries, long ttlSeconds, double threshold) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Resposta guardada para a pergunta (ou uma quase igual) no mesmo perfil; null = não há.
+     */
+    public String get(String role, String question) {
+        String r = role != null ? role : "";
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry exact = entries.get(r + '\u001F' + normalized);
+            if (exact != null) {
+                if (!expired(exact, now)) {
+                    exactHits.increment();
+                    return exact.answer;
+                }
+                remove(exact);
+            }
+        }
+        if (threshold < 1.0) {
+            // Assinatura só no caminho de quase-duplicata, fora do lock
+            Key key = key(r, normalized);
+            synchronized (this) {
+                Entry best = null;
+                double bestScore = threshold;
+                for (long band : key.bands()) {
+                    List<Entry> bucket = buckets.get(band);
+                    if (bucket == null) continue;
+                    for (Entry candidate : bucket) {
+                        if (!candidate.role.equals(key.role()) || !candidate.numbers.equals(key.numbers())) continue;
+                        double score = MinHash.jaccard(candidate.shingles, key.shingles());
+                        if (score >= bestScore) {
+                            best = candidate;
+                            bestScore = score;
+                        }
+                    }
+                }
+                if (best != null) {
+                    if (!expired(best, now)) {
+                        entries.get(best.exactKey); // conta como uso no LRU
+                        nearHits.increment();
+                        return best.answer;
+                    }
+                    remove(best);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String role, String question, String answer) {
+        String normalized = normalize(question);
+        if (normalized.isEmpty() || answer == null) return;
+        Key key = key(role != null ? role : "", normalized);
+        Entry entry = new Entry(key.exact(), key.role(), key.shingles(), key.numbers(), key.bands(), answer, System.nanoTime());
+        synchronized (this) {
+            Entry previous = entries.get(key.exact());
+            if (previous != null) remove(previous);
+            entries.put(entry.exactKey, entry);
+            for (long band : entry.bands) buckets.computeIfAbsent(band, k -> new ArrayList<>(2)).add(entry);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                Entry old = eldest.next();
+                eldest.remove();
+                unindex(old);
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        buckets.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getExactHits() {
+        return exactHits.sum();
+    }
+
+    public long getNearHits() {
+        return nearHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * "Quais são os Planos?!" -> "planos quais".
+     */
+    static String normalize(String question) {
+        if (question == null) return "";
+        String plain = MARKS.matcher(Normalizer.normalize(question, Normalizer.Form.NFD)).replaceAll("");
+        TreeSet<String> words = new TreeSet<>();
+        for (String w : NON_WORD.split(plain.toLowerCase(Locale.ROOT))) {
+            if (!w.isEmpty() && !STOPWORDS.contains(w)) words.add(w);
+        }
+        return String.join(" ", words);
+    }
+
+    private Key key(String r, String normalized) {
+        // Trigramas de caracteres: depois do normalize só sobra ASCII, 7 bits por caractere
+        String padded = " " + normalized + " ";
+        int[] shingles = new int[padded.length() - 2];
+        for (int i = 0; i < shingles.length; i++) {
+            shingles[i] = padded.charAt(i) << 14 | padded.charAt(i + 1) << 7 | padded.charAt(i + 2);
+        }
+        Arrays.sort(shingles);
+        shingles = Arrays.stream(shingles).distinct().toArray();
+
+        TreeSet<String> numbers = new TreeSet<>();
+        NUMBER.matcher(normalized).results().forEach(m -> numbers.add(m.group()));
+
+        // Perfil entra na chave da banda: perguntas iguais de perfis diferentes nem viram candidatas
+        long[] bands = minHash.bandKeys(minHash.signature(shingles), BANDS, ROWS);
+        long roleHash = r.hashCode() * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < bands.length; i++) bands[i] ^= roleHash;
+        return new Key(r + '\u001F' + normalized, r, shingles, numbers.toString(), bands);
+    }
+
+    private boolean expired(Entry entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAt > ttlNanos;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.exactKey);
+        unindex(entry);
+    }
+
+    private void unindex(Entry entry) {
+        for (long band : entry.bands) {
+            List<Entry> bucket = buckets.get(band);
+            if (bucket == null) continue;
+            bucket.remove(entry);
+            if (bucket.isEmpty()) buckets.remove(band);
+        }
+    }
+
+    private record Key(String exact, String role, int[] shingles, String numbers, long[] bands) {}
+
+    private static final class Entry {
+        final String exactKey;
+        final String role;
+        final int[] shingles;
+        final String numbers;
+        final long[] bands;
+        final String answer;
+        final long createdAt;
+
+        Entry(String exactKey, String role, int[] shingles, String numbers, long[] bands, String answer, long createdAt) {
+            this.exactKey = exactKey;
+            this.role = role;
+            this.shingles = shingles;
+            this.numbers = numbers;
+            this.bands = bands;
+            this.answer = answer;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.votzz.backend.core.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP falso no formato do Gemini generateContent, para desenvolvimento local e
+ * testes de carga (votzz.ai.transport=stub). Nada sai da máquina: o AiGateway passa a
+ * apontar para 127.0.0.1 e o caminho real (HttpClient, bulkhead, disjuntor) é exercitado.
+ *
+ * latency-ms simula um upstream lento (para ver timeout e bulkhead); error-rate devolve
+ * HTTP 503 nessa fração dos pedidos (para ver o disjuntor abrir); max-prompt-chars recusa
+ * com HTTP 400 prompts maiores que isso, como o limite de contexto de um modelo real.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "votzz.ai.transport", havingValue = "stub")
+public class StubAiServer {
+
+    // 0 = porta livre qualquer
+    @Value("${votzz.ai.stub.port:0}")
+    private int port;
+
+    @Value("${votzz.ai.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${votzz.ai.stub.error-rate:0}")
+    private double errorRate;
+
+    // 0 = sem limite
+    @Value("${votzz.ai.stub.max-prompt-chars:0}")
+    private int maxPromptChars;
+
+    @Value("${votzz.ai.stub.threads:32}")
+    private int threads;
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubAiServer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "stub-ai-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("[stub-ai] ouvindo em {}", getBaseUrl());
+    }
+
+    @PreDestroy
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith(":generateContent")) {
+                reply(exchange, 404, Map.of("error", Map.of("code", 404, "message", "not found (stub)")));
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            pause(latencyMs);
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                reply(exchange, 503, Map.of("error", Map.of("code", 503, "message", "unavailable (stub)")));
+                return;
+            }
+            String prompt = request.path("contents").path(0).path("parts").path(0).path("text").asText("");
+            if (maxPromptChars > 0 && prompt.length() > maxPromptChars) {
+                reply(exchange, 400, Map.of("error", Map.of("code", 400, "message", "prompt too long (stub)")));
+                return;
+            }
+            String text = "[stub] Resposta simulada para um prompt de " + prompt.length() + " caracteres.";
+            reply(exchange, 200, Map.of("candidates", List.of(
+                    Map.of("content", Map.of("parts", List.of(Map.of("text", text)))))));
+        }
+    }
+
+    private void reply(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void pause(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.votzz.backend.core.cluster;
+
+import com.votzz.backend.core.cluster.TopicRelay.RelayedMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Interceptor do brokerChannel: toda mensagem publicada em /topic/** neste nó é
+ * repassada ao {@link TopicRelay}, e o que chega dos outros nós é reinjetado no
+ * simple broker local marcado como "relayed" (para não voltar ao relay).
+ *
+ * Mensagens para /user/{id}/** também são repassadas antes de resolvidas: cada nó
+ * entrega para as sessões do usuário que estiverem conectadas nele.
+ *
+ * Mensagens com o header nativo {@value #LOCAL_ONLY_HEADER} ficam só neste nó
+ * (ex: total de presença, que cada nó soma e envia só aos próprios clientes).
+ */
+@Component
+@Slf4j
+public class ClusterFanOut implements ChannelInterceptor {
+
+    public static final String LOCAL_ONLY_HEADER = "x-votzz-local";
+    private static final String RELAYED_HEADER = "votzzRelayed";
+
+    private final TopicRelay relay;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ClusterFanOut(TopicRelay relay, ObjectProvider<SimpMessagingTemplate> messagingTemplate, ApplicationEventPublisher eventPublisher) {
+        this.relay = relay;
+        this.messagingTemplate = messagingTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relay.subscribe(this::deliverLocally);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getMessageType() != SimpMessageType.MESSAGE) return message;
+
+        String destination = accessor.getDestination();
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) return message;
+        if (accessor.getHeader(RELAYED_HEADER) != null) return message;
+        if (accessor.getFirstNativeHeader(LOCAL_ONLY_HEADER) != null) return message;
+
+        if (message.getPayload() instanceof byte[] payload) {
+            MimeType contentType = accessor.getContentType();
+            relay.publish(destination, contentType != null ? contentType.toString() : null, payload);
+        }
+        return message;
+    }
+
+    private void deliverLocally(RelayedMessage relayed) {
+        try {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(relayed.destination());
+            if (relayed.contentType() != null) accessor.setContentType(MimeType.valueOf(relayed.contentType()));
+            accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+            accessor.setLeaveMutable(true);
+
+            messagingTemplate.getObject().send(relayed.destination(),
+                    MessageBuilder.createMessage(relayed.payload(), accessor.getMessageHeaders()));
+            eventPublisher.publishEvent(new RelayedTopicMessageEvent(relayed.destination(), relayed.payload()));
+        } catch (Exception e) {
+            log.error("Erro ao entregar mensagem de outro nó em {}: {}", relayed.destination(), e.getMessage());
+        }
+    }
+
+    /**
+     * Evento local para quem mantém estado derivado das mensagens (ex: janela do chat).
+     */
+    public record RelayedTopicMessageEvent(String destination, byte[] payload) {}
+}
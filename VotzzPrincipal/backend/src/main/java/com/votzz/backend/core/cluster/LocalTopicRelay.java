@@ -0,0 +1,24 @@
+package com.votzz.backend.core.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Modo nó único: o simple broker já entrega tudo dentro da JVM, não há o que repassar.
+ */
+@Component
+@ConditionalOnProperty(name = "votzz.cluster.relay", havingValue = "local", matchIfMissing = true)
+public class LocalTopicRelay implements TopicRelay {
+
+    @Override
+    public void publish(String destination, String contentType, byte[] payload) {
+        // nada a fazer
+    }
+
+    @Override
+    public void subscribe(Consumer<RelayedMessage> consumer) {
+        // nenhum outro nó
+    }
+}
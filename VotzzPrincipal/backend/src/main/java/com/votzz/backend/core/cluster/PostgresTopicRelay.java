@@ -0,0 +1,223 @@
+package com.votzz.backend.core.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out entre nós via Postgres LISTEN/NOTIFY.
+ *
+ * Cada nó publica com pg_notify em uma thread própria (o envio STOMP nunca espera o
+ * banco) e escuta o canal em uma conexão dedicada. O NOTIFY aceita no máximo ~8 KB,
+ * então payloads maiores vão para a tabela ws_relay_payload e só a referência é
+ * notificada. Mensagens repetidas e as do próprio nó são descartadas pelo id.
+ *
+ * Entrega "at most once": se a conexão de escuta cair, o que for publicado até a
+ * reconexão não chega neste nó. Para chat/presença/status isso é aceitável.
+ */
+@Component
+@ConditionalOnProperty(name = "votzz.cluster.relay", havingValue = "postgres")
+@Slf4j
+public class PostgresTopicRelay implements TopicRelay {
+
+    private static final int DEDUP_WINDOW = 10_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${votzz.cluster.relay.channel:votzz_ws}")
+    private String channel;
+
+    // Limite do envelope JSON que vai direto no NOTIFY (o Postgres corta em 8000 bytes)
+    @Value("${votzz.cluster.relay.inline-limit-bytes:7500}")
+    private int inlineLimitBytes;
+
+    // Acima disso a mensagem não é repassada (fica só no nó de origem)
+    @Value("${votzz.cluster.relay.max-payload-bytes:1048576}")
+    private int maxPayloadBytes;
+
+    @Value("${votzz.cluster.relay.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor publisher;
+    private Thread listener;
+    private volatile boolean running = true;
+    private volatile Consumer<RelayedMessage> consumer;
+
+    // Ids já vistos (LRU) para descartar entregas repetidas
+    private final Map<UUID, Boolean> seen = new LinkedHashMap<>(DEDUP_WINDOW, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+            return size() > DEDUP_WINDOW;
+        }
+    };
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter droppedCounter;
+    private final Counter duplicateCounter;
+
+    public PostgresTopicRelay(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.publishedCounter = meterRegistry.counter("votzz.ws.relay.published");
+        this.receivedCounter = meterRegistry.counter("votzz.ws.relay.received");
+        this.droppedCounter = meterRegistry.counter("votzz.ws.relay.dropped");
+        this.duplicateCounter = meterRegistry.counter("votzz.ws.relay.duplicates");
+    }
+
+    @PostConstruct
+    public void start() {
+        this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "ws-relay-publisher");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (task, executor) -> droppedCounter.increment());
+
+        this.listener = new Thread(this::listenLoop, "ws-relay-listener");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("Relay de WebSocket via Postgres ativo (nó {}, canal {}).", nodeId, channel);
+    }
+
+    @Override
+    public void publish(String destination, String contentType, byte[] payload) {
+        if (payload.length > maxPayloadBytes) {
+            droppedCounter.increment();
+            log.warn("Mensagem para {} com {} bytes não repassada aos outros nós (limite {}).", destination, payload.length, maxPayloadBytes);
+            return;
+        }
+        publisher.execute(() -> send(new Envelope(nodeId, UUID.randomUUID(), destination, contentType, payload, null)));
+    }
+
+    @Override
+    public void subscribe(Consumer<RelayedMessage> consumer) {
+        this.consumer = consumer;
+    }
+
+    // --- PUBLICAÇÃO ---
+
+    private void send(Envelope envelope) {
+        try {
+            String json = objectMapper.writeValueAsString(envelope);
+            if (json.getBytes(StandardCharsets.UTF_8).length > inlineLimitBytes) {
+                // Payload grande: grava na tabela e notifica só a referência
+                UUID ref = UUID.randomUUID();
+                jdbcTemplate.update("INSERT INTO ws_relay_payload (id, payload) VALUES (?, ?)", ref, envelope.payload());
+                json = objectMapper.writeValueAsString(
+                        new Envelope(envelope.origin(), envelope.id(), envelope.destination(), envelope.contentType(), null, ref));
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, json);
+            publishedCounter.increment();
+        } catch (Exception e) {
+            droppedCounter.increment();
+            log.error("Falha ao publicar no relay ({}): {}", envelope.destination(), e.getMessage());
+        }
+    }
+
+    // --- ESCUTA ---
+
+    private void listenLoop() {
+        long lastCleanup = 0;
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(true);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(500);
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) handle(n.getParameter());
+                    }
+                    if (System.currentTimeMillis() - lastCleanup > 60_000) {
+                        lastCleanup = System.currentTimeMillis();
+                        jdbcTemplate.update("DELETE FROM ws_relay_payload WHERE created_at < NOW() - INTERVAL '5 minutes'");
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                log.warn("Conexão de escuta do relay caiu, reconectando em 2s: {}", e.getMessage());
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String raw) {
+        try {
+            Envelope envelope = objectMapper.readValue(raw, Envelope.class);
+            if (nodeId.equals(envelope.origin())) return;
+            synchronized (seen) {
+                if (seen.putIfAbsent(envelope.id(), Boolean.TRUE) != null) {
+                    duplicateCounter.increment();
+                    return;
+                }
+            }
+
+            byte[] payload = envelope.payload();
+            if (payload == null && envelope.ref() != null) {
+                payload = jdbcTemplate.query("SELECT payload FROM ws_relay_payload WHERE id = ?",
+                        rs -> rs.next() ? rs.getBytes(1) : null, envelope.ref());
+            }
+            if (payload == null) {
+                droppedCounter.increment();
+                return;
+            }
+
+            receivedCounter.increment();
+            Consumer<RelayedMessage> target = consumer;
+            if (target != null) target.accept(new RelayedMessage(envelope.destination(), envelope.contentType(), payload));
+        } catch (Exception e) {
+            log.error("Mensagem inválida recebida do relay: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        listener.interrupt();
+    }
+
+    record Envelope(String origin, UUID id, String destination, String contentType, byte[] payload, UUID ref) {}
+}
@@ -0,0 +1,27 @@
+package com.votzz.backend.core.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Ponte entre nós para as mensagens publicadas em /topic/**.
+ *
+ * O broker STOMP é o simple broker em memória, então cada nó só entrega para os
+ * clientes conectados nele. A implementação ativa é escolhida por
+ * votzz.cluster.relay: "local" (padrão, nó único, nada sai da JVM) ou "postgres"
+ * (LISTEN/NOTIFY no banco que já usamos).
+ */
+public interface TopicRelay {
+
+    /**
+     * Envia a mensagem publicada localmente para os demais nós.
+     */
+    void publish(String destination, String contentType, byte[] payload);
+
+    /**
+     * Registra quem recebe as mensagens vindas de outros nós (já sem duplicatas
+     * e sem as mensagens do próprio nó).
+     */
+    void subscribe(Consumer<RelayedMessage> consumer);
+
+    record RelayedMessage(String destination, String contentType, byte[] payload) {}
+}
@@ -0,0 +1,121 @@
+package com.votzz.backend.core.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Transporte SMTP falso para desenvolvimento local e testes de integração
+ * (votzz.email.transport=stub). Nada sai da máquina: só o Transport é trocado, então as
+ * mensagens passam pelo mesmo doSend do JavaMailSender real (saveChanges, Message-ID) e
+ * ficam registradas em memória.
+ *
+ * Latências simuladas por conexão e por mensagem permitem comparar o envio unitário com
+ * o envio em lote; destinatários que casam com fail-pattern falham, para exercitar retry.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "votzz.email.transport", havingValue = "stub")
+public class StubMailSender extends JavaMailSenderImpl {
+
+    private static final int KEEP_LAST = 200;
+
+    @Value("${votzz.email.stub.connect-latency-ms:0}")
+    private long connectLatencyMs;
+
+    @Value("${votzz.email.stub.message-latency-ms:0}")
+    private long messageLatencyMs;
+
+    @Value("${votzz.email.stub.fail-pattern:}")
+    private String failPattern;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final Deque<SentMessage> lastSent = new ArrayDeque<>();
+
+    // Só a conexão é falsa: o doSend do JavaMailSenderImpl roda inteiro (data de envio,
+    // saveChanges preservando o Message-ID já existente, falhas parciais), como no SMTP real.
+    @Override
+    protected Transport connectTransport() {
+        connections.incrementAndGet();
+        pause(connectLatencyMs);
+        return new StubTransport(getSession(), failPattern.isBlank() ? null : Pattern.compile(failPattern));
+    }
+
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public synchronized List<SentMessage> getLastSent() {
+        return new ArrayList<>(lastSent);
+    }
+
+    private synchronized void remember(SentMessage sent) {
+        if (lastSent.size() >= KEEP_LAST) lastSent.removeFirst();
+        lastSent.addLast(sent);
+        log.debug("[stub-smtp] {} -> {}", sent.messageId(), sent.to());
+    }
+
+    private static void pause(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StubTransport extends Transport {
+
+        private final Pattern fail;
+
+        StubTransport(Session session, Pattern fail) {
+            super(session, new URLName("smtp", "stub", -1, null, null, null));
+            this.fail = fail;
+            setConnected(true);
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            if (addresses == null || addresses.length == 0) throw new MessagingException("Mensagem sem destinatário");
+            List<String> list = new ArrayList<>();
+            for (Address a : addresses) list.add(a.toString());
+            String to = String.join(",", list);
+            pause(messageLatencyMs);
+            if (fail != null && fail.matcher(to).find()) {
+                throw new MessagingException("550 destinatário recusado (stub): " + to);
+            }
+            accepted.incrementAndGet();
+            remember(new SentMessage(((MimeMessage) message).getMessageID(), to, message.getSubject()));
+        }
+
+        @Override
+        public void close() {
+            setConnected(false);
+        }
+    }
+
+    public record SentMessage(String messageId, String to, String subject) {}
+}
@@ -0,0 +1,96 @@
+package com.votzz.backend.core.minhash;
+
+import java.util.Arrays;
+
+/**
+ * Assinaturas MinHash para estimar similaridade de Jaccard entre conjuntos de shingles.
+ *
+ * Cada posição da assinatura é o menor valor do conjunto sob uma permutação pseudoaleatória
+ * diferente; a fração de posições iguais entre duas assinaturas estima |A ∩ B| / |A ∪ B|.
+ * Dividida em bandas (LSH), a assinatura vira chaves de bucket: conjuntos parecidos caem
+ * juntos em pelo menos uma banda com alta probabilidade.
+ *
+ * Imutável e seguro para várias threads.
+ */
+public class MinHash {
+
+    private final long[] seedsA;
+    private final long[] seedsB;
+
+    public MinHash(int numHashes, long seed) {
+        this.seedsA = new long[Math.max(1, numHashes)];
+        this.seedsB = new long[seedsA.length];
+        long s = seed;
+        for (int i = 0; i < seedsA.length; i++) {
+            s = mix(s + 0x9E3779B97F4A7C15L);
+            seedsA[i] = s | 1; // multiplicador ímpar: a permutação não colapsa valores
+            s = mix(s + 0x9E3779B97F4A7C15L);
+            seedsB[i] = s;
+        }
+    }
+
+    public int size() {
+        return seedsA.length;
+    }
+
+    public int[] signature(int[] shingles) {
+        int[] sig = new int[seedsA.length];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < sig.length; i++) {
+                int h = (int) (mix(shingle * seedsA[i] + seedsB[i]) >>> 33);
+                if (h < sig[i]) sig[i] = h;
+            }
+        }
+        return sig;
+    }
+
+    /**
+     * Chaves LSH: uma por banda de {@code rows} posições (bands * rows <= size()).
+     */
+    public long[] bandKeys(int[] signature, int bands, int rows) {
+        long[] keys = new long[bands];
+        for (int b = 0; b < bands; b++) {
+            long h = 0xcbf29ce484222325L ^ b;
+            for (int r = 0; r < rows; r++) {
+                h ^= signature[b * rows + r];
+                h *= 0x100000001b3L;
+            }
+            keys[b] = mix(h);
+        }
+        return keys;
+    }
+
+    public static double estimate(int[] sigA, int[] sigB) {
+        int same = 0;
+        for (int i = 0; i < sigA.length; i++) if (sigA[i] == sigB[i]) same++;
+        return (double) same / sigA.length;
+    }
+
+    /**
+     * Jaccard exato entre dois arrays ordenados e sem repetição.
+     */
+    public static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 && b.length == 0) return 1.0;
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    // Finalizador do SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,40 @@
+package com.votzz.backend.core.pagination;
+
+import com.votzz.backend.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor opaco (Base64 URL-safe) de paginação por keyset em (created_at, id).
+ * Aponta para o último registro já entregue; a próxima página começa logo depois dele.
+ */
+public record KeysetCursor(LocalDateTime createdAt, UUID id) {
+
+    public static KeysetCursor decode(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(raw), StandardCharsets.UTF_8).split("\\|");
+            return new KeysetCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor de paginação inválido.");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * true se (at, otherId) vem antes deste cursor na ordem (created_at, id).
+     * Desempate pelo id em texto: mesma ordem que o Postgres usa para uuid.
+     */
+    public boolean isAfter(LocalDateTime at, UUID otherId) {
+        if (at == null) return true;
+        int cmp = at.compareTo(createdAt);
+        return cmp < 0 || (cmp == 0 && otherId.toString().compareTo(id.toString()) < 0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.votzz.backend.core.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket bloqueante: até {@code burst} permissões imediatas, reabastecido a
+ * {@code ratePerSecond}. Compartilhado entre threads; quem chama acquire espera a sua vez.
+ *
+ * Taxa <= 0 desliga o limite.
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserva n permissões e dorme o tempo necessário. A reserva é feita antes de dormir
+     * (tokens podem ficar negativos), então pedidos concorrentes entram em fila justa.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (ratePerNano <= 0 || permits <= 0) return;
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+        }
+        if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
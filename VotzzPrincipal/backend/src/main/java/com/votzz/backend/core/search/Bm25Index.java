@@ -0,0 +1,129 @@
+package com.votzz.backend.core.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice BM25 em memória para poucos milhares de documentos curtos.
+ *
+ * Termos: minúsculas, sem acento, sem palavras vazias e com um radical leve (plural e
+ * gênero: "convidadas" = "convidado"). Montado uma vez e imutável depois, então a busca
+ * não precisa de lock.
+ */
+public class Bm25Index {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos", "e", "em", "na", "no",
+            "nas", "nos", "para", "pra", "pro", "por", "com", "que", "se", "me", "eu", "voce", "voces", "vc", "vcs",
+            "ao", "aos", "sao", "eh", "ser", "tem", "ha", "como", "qual", "quais", "quando", "onde", "isso", "esse",
+            "essa", "este", "esta", "mais", "muito", "sim", "nao", "ou", "mas", "meu", "minha", "seu", "sua");
+
+    private final double k1;
+    private final double b;
+    private final int docCount;
+    private final int[] docLengths;
+    private final double avgLength;
+    // termo -> [doc0, tf0, doc1, tf1, ...]
+    private final Map<String, int[]> postings;
+
+    public Bm25Index(List<String> documents) {
+        this(documents, 1.2, 0.75);
+    }
+
+    public Bm25Index(List<String> documents, double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+        this.docCount = documents.size();
+        this.docLengths = new int[docCount];
+
+        Map<String, List<int[]>> building = new HashMap<>();
+        long total = 0;
+        for (int d = 0; d < docCount; d++) {
+            List<String> terms = tokenize(documents.get(d));
+            docLengths[d] = terms.size();
+            total += terms.size();
+            Map<String, Integer> tf = new HashMap<>();
+            for (String t : terms) tf.merge(t, 1, Integer::sum);
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                building.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(new int[]{d, e.getValue()});
+            }
+        }
+        this.avgLength = docCount == 0 ? 0 : (double) total / docCount;
+        this.postings = new HashMap<>(building.size() * 2);
+        building.forEach((term, list) -> {
+            int[] flat = new int[list.size() * 2];
+            for (int i = 0; i < list.size(); i++) {
+                flat[2 * i] = list.get(i)[0];
+                flat[2 * i + 1] = list.get(i)[1];
+            }
+            postings.put(term, flat);
+        });
+    }
+
+    public int size() {
+        return docCount;
+    }
+
+    /**
+     * Até k documentos com pontuação > 0, do mais relevante para o menos.
+     * Termo repetido na consulta conta uma vez.
+     */
+    public List<Hit> search(String query, int k) {
+        if (docCount == 0 || k <= 0) return List.of();
+        double[] scores = new double[docCount];
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            int[] list = postings.get(term);
+            if (list == null) continue;
+            int df = list.length / 2;
+            double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            for (int i = 0; i < list.length; i += 2) {
+                int doc = list[i];
+                int tf = list[i + 1];
+                double norm = k1 * (1 - b + b * docLengths[doc] / avgLength);
+                scores[doc] += idf * tf * (k1 + 1) / (tf + norm);
+            }
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (int d = 0; d < docCount; d++) if (scores[d] > 0) hits.add(new Hit(d, scores[d]));
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String w : NON_WORD.split(plain.toLowerCase(Locale.ROOT))) {
+            if (w.isEmpty() || STOPWORDS.contains(w)) continue;
+            terms.add(stem(w));
+        }
+        return terms;
+    }
+
+    // Radical leve para português: plurais, feminino/masculino e infinitivo mais comuns
+    static String stem(String w) {
+        if (w.length() <= 3 || Character.isDigit(w.charAt(0))) return w;
+        if (w.endsWith("oes") || w.endsWith("aes")) w = w.substring(0, w.length() - 3) + "ao";
+        else if (w.endsWith("ais")) w = w.substring(0, w.length() - 3) + "al";
+        else if (w.endsWith("eis")) w = w.substring(0, w.length() - 3) + "el";
+        else if (w.endsWith("ns")) w = w.substring(0, w.length() - 2) + "m";
+        else if (w.endsWith("res") || w.endsWith("zes")) w = w.substring(0, w.length() - 2);
+        else if (w.endsWith("s") && !w.endsWith("ss")) w = w.substring(0, w.length() - 1);
+        else if (w.length() > 4 && (w.endsWith("ar") || w.endsWith("er") || w.endsWith("ir"))) w = w.substring(0, w.length() - 2);
+        if (w.length() > 3 && (w.endsWith("a") || w.endsWith("o") || w.endsWith("e"))) w = w.substring(0, w.length() - 1);
+        return w;
+    }
+
+    public record Hit(int doc, double score) {}
+}
@@ -0,0 +1,132 @@
+package com.votzz.backend.core.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template mínimo para e-mails: compilado uma vez em trechos estáticos intercalados com
+ * slots. {{nome}} é escapado para HTML, {{{nome}}} entra cru (assunto, HTML confiável).
+ *
+ * bind() faz avaliação parcial: preenche alguns slots (ex.: nome do condomínio no cabeçalho
+ * e rodapé) e funde os trechos estáticos, gerando outro template que pode ser guardado em
+ * cache. render() escreve só os slots restantes num StringBuilder reaproveitado por thread.
+ * Imutável e seguro para várias threads.
+ */
+public final class HtmlTemplate {
+
+    private static final int INITIAL_BUFFER = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER));
+
+    // statics.length == slots.length + 1: static[0] slot[0] static[1] ... static[n]
+    private final String[] statics;
+    private final String[] slots;
+    private final boolean[] raw;
+    private final int staticLength;
+
+    private HtmlTemplate(String[] statics, String[] slots, boolean[] raw) {
+        this.statics = statics;
+        this.slots = slots;
+        this.raw = raw;
+        int len = 0;
+        for (String s : statics) len += s.length();
+        this.staticLength = len;
+    }
+
+    public static HtmlTemplate compile(String source) {
+        List<String> statics = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) break;
+            boolean triple = source.startsWith("{{{", open);
+            String close = triple ? "}}}" : "}}";
+            int nameStart = open + (triple ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) throw new IllegalArgumentException("Slot sem fechamento na posição " + open);
+            statics.add(source.substring(pos, open));
+            slots.add(source.substring(nameStart, end).trim());
+            raw.add(triple);
+            pos = end + close.length();
+        }
+        statics.add(source.substring(pos));
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) rawFlags[i] = raw.get(i);
+        return new HtmlTemplate(statics.toArray(new String[0]), slots.toArray(new String[0]), rawFlags);
+    }
+
+    /**
+     * Preenche os slots presentes em values e devolve um template só com os demais.
+     */
+    public HtmlTemplate bind(Map<String, String> values) {
+        List<String> newStatics = new ArrayList<>();
+        List<String> newSlots = new ArrayList<>();
+        List<Boolean> newRaw = new ArrayList<>();
+        StringBuilder current = new StringBuilder(statics[0]);
+        for (int i = 0; i < slots.length; i++) {
+            if (values.containsKey(slots[i])) {
+                append(current, values.get(slots[i]), raw[i]);
+            } else {
+                newStatics.add(current.toString());
+                newSlots.add(slots[i]);
+                newRaw.add(raw[i]);
+                current.setLength(0);
+            }
+            current.append(statics[i + 1]);
+        }
+        newStatics.add(current.toString());
+
+        boolean[] rawFlags = new boolean[newRaw.size()];
+        for (int i = 0; i < rawFlags.length; i++) rawFlags[i] = newRaw.get(i);
+        return new HtmlTemplate(newStatics.toArray(new String[0]), newSlots.toArray(new String[0]), rawFlags);
+    }
+
+    /**
+     * Renderiza no buffer da thread; slot sem valor vira vazio.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        renderTo(out, values);
+        String result = out.toString();
+        // Não segura indefinidamente um buffer inflado por um e-mail fora da curva
+        if (out.capacity() > MAX_RETAINED_BUFFER) BUFFER.remove();
+        return result;
+    }
+
+    public void renderTo(StringBuilder out, Map<String, String> values) {
+        out.ensureCapacity(out.length() + staticLength + 64 * slots.length);
+        out.append(statics[0]);
+        for (int i = 0; i < slots.length; i++) {
+            append(out, values.get(slots[i]), raw[i]);
+            out.append(statics[i + 1]);
+        }
+    }
+
+    public int slotCount() {
+        return slots.length;
+    }
+
+    private static void append(StringBuilder out, String value, boolean raw) {
+        if (value == null) return;
+        if (raw) {
+            out.append(value);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -25,6 +25,10 @@ public class AuditLog {
     
     @Column(name = "user_name")
     private String userName;     
+
+    // Papel de quem executou a ação, gravado no momento do log (ADMIN, SINDICO, MORADOR...)
+    @Column(name = "actor_role")
+    private String actorRole;
     
     // --- CORREÇÃO DEFINITIVA AQUI ---
     // O @JsonIgnore impede que o Jackson tente ler o Proxy do Hibernate
@@ -2,6 +2,7 @@ package com.votzz.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.votzz.backend.domain.event.TenantChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
@@ -11,6 +12,7 @@ import java.util.UUID;
 @Data
 @Entity
 @Table(name = "tenants")
+@EntityListeners(TenantChangeListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Tenant {
 
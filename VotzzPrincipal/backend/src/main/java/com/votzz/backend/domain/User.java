@@ -2,6 +2,7 @@ package com.votzz.backend.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.votzz.backend.domain.enums.Role;
+import com.votzz.backend.domain.event.UserChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 public class User implements UserDetails {
 
     @Id
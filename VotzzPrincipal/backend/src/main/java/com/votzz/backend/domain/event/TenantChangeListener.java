@@ -0,0 +1,27 @@
+package com.votzz.backend.domain.event;
+
+import com.votzz.backend.domain.Tenant;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de {@link Tenant}: cobre todos os pontos que ativam, bloqueiam ou trocam
+ * o plano de um condomínio sem espalhar publicação de evento pelos serviços.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Tenant tenant) {
+        eventPublisher.publishEvent(new TenantChangedEvent(tenant.getId()));
+    }
+}
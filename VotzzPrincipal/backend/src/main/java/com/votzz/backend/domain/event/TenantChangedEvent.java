@@ -0,0 +1,8 @@
+package com.votzz.backend.domain.event;
+
+import java.util.UUID;
+
+/**
+ * Publicado quando um condomínio é criado, alterado ou removido (ativo, plano, status).
+ */
+public record TenantChangedEvent(UUID tenantId) {}
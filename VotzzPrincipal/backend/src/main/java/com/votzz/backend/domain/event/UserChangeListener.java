@@ -0,0 +1,32 @@
+package com.votzz.backend.domain.event;
+
+import com.votzz.backend.domain.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de {@link User}: avisa o AudienceResolver sobre cadastros novos,
+ * removidos ou alterados. Quem decide se a alteração afeta o público (e-mail, perfil,
+ * bloco, unidades) é o resolver; o last_seen gravado a cada requisição não derruba índice.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(User user) {
+        eventPublisher.publishEvent(UserChangedEvent.of(user, false));
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        eventPublisher.publishEvent(UserChangedEvent.of(user, true));
+    }
+}
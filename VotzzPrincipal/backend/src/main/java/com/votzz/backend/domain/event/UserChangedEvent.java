@@ -0,0 +1,32 @@
+package com.votzz.backend.domain.event;
+
+import com.votzz.backend.domain.Tenant;
+import com.votzz.backend.domain.User;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Publicado pelo UserChangeListener. units == null quando a coleção não foi carregada
+ * (e portanto não mudou nesta transação).
+ */
+public record UserChangedEvent(UUID userId, Collection<UUID> tenantIds, boolean removed,
+                               String email, String role, String bloco, String unidade, List<String> units) {
+
+    public static UserChangedEvent of(User user, boolean removed) {
+        List<UUID> tenants = new ArrayList<>();
+        if (user.getTenant() != null) tenants.add(user.getTenant().getId());
+        if (user.getTenants() != null && Hibernate.isInitialized(user.getTenants())) {
+            for (Tenant t : user.getTenants()) if (!tenants.contains(t.getId())) tenants.add(t.getId());
+        }
+        List<String> units = user.getUnidadesList() != null && Hibernate.isInitialized(user.getUnidadesList())
+                ? new ArrayList<>(user.getUnidadesList()) : null;
+        String email = user.getEmail() != null ? user.getEmail().trim().toLowerCase(Locale.ROOT) : null;
+        return new UserChangedEvent(user.getId(), tenants, removed, email,
+                user.getRole() != null ? user.getRole().name() : null, user.getBloco(), user.getUnidade(), units);
+    }
+}
@@ -0,0 +1,9 @@
+package com.votzz.backend.dto;
+
+import java.util.List;
+
+// Página de uma pasta do diretório; nextCursor = null na última página
+public record UserDirectoryPage(
+    List<UserDTO> items,
+    String nextCursor
+) {}
@@ -0,0 +1,8 @@
+package com.votzz.backend.dto;
+
+// key = AFILIADOS, SEM_CONDOMINIO ou o id do condomínio
+public record UserFolder(
+    String key,
+    String nome,
+    long count
+) {}
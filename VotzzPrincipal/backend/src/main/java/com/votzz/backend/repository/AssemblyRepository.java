@@ -1,11 +1,14 @@
 package com.votzz.backend.repository;
 
 import com.votzz.backend.domain.Assembly;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -17,4 +20,14 @@ public interface AssemblyRepository extends JpaRepository<Assembly, UUID> {
 
     // Lista todas por status e condomínio
     List<Assembly> findByTenantIdAndStatus(UUID tenantId, String status);
+
+    // Votos: FOR SHARE (não bloqueiam entre si, mas o encerramento espera todos terminarem)
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT a FROM Assembly a WHERE a.id = :id")
+    Optional<Assembly> findByIdForVote(@Param("id") UUID id);
+
+    // Encerramento: FOR UPDATE (espera votos em andamento; votos novos já leem ENCERRADA)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Assembly a WHERE a.id = :id")
+    Optional<Assembly> findByIdForClose(@Param("id") UUID id);
 }
\ No newline at end of file
@@ -17,4 +17,7 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
     // Adicione para buscar logs por período (para provar presença/acessos)
     List<AuditLog> findByTenantIdAndCreatedAtBetween(UUID tenantId, LocalDateTime start, LocalDateTime end);
 
+    // Tela de auditoria do Super Admin (índice parcial em actor_role = 'ADMIN')
+    List<AuditLog> findTop100ByActorRoleOrderByCreatedAtDesc(String actorRole);
+
 }
\ No newline at end of file
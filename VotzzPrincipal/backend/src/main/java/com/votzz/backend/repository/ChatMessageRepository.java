@@ -2,8 +2,11 @@ package com.votzz.backend.repository;
 
 import com.votzz.backend.domain.ChatMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +15,22 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
     // Busca mensagens ordenadas pela data de criação (herdada de BaseEntity)
     List<ChatMessage> findByAssemblyIdOrderByCreatedAtAsc(UUID assemblyId);
 
-}
\ No newline at end of file
+    /**
+     * Janela mais recente do chat (ordem decrescente). Usa o índice (assembly_id, created_at, id).
+     */
+    @Query(value = "SELECT * FROM chat_message WHERE assembly_id = :assemblyId " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<ChatMessage> findLatest(@Param("assemblyId") UUID assemblyId, @Param("limit") int limit);
+
+    /**
+     * Paginação por keyset: mensagens estritamente anteriores ao cursor (created_at, id),
+     * em ordem decrescente. Não faz OFFSET, então o custo não cresce com o tamanho do histórico.
+     */
+    @Query(value = "SELECT * FROM chat_message WHERE assembly_id = :assemblyId " +
+                   "AND (created_at, id) < (:beforeAt, :beforeId) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<ChatMessage> findPageBefore(@Param("assemblyId") UUID assemblyId,
+                                     @Param("beforeAt") LocalDateTime beforeAt,
+                                     @Param("beforeId") UUID beforeId,
+                                     @Param("limit") int limit);
+}
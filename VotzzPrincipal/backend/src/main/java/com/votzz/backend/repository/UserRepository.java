@@ -29,6 +29,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     List<User> findAllByEmailOrCpf(String email, String cpf);
 
+    // Unidades do mesmo morador no condomínio (prefixo do índice idx_users_cpf_tenant_unit)
+    List<User> findByCpfAndTenant_Id(String cpf, UUID tenantId);
+
     // --- ALTERAÇÃO IMPORTANTE AQUI ---
     // Substituímos o método simples por uma Query que olha as duas tabelas.
     // Isso garante que Síndicos Profissionais (Multi-Tenant) e Moradores Comuns sejam encontrados.
@@ -9,6 +9,8 @@ import com.votzz.backend.domain.enums.Role;
 import com.votzz.backend.dto.AdminDashboardStats;
 import com.votzz.backend.dto.UserDTO;
 import com.votzz.backend.repository.*;
+import com.votzz.backend.service.AuditWriter.AuditEvent;
+import com.votzz.backend.service.PlatformMetricsService.PlatformMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,9 +19,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate; 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,6 +32,9 @@ public class AdminService {
     private final CouponRepository couponRepository;
     private final PlanoRepository planoRepository;
     private final AuditLogRepository auditLogRepository;
+    private final AuditWriter auditWriter;
+    private final PlatformMetricsService platformMetricsService;
+    private final IdentityService identityService;
     private final PasswordEncoder passwordEncoder;
 
     @Value("${votzz.admin.email}")
@@ -39,42 +42,15 @@ public class AdminService {
 
     private static final String MASTER_ADMIN_ID = "10000000-0000-0000-0000-000000000000";
 
+    // Ações de administradores: uma consulta com LIMIT no índice parcial idx_audit_admin_actions
     public List<AuditLog> listAuditLogs() {
-        return auditLogRepository.findAll().stream()
-                .filter(log -> {
-                    if ("ADMIN_PANEL".equals(log.getResourceType())) return true;
-                    try {
-                        User actor = userRepository.findById(UUID.fromString(log.getUserId())).orElse(null);
-                        return actor != null && actor.getRole() == Role.ADMIN;
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .sorted(Comparator.comparing(AuditLog::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder())))
-                .limit(100)
-                .collect(Collectors.toList());
+        return auditLogRepository.findTop100ByActorRoleOrderByCreatedAtDesc(Role.ADMIN.name());
     }
 
+    // Servido do snapshot em memória (recalculado em segundo plano pelo PlatformMetricsService)
     public AdminDashboardStats getDashboardStats() {
-        long totalUsers = userRepository.count();
-        long onlineUsers = userRepository.countOnlineUsers(LocalDateTime.now().minusMinutes(5));
-        long totalTenants = tenantRepository.count();
-        long activeTenants = tenantRepository.countByAtivoTrue();
-
-        List<Tenant> activeTenantsList = tenantRepository.findByAtivoTrue();
-        BigDecimal mrr = BigDecimal.ZERO;
-
-        for (Tenant t : activeTenantsList) {
-            if (t.getPlano() != null && t.getPlano().getPrecoBase() != null) {
-                BigDecimal preco = t.getPlano().getPrecoBase();
-                if (t.getPlano().getCiclo() == Plano.Ciclo.ANUAL) {
-                    mrr = mrr.add(preco.divide(new BigDecimal("12"), 2, RoundingMode.HALF_EVEN));
-                } else {
-                    mrr = mrr.add(preco);
-                }
-            }
-        }
-        return new AdminDashboardStats(totalUsers, onlineUsers, totalTenants, activeTenants, mrr);
+        PlatformMetrics m = platformMetricsService.getSnapshot();
+        return new AdminDashboardStats(m.totalUsers(), m.onlineUsers(), m.totalTenants(), m.activeTenants(), m.mrr());
     }
 
     public List<UserDTO> listAllAdmins() {
@@ -91,50 +67,6 @@ public class AdminService {
         return couponRepository.findAll();
     }
 
-    public Map<String, Object> listOrganizedUsers() {
-        List<User> allUsers = userRepository.findAll();
-        List<Tenant> allTenants = tenantRepository.findAll();
-
-        List<UserDTO> afiliados = allUsers.stream()
-                .filter(u -> u.getRole() == Role.AFILIADO)
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
-
-        Map<String, List<UserDTO>> pastas = new HashMap<>();
-        for (Tenant t : allTenants) {
-            pastas.put(t.getNome(), new ArrayList<>());
-        }
-        pastas.put("Sem Condomínio", new ArrayList<>());
-
-        for (User u : allUsers) {
-            if (u.getRole() == Role.ADMIN || u.getRole() == Role.AFILIADO) continue;
-
-            UserDTO dto = mapToDTO(u);
-            
-            // CORREÇÃO: Verifica tanto a lista quanto o tenant singular para determinar as pastas
-            Set<Tenant> userTenants = new HashSet<>();
-            if (u.getTenants() != null) userTenants.addAll(u.getTenants());
-            if (u.getTenant() != null) userTenants.add(u.getTenant());
-
-            if (userTenants.isEmpty()) {
-                pastas.get("Sem Condomínio").add(dto);
-            } else {
-                for (Tenant t : userTenants) {
-                    if (pastas.containsKey(t.getNome())) {
-                        // Evita duplicatas visuais na mesma pasta se o DTO for o mesmo
-                        // (Geralmente não é problema pois é nova instância, mas idealmente DTO deve ser único)
-                        pastas.get(t.getNome()).add(dto);
-                    }
-                }
-            }
-        }
-
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("afiliados", afiliados);
-        resp.put("pastas", pastas);
-        return resp;
-    }
-
     @Transactional
     public void createUserLinked(CreateUserRequest dto) {
         // Verifica se o e-mail existe. Se existir, lançamos erro.
@@ -145,10 +77,8 @@ public class AdminService {
              throw new RuntimeException("E-mail já está em uso. Este usuário já existe no sistema.");
         }
 
-        if (dto.cpf() != null && !dto.cpf().isEmpty()) {
-            boolean cpfExists = userRepository.findAll().stream()
-                    .anyMatch(u -> dto.cpf().equals(u.getCpf()));
-            if (cpfExists) throw new RuntimeException("CPF já cadastrado no sistema.");
+        if (dto.cpf() != null && !dto.cpf().isEmpty() && identityService.isCpfTakenByAnother(dto.cpf(), dto.email())) {
+            throw new RuntimeException("CPF já cadastrado no sistema.");
         }
 
         Tenant tenant = tenantRepository.findById(UUID.fromString(dto.tenantId()))
@@ -169,6 +99,7 @@ public class AdminService {
         user.setUnidade(dto.unidade());
         user.setBloco(dto.bloco());
 
+        identityService.claimCpf(user.getCpf(), user.getEmail());
         userRepository.save(user);
         logAction("CRIAR_USUARIO", "Criou usuário " + user.getNome() + " (" + user.getRole() + ") no condomínio " + tenant.getNome());
     }
@@ -356,6 +287,8 @@ public class AdminService {
         }
 
         userRepository.delete(target);
+        userRepository.flush();
+        identityService.releaseIfOrphan(target.getCpf());
         logAction("DELETAR_USUARIO", "Removeu usuário " + target.getNome() + " (" + target.getEmail() + ")");
     }
 
@@ -374,6 +307,7 @@ public class AdminService {
             if (userRepository.findByEmail(req.email()).isPresent())
                 throw new RuntimeException("Este e-mail já está em uso.");
             changes.add("Email: " + user.getEmail() + " -> " + req.email());
+            identityService.changeEmail(user.getEmail(), req.email());
             user.setEmail(req.email());
         }
 
@@ -382,6 +316,7 @@ public class AdminService {
             user.setNome(req.nome());
         }
         if (hasChanged(user.getCpf(), req.cpf())) {
+            identityService.changeCpf(user.getEmail(), user.getCpf(), req.cpf());
             changes.add("CPF alterado");
             user.setCpf(req.cpf());
         }
@@ -438,14 +373,9 @@ public class AdminService {
     private void logAction(String action, String details) {
         try {
             User currentUser = getCurrentUser();
-            AuditLog log = new AuditLog();
-            log.setTimestamp(LocalDateTime.now().toString());
-            log.setAction(action);
-            log.setUserId(currentUser.getId().toString());
-            log.setUserName(currentUser.getNome());
-            log.setDetails(details);
-            log.setResourceType("ADMIN_PANEL"); 
-            auditLogRepository.save(log);
+            String actorRole = currentUser.getRole() != null ? currentUser.getRole().name() : Role.ADMIN.name();
+            auditWriter.write(AuditEvent.of(action, currentUser.getId().toString(), currentUser.getNome(),
+                    actorRole, null, details, "ADMIN_PANEL", null));
         } catch (Exception e) {
             System.err.println("Erro ao salvar log de auditoria: " + e.getMessage());
         }
@@ -0,0 +1,152 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.config.security.WebSocketEventListener;
+import com.votzz.backend.service.PlatformMetricsService.PlatformMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream SSE das métricas do painel do Super Admin.
+ *
+ * Uma única thread monta as métricas (snapshot do PlatformMetricsService + conexões
+ * WebSocket) no máximo uma vez por segundo, e só enquanto houver abas conectadas.
+ * Cada aba recebe o estado completo ao conectar ("snapshot") e depois apenas os campos
+ * que mudaram ("delta"); sem mudança, nada é enviado além do heartbeat.
+ */
+@Service
+@Slf4j
+public class AdminStatsStream {
+
+    private final PlatformMetricsService platformMetricsService;
+    private final WebSocketEventListener webSocketEventListener;
+
+    @Value("${votzz.admin.stats-stream.interval-ms:1000}")
+    private long intervalMs;
+
+    @Value("${votzz.admin.stats-stream.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    // O cliente reconecta sozinho ao expirar; evita conexões órfãs eternas
+    @Value("${votzz.admin.stats-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService ticker;
+    private volatile Map<String, Object> last = Map.of();
+    private long lastSentAt;
+
+    public AdminStatsStream(PlatformMetricsService platformMetricsService, WebSocketEventListener webSocketEventListener) {
+        this.platformMetricsService = platformMetricsService;
+        this.webSocketEventListener = webSocketEventListener;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "admin-stats-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        // Estado completo na conexão, montado pela thread do ticker (não duplica o cálculo)
+        ticker.execute(() -> {
+            if (last.isEmpty()) last = currentStats();
+            if (send(emitter, "snapshot", last)) emitters.add(emitter);
+        });
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    private void tick() {
+        if (emitters.isEmpty()) {
+            last = Map.of();
+            return;
+        }
+        try {
+            Map<String, Object> current = currentStats();
+            Map<String, Object> delta = new LinkedHashMap<>();
+            current.forEach((k, v) -> {
+                if (!Objects.equals(last.get(k), v)) delta.put(k, v);
+            });
+            last = current;
+
+            long now = System.currentTimeMillis();
+            if (!delta.isEmpty()) {
+                broadcast("delta", delta);
+                lastSentAt = now;
+            } else if (now - lastSentAt >= heartbeatMs) {
+                // Mantém proxies/load balancers sem derrubar a conexão ociosa
+                emitters.forEach(e -> {
+                    try {
+                        e.send(SseEmitter.event().comment("ping"));
+                    } catch (IOException | IllegalStateException ex) {
+                        emitters.remove(e);
+                    }
+                });
+                lastSentAt = now;
+            }
+        } catch (Exception e) {
+            log.error("Erro no stream de métricas do admin: {}", e.getMessage());
+        }
+    }
+
+    // Mesmos campos do GET /api/admin/dashboard-stats
+    private Map<String, Object> currentStats() {
+        PlatformMetrics m = platformMetricsService.getSnapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalUsers", m.totalUsers());
+        stats.put("onlineUsers", Math.max(m.onlineUsers(), webSocketEventListener.getOnlineCount()));
+        stats.put("totalTenants", m.totalTenants());
+        stats.put("activeTenants", m.activeTenants());
+        stats.put("mrr", m.mrr());
+        return stats;
+    }
+
+    private void broadcast(String name, Map<String, Object> data) {
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, name, data)) emitters.remove(emitter);
+        }
+    }
+
+    private boolean send(SseEmitter emitter, String name, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Aba fechada: o container completa o emitter com erro
+            return false;
+        }
+    }
+}
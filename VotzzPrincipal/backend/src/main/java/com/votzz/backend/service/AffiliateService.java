@@ -49,8 +49,11 @@ public class AffiliateService {
      * Rotina diária:
      * 1. Libera comissões maduras (BLOQUEADO -> DISPONIVEL)
      * 2. Paga saldos disponíveis (DISPONIVEL -> PAGO)
+     *
+     * Desligada por padrão ("-"): não há trava entre nós, então com vários nós cada um pagaria de novo.
+     * Para ligar em um único nó: votzz.affiliate.payout-cron=0 0 8 * * *
      */
-    @Scheduled(cron = "0 0 8 * * *")
+    @Scheduled(cron = "${votzz.affiliate.payout-cron:-}")
     @Transactional
     public void processarPagamentosAutomaticos() {
         log.info("Iniciando rotina de pagamentos automáticos...");
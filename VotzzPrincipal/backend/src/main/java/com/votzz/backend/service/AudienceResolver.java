@@ -0,0 +1,276 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.domain.event.UserChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolve o público de um aviso (todos, bloco, unidade ou perfil) sem carregar entidades.
+ *
+ * Por condomínio é mantido um índice em memória montado com uma única consulta de projeção
+ * (id, e-mail, perfil, bloco, unidades): listas de membros por bloco, por unidade e por
+ * perfil. "Bloco B" devolve só os e-mails daquele bloco, sem tocar 1.500 User com as
+ * coleções EAGER.
+ *
+ * O índice cai quando um usuário do condomínio muda algo que afeta o público (UserChangeListener,
+ * após o commit; atualizações de last_seen não contam) ou quando alguém grava usuários via
+ * JDBC e chama evict(). Em vários nós, a alteração feita em outro nó aparece no máximo em
+ * ttl-seconds.
+ */
+@Service
+@Slf4j
+public class AudienceResolver {
+
+    public static final String ALL = "ALL";
+    public static final String BLOCK = "BLOCK";
+    public static final String UNIT = "UNIT";
+    public static final String ROLE = "ROLE";
+
+    private static final String MEMBERS_SQL =
+            "SELECT u.id, u.email_norm, u.role, u.bloco, u.unidade, " +
+            "(SELECT array_agg(uu.unidade_info) FROM user_unidades uu WHERE uu.user_id = u.id) AS units " +
+            "FROM users u " +
+            "WHERE (u.tenant_id = ? OR EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id = ?)) " +
+            "ORDER BY u.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<UUID, TenantIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${votzz.audience.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${votzz.audience.max-tenants:5000}")
+    private int maxTenants;
+
+    public AudienceResolver(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // --- CONSULTA ---
+
+    public List<String> resolveEmails(UUID tenantId, Audience audience) {
+        TenantIndex index = index(tenantId);
+        List<String> emails = new ArrayList<>();
+        for (int m : index.select(audience)) {
+            String email = index.members[m].email();
+            if (email != null && email.contains("@")) emails.add(email);
+        }
+        return emails;
+    }
+
+    public List<UUID> resolveUserIds(UUID tenantId, Audience audience) {
+        TenantIndex index = index(tenantId);
+        int[] selected = index.select(audience);
+        List<UUID> ids = new ArrayList<>(selected.length);
+        for (int m : selected) ids.add(index.members[m].id());
+        return ids;
+    }
+
+    public int countMembers(UUID tenantId) {
+        return index(tenantId).members.length;
+    }
+
+    public void evict(UUID tenantId) {
+        if (tenantId != null) indexes.remove(tenantId);
+    }
+
+    // --- INVALIDAÇÃO ---
+
+    /**
+     * Depois do commit: não reconstruir o índice com dados que ainda não estão visíveis.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        for (UUID tenantId : event.tenantIds()) {
+            TenantIndex index = indexes.get(tenantId);
+            if (index == null) continue;
+            Member cached = index.byId.get(event.userId());
+            if (event.removed() || cached == null || !cached.sameAudience(event)) {
+                indexes.remove(tenantId, index);
+            }
+        }
+    }
+
+    // --- ÍNDICE ---
+
+    private TenantIndex index(UUID tenantId) {
+        TenantIndex index = indexes.get(tenantId);
+        if (index != null && !index.expired(ttlSeconds)) return index;
+
+        // Montado fora do mapa: duas threads podem montar juntas, a última vence (mesmo conteúdo)
+        TenantIndex built = build(tenantId);
+        if (indexes.size() >= maxTenants) indexes.clear();
+        indexes.put(tenantId, built);
+        return built;
+    }
+
+    private TenantIndex build(UUID tenantId) {
+        long start = System.nanoTime();
+        List<Member> members = jdbcTemplate.query(MEMBERS_SQL,
+                (rs, i) -> new Member((UUID) rs.getObject("id"), rs.getString("email_norm"), rs.getString("role"),
+                        normBlock(rs.getString("bloco")), normUnit(rs.getString("unidade")), units(rs.getArray("units"))),
+                tenantId, tenantId);
+        TenantIndex index = new TenantIndex(members.toArray(new Member[0]));
+        log.debug("Índice de público do condomínio {}: {} membro(s) em {} ms.", tenantId, members.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return index;
+    }
+
+    private static List<String> units(Array array) throws java.sql.SQLException {
+        if (array == null) return List.of();
+        Object[] values = (Object[]) array.getArray();
+        List<String> units = new ArrayList<>(values.length);
+        for (Object v : values) if (v != null) units.add(v.toString());
+        return units;
+    }
+
+    /**
+     * Chaves de unidade de um membro: "101" e "101|B" para a unidade principal e para cada
+     * item de user_unidades ("101 - Bloco B").
+     */
+    private static Set<String> unitKeys(Member m) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (m.unidade() != null) {
+            keys.add(m.unidade());
+            if (m.bloco() != null) keys.add(m.unidade() + "|" + m.bloco());
+        }
+        for (String info : m.units()) {
+            UnitRef ref = UnitRef.parse(info);
+            if (ref.unit() == null) continue;
+            keys.add(ref.unit());
+            if (ref.block() != null) keys.add(ref.unit() + "|" + ref.block());
+        }
+        return keys;
+    }
+
+    // "Bloco B", "BL. B", "b" -> "B"
+    static String normBlock(String value) {
+        if (value == null) return null;
+        String v = value.trim().toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        v = v.replaceFirst("^(BLOCO|BLC|BL)(\\.\\s*|\\s+)", "");
+        return v.isEmpty() ? null : v;
+    }
+
+    static String normUnit(String value) {
+        if (value == null) return null;
+        String v = value.trim().toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        v = v.replaceFirst("^(APTO|APT|AP|UNIDADE|CASA)(\\.\\s*|\\s+)", "");
+        return v.isEmpty() ? null : v;
+    }
+
+    private static final class TenantIndex {
+        final long builtAt = System.nanoTime();
+        final Member[] members;
+        final Map<UUID, Member> byId = new HashMap<>();
+        final Map<String, int[]> byBlock;
+        final Map<String, int[]> byUnit;
+        final Map<String, int[]> byRole;
+        final int[] all;
+
+        TenantIndex(Member[] members) {
+            this.members = members;
+            Map<String, List<Integer>> blocks = new HashMap<>();
+            Map<String, List<Integer>> units = new HashMap<>();
+            Map<String, List<Integer>> roles = new HashMap<>();
+            for (int i = 0; i < members.length; i++) {
+                Member m = members[i];
+                byId.put(m.id(), m);
+                Set<String> memberBlocks = new LinkedHashSet<>();
+                if (m.bloco() != null) memberBlocks.add(m.bloco());
+                for (String info : m.units()) {
+                    String block = UnitRef.parse(info).block();
+                    if (block != null) memberBlocks.add(block);
+                }
+                for (String b : memberBlocks) blocks.computeIfAbsent(b, k -> new ArrayList<>()).add(i);
+                for (String u : unitKeys(m)) units.computeIfAbsent(u, k -> new ArrayList<>()).add(i);
+                if (m.role() != null) roles.computeIfAbsent(m.role(), k -> new ArrayList<>()).add(i);
+            }
+            this.byBlock = freeze(blocks);
+            this.byUnit = freeze(units);
+            this.byRole = freeze(roles);
+            this.all = new int[members.length];
+            Arrays.setAll(all, i -> i);
+        }
+
+        boolean expired(long ttlSeconds) {
+            return System.nanoTime() - builtAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+
+        int[] select(Audience audience) {
+            if (audience == null || ALL.equals(audience.type())) return all;
+            int[] none = new int[0];
+            return switch (audience.type()) {
+                case BLOCK -> byBlock.getOrDefault(normBlock(audience.value()), none);
+                case ROLE -> byRole.getOrDefault(audience.value() != null ? audience.value().trim().toUpperCase(Locale.ROOT) : "", none);
+                case UNIT -> {
+                    UnitRef ref = UnitRef.parse(audience.value());
+                    if (ref.unit() == null) yield none;
+                    yield byUnit.getOrDefault(ref.block() != null ? ref.unit() + "|" + ref.block() : ref.unit(), none);
+                }
+                default -> none;
+            };
+        }
+
+        private static Map<String, int[]> freeze(Map<String, List<Integer>> lists) {
+            Map<String, int[]> frozen = new HashMap<>(lists.size() * 2);
+            lists.forEach((k, v) -> frozen.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+            return frozen;
+        }
+    }
+
+    private record Member(UUID id, String email, String role, String bloco, String unidade, List<String> units) {
+        boolean sameAudience(UserChangedEvent e) {
+            return Objects.equals(email, e.email()) && Objects.equals(role, e.role())
+                    && Objects.equals(bloco, normBlock(e.bloco())) && Objects.equals(unidade, normUnit(e.unidade()))
+                    && (e.units() == null || new HashSet<>(units).equals(new HashSet<>(e.units())));
+        }
+    }
+
+    // "101 - Bloco B" (formato de user_unidades) ou só "101"
+    private record UnitRef(String unit, String block) {
+        static UnitRef parse(String value) {
+            if (value == null || value.isBlank()) return new UnitRef(null, null);
+            int sep = value.indexOf(" - ");
+            if (sep < 0) return new UnitRef(normUnit(value), null);
+            return new UnitRef(normUnit(value.substring(0, sep)), normBlock(value.substring(sep + 3)));
+        }
+    }
+
+    /**
+     * Público de um aviso, como em Announcement.targetType/targetValue.
+     */
+    public record Audience(String type, String value) {
+        public static Audience all() {
+            return new Audience(ALL, null);
+        }
+
+        public static Audience of(String targetType, String targetValue) {
+            if (targetType == null || targetType.isBlank()) return all();
+            String type = targetType.trim().toUpperCase(Locale.ROOT);
+            if (ALL.equals(type) || targetValue == null || targetValue.isBlank()) return all();
+            return new Audience(type, targetValue.trim());
+        }
+
+        public boolean isAll() {
+            return ALL.equals(type);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.votzz.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manutenção do particionamento mensal de audit_logs (RANGE em created_at).
+ *
+ * Uma vez por dia: cria as partições dos próximos meses e arquiva as que passaram do
+ * prazo de retenção. Linhas que caíram na partição DEFAULT (mês ainda sem partição, ex:
+ * primeiro deploy ou job parado) são movidas para a partição do mês quando ela é criada. Arquivar = exportar a partição para NDJSON gzip, enviar ao S3 via
+ * FileStorageService, registrar em audit_archive e só então DETACH + DROP. Assim os
+ * índices "quentes" ficam do tamanho da janela de retenção.
+ *
+ * Pedidos jurídicos sobre períodos arquivados usam {@link #rehydrate(String)}, que
+ * restaura o arquivo em uma tabela de consulta separada (fora da tabela quente).
+ */
+@Service
+@Slf4j
+public class AuditArchiveService {
+
+    private static final String PARENT = "audit_logs";
+    private static final String PARTITION_PREFIX = "audit_logs_p";
+    private static final String DEFAULT_PARTITION = "audit_logs_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // Chave do advisory lock: só um nó faz a manutenção por vez
+    private static final long MAINTENANCE_LOCK = 0x766f747a7a01L;
+    private static final int CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FileStorageService fileStorageService;
+
+    @Value("${votzz.audit.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 desliga o arquivamento
+    @Value("${votzz.audit.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${votzz.audit.archive.prefix:audit-archive/}")
+    private String archivePrefix;
+
+    public AuditArchiveService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, FileStorageService fileStorageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.fileStorageService = fileStorageService;
+    }
+
+    @Scheduled(fixedDelayString = "${votzz.audit.maintenance-interval-minutes:1440}", initialDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void runMaintenance() {
+        try {
+            if (!isPartitioned()) {
+                log.warn("audit_logs não é particionada; manutenção de partições ignorada.");
+                return;
+            }
+            ensureFuturePartitions();
+            if (retentionMonths > 0) archiveExpiredPartitions();
+        } catch (Exception e) {
+            log.error("Erro na manutenção das partições de auditoria: {}", e.getMessage());
+        }
+    }
+
+    // --- PARTIÇÕES FUTURAS ---
+
+    private void ensureFuturePartitions() {
+        // Meses com linhas na DEFAULT também ganham partição, senão nunca seriam arquivados
+        Set<YearMonth> months = new TreeSet<>(monthsInDefaultPartition());
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) months.add(current.plusMonths(i));
+
+        // Um mês com problema não impede os outros nem o arquivamento
+        for (YearMonth month : months) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    if (tryLock()) ensurePartition(month);
+                });
+            } catch (Exception e) {
+                log.error("Falha ao criar a partição {}: {}", partitionName(month), e.getMessage());
+            }
+        }
+    }
+
+    private void ensurePartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (tableExists(partition)) return;
+
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String create = String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                partition, PARENT, month.atDay(1), month.plusMonths(1).atDay(1));
+
+        boolean hasDefaultRows = tableExists(DEFAULT_PARTITION) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, from, to));
+        if (!hasDefaultRows) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+
+        // Com linhas do mês na DEFAULT o CREATE falharia: tira a DEFAULT, cria o mês, move as linhas e devolve.
+        // Tudo na mesma transação; os INSERTs concorrentes esperam o lock da tabela pai.
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute(create);
+        int moved = jdbcTemplate.update("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION +
+                " WHERE created_at >= ? AND created_at < ?", from, to);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        log.info("Partição {} criada com {} registros vindos de {}.", partition, moved, DEFAULT_PARTITION);
+    }
+
+    private List<YearMonth> monthsInDefaultPartition() {
+        if (!tableExists(DEFAULT_PARTITION)) return List.of();
+        return jdbcTemplate.query(
+                "SELECT DISTINCT date_trunc('month', created_at) AS m FROM " + DEFAULT_PARTITION + " WHERE created_at IS NOT NULL",
+                (rs, i) -> YearMonth.from(rs.getTimestamp("m").toLocalDateTime()));
+    }
+
+    // --- RETENÇÃO / ARQUIVO MORTO ---
+
+    private void archiveExpiredPartitions() {
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        for (String partition : listPartitions()) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+            if (month.isBefore(cutoff)) {
+                archivePartition(partition, month);
+            }
+        }
+    }
+
+    private void archivePartition(String partition, YearMonth month) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(partition, ".ndjson.gz");
+            Path file = tmp;
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!tryLock()) return;
+
+                ExportResult export = exportPartition(partition, file);
+                String key = fileStorageService.uploadPrivateFile(
+                        archivePrefix + partition + ".ndjson.gz", file, "application/gzip");
+
+                jdbcTemplate.update(
+                        "INSERT INTO audit_archive (partition_name, period_start, period_end, storage_key, row_count, sha256) " +
+                        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (partition_name) DO UPDATE SET " +
+                        "storage_key = EXCLUDED.storage_key, row_count = EXCLUDED.row_count, sha256 = EXCLUDED.sha256, archived_at = NOW()",
+                        partition, month.atDay(1), month.plusMonths(1).atDay(1), key, export.rows(), export.sha256());
+
+                // O DETACH bloqueia a tabela pai: fica no fim da transação para segurar o lock o mínimo possível
+                jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Partição {} arquivada em {} ({} registros).", partition, key, export.rows());
+            });
+        } catch (Exception e) {
+            log.error("Falha ao arquivar a partição {}: {}", partition, e.getMessage());
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    private ExportResult exportPartition(String partition, Path file) {
+        MessageDigest sha = sha256();
+        long rows = 0;
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new DigestOutputStream(Files.newOutputStream(file), sha)), StandardCharsets.UTF_8))) {
+
+            LocalDateTime lastAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+            UUID lastId = new UUID(0, 0);
+            while (true) {
+                List<ExportRow> chunk = jdbcTemplate.query(
+                        "SELECT row_to_json(t)::text AS json, t.created_at, t.id FROM " + partition + " t " +
+                        "WHERE (t.created_at, t.id) > (?, ?) ORDER BY t.created_at, t.id LIMIT ?",
+                        (rs, i) -> new ExportRow(rs.getString("json"), rs.getTimestamp("created_at").toLocalDateTime(),
+                                rs.getObject("id", UUID.class)),
+                        Timestamp.valueOf(lastAt), lastId, CHUNK);
+                for (ExportRow row : chunk) {
+                    writer.write(row.json());
+                    writer.write('\n');
+                }
+                rows += chunk.size();
+                if (chunk.size() < CHUNK) break;
+                ExportRow last = chunk.get(chunk.size() - 1);
+                lastAt = last.createdAt();
+                lastId = last.id();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ExportResult(rows, HexFormat.of().formatHex(sha.digest()));
+    }
+
+    // --- REIDRATAÇÃO (PEDIDOS JURÍDICOS) ---
+
+    public List<AuditArchiveDTO> listArchives() {
+        return jdbcTemplate.query(
+                "SELECT partition_name, period_start, period_end, storage_key, row_count, sha256, archived_at, restored_table " +
+                "FROM audit_archive ORDER BY period_start DESC",
+                (rs, i) -> new AuditArchiveDTO(
+                        rs.getString("partition_name"),
+                        rs.getObject("period_start", LocalDate.class),
+                        rs.getObject("period_end", LocalDate.class),
+                        rs.getString("storage_key"),
+                        rs.getLong("row_count"),
+                        rs.getString("sha256"),
+                        rs.getTimestamp("archived_at").toLocalDateTime(),
+                        rs.getString("restored_table")));
+    }
+
+    /**
+     * Baixa o arquivo, confere o SHA-256 registrado no arquivamento e restaura as linhas
+     * em audit_logs_restored_AAAAMM (mesma estrutura de audit_logs, fora do particionamento).
+     */
+    public AuditArchiveDTO rehydrate(String partition) {
+        AuditArchiveDTO archive = listArchives().stream()
+                .filter(a -> a.partitionName().equals(partition))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Arquivo de auditoria não encontrado: " + partition));
+
+        String restoredTable = "audit_logs_restored_" + partition.substring(PARTITION_PREFIX.length());
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("audit-rehydrate");
+            Path file = dir.resolve(partition + ".ndjson.gz");
+            fileStorageService.downloadToFile(archive.storageKey(), file);
+
+            String checksum = checksum(file);
+            if (!checksum.equals(archive.sha256())) {
+                throw new RuntimeException("Arquivo de auditoria corrompido: o SHA-256 não confere.");
+            }
+
+            transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + restoredTable + " (LIKE " + PARENT + " INCLUDING DEFAULTS)");
+                jdbcTemplate.execute("TRUNCATE " + restoredTable);
+                restoreRows(file, restoredTable);
+                jdbcTemplate.update("UPDATE audit_archive SET restored_table = ?, restored_at = NOW() WHERE partition_name = ?",
+                        restoredTable, partition);
+            });
+            log.info("Arquivo {} restaurado em {}.", partition, restoredTable);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao restaurar o arquivo de auditoria: " + e.getMessage());
+        } finally {
+            if (dir != null) {
+                deleteQuietly(dir.resolve(partition + ".ndjson.gz"));
+                deleteQuietly(dir);
+            }
+        }
+
+        return new AuditArchiveDTO(archive.partitionName(), archive.periodStart(), archive.periodEnd(), archive.storageKey(),
+                archive.rowCount(), archive.sha256(), archive.archivedAt(), restoredTable);
+    }
+
+    private void restoreRows(Path file, String table) {
+        // json_populate_record converte cada campo para o tipo da coluna
+        String sql = "INSERT INTO " + table + " SELECT * FROM json_populate_record(NULL::" + table + ", ?::json)";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            List<Object[]> batch = new ArrayList<>(CHUNK);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                batch.add(new Object[]{line});
+                if (batch.size() >= CHUNK) {
+                    jdbcTemplate.batchUpdate(sql, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) jdbcTemplate.batchUpdate(sql, batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- HELPERS ---
+
+    private boolean isPartitioned() {
+        String kind = jdbcTemplate.query("SELECT relkind::text FROM pg_class WHERE relname = ? AND relkind IN ('r', 'p')",
+                rs -> rs.next() ? rs.getString(1) : null, PARENT);
+        return "p".equals(kind);
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND c.relname ~ '^audit_logs_p[0-9]{6}$' " +
+                "ORDER BY c.relname",
+                String.class, PARENT);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private boolean tryLock() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    private static String checksum(Path file) throws IOException {
+        MessageDigest sha = sha256();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), sha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // arquivo temporário
+        }
+    }
+
+    private record ExportRow(String json, LocalDateTime createdAt, UUID id) {}
+
+    private record ExportResult(long rows, String sha256) {}
+
+    public record AuditArchiveDTO(String partitionName, LocalDate periodStart, LocalDate periodEnd, String storageKey,
+                                  long rowCount, String sha256, LocalDateTime archivedAt, String restoredTable) {}
+}
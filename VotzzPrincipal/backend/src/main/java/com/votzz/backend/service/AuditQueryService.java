@@ -0,0 +1,143 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.votzz.backend.controller.TenantController.AuditLogPage;
+import com.votzz.backend.controller.TenantController.AuditLogResponse;
+import com.votzz.backend.core.pagination.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Consulta dos logs de auditoria por keyset em (created_at, id), com filtros no servidor.
+ * Cada página é um único SELECT ... LIMIT apoiado nos índices compostos de audit_logs;
+ * o custo não cresce com o tamanho do histórico do condomínio.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditQueryService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_CHUNK = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, i) -> new Row(
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            new AuditLogResponse(
+                    rs.getObject("id", UUID.class),
+                    rs.getString("action"),
+                    rs.getString("user_name"),
+                    rs.getString("user_id"),
+                    rs.getString("details"),
+                    rs.getString("timestamp"),
+                    rs.getString("resource_type"),
+                    rs.getString("ip_address")
+            ));
+
+    public AuditLogPage findPage(AuditLogFilter filter, String cursor, Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        List<Row> rows = query(filter, KeysetCursor.decode(cursor), size + 1);
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows = rows.subList(0, size);
+
+        List<AuditLogResponse> items = new ArrayList<>(rows.size());
+        rows.forEach(r -> items.add(r.log()));
+        String next = hasMore ? rows.get(rows.size() - 1).cursor().encode() : null;
+        return new AuditLogPage(items, next);
+    }
+
+    /**
+     * Exportação em NDJSON (um log por linha), lida em blocos por keyset:
+     * memória constante e nenhuma transação longa aberta durante o download.
+     */
+    public void exportNdjson(AuditLogFilter filter, OutputStream out) throws IOException {
+        KeysetCursor cursor = null;
+        while (true) {
+            List<Row> rows = query(filter, cursor, EXPORT_CHUNK);
+            for (Row r : rows) {
+                out.write(objectMapper.writeValueAsBytes(r.log()));
+                out.write('\n');
+            }
+            out.flush();
+            if (rows.size() < EXPORT_CHUNK) return;
+            cursor = rows.get(rows.size() - 1).cursor();
+        }
+    }
+
+    private List<Row> query(AuditLogFilter f, KeysetCursor cursor, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, action, user_name, user_id, details, timestamp, resource_type, ip_address, created_at " +
+                "FROM audit_logs WHERE 1=1");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        if (f.tenantId() != null) {
+            sql.append(" AND tenant_id = :tenantId");
+            params.addValue("tenantId", f.tenantId());
+        }
+        if (hasText(f.action())) {
+            sql.append(" AND action = :action");
+            params.addValue("action", f.action());
+        }
+        if (hasText(f.resourceType())) {
+            sql.append(" AND resource_type = :resourceType");
+            params.addValue("resourceType", f.resourceType());
+        }
+        if (hasText(f.userId())) {
+            sql.append(" AND user_id = :userId");
+            params.addValue("userId", f.userId());
+        }
+        if (f.from() != null) {
+            sql.append(" AND created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(f.from().atStartOfDay()));
+        }
+        if (f.to() != null) {
+            sql.append(" AND created_at < :to");
+            params.addValue("to", Timestamp.valueOf(f.to().plusDays(1).atStartOfDay()));
+        }
+        if (hasText(f.q())) {
+            // Mesma expressão do índice GIN idx_audit_details_fts
+            sql.append(" AND to_tsvector('portuguese', coalesce(details, '')) @@ plainto_tsquery('portuguese', :q)");
+            params.addValue("q", f.q().trim());
+        }
+        if (cursor != null) {
+            sql.append(" AND (created_at, id) < (:cursorAt, :cursorId)");
+            params.addValue("cursorAt", Timestamp.valueOf(cursor.createdAt()));
+            params.addValue("cursorId", cursor.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    /**
+     * Filtros da tela de auditoria. tenantId nulo = plataforma inteira (somente ADMIN).
+     */
+    public record AuditLogFilter(UUID tenantId, String action, String resourceType, String userId,
+                                 LocalDate from, LocalDate to, String q) {}
+
+    private record Row(LocalDateTime createdAt, AuditLogResponse log) {
+        KeysetCursor cursor() {
+            return new KeysetCursor(createdAt, log.id());
+        }
+    }
+}
@@ -1,52 +1,51 @@
 package com.votzz.backend.service;
 
-import com.votzz.backend.domain.AuditLog;
 import com.votzz.backend.domain.Tenant;
 import com.votzz.backend.domain.User;
-import com.votzz.backend.repository.AuditLogRepository;
+import com.votzz.backend.service.AuditWriter.AuditEvent;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
+    private final AuditWriter auditWriter;
 
-    @Transactional
     public void log(User actor, Tenant targetTenant, String action, String details, String resourceType) {
         try {
-            AuditLog log = new AuditLog();
-            log.setTimestamp(LocalDateTime.now().toString());
-            log.setAction(action);
-            log.setDetails(details);
-            log.setResourceType(resourceType);
-            
+            String userId;
+            String userName;
+            String actorRole = null;
+            UUID tenantId = null;
+
             if (actor != null) {
-                log.setUserId(actor.getId().toString());
+                userId = actor.getId().toString();
                 String roleTag = actor.getRole() != null ? " [" + actor.getRole() + "]" : "";
-                log.setUserName(actor.getNome() + roleTag);
+                userName = actor.getNome() + roleTag;
+                if (actor.getRole() != null) actorRole = actor.getRole().name();
                 
                 // Lógica de Prioridade de Tenant:
                 // 1. Se quem fez a ação tem tenant (morador/síndico), usa o dele.
                 // 2. Se não tem (Admin Votzz), usa o tenant ALVO da ação.
                 if (actor.getTenant() != null) {
-                    log.setTenant(actor.getTenant());
+                    tenantId = actor.getTenant().getId();
                 } else if (targetTenant != null) {
-                    log.setTenant(targetTenant);
+                    tenantId = targetTenant.getId();
                 }
             } else {
-                log.setUserId("SYSTEM");
-                log.setUserName("Sistema Votzz");
-                if (targetTenant != null) log.setTenant(targetTenant);
+                userId = "SYSTEM";
+                userName = "Sistema Votzz";
+                if (targetTenant != null) tenantId = targetTenant.getId();
             }
 
-            auditLogRepository.save(log);
-        } catch (Exception e) {
+            auditWriter.write(AuditEvent.of(action, userId, userName, actorRole, tenantId, details, resourceType, null));
+        } catch (RuntimeException e) {
+            // Ações com valor jurídico não podem ser confirmadas sem o registro
+            if (auditWriter.isSync(action)) throw e;
             System.err.println("Erro na auditoria: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
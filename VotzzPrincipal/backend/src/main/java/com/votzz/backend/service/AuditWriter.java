@@ -0,0 +1,263 @@
+package com.votzz.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pipeline de gravação dos logs de auditoria.
+ *
+ * Ações comuns são enfileiradas (fila limitada, vários produtores, uma thread
+ * escritora) e gravadas em lotes JDBC, fora da transação de quem chamou. Dentro de
+ * uma transação, o evento só entra na fila depois do commit: se o chamador fizer
+ * rollback, o log some junto e não chega a ser selado na cadeia de integridade.
+ * Ações com valor jurídico (votzz.audit.sync-actions, ex: VOTO_REGISTRADO)
+ * são gravadas na hora, dentro da transação do chamador: se o log falhar, o voto
+ * também não é confirmado.
+ */
+@Service
+@Slf4j
+public class AuditWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (id, timestamp, action, user_id, user_name, actor_role, tenant_id, details, resource_type, ip_address, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${votzz.audit.queue-capacity:20000}")
+    private int capacity;
+
+    @Value("${votzz.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${votzz.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${votzz.audit.sync-actions:VOTO_REGISTRADO,ENCERRAR_ASSEMBLEIA,EXCLUIR_ASSEMBLEIA,NOTIFICAR_ASSEMBLEIA,CRIAR_ASSEMBLEIA}")
+    private String[] syncActionList;
+
+    private Set<String> syncActions;
+
+    private BlockingQueue<AuditEvent> queue;
+    private ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    // Lote que falhou por indisponibilidade do banco; é o primeiro a ser regravado
+    private List<AuditEvent> retryBatch = List.of();
+
+    private Timer flushTimer;
+    private Counter asyncCounter;
+    private Counter syncCounter;
+    private Counter fallbackCounter;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.syncActions = Set.of(syncActionList);
+
+        Gauge.builder("votzz.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Eventos de auditoria aguardando gravação")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("votzz.audit.flush")
+                .description("Latência de cada lote JDBC de auditoria")
+                .register(meterRegistry);
+        this.asyncCounter = meterRegistry.counter("votzz.audit.persisted", "mode", "async");
+        this.syncCounter = meterRegistry.counter("votzz.audit.persisted", "mode", "sync");
+        this.fallbackCounter = meterRegistry.counter("votzz.audit.queue.full");
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "audit-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Grava o evento conforme o modo de durabilidade da ação.
+     */
+    public void write(AuditEvent event) {
+        if (isSync(event.action())) {
+            writeSync(event);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueueAfterCommit(event);
+                }
+            });
+            return;
+        }
+        if (!queue.offer(event)) {
+            // Fila cheia: backpressure no chamador em vez de perder o registro
+            fallbackCounter.increment();
+            writeSync(event);
+            return;
+        }
+        requestFlushIfFull();
+    }
+
+    // No afterCommit a conexão do chamador ainda está ligada à thread: o fallback não pode usá-la
+    private void enqueueAfterCommit(AuditEvent event) {
+        if (!queue.offer(event)) {
+            fallbackCounter.increment();
+            writer.execute(() -> {
+                try {
+                    persist(List.of(event));
+                } catch (Exception e) {
+                    log.error("Log de auditoria {} ({}) não gravado: {}", event.id(), event.action(), e.getMessage());
+                }
+            });
+            return;
+        }
+        requestFlushIfFull();
+    }
+
+    private void requestFlushIfFull() {
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushSafely);
+        }
+    }
+
+    // Participa da transação do chamador (mesmo DataSource do JPA)
+    private void writeSync(AuditEvent event) {
+        insertBatch(List.of(event));
+        syncCounter.increment();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            if (!retryBatch.isEmpty()) {
+                persist(retryBatch);
+                retryBatch = List.of();
+            }
+            List<AuditEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                List<AuditEvent> current = batch;
+                batch = new ArrayList<>(batchSize);
+                retryBatch = current;
+                persist(current);
+                retryBatch = List.of();
+            }
+        } catch (Exception e) {
+            log.error("Erro ao gravar {} logs de auditoria (nova tentativa no próximo ciclo): {}", retryBatch.size(), e.getMessage());
+        }
+    }
+
+    private void persist(List<AuditEvent> batch) {
+        try {
+            flushTimer.record(() -> insertBatch(batch));
+            asyncCounter.increment(batch.size());
+        } catch (DataIntegrityViolationException batchError) {
+            // Uma linha inválida (ex: tenant removido) não pode travar a fila inteira
+            for (AuditEvent e : batch) {
+                try {
+                    insertBatch(List.of(e));
+                    asyncCounter.increment();
+                } catch (DataIntegrityViolationException invalid) {
+                    log.error("Log de auditoria {} ({}) descartado: {}", e.id(), e.action(), invalid.getMessage());
+                }
+            }
+        }
+    }
+
+    public boolean isSync(String action) {
+        return syncActions.contains(action);
+    }
+
+    private void insertBatch(List<AuditEvent> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, e) -> {
+            ps.setObject(1, e.id());
+            ps.setString(2, e.createdAt().toString());
+            ps.setString(3, e.action());
+            ps.setString(4, e.userId());
+            ps.setString(5, e.userName());
+            ps.setString(6, e.actorRole());
+            ps.setObject(7, e.tenantId());
+            ps.setString(8, e.details());
+            ps.setString(9, e.resourceType());
+            ps.setString(10, e.ipAddress());
+            ps.setTimestamp(11, Timestamp.valueOf(e.createdAt()));
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) writer.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<AuditEvent> remaining = new ArrayList<>(retryBatch);
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) return;
+        try {
+            for (int i = 0; i < remaining.size(); i += batchSize) {
+                insertBatch(remaining.subList(i, Math.min(i + batchSize, remaining.size())));
+            }
+            log.info("Shutdown: {} logs de auditoria gravados.", remaining.size());
+        } catch (Exception e) {
+            log.error("Shutdown: {} logs de auditoria não gravados: {}", remaining.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Evento de auditoria imutável, montado pelo chamador no momento da ação.
+     */
+    public record AuditEvent(
+            UUID id,
+            String action,
+            String userId,
+            String userName,
+            String actorRole,
+            UUID tenantId,
+            String details,
+            String resourceType,
+            String ipAddress,
+            LocalDateTime createdAt
+    ) {
+        public static AuditEvent of(String action, String userId, String userName, String actorRole, UUID tenantId,
+                                    String details, String resourceType, String ipAddress) {
+            return new AuditEvent(UUID.randomUUID(), action, userId, userName, actorRole, tenantId,
+                    details, resourceType, ipAddress, LocalDateTime.now());
+        }
+    }
+}
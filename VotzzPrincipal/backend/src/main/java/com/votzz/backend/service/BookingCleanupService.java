@@ -18,8 +18,8 @@ public class BookingCleanupService {
 
     private final BookingRepository bookingRepository;
 
-    // Roda a cada 1 minuto (60000ms)
-    @Scheduled(fixedRate = 60000)
+    // Desligado por padrão ("-"); para rodar a cada 1 minuto: votzz.booking.cleanup-cron=0 * * * * *
+    @Scheduled(cron = "${votzz.booking.cleanup-cron:-}")
     @Transactional
     public void expireOldBookings() {
         // Define o limite: Agora - 30 minutos
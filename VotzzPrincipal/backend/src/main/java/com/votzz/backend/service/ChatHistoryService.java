@@ -0,0 +1,205 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.votzz.backend.controller.ChatController.ChatHistoryPage;
+import com.votzz.backend.controller.ChatController.ChatMessageDTO;
+import com.votzz.backend.core.cluster.ClusterFanOut.RelayedTopicMessageEvent;
+import com.votzz.backend.core.pagination.KeysetCursor;
+import com.votzz.backend.domain.ChatMessage;
+import com.votzz.backend.repository.ChatMessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Histórico do chat das assembleias.
+ *
+ * Cada nó mantém em memória as últimas N mensagens de cada assembleia ativa, então
+ * a entrada/reconexão na sala de votação não vai ao banco. Um "reconnect storm" de
+ * centenas de moradores gera no máximo uma consulta por assembleia (a carga inicial).
+ * Histórico mais antigo é paginado por keyset em (assembly_id, created_at, id).
+ */
+@Service
+public class ChatHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    // Desempate pelo id em texto: mesma ordem que o Postgres usa para uuid
+    private static final Comparator<ChatMessageDTO> CHRONOLOGICAL =
+            Comparator.comparing(ChatMessageDTO::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+                      .thenComparing(m -> String.valueOf(m.getId()));
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<UUID, RecentWindow> windows = new ConcurrentHashMap<>();
+
+    @Value("${votzz.chat.recent-window:100}")
+    private int windowSize;
+
+    @Value("${votzz.chat.max-cached-assemblies:500}")
+    private int maxCachedAssemblies;
+
+    public ChatHistoryService(ChatMessageRepository chatMessageRepository, ObjectMapper objectMapper) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registra uma mensagem recém-enviada na janela em memória (chamado após o broadcast).
+     */
+    public void append(ChatMessageDTO message) {
+        window(message.getAssemblyId()).add(message, windowSize);
+    }
+
+    /**
+     * Mensagens de chat enviadas em outro nó também entram na janela deste.
+     */
+    @EventListener
+    public void onRelayedMessage(RelayedTopicMessageEvent event) {
+        if (!event.destination().startsWith("/topic/assembly/")) return;
+        try {
+            ChatMessageDTO message = objectMapper.readValue(event.payload(), ChatMessageDTO.class);
+            if ("CHAT".equals(message.getType()) && message.getId() != null && message.getAssemblyId() != null) {
+                append(message);
+            }
+        } catch (Exception ignored) {
+            // STATUS_UPDATE e outros formatos não são mensagens de chat
+        }
+    }
+
+    /**
+     * Últimas N mensagens da assembleia, em ordem cronológica.
+     */
+    public List<ChatMessageDTO> getRecent(UUID assemblyId) {
+        return loadedWindow(assemblyId).snapshot();
+    }
+
+    /**
+     * Página de histórico anterior ao cursor (ou a mais recente, se o cursor for nulo).
+     * As mensagens voltam em ordem cronológica; nextCursor aponta para a mais antiga da página.
+     */
+    public ChatHistoryPage getPage(UUID assemblyId, String before, Integer limit) {
+        int size = (limit == null || limit <= 0) ? 50 : Math.min(limit, MAX_PAGE_SIZE);
+        KeysetCursor cursor = KeysetCursor.decode(before);
+
+        // 1. Tenta servir da janela em memória
+        RecentWindow window = loadedWindow(assemblyId);
+        List<ChatMessageDTO> fromWindow = new ArrayList<>();
+        for (ChatMessageDTO m : window.snapshot()) {
+            if (cursor == null || cursor.isAfter(m.getTimestamp(), m.getId())) fromWindow.add(m);
+        }
+        if (fromWindow.size() >= size || window.complete) {
+            List<ChatMessageDTO> page = fromWindow.subList(Math.max(0, fromWindow.size() - size), fromWindow.size());
+            return toPage(new ArrayList<>(page), size);
+        }
+
+        // 2. Cursor anterior à janela: keyset no banco
+        List<ChatMessage> rows = cursor == null
+                ? chatMessageRepository.findLatest(assemblyId, size)
+                : chatMessageRepository.findPageBefore(assemblyId, cursor.createdAt(), cursor.id(), size);
+
+        List<ChatMessageDTO> page = new ArrayList<>(rows.size());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            page.add(toDTO(rows.get(i)));
+        }
+        return toPage(page, size);
+    }
+
+    public ChatMessageDTO toDTO(ChatMessage entity) {
+        ChatMessageDTO dto = new ChatMessageDTO();
+        dto.setId(entity.getId());
+        dto.setSenderName(entity.getSenderName());
+        dto.setContent(entity.getContent());
+        dto.setTimestamp(entity.getCreatedAt());
+        dto.setType(entity.getType());
+        dto.setAssemblyId(entity.getAssembly().getId());
+        if (entity.getUser() != null) dto.setUserId(entity.getUser().getId());
+        if (entity.getTenant() != null) dto.setTenantId(entity.getTenant().getId());
+        return dto;
+    }
+
+    private ChatHistoryPage toPage(List<ChatMessageDTO> page, int requested) {
+        String next = page.size() < requested || page.isEmpty() ? null : new KeysetCursor(page.get(0).getTimestamp(), page.get(0).getId()).encode();
+        return new ChatHistoryPage(page, next);
+    }
+
+    private RecentWindow window(UUID assemblyId) {
+        RecentWindow w = windows.computeIfAbsent(assemblyId, id -> new RecentWindow());
+        w.lastAccess = System.currentTimeMillis();
+        if (windows.size() > maxCachedAssemblies) evictOldest();
+        return w;
+    }
+
+    private RecentWindow loadedWindow(UUID assemblyId) {
+        RecentWindow w = window(assemblyId);
+        if (!w.loaded) {
+            // Só a primeira thread consulta o banco; as demais esperam e reaproveitam a carga.
+            synchronized (w) {
+                if (!w.loaded) {
+                    List<ChatMessageDTO> latest = new ArrayList<>();
+                    for (ChatMessage m : chatMessageRepository.findLatest(assemblyId, windowSize)) {
+                        latest.add(toDTO(m));
+                    }
+                    w.merge(latest, windowSize);
+                }
+            }
+        }
+        return w;
+    }
+
+    private void evictOldest() {
+        windows.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .ifPresent(e -> windows.remove(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Buffer circular das últimas N mensagens de uma assembleia.
+     */
+    private static class RecentWindow {
+        private final ArrayDeque<ChatMessageDTO> messages = new ArrayDeque<>();
+        private volatile boolean loaded = false;
+        // true enquanto a janela contém o histórico inteiro da assembleia
+        private volatile boolean complete = false;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        synchronized void add(ChatMessageDTO m, int capacity) {
+            messages.addLast(m);
+            while (messages.size() > capacity) {
+                messages.removeFirst();
+                complete = false;
+            }
+        }
+
+        /**
+         * Junta a carga do banco com o que já chegou via STOMP antes dela (pode ainda
+         * não estar persistido por causa do write-behind), sem duplicar.
+         */
+        synchronized void merge(List<ChatMessageDTO> fromDb, int capacity) {
+            Map<UUID, ChatMessageDTO> byId = new HashMap<>();
+            for (ChatMessageDTO m : fromDb) byId.put(m.getId(), m);
+            for (ChatMessageDTO m : messages) byId.put(m.getId(), m);
+
+            List<ChatMessageDTO> all = new ArrayList<>(byId.values());
+            all.sort(CHRONOLOGICAL);
+            messages.clear();
+            Iterator<ChatMessageDTO> it = all.listIterator(Math.max(0, all.size() - capacity));
+            while (it.hasNext()) messages.addLast(it.next());
+            complete = fromDb.size() < capacity && all.size() <= capacity;
+            loaded = true;
+        }
+
+        synchronized List<ChatMessageDTO> snapshot() {
+            return new ArrayList<>(messages);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistência write-behind das mensagens do chat das assembleias.
+ *
+ * O controller faz o broadcast primeiro e só depois enfileira aqui. Um buffer
+ * circular limitado por nó é esvaziado em lotes JDBC a cada N ms ou quando
+ * acumula M mensagens. Se o buffer lotar (backpressure), se o banco falhar ou
+ * se a aplicação for desligada, as mensagens vão para um arquivo local
+ * append-only (NDJSON) que é reprocessado assim que o banco voltar.
+ */
+@Service
+@Slf4j
+public class ChatPersistenceService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_message (id, assembly_id, user_id, tenant_id, sender_name, content, type, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    // Evita martelar um banco fora do ar com replays a cada tick do writer
+    private static final long REPLAY_BACKOFF_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${votzz.chat.buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${votzz.chat.buffer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${votzz.chat.buffer.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${votzz.chat.buffer.spill-dir:./data/chat-spill}")
+    private String spillDir;
+
+    private BlockingQueue<PendingChatMessage> buffer;
+    private ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final Object spillLock = new Object();
+
+    private Path spillFile;
+    private Path replayFile;
+    private volatile long lastReplayFailure = 0;
+
+    private Timer flushTimer;
+    private Counter persistedCounter;
+    private Counter spilledCounter;
+    private Counter droppedCounter;
+
+    public ChatPersistenceService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.spillFile = Paths.get(spillDir, "chat-spill.ndjson");
+        this.replayFile = Paths.get(spillDir, "chat-spill.replaying.ndjson");
+
+        Gauge.builder("votzz.chat.buffer.depth", buffer, BlockingQueue::size)
+                .description("Mensagens de chat aguardando persistência")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("votzz.chat.buffer.flush")
+                .description("Latência de cada lote JDBC do chat")
+                .register(meterRegistry);
+        this.persistedCounter = meterRegistry.counter("votzz.chat.buffer.persisted");
+        this.spilledCounter = meterRegistry.counter("votzz.chat.buffer.spilled");
+        this.droppedCounter = meterRegistry.counter("votzz.chat.buffer.dropped");
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Enfileira a mensagem sem bloquear a thread do STOMP. Buffer cheio = backpressure,
+     * a mensagem é gravada direto no arquivo de spill para não ser perdida.
+     */
+    public void enqueue(PendingChatMessage message) {
+        if (!buffer.offer(message)) {
+            spill(List.of(message));
+            return;
+        }
+        if (buffer.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushSafely);
+        }
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            List<PendingChatMessage> batch = new ArrayList<>(batchSize);
+            while (buffer.drainTo(batch, batchSize) > 0) {
+                persist(batch);
+                batch.clear();
+            }
+            replaySpillIfPresent();
+        } catch (Exception e) {
+            lastReplayFailure = System.currentTimeMillis();
+            log.error("Erro no flush do chat: {}", e.getMessage());
+        }
+    }
+
+    private void persist(List<PendingChatMessage> batch) {
+        try {
+            flushTimer.record(() -> insertBatch(batch));
+            persistedCounter.increment(batch.size());
+        } catch (DataIntegrityViolationException batchError) {
+            // Um lote com uma linha inválida (ex: assembleia excluída) não pode derrubar as outras.
+            log.warn("Lote de {} mensagens rejeitado, tentando individualmente: {}", batch.size(), batchError.getMessage());
+            for (PendingChatMessage m : batch) {
+                try {
+                    insertBatch(List.of(m));
+                    persistedCounter.increment();
+                } catch (DataIntegrityViolationException invalid) {
+                    droppedCounter.increment();
+                    log.error("Mensagem {} descartada (dados inválidos): {}", m.id(), invalid.getMessage());
+                } catch (Exception transientError) {
+                    spill(List.of(m));
+                }
+            }
+        } catch (Exception transientError) {
+            // Banco fora do ar: nada se perde, o lote inteiro vai para o spill.
+            log.warn("Banco indisponível, {} mensagens enviadas para o spill: {}", batch.size(), transientError.getMessage());
+            spill(batch);
+            lastReplayFailure = System.currentTimeMillis();
+        }
+    }
+
+    private void insertBatch(List<PendingChatMessage> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, m) -> {
+            Timestamp createdAt = Timestamp.valueOf(m.createdAt());
+            ps.setObject(1, m.id());
+            ps.setObject(2, m.assemblyId());
+            ps.setObject(3, m.userId());
+            ps.setObject(4, m.tenantId());
+            ps.setString(5, m.senderName());
+            ps.setString(6, m.content());
+            ps.setString(7, m.type());
+            ps.setTimestamp(8, createdAt);
+            ps.setTimestamp(9, createdAt);
+        });
+    }
+
+    // --- SPILL EM ARQUIVO (APPEND-ONLY) ---
+
+    private void spill(List<PendingChatMessage> messages) {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillFile.getParent());
+                StringBuilder sb = new StringBuilder();
+                for (PendingChatMessage m : messages) {
+                    sb.append(objectMapper.writeValueAsString(m)).append('\n');
+                }
+                try (FileChannel ch = FileChannel.open(spillFile,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ch.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+                    ch.force(false);
+                }
+                spilledCounter.increment(messages.size());
+            } catch (IOException e) {
+                log.error("ERRO CRÍTICO: não foi possível gravar {} mensagens no spill: {}", messages.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reprocessa o spill quando o buffer está vazio. O arquivo é renomeado antes da leitura
+     * para que novos spills continuem indo para um arquivo limpo. O INSERT é idempotente
+     * (ON CONFLICT), então reprocessar duas vezes não duplica mensagens.
+     */
+    private void replaySpillIfPresent() throws IOException {
+        if (!buffer.isEmpty()) return;
+        if (System.currentTimeMillis() - lastReplayFailure < REPLAY_BACKOFF_MS) return;
+
+        synchronized (spillLock) {
+            if (!Files.exists(replayFile)) {
+                if (!Files.exists(spillFile)) return;
+                Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        List<PendingChatMessage> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                batch.add(objectMapper.readValue(line, PendingChatMessage.class));
+                if (batch.size() >= batchSize) {
+                    persistReplay(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) persistReplay(batch);
+
+        Files.deleteIfExists(replayFile);
+        log.info("Spill do chat reprocessado com sucesso.");
+    }
+
+    // Se o banco continuar fora, a exceção sobe e o arquivo de replay fica para a próxima rodada.
+    private void persistReplay(List<PendingChatMessage> batch) {
+        try {
+            flushTimer.record(() -> insertBatch(batch));
+            persistedCounter.increment(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            for (PendingChatMessage m : batch) {
+                try {
+                    insertBatch(List.of(m));
+                    persistedCounter.increment();
+                } catch (DataIntegrityViolationException invalid) {
+                    droppedCounter.increment();
+                    log.error("Mensagem {} do spill descartada (dados inválidos): {}", m.id(), invalid.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) writer.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingChatMessage> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (remaining.isEmpty()) return;
+
+        try {
+            insertBatch(remaining);
+            log.info("Shutdown: {} mensagens de chat persistidas.", remaining.size());
+        } catch (Exception e) {
+            log.warn("Shutdown: banco indisponível, {} mensagens enviadas para o spill.", remaining.size());
+            spill(remaining);
+        }
+    }
+
+    public record PendingChatMessage(
+            UUID id,
+            UUID assemblyId,
+            UUID userId,
+            UUID tenantId,
+            String senderName,
+            String content,
+            String type,
+            LocalDateTime createdAt
+    ) {}
+}
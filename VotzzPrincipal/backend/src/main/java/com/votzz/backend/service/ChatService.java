@@ -1,14 +1,7 @@
 package com.votzz.backend.service;
 
-import com.votzz.backend.domain.ChatMessage;
-import com.votzz.backend.repository.ChatMessageRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
-import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.io.ByteArrayOutputStream;
 import com.lowagie.text.Document;
@@ -21,75 +14,18 @@ import com.lowagie.text.Font;
 @RequiredArgsConstructor
 public class ChatService {
 
-    private final ChatMessageRepository chatRepository;
-    private final RestTemplate restTemplate = new RestTemplate(); // Para chamadas HTTP
-    
-    @Value("${gemini.api.key}")
-    private String geminiApiKey;
+    private final ChatSummarizer chatSummarizer;
 
     public byte[] gerarResumoAssembleia(UUID assembleiaId) {
-        // 1. Busca as mensagens do banco
-        List<ChatMessage> mensagens = chatRepository.findByAssemblyIdOrderByCreatedAtAsc(assembleiaId);
+        // Map-reduce por janelas do chat, com os resumos parciais guardados (ChatSummarizer)
+        ChatSummarizer.Summary resumo = chatSummarizer.summarize(assembleiaId);
         
-        if (mensagens.isEmpty()) {
+        if (resumo == null) {
             return gerarPdf("Nenhuma mensagem registrada nesta assembleia para gerar resumo.");
         }
 
-        // 2. Monta o Prompt para a IA
-        StringBuilder prompt = new StringBuilder("Atue como um secretário de assembleia de condomínio experiente. ");
-        prompt.append("Abaixo está o log do chat em tempo real. Resuma os pontos principais, ");
-        prompt.append("decisões tomadas e eventuais conflitos em tópicos claros e profissionais.\n\n");
-        prompt.append("LOG DO CHAT:\n");
-        
-        mensagens.forEach(m -> prompt
-            .append("[").append(m.getUserName()).append("]: ") 
-            .append(m.getContent()).append("\n")); 
-
-        // 3. Chama a API Real do Google Gemini
-        String resumoTexto = chamarGeminiApi(prompt.toString());
-
-        // 4. Converte o texto da IA em um PDF oficial
-        return gerarPdf(resumoTexto);
-    }
-
-    @SuppressWarnings("unchecked")
-    private String chamarGeminiApi(String promptTexto) {
-        // ALTERAÇÃO DE SEGURANÇA: gemini-pro na v1beta é o endpoint mais estável para evitar 404
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:generateContent?key=" + geminiApiKey.trim();
-
-        // Estrutura de JSON que o Gemini exige
-        Map<String, Object> requestBody = Map.of(
-            "contents", List.of(
-                Map.of("parts", List.of(
-                    Map.of("text", promptTexto)
-                ))
-            )
-        );
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-            
-            // Navega no JSON de resposta com verificações de segurança
-            if (response.getBody() != null && response.getBody().containsKey("candidates")) {
-                List<Map<String, Object>> candidates = (List<Map<String, Object>>) response.getBody().get("candidates");
-                if (candidates != null && !candidates.isEmpty()) {
-                    Map<String, Object> firstCandidate = candidates.get(0);
-                    Map<String, Object> content = (Map<String, Object>) firstCandidate.get("content");
-                    List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                    Map<String, Object> firstPart = parts.get(0);
-                    
-                    return (String) firstPart.get("text");
-                }
-            }
-            return "A IA retornou uma estrutura inesperada.";
-        } catch (Exception e) {
-            return "Erro ao processar resumo com IA: " + e.getMessage();
-        }
+        // Converte o texto da IA em um PDF oficial
+        return gerarPdf(resumo.text());
     }
 
     private byte[] gerarPdf(String texto) {
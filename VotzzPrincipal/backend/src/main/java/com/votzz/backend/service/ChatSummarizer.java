@@ -0,0 +1,335 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.ai.AiGateway;
+import com.votzz.backend.core.ai.AiGateway.AiReply;
+import com.votzz.backend.core.ai.AiGateway.Lane;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resumo do chat de uma assembleia em map-reduce, para chats de qualquer tamanho.
+ *
+ * O log é cortado em janelas de até chunk-tokens (estimativa de 4 caracteres por token),
+ * sempre a partir da primeira mensagem: com o chat só crescendo, as janelas fechadas não
+ * mudam. Cada janela é resumida (map) em paralelo e o resumo fica em chat_summary_cache,
+ * chaveado pela faixa de mensagens (primeira, última, quantidade). Baixar o resumo de novo
+ * só processa as janelas novas; sem mensagem nova, nem isso (o resumo final também fica).
+ * Os parciais são então combinados (reduce), em mais de um nível se não couberem juntos.
+ *
+ * Todas as chamadas ao modelo passam por um pool fixo de parallelism threads, compartilhado
+ * entre downloads, que fica abaixo do bulkhead INTERNAL do AiGateway.
+ */
+@Service
+@Slf4j
+public class ChatSummarizer {
+
+    static final String KIND_CHUNK = "CHUNK";
+    static final String KIND_FINAL = "FINAL";
+
+    // Mudou o texto dos prompts? Incrementa: os resumos guardados com a versão anterior deixam de valer
+    static final int PROMPT_VERSION = 1;
+
+    private static final String FINAL_PROMPT =
+            "Atue como um secretário de assembleia de condomínio experiente. " +
+            "Abaixo está o log do chat em tempo real. Resuma os pontos principais, " +
+            "decisões tomadas e eventuais conflitos em tópicos claros e profissionais.\n\n" +
+            "LOG DO CHAT:\n";
+
+    private static final String MAP_PROMPT =
+            "Atue como um secretário de assembleia de condomínio experiente. " +
+            "Abaixo está um TRECHO (parte %d de %d) do log do chat em tempo real. Liste, em tópicos curtos, " +
+            "os assuntos discutidos, propostas, decisões e conflitos deste trecho, citando quem falou quando " +
+            "for relevante. Não escreva introdução nem conclusão.\n\n" +
+            "TRECHO DO CHAT:\n";
+
+    private static final String MERGE_PROMPT =
+            "Combine as anotações abaixo, de trechos consecutivos do chat de uma assembleia de condomínio, " +
+            "em uma única lista de tópicos, sem repetir assuntos e mantendo a ordem dos acontecimentos.\n\n";
+
+    private static final String REDUCE_PROMPT =
+            "Atue como um secretário de assembleia de condomínio experiente. " +
+            "Abaixo estão as anotações de cada trecho do chat da assembleia, em ordem. Escreva o resumo final: " +
+            "pontos principais, decisões tomadas e eventuais conflitos em tópicos claros e profissionais.\n\n";
+
+    public static final String UNAVAILABLE = "Resumo por IA indisponível no momento. Tente gerar novamente em alguns minutos.";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AiGateway aiGateway;
+
+    // ALTERAÇÃO DE SEGURANÇA: gemini-pro na v1beta é o endpoint mais estável para evitar 404
+    @Value("${votzz.ai.summary-model:gemini-pro}")
+    private String model;
+
+    @Value("${votzz.ai.summary.chunk-tokens:6000}")
+    private int chunkTokens;
+
+    // Chamadas simultâneas ao modelo para resumos (somando todos os downloads em curso)
+    @Value("${votzz.ai.summary.parallelism:3}")
+    private int parallelism;
+
+    // Uma mensagem gigante não pode ocupar a janela inteira sozinha
+    @Value("${votzz.ai.summary.max-message-chars:4000}")
+    private int maxMessageChars;
+
+    private ExecutorService pool;
+
+    public ChatSummarizer(JdbcTemplate jdbcTemplate, AiGateway aiGateway) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.aiGateway = aiGateway;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "chat-summary-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Resumo do chat inteiro da assembleia; null se não houver mensagens.
+     */
+    public Summary summarize(UUID assemblyId) {
+        List<Line> lines = jdbcTemplate.query(
+                "SELECT id, sender_name, content FROM chat_message WHERE assembly_id = ? ORDER BY created_at, id",
+                (rs, i) -> new Line((UUID) rs.getObject("id"), format(rs.getString("sender_name"), rs.getString("content"))),
+                assemblyId);
+        if (lines.isEmpty()) return null;
+
+        UUID firstId = lines.get(0).id();
+        UUID lastId = lines.get(lines.size() - 1).id();
+        String cachedFinal = findCached(assemblyId, KIND_FINAL, firstId, lastId, lines.size());
+        if (cachedFinal != null) return new Summary(cachedFinal, true, 0, 0);
+
+        List<Chunk> chunks = chunk(lines);
+        String finalText;
+        int computed;
+        if (chunks.size() == 1) {
+            // Cabe numa chamada só: mesmo prompt de sempre, sem map-reduce
+            String prompt = FINAL_PROMPT + chunks.get(0).text();
+            finalText = await(pool.submit(() -> call(prompt)));
+            computed = 1;
+        } else {
+            Map<String, String> cached = loadCachedChunks(assemblyId);
+            List<Future<String>> pending = new ArrayList<>();
+            String[] partials = new String[chunks.size()];
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk c = chunks.get(i);
+                partials[i] = cached.get(c.key());
+                if (partials[i] == null) {
+                    String prompt = String.format(MAP_PROMPT, i + 1, chunks.size()) + c.text();
+                    pending.add(pool.submit(() -> {
+                        String partial = call(prompt);
+                        if (partial != null) saveCached(assemblyId, KIND_CHUNK, c.firstId(), c.lastId(), c.count(), partial);
+                        return partial;
+                    }));
+                } else {
+                    pending.add(null);
+                }
+            }
+            computed = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                if (pending.get(i) == null) continue;
+                partials[i] = await(pending.get(i));
+                computed++;
+            }
+            // Parciais que deram certo já ficaram guardados: a próxima tentativa sai mais barata
+            for (String p : partials) if (p == null) return new Summary(UNAVAILABLE, false, chunks.size(), computed);
+
+            finalText = reduce(List.of(partials));
+            pruneChunks(assemblyId, chunks);
+        }
+        if (finalText == null) return new Summary(UNAVAILABLE, false, chunks.size(), computed);
+
+        saveCached(assemblyId, KIND_FINAL, firstId, lastId, lines.size(), finalText);
+        jdbcTemplate.update(
+                "DELETE FROM chat_summary_cache WHERE assembly_id = ? AND kind = ? AND NOT (last_message_id = ? AND message_count = ?)",
+                assemblyId, KIND_FINAL, lastId, lines.size());
+        log.info("Resumo da assembleia {}: {} mensagem(ns), {} janela(s), {} resumida(s) agora.",
+                assemblyId, lines.size(), chunks.size(), computed);
+        return new Summary(finalText, true, chunks.size(), computed);
+    }
+
+    // --- JANELAS ---
+
+    List<Chunk> chunk(List<Line> lines) {
+        int budgetChars = Math.max(1, chunkTokens) * 4;
+        List<Chunk> chunks = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).text();
+            if (text.length() > 0 && text.length() + line.length() > budgetChars) {
+                chunks.add(new Chunk(lines.get(start).id(), lines.get(i - 1).id(), i - start, text.toString()));
+                text.setLength(0);
+                start = i;
+            }
+            text.append(line);
+        }
+        chunks.add(new Chunk(lines.get(start).id(), lines.get(lines.size() - 1).id(), lines.size() - start, text.toString()));
+        return chunks;
+    }
+
+    private String format(String sender, String content) {
+        String c = content == null ? "" : content;
+        if (c.length() > maxMessageChars) c = c.substring(0, maxMessageChars) + " [...]";
+        return "[" + sender + "]: " + c + "\n";
+    }
+
+    // --- REDUCE ---
+
+    /**
+     * Combina os parciais. Se juntos passarem da janela, são mesclados em grupos (em paralelo)
+     * até caberem numa chamada final.
+     */
+    private String reduce(List<String> partials) {
+        int budgetChars = Math.max(1, chunkTokens) * 4;
+        List<String> level = partials;
+        while (totalLength(level) > budgetChars && level.size() > 1) {
+            List<List<String>> groups = new ArrayList<>();
+            List<String> group = new ArrayList<>();
+            int size = 0;
+            for (String p : level) {
+                if (!group.isEmpty() && size + p.length() > budgetChars) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                    size = 0;
+                }
+                group.add(p);
+                size += p.length();
+            }
+            groups.add(group);
+            // Sem progresso (cada parcial sozinho já estoura a janela): segue para o final assim mesmo
+            if (groups.size() == level.size()) break;
+
+            List<Future<String>> merged = new ArrayList<>();
+            for (List<String> g : groups) {
+                merged.add(g.size() == 1 ? null : pool.submit(() -> call(MERGE_PROMPT + numbered(g))));
+            }
+            List<String> next = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i++) {
+                String m = merged.get(i) == null ? groups.get(i).get(0) : await(merged.get(i));
+                if (m == null) return null;
+                next.add(m);
+            }
+            level = next;
+        }
+        List<String> last = level;
+        return await(pool.submit(() -> call(REDUCE_PROMPT + numbered(last))));
+    }
+
+    private static String numbered(List<String> parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            sb.append("ANOTAÇÕES DO TRECHO ").append(i + 1).append(":\n").append(parts.get(i).trim()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static int totalLength(List<String> parts) {
+        int total = 0;
+        for (String p : parts) total += p.length();
+        return total;
+    }
+
+    // --- MODELO ---
+
+    // null = falhou (timeout, disjuntor aberto, bulkhead cheio); nunca guardado no cache
+    private String call(String prompt) {
+        AiReply reply = aiGateway.generate(Lane.INTERNAL, model, prompt);
+        return reply.isOk() ? reply.text() : null;
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Erro ao resumir trecho do chat: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return null;
+        }
+    }
+
+    // --- CACHE ---
+
+    private String findCached(UUID assemblyId, String kind, UUID firstId, UUID lastId, int count) {
+        List<String> found = jdbcTemplate.queryForList(
+                "SELECT summary FROM chat_summary_cache WHERE assembly_id = ? AND kind = ? AND first_message_id = ? " +
+                "AND last_message_id = ? AND message_count = ? AND prompt_version = ?",
+                String.class, assemblyId, kind, firstId, lastId, count, PROMPT_VERSION);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private Map<String, String> loadCachedChunks(UUID assemblyId) {
+        Map<String, String> cached = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT first_message_id, last_message_id, message_count, summary FROM chat_summary_cache " +
+                "WHERE assembly_id = ? AND kind = ? AND prompt_version = ?",
+                rs -> {
+                    cached.put(key((UUID) rs.getObject(1), (UUID) rs.getObject(2), rs.getInt(3)), rs.getString(4));
+                },
+                assemblyId, KIND_CHUNK, PROMPT_VERSION);
+        return cached;
+    }
+
+    private void saveCached(UUID assemblyId, String kind, UUID firstId, UUID lastId, int count, String summary) {
+        jdbcTemplate.update(
+                "INSERT INTO chat_summary_cache (assembly_id, kind, first_message_id, last_message_id, message_count, prompt_version, summary) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                assemblyId, kind, firstId, lastId, count, PROMPT_VERSION, summary);
+    }
+
+    // A última janela muda a cada mensagem nova: faixas que não fazem mais parte do chat saem
+    private void pruneChunks(UUID assemblyId, List<Chunk> chunks) {
+        jdbcTemplate.update(
+                "DELETE FROM chat_summary_cache c WHERE c.assembly_id = ? AND c.kind = ? AND NOT EXISTS (" +
+                "  SELECT 1 FROM unnest(?::uuid[], ?::uuid[], ?::int[]) AS k(first_id, last_id, cnt) " +
+                "  WHERE k.first_id = c.first_message_id AND k.last_id = c.last_message_id AND k.cnt = c.message_count)",
+                assemblyId, KIND_CHUNK,
+                chunks.stream().map(Chunk::firstId).toArray(UUID[]::new),
+                chunks.stream().map(Chunk::lastId).toArray(UUID[]::new),
+                chunks.stream().map(Chunk::count).toArray(Integer[]::new));
+    }
+
+    private static String key(UUID firstId, UUID lastId, int count) {
+        return firstId + "|" + lastId + "|" + count;
+    }
+
+    record Line(UUID id, String text) {}
+
+    record Chunk(UUID firstId, UUID lastId, int count, String text) {
+        String key() {
+            return ChatSummarizer.key(firstId, lastId, count);
+        }
+    }
+
+    /**
+     * chunks = janelas do chat; computed = chamadas de map feitas agora (o resto veio do cache).
+     */
+    public record Summary(String text, boolean ok, int chunks, int computed) {}
+}
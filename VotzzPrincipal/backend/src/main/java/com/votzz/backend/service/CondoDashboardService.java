@@ -23,10 +23,12 @@ public class CondoDashboardService {
     private final VoteRepository voteRepository;
     private final CondoFinancialRepository condoFinancialRepository;
     private final BookingRepository bookingRepository; // [1] INJEÇÃO DO REPOSITÓRIO DE RESERVAS
+    private final AudienceResolver audienceResolver;
 
     public AdminDashboardStats getCondoStats(UUID tenantId) {
         // 1. Total de Moradores
-        long totalUsers = userRepository.findByTenantId(tenantId).size();
+        // Contagem pelo índice de público (projeção em memória), sem carregar as entidades
+        long totalUsers = audienceResolver.countMembers(tenantId);
         
         // 2. Usuários Online
         long onlineUsers = userRepository.countOnlineUsers(LocalDateTime.now().minusMinutes(5));
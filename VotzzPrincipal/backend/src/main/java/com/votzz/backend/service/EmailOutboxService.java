@@ -0,0 +1,420 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.ratelimit.TokenBucket;
+import com.votzz.backend.service.EmailService.DeliveryResult;
+import com.votzz.backend.service.EmailService.EmailContent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox transacional de e-mails.
+ *
+ * Quem cria a assembleia/enquete/comunicado grava a campanha (assunto + corpo, uma vez) e
+ * uma linha por destinatário na mesma transação: se a criação falha, nada é enviado; se o
+ * nó cai no meio do disparo, o restante continua de onde parou em qualquer nó.
+ *
+ * Um despachante pega lotes de mensagens vencidas intercalando condomínios (row_number por
+ * tenant), o que impede que um disparo de 2.000 moradores segure os demais. O envio roda num
+ * pool limitado, em lotes por campanha que reaproveitam a conexão SMTP e respeitam a cota
+ * do provedor (token bucket); falhas temporárias voltam para a fila com backoff exponencial e cada linha
+ * guarda status, tentativas e o Message-ID aceito pelo SMTP (comprovante para o dossiê).
+ *
+ * Entrega "pelo menos uma vez": se o nó cair entre o envio e a gravação do status, a
+ * mensagem é reenviada quando o lease (locked_until) expira.
+ */
+@Service
+@Slf4j
+public class EmailOutboxService {
+
+    public static final String REF_ASSEMBLY = "ASSEMBLY";
+    public static final String REF_POLL = "POLL";
+    public static final String REF_ANNOUNCEMENT = "ANNOUNCEMENT";
+    public static final String REF_NOTIFICATION = "NOTIFICATION";
+
+    private static final String INSERT_CAMPAIGN =
+            "INSERT INTO email_campaigns (id, tenant_id, ref_type, ref_id, subject, html_body) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Intercala condomínios: 1ª mensagem de cada tenant, depois a 2ª de cada, ...
+    // O "AND o.status = 'PENDING'" no UPDATE impede que dois nós peguem a mesma linha.
+    private static final String CLAIM_SQL =
+            "WITH due AS (" +
+            "  SELECT id, row_number() OVER (PARTITION BY tenant_id ORDER BY next_attempt_at, id) AS rn" +
+            "  FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= now()" +
+            "), picked AS (SELECT id FROM due ORDER BY rn, id LIMIT ?) " +
+            "UPDATE email_outbox o SET status = 'SENDING', attempts = o.attempts + 1, " +
+            "locked_until = now() + make_interval(secs => ?) " +
+            "FROM picked WHERE o.id = picked.id AND o.status = 'PENDING' " +
+            "RETURNING o.id, o.campaign_id, o.recipient, o.attempts";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${votzz.email.outbox.workers:8}")
+    private int workers;
+
+    @Value("${votzz.email.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${votzz.email.outbox.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${votzz.email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${votzz.email.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${votzz.email.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    // Mensagens por conexão SMTP (send(MimeMessage...))
+    @Value("${votzz.email.smtp.batch-size:50}")
+    private int smtpBatchSize;
+
+    // Cota do provedor dividida pelos nós (ex.: SES começa em 14/s); <= 0 desliga
+    @Value("${votzz.email.smtp.rate-per-second:0}")
+    private double ratePerSecond;
+
+    // Lease de uma mensagem em SENDING; vencido, ela volta para a fila
+    @Value("${votzz.email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService dispatcher;
+    private ExecutorService senders;
+    private TokenBucket rateLimiter;
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
+
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer sendTimer;
+
+    public EmailOutboxService(JdbcTemplate jdbcTemplate, EmailService emailService, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailService = emailService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.sentCounter = meterRegistry.counter("votzz.email.outbox.sent");
+        this.retriedCounter = meterRegistry.counter("votzz.email.outbox.retried");
+        this.failedCounter = meterRegistry.counter("votzz.email.outbox.failed");
+        this.sendTimer = Timer.builder("votzz.email.outbox.send")
+                .description("Latência de cada lote SMTP do outbox (uma conexão)")
+                .register(meterRegistry);
+
+        this.rateLimiter = new TokenBucket(ratePerSecond, smtpBatchSize);
+        AtomicInteger seq = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "email-outbox-sender-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        dispatcher.scheduleWithFixedDelay(this::drainSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    // --- ENFILEIRAMENTO (na transação de quem chama) ---
+
+    /**
+     * Enfileira para todos os usuários do condomínio (vínculo principal ou user_tenants),
+     * com um único INSERT ... SELECT. Devolve a quantidade de destinatários.
+     */
+    @Transactional
+    public int enqueueForTenant(UUID tenantId, String refType, UUID refId, EmailContent content) {
+        UUID campaignId = createCampaign(tenantId, refType, refId, content);
+        int count = jdbcTemplate.update(
+                "INSERT INTO email_outbox (campaign_id, tenant_id, recipient) " +
+                "SELECT DISTINCT ?, ?, u.email_norm FROM users u " +
+                "WHERE (u.tenant_id = ? OR EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id = ?)) " +
+                "AND u.email_norm LIKE '%@%'",
+                campaignId, tenantId, tenantId, tenantId);
+        afterCommitWake();
+        log.info("Campanha {} ({} {}) enfileirada para {} destinatário(s).", campaignId, refType, refId, count);
+        return count;
+    }
+
+    @Transactional
+    public int enqueue(UUID tenantId, String refType, UUID refId, EmailContent content, List<String> recipients) {
+        if (recipients == null || recipients.isEmpty()) return 0;
+        UUID campaignId = createCampaign(tenantId, refType, refId, content);
+        int count = jdbcTemplate.update(
+                "INSERT INTO email_outbox (campaign_id, tenant_id, recipient) " +
+                "SELECT ?, ?, r FROM (SELECT DISTINCT lower(btrim(x)) AS r FROM unnest(?::text[]) x) d WHERE r LIKE '%@%'",
+                campaignId, tenantId, recipients.toArray(new String[0]));
+        afterCommitWake();
+        return count;
+    }
+
+    /**
+     * E-mail de reserva: fica na fila só a partir de now() + delay e pode ser cancelado
+     * enquanto não sair (ex.: notificação lida no app antes disso). Devolve o id da linha.
+     */
+    @Transactional
+    public Long enqueueDelayed(UUID tenantId, String refType, UUID refId, EmailContent content, String recipient, long delaySeconds) {
+        if (recipient == null || !recipient.contains("@")) return null;
+        UUID campaignId = createCampaign(tenantId, refType, refId, content);
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO email_outbox (campaign_id, tenant_id, recipient, next_attempt_at) " +
+                "VALUES (?, ?, lower(btrim(?)), now() + make_interval(secs => ?)) RETURNING id",
+                Long.class, campaignId, tenantId, recipient, Math.max(0, delaySeconds));
+        if (delaySeconds <= 0) afterCommitWake();
+        return id;
+    }
+
+    /**
+     * Cancela envios que ainda estão na fila; o que já saiu (ou está saindo) não muda.
+     */
+    @Transactional
+    public int cancel(Collection<Long> outboxIds) {
+        if (outboxIds == null || outboxIds.isEmpty()) return 0;
+        return jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'CANCELLED', locked_until = NULL WHERE id = ANY(?) AND status = 'PENDING'",
+                (Object) outboxIds.toArray(new Long[0]));
+    }
+
+    private UUID createCampaign(UUID tenantId, String refType, UUID refId, EmailContent content) {
+        UUID campaignId = UUID.randomUUID();
+        jdbcTemplate.update(INSERT_CAMPAIGN, campaignId, tenantId, refType, refId, content.subject(), content.htmlBody());
+        return campaignId;
+    }
+
+    // Sem esperar o próximo tick: o despachante acorda assim que a transação confirmar
+    private void afterCommitWake() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    private void wake() {
+        if (drainRequested.compareAndSet(false, true)) dispatcher.execute(this::drainSafely);
+    }
+
+    // --- CONSULTA (dossiê / painel) ---
+
+    public DeliverySummary getDeliverySummary(String refType, UUID refId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(o.id) AS total, " +
+                "count(o.id) FILTER (WHERE o.status = 'SENT') AS sent, " +
+                "count(o.id) FILTER (WHERE o.status = 'FAILED') AS failed, " +
+                "min(o.sent_at) AS first_sent, max(o.sent_at) AS last_sent " +
+                "FROM email_campaigns c JOIN email_outbox o ON o.campaign_id = c.id " +
+                "WHERE c.ref_type = ? AND c.ref_id = ? AND o.status <> 'CANCELLED'",
+                (rs, i) -> {
+                    long total = rs.getLong("total");
+                    long sent = rs.getLong("sent");
+                    long failed = rs.getLong("failed");
+                    return new DeliverySummary(total, sent, failed, total - sent - failed,
+                            toLocal(rs.getTimestamp("first_sent")), toLocal(rs.getTimestamp("last_sent")));
+                },
+                refType, refId);
+    }
+
+    public List<EmailDelivery> listDeliveries(String refType, UUID refId) {
+        return jdbcTemplate.query(
+                "SELECT c.created_at AS campaign_at, o.recipient, o.status, o.attempts, o.sent_at, o.message_id, o.last_error " +
+                "FROM email_campaigns c JOIN email_outbox o ON o.campaign_id = c.id " +
+                "WHERE c.ref_type = ? AND c.ref_id = ? ORDER BY c.created_at, o.recipient",
+                (rs, i) -> new EmailDelivery(toLocal(rs.getTimestamp("campaign_at")), rs.getString("recipient"),
+                        rs.getString("status"), rs.getInt("attempts"), toLocal(rs.getTimestamp("sent_at")),
+                        rs.getString("message_id"), rs.getString("last_error")),
+                refType, refId);
+    }
+
+    // --- DESPACHO ---
+
+    private void drainSafely() {
+        drainRequested.set(false);
+        try {
+            releaseExpiredLeases();
+            // Lote cheio = provavelmente há mais; segue sem esperar o próximo tick
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed >= batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.error("Erro no despacho do outbox de e-mails: {}", e.getMessage());
+        }
+    }
+
+    private void releaseExpiredLeases() {
+        int released = jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'PENDING', locked_until = NULL WHERE status = 'SENDING' AND locked_until < now()");
+        if (released > 0) log.warn("{} e-mail(s) com lease vencido voltaram para a fila.", released);
+    }
+
+    private int dispatchBatch() {
+        List<Claimed> batch = jdbcTemplate.query(CLAIM_SQL,
+                (rs, i) -> new Claimed(rs.getLong("id"), rs.getObject("campaign_id", UUID.class),
+                        rs.getString("recipient"), rs.getInt("attempts")),
+                batchSize, leaseSeconds);
+        if (batch.isEmpty()) return 0;
+
+        // Cada tarefa = um trecho de uma campanha, enviado numa única conexão SMTP
+        Map<UUID, EmailContent> contents = loadContents(batch);
+        Map<UUID, List<Claimed>> byCampaign = new LinkedHashMap<>();
+        batch.forEach(m -> byCampaign.computeIfAbsent(m.campaignId(), k -> new ArrayList<>()).add(m));
+
+        List<CompletableFuture<List<Result>>> futures = new ArrayList<>();
+        byCampaign.forEach((campaignId, messages) -> {
+            EmailContent content = contents.get(campaignId);
+            for (int from = 0; from < messages.size(); from += smtpBatchSize) {
+                List<Claimed> chunk = messages.subList(from, Math.min(from + smtpBatchSize, messages.size()));
+                futures.add(CompletableFuture.supplyAsync(() -> send(chunk, content), senders));
+            }
+        });
+        List<Result> results = futures.stream().map(CompletableFuture::join).flatMap(List::stream).toList();
+        record(results);
+        return batch.size();
+    }
+
+    private Map<UUID, EmailContent> loadContents(List<Claimed> batch) {
+        Map<UUID, EmailContent> contents = new HashMap<>();
+        UUID[] ids = batch.stream().map(Claimed::campaignId).distinct().toArray(UUID[]::new);
+        jdbcTemplate.query("SELECT id, subject, html_body FROM email_campaigns WHERE id = ANY(?)",
+                rs -> {
+                    contents.put(rs.getObject("id", UUID.class), new EmailContent(rs.getString("subject"), rs.getString("html_body")));
+                },
+                (Object) ids);
+        return contents;
+    }
+
+    private List<Result> send(List<Claimed> chunk, EmailContent content) {
+        try {
+            rateLimiter.acquire(chunk.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return chunk.stream().map(m -> Result.failed(m, "envio interrompido", false)).toList();
+        }
+
+        long start = System.nanoTime();
+        List<DeliveryResult> delivered = emailService.deliverBatch(content, chunk.stream().map(Claimed::recipient).toList());
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<Result> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Claimed m = chunk.get(i);
+            DeliveryResult r = delivered.get(i);
+            if (r.delivered()) {
+                results.add(Result.sent(m, r.messageId()));
+            } else {
+                log.warn("Falha ao enviar e-mail {} para {} (tentativa {}): {}", m.id(), m.recipient(), m.attempts(), r.error());
+                results.add(Result.failed(m, r.error(), r.permanent() || m.attempts() >= maxAttempts));
+            }
+        }
+        return results;
+    }
+
+    private void record(List<Result> results) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> retry = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (Result r : results) {
+            if (r.error() == null) {
+                sent.add(new Object[]{now, r.messageId(), r.id()});
+            } else if (r.permanent()) {
+                failed.add(new Object[]{truncate(r.error()), r.id()});
+            } else {
+                retry.add(new Object[]{Timestamp.valueOf(LocalDateTime.now().plusSeconds(backoffSeconds(r.attempts()))),
+                        truncate(r.error()), r.id()});
+            }
+        }
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET status = 'SENT', sent_at = ?, message_id = ?, " +
+                    "locked_until = NULL, last_error = NULL WHERE id = ?", sent);
+        }
+        if (!retry.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET status = 'PENDING', next_attempt_at = ?, last_error = ?, " +
+                    "locked_until = NULL WHERE id = ?", retry);
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET status = 'FAILED', last_error = ?, locked_until = NULL WHERE id = ?", failed);
+        }
+        sentCounter.increment(sent.size());
+        retriedCounter.increment(retry.size());
+        failedCounter.increment(failed.size());
+    }
+
+    // 30s, 60s, 120s... até o teto, com ±20% de jitter para não sincronizar retries
+    private long backoffSeconds(int attempts) {
+        long base = backoffBaseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(base, backoffMaxSeconds);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Math.max(1, (long) (capped * jitter));
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return "erro desconhecido";
+        return s.length() > 500 ? s.substring(0, 500) : s;
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    private record Claimed(long id, UUID campaignId, String recipient, int attempts) {}
+
+    private record Result(long id, int attempts, String messageId, String error, boolean permanent) {
+        static Result sent(Claimed m, String messageId) {
+            return new Result(m.id(), m.attempts(), messageId, null, false);
+        }
+
+        static Result failed(Claimed m, String error, boolean permanent) {
+            return new Result(m.id(), m.attempts(), null, error != null ? error : "erro desconhecido", permanent);
+        }
+    }
+
+    public record DeliverySummary(long total, long sent, long failed, long pending,
+                                  LocalDateTime firstSentAt, LocalDateTime lastSentAt) {}
+
+    public record EmailDelivery(LocalDateTime campaignAt, String recipient, String status, int attempts,
+                                LocalDateTime sentAt, String messageId, String lastError) {}
+}
@@ -1,14 +1,25 @@
 package com.votzz.backend.service;
 
+import com.votzz.backend.core.template.HtmlTemplate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
@@ -25,16 +36,7 @@ public class EmailService {
      */
     public void sendHtmlEmail(String to, String subject, String htmlBody) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            // Define o remetente oficial
-            helper.setFrom(senderEmail, "Votzz - Assembleias Digitais");
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true); // true indica que o conteúdo é HTML
-
-            mailSender.send(message);
+            deliver(to, subject, htmlBody);
             log.info("E-mail enviado para: {}", to);
         } catch (Exception e) {
             log.error("Erro ao enviar e-mail para {}: {}", to, e.getMessage());
@@ -42,90 +44,232 @@ public class EmailService {
     }
 
     /**
-     * Notifica moradores com layout profissional, botão e nome do condomínio.
+     * Envia e propaga a falha (usado pelo outbox, que decide entre retry e falha definitiva).
+     * Devolve o Message-ID aceito pelo servidor SMTP, guardado como comprovante de envio.
      */
-    @Async
-    public void sendNewAssemblyNotification(List<String> recipients, String title, String description, String periodo, String link, String tenantName) {
-        if (recipients == null || recipients.isEmpty()) {
-            log.info("Lista de destinatários vazia.");
-            return;
+    public String deliver(String to, String subject, String htmlBody) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        // Define o remetente oficial
+        helper.setFrom(senderEmail, "Votzz - Assembleias Digitais");
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlBody, true); // true indica que o conteúdo é HTML
+
+        mailSender.send(message);
+        return message.getMessageID();
+    }
+
+    /**
+     * Envio em lote de um mesmo conteúdo: o MIME (HTML codificado, cabeçalhos) é montado uma
+     * vez e copiado por destinatário, e todas as mensagens seguem por send(MimeMessage...),
+     * que usa uma única conexão/sessão SMTP para o lote.
+     *
+     * Nunca lança: o resultado de cada destinatário (Message-ID ou erro) vem na lista, na
+     * mesma ordem da entrada.
+     */
+    public List<DeliveryResult> deliverBatch(EmailContent content, List<String> recipients) {
+        List<DeliveryResult> results = new ArrayList<>(recipients.size());
+        Map<MimeMessage, Integer> messages = new IdentityHashMap<>();
+        try {
+            MimeMessage template = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(template, true, "UTF-8");
+            helper.setFrom(senderEmail, "Votzz - Assembleias Digitais");
+            helper.setSubject(content.subject());
+            helper.setText(content.htmlBody(), true);
+            template.saveChanges();
+
+            for (String to : recipients) {
+                try {
+                    MimeMessage message = new MimeMessage(template);
+                    // A cópia herda o Message-ID do modelo e o doSend do Spring preserva um Message-ID
+                    // existente: sem remover, o lote inteiro sairia com o mesmo ID (e o mesmo "comprovante")
+                    message.removeHeader("Message-ID");
+                    message.setRecipient(Message.RecipientType.TO, new InternetAddress(to, true));
+                    messages.put(message, results.size());
+                    results.add(null);
+                } catch (AddressException e) {
+                    results.add(DeliveryResult.failed(to, e, true));
+                }
+            }
+        } catch (MessagingException | UnsupportedEncodingException e) {
+            return recipients.stream().map(to -> DeliveryResult.failed(to, e, false)).toList();
         }
 
-        // 1. Assunto Personalizado
-        String subject = String.format("%s - 📢 Convocação: %s", tenantName, title);
-        
-        // 2. Template HTML com Botão
-        String body = String.format(
-            "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto; line-height: 1.6; border: 1px solid #e0e0e0; border-radius: 8px; overflow: hidden;'>" +
-                
-                // Cabeçalho
-                "<div style='background-color: #10b981; padding: 20px; text-align: center;'>" +
-                    "<h2 style='color: white; margin: 0;'>Convocação de Assembleia</h2>" +
-                    "<p style='color: #ecfdf5; margin: 5px 0 0 0;'>%s</p>" +
-                "</div>" +
+        Map<Object, Exception> failures = Map.of();
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                // Falhas parciais: só as mensagens listadas falharam, as demais foram aceitas
+                failures = e.getFailedMessages();
+            } catch (MailException e) {
+                failures = new IdentityHashMap<>();
+                for (MimeMessage m : messages.keySet()) failures.put(m, e);
+            }
+        }
+        for (Map.Entry<MimeMessage, Integer> entry : messages.entrySet()) {
+            MimeMessage message = entry.getKey();
+            String to = recipients.get(entry.getValue());
+            Exception error = failures.get(message);
+            DeliveryResult result;
+            if (error != null) {
+                result = DeliveryResult.failed(to, error, false);
+            } else {
+                try {
+                    result = new DeliveryResult(to, message.getMessageID(), null, false);
+                } catch (MessagingException e) {
+                    result = new DeliveryResult(to, null, null, false);
+                }
+            }
+            results.set(entry.getValue(), result);
+        }
+        return results;
+    }
+
+    // --- TEMPLATES ---
+    // Compilados uma vez; a parte por condomínio (cabeçalho/rodapé) é pré-renderizada e fica
+    // em cache, e cada envio só escreve os campos variáveis.
+
+    private static final String SLOT_TENANT = "tenant";
+    private static final int TENANT_CACHE_LIMIT = 2_000;
+
+    private static final HtmlTemplate ASSEMBLY_SUBJECT = HtmlTemplate.compile("{{{tenant}}} - 📢 Convocação: {{{title}}}");
+
+    private static final HtmlTemplate ASSEMBLY_BODY = HtmlTemplate.compile(
+        "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto; line-height: 1.6; border: 1px solid #e0e0e0; border-radius: 8px; overflow: hidden;'>" +
 
-                // Conteúdo
-                "<div style='padding: 30px;'>" +
-                    "<p>Olá vizinho(a),</p>" +
-                    "<p>Você está sendo convocado(a) para participar de uma assembleia oficial no nosso condomínio.</p>" +
-                    
-                    "<div style='background: #f8fafc; padding: 20px; border-radius: 8px; border-left: 4px solid #10b981; margin: 20px 0;'>" +
-                        "<p style='margin: 0 0 10px 0;'><strong>📌 TÍTULO:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
-                        "<p style='margin: 0 0 10px 0;'><strong>📝 PAUTA:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
-                        "<p style='margin: 0;'><strong>📅 PERÍODO:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
-                    "</div>" +
-
-                    // Botão Clicável
-                    "<div style='text-align: center; margin: 40px 0;'>" +
-                        "<a href='%s' style='background-color: #2563eb; color: white; padding: 15px 30px; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; display: inline-block;'>CLIQUE AQUI PARA ACESSAR A SALA</a>" +
-                    "</div>" +
-
-                    "<p style='font-size: 13px; color: #94a3b8;'>Se o botão acima não funcionar, copie e cole este link no seu navegador:<br/>" +
-                    "<a href='%s' style='color: #2563eb;'>%s</a></p>" +
+            // Cabeçalho
+            "<div style='background-color: #10b981; padding: 20px; text-align: center;'>" +
+                "<h2 style='color: white; margin: 0;'>Convocação de Assembleia</h2>" +
+                "<p style='color: #ecfdf5; margin: 5px 0 0 0;'>{{tenant}}</p>" +
+            "</div>" +
+
+            // Conteúdo
+            "<div style='padding: 30px;'>" +
+                "<p>Olá vizinho(a),</p>" +
+                "<p>Você está sendo convocado(a) para participar de uma assembleia oficial no nosso condomínio.</p>" +
+
+                "<div style='background: #f8fafc; padding: 20px; border-radius: 8px; border-left: 4px solid #10b981; margin: 20px 0;'>" +
+                    "<p style='margin: 0 0 10px 0;'><strong>📌 TÍTULO:</strong> <br/><span style='color: #475569;'>{{title}}</span></p>" +
+                    "<p style='margin: 0 0 10px 0;'><strong>📝 PAUTA:</strong> <br/><span style='color: #475569;'>{{description}}</span></p>" +
+                    "<p style='margin: 0;'><strong>📅 PERÍODO:</strong> <br/><span style='color: #475569;'>{{periodo}}</span></p>" +
                 "</div>" +
 
-                // Rodapé / Assinatura
-                "<div style='background-color: #f1f5f9; padding: 20px; text-align: center; font-size: 12px; color: #64748b;'>" +
-                    "<p style='margin: 0;'>Atenciosamente,</p>" +
-                    "<p style='margin: 5px 0 0 0;'><strong>Administração do Condomínio \"%s\" via Votzz.</strong></p>" +
+                // Botão Clicável
+                "<div style='text-align: center; margin: 40px 0;'>" +
+                    "<a href='{{link}}' style='background-color: #2563eb; color: white; padding: 15px 30px; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; display: inline-block;'>CLIQUE AQUI PARA ACESSAR A SALA</a>" +
                 "</div>" +
-            "</div>",
-            tenantName, // Cabeçalho Verde
-            title, 
-            (description != null ? description : "Ver pauta completa no sistema"), 
-            periodo, 
-            link, // Link do Botão
-            link, link, // Link texto backup
-            tenantName // Assinatura
-        );
-
-        log.info("Iniciando disparo para {} moradores do condomínio {}.", recipients.size(), tenantName);
-
-        for (String email : recipients) {
-            sendHtmlEmail(email, subject, body);
-        }
+
+                "<p style='font-size: 13px; color: #94a3b8;'>Se o botão acima não funcionar, copie e cole este link no seu navegador:<br/>" +
+                "<a href='{{link}}' style='color: #2563eb;'>{{link}}</a></p>" +
+            "</div>" +
+
+            // Rodapé / Assinatura
+            "<div style='background-color: #f1f5f9; padding: 20px; text-align: center; font-size: 12px; color: #64748b;'>" +
+                "<p style='margin: 0;'>Atenciosamente,</p>" +
+                "<p style='margin: 5px 0 0 0;'><strong>Administração do Condomínio \"{{tenant}}\" via Votzz.</strong></p>" +
+            "</div>" +
+        "</div>");
+
+    private static final HtmlTemplate ORDER_BODY = HtmlTemplate.compile(
+        "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto;'>" +
+        "<h2 style='color: #2563eb;'>Nova Encomenda na Portaria</h2>" +
+        "<p>Olá <strong>{{residentName}}</strong>,</p>" +
+        "<p>Informamos que chegou uma nova encomenda para a sua unidade.</p>" +
+        "<div style='background: #f0f9ff; padding: 15px; border-radius: 8px; border-left: 4px solid #2563eb; margin: 20px 0;'>" +
+        "<p><strong>Origem:</strong> {{origin}}</p>" +
+        "<p><strong>Rastreio/Cód:</strong> {{trackingCode}}</p>" +
+        "<p><strong>Data de Chegada:</strong> {{arrival}}</p>" +
+        "</div>" +
+        "<p>Por favor, compareça à portaria para retirada apresentando um documento.</p>" +
+        "<hr style='border: 0; border-top: 1px solid #eee; margin: 20px 0;'/>" +
+        "<p style='font-size: 12px; color: #666;'>Atenciosamente,<br>Administração do Condomínio {{tenant}}.</p>" +
+        "</div>");
+
+    private static final HtmlTemplate DIGEST_BODY = HtmlTemplate.compile(
+        "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto;'>" +
+        "<h2 style='color: #10b981;'>Novidades no condomínio</h2>" +
+        "<p>Desde o último aviso, a administração do {{tenant}} publicou:</p>" +
+        "<ul style='background: #f8fafc; padding: 15px 15px 15px 35px; border-radius: 8px; border-left: 4px solid #10b981;'>{{{items}}}</ul>" +
+        "<p>Acesse o Votzz para ver os detalhes.</p>" +
+        "<p style='font-size: 12px; color: #666;'>Atenciosamente,<br>Administração do Condomínio {{tenant}} via Votzz.</p>" +
+        "</div>");
+
+    private static final HtmlTemplate DIGEST_ITEM = HtmlTemplate.compile("<li style='margin: 5px 0;'>{{text}}</li>");
+
+    private static final HtmlTemplate GENERIC_BODY = HtmlTemplate.compile(
+        "<div style='font-family: Arial;'>{{content}}<br><br>Atenciosamente,<br><strong>Administração via Votzz.</strong></div>");
+
+    private static final HtmlTemplate RESET_TOKEN_BODY = HtmlTemplate.compile(
+        "<h3>Recuperação de Senha</h3><p>Seu código é: <strong>{{token}}</strong></p>");
+
+    private final Map<String, HtmlTemplate> tenantTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Convocação de assembleia com layout profissional, botão e nome do condomínio.
+     * O disparo em massa é feito pelo EmailOutboxService.
+     */
+    public EmailContent buildAssemblyNotification(String title, String description, String periodo, String link, String tenantName) {
+        Map<String, String> vars = Map.of(
+                "title", nvl(title, ""),
+                "description", nvl(description, "Ver pauta completa no sistema"),
+                "periodo", nvl(periodo, ""),
+                "link", nvl(link, ""));
+        String subject = forTenant("assembly-subject", ASSEMBLY_SUBJECT, tenantName).render(vars);
+        String body = forTenant("assembly", ASSEMBLY_BODY, tenantName).render(vars);
+        return new EmailContent(subject, body);
+    }
+
+    public EmailContent buildOrderArrival(String subject, String residentName, String origin, String trackingCode, String arrival, String tenantName) {
+        String body = forTenant("order", ORDER_BODY, tenantName).render(Map.of(
+                "residentName", nvl(residentName, ""),
+                "origin", nvl(origin, ""),
+                "trackingCode", nvl(trackingCode, ""),
+                "arrival", nvl(arrival, "")));
+        return new EmailContent(subject, body);
     }
-    
-    // Sobrecarga para compatibilidade (Emails automáticos de criação)
-    @Async
-    public void sendNewAssemblyNotification(List<String> recipients, String title, String description, String periodo, String link) {
-        sendNewAssemblyNotification(recipients, title, description, periodo, link, "Seu Condomínio");
+
+    public EmailContent buildGenericNotification(String subject, String content) {
+        return new EmailContent(subject, GENERIC_BODY.render(Map.of("content", nvl(content, ""))));
     }
 
-    @Async
-    public void sendGenericNotification(List<String> recipients, String subject, String content) {
-        if (recipients == null || recipients.isEmpty()) return;
-        
-        String body = "<div style='font-family: Arial;'>" + content + 
-                      "<br><br>Atenciosamente,<br><strong>Administração via Votzz.</strong></div>";
-        
-        for (String email : recipients) {
-            sendHtmlEmail(email, subject, body);
-        }
+    /**
+     * Resumo de várias notificações do condomínio num único e-mail (NotificationDigestService).
+     */
+    public EmailContent buildDigestNotification(String tenantName, List<String> items) {
+        StringBuilder list = new StringBuilder(items.size() * 64);
+        for (String item : items) DIGEST_ITEM.renderTo(list, Map.of("text", nvl(item, "")));
+        String body = forTenant("digest", DIGEST_BODY, tenantName).render(Map.of("items", list.toString()));
+        return new EmailContent("Resumo: " + items.size() + " novidades no condomínio", body);
     }
 
     public void sendResetToken(String to, String token) {
-        sendHtmlEmail(to, "Recuperação de Senha - Votzz", 
-            "<h3>Recuperação de Senha</h3><p>Seu código é: <strong>" + token + "</strong></p>");
+        sendHtmlEmail(to, "Recuperação de Senha - Votzz", RESET_TOKEN_BODY.render(Map.of("token", token)));
+    }
+
+    private HtmlTemplate forTenant(String name, HtmlTemplate template, String tenantName) {
+        String tenant = nvl(tenantName, "Seu Condomínio");
+        // Limite simples: muitos condomínios distintos só custam recompilar o cache
+        if (tenantTemplates.size() > TENANT_CACHE_LIMIT) tenantTemplates.clear();
+        return tenantTemplates.computeIfAbsent(name + '\u001F' + tenant,
+                k -> template.bind(Map.of(SLOT_TENANT, tenant)));
+    }
+
+    private static String nvl(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    public record EmailContent(String subject, String htmlBody) {}
+
+    public record DeliveryResult(String recipient, String messageId, String error, boolean permanent) {
+        static DeliveryResult failed(String recipient, Exception e, boolean permanent) {
+            return new DeliveryResult(recipient, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), permanent);
+        }
+
+        public boolean delivered() {
+            return error == null;
+        }
     }
 }
\ No newline at end of file
@@ -9,9 +9,11 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.UUID;
 
 @Service
@@ -58,4 +60,23 @@ public class FileStorageService {
         // Retorna URL Pública
         return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, fileName);
     }
-}
\ No newline at end of file
+
+    // Arquivos internos (ex: arquivo morto da auditoria): grava com a chave informada e devolve a chave, não uma URL
+    public String uploadPrivateFile(String key, Path file, String contentType) {
+        PutObjectRequest putOb = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        s3Client.putObject(putOb, RequestBody.fromFile(file));
+        return key;
+    }
+
+    public void downloadToFile(String key, Path target) {
+        GetObjectRequest getOb = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        s3Client.getObject(getOb, target);
+    }
+}
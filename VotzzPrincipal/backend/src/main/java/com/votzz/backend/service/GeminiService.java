@@ -1,102 +1,218 @@
 package com.votzz.backend.service;
 
+import com.votzz.backend.core.ai.AiGateway;
+import com.votzz.backend.core.ai.AiGateway.AiReply;
+import com.votzz.backend.core.ai.AiGateway.Lane;
+import com.votzz.backend.core.ai.QuestionCache;
+import com.votzz.backend.core.search.Bm25Index;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 @Service
+@Slf4j
 public class GeminiService {
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
+    // Motor LLM: gemini-2.5-flash (alta velocidade e compreensão contextual)
+    @Value("${votzz.ai.chat-model:gemini-2.5-flash}")
+    private String model;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Rotas abertas: pergunta gigante não vira prompt gigante
+    @Value("${votzz.ai.max-question-chars:2000}")
+    private int maxQuestionChars;
 
-    @SuppressWarnings("unchecked")
-    public String getAiResponse(String message, String role) {
-        // CÉREBRO INTEGRADO S.I.R.I.U.S. - CONHECIMENTO TOTAL DA PLATAFORMA E REGRAS DE NEGÓCIO
-        String baseConhecimento = 
-            "VOCÊ É A **S.I.R.I.U.S.**, IA OFICIAL DA PLATAFORMA VOTZZ. VOCÊ CONHECE CADA DETALHE E FLUXO DO SISTEMA.\n\n" +
-            
-            "1. REGRAS DE NEGÓCIO E PLANOS:\n" +
-            "   - Temos 3 planos: **Essencial**, **Business** e **Custom**.\n" +
-            "   - Diferença: A única diferença é a **quantidade de unidades**. Todos liberam 100% das funções do sistema.\n" +
-            "   - **Plano Custom**: Valor fixo base de **R$ 349,00** (cobre até 80 unidades) + **R$ 1,50** por cada unidade adicional.\n" +
-            "   - **Ciclos e Descontos**: Oferecemos assinatura **Trimestral** e **Anual**. O plano **Anual** garante **20% de desconto**.\n\n" +
-            
-            "2. FUNCIONALIDADES TÉCNICAS E MÓDULOS (EXPLIQUE COM CLAREZA E PROPRIEDADE):\n" +
-            "   - **Assembleias**: Votações online ou híbridas com chat em tempo real, gestão de pautas e total validade jurídica (Lei 14.309/22).\n" +
-            "   - **Votações Customizadas**: Votos computados por unidade simples ou por **Fração Ideal** (cálculo essencial para condomínios modernos).\n" +
-            "   - **Gestão de Espaços (Reservas)**: Controle de salões de festas, churrasqueiras, etc. Com horários definidos, termos de uso e aprovação simplificada.\n" +
-            
-            "   - **CONTROLE DE CONVIDADOS E ACESSO (DESTAQUE)**:\n" +
-            "     * O nosso módulo de portaria é 100% digital e focado em segurança anti-fraude e velocidade.\n" +
-            "     * **Fluxo do Morador**: O morador cadastra o visitante (Nome e RG) e, opcionalmente, a data/hora agendada da visita.\n" +
-            "     * **Geração do Passe**: O sistema cria imediatamente um 'Passe de Acesso VIP' visual contendo um **QR Code único**, validado por criptografia.\n" +
-            "     * **Envio Mágico via WhatsApp**: Com um clique, a plataforma usa a Web Share API do celular para enviar o card com a imagem do QR Code direto para o WhatsApp do convidado. No desktop, ele copia a imagem para a área de transferência.\n" +
-            "     * **Fluxo da Portaria**: O convidado chega, mostra a tela do celular e a portaria bipar o QR Code (ou clica em 'Autorizar Manualmente' no painel). O acesso é registrado com data e hora exatas de entrada, garantindo auditoria impecável.\n\n" +
-            
-            "   - **Comunicação de Elite**: Mural digital de avisos com **protocolo de leitura** (o síndico sabe exatamente qual morador leu e quando) e Chat interno seguro.\n" +
-            "   - **Documentos**: Acervo na nuvem para Atas, Convenções, Regimentos Internos e Balancetes Financeiros.\n" +
-            "   - **Ocorrências (Chamados)**: Sistema de tickets inteligentes. Moradores abrem chamados com **anexo de fotos**, e o síndico gerencia o status (Pendente, Em Análise, Concluído).\n\n" +
-            
-            "3. PROGRAMA DE PARCEIROS (AFILIADOS):\n" +
-            "   - Pagamos **30% de comissão** financeira por cada venda ou indicação que resultar em uma assinatura paga.\n\n" +
-            "4. SUPORTE TÉCNICO E COMERCIAL:\n" +
-            "   - O e-mail oficial de contato para qualquer dúvida humana ou negociação é: **suporte@votzz.com.br**.\n\n" +
-            
-            "5. DIRETRIZES DE COMPORTAMENTO DA S.I.R.I.U.S.:\n" +
-            "   - Você é cordial, altamente técnica, direta e profissional.\n" +
-            "   - Nunca use respostas robóticas padronizadas. Raciocine em cima da dúvida do usuário cruzando com as informações acima.\n" +
-            "   - Se o usuário fugir do tema 'Gestão de Condomínio', 'Tecnologia' ou 'Votzz', recuse-se educadamente a responder e retorne o foco para a plataforma.\n" +
-            "   - Use **Negrito** para destacar valores financeiros, planos, nomes de funções ou etapas de processos.\n" +
-            "   - Mantenha o texto estruturado, limpo e escaneável (use tópicos e quebras de linha curtas).";
-
-        String prompt = String.format("%s\n\nUsuário pergunta: %s", baseConhecimento, message);
+    // Mesmo motivo para o chat enviado ao /api/ai/analyze-sentiment: soma das mensagens
+    @Value("${votzz.ai.max-chat-chars:8000}")
+    private int maxChatChars;
+
+    @Value("${votzz.ai.cache.max-entries:2000}")
+    private int cacheMaxEntries;
+
+    @Value("${votzz.ai.cache.ttl-seconds:21600}")
+    private long cacheTtlSeconds;
+
+    // Jaccard mínimo (trigramas) para uma pergunta reescrita reaproveitar a resposta; 1 = só idênticas
+    @Value("${votzz.ai.cache.similarity:0.7}")
+    private double cacheSimilarity;
+
+    // Quantas seções da base entram no prompt, no máximo
+    @Value("${votzz.ai.knowledge.top-k:3}")
+    private int knowledgeTopK;
+
+    private final AiGateway aiGateway;
+    private final MeterRegistry meterRegistry;
+    private QuestionCache faqCache;
+    private List<KnowledgeSection> knowledge;
+    private Bm25Index knowledgeIndex;
+
+    public GeminiService(AiGateway aiGateway, MeterRegistry meterRegistry) {
+        this.aiGateway = aiGateway;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        String markdown = new ClassPathResource(KNOWLEDGE_RESOURCE).getContentAsString(StandardCharsets.UTF_8);
+        this.knowledge = parseKnowledge(markdown);
+        this.knowledgeIndex = new Bm25Index(knowledge.stream().map(KnowledgeSection::indexText).toList());
+        log.info("Base da S.I.R.I.U.S.: {} seção(ões) indexada(s), top-{} por pergunta.", knowledge.size(), knowledgeTopK);
+
+        this.faqCache = new QuestionCache(cacheMaxEntries, cacheTtlSeconds, cacheSimilarity);
+        FunctionCounter.builder("votzz.ai.cache.requests", faqCache, QuestionCache::getExactHits)
+                .tag("result", "exact_hit").register(meterRegistry);
+        FunctionCounter.builder("votzz.ai.cache.requests", faqCache, QuestionCache::getNearHits)
+                .tag("result", "near_hit").register(meterRegistry);
+        FunctionCounter.builder("votzz.ai.cache.requests", faqCache, QuestionCache::getMisses)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("votzz.ai.cache.evictions", faqCache, QuestionCache::getEvictions).register(meterRegistry);
+        Gauge.builder("votzz.ai.cache.size", faqCache, QuestionCache::size).register(meterRegistry);
+        Gauge.builder("votzz.ai.cache.hit-ratio", faqCache, c -> {
+            double hits = c.getExactHits() + c.getNearHits();
+            double total = hits + c.getMisses();
+            return total == 0 ? 0 : hits / total;
+        }).register(meterRegistry);
+    }
+
+    // CÉREBRO INTEGRADO S.I.R.I.U.S. - IDENTIDADE E REGRAS FIXAS; O CONHECIMENTO DA PLATAFORMA
+    // ESTÁ EM ai/sirius-knowledge.md E ENTRA NO PROMPT SÓ O QUE FOR RELEVANTE PARA A PERGUNTA
+    private static final String INSTRUCOES =
+        "VOCÊ É A **S.I.R.I.U.S.**, IA OFICIAL DA PLATAFORMA VOTZZ. VOCÊ CONHECE CADA DETALHE E FLUXO DO SISTEMA.\n\n" +
         
-        String respostaRaw = llamarApi(prompt);
+        "SUPORTE TÉCNICO E COMERCIAL:\n" +
+        "   - O e-mail oficial de contato para qualquer dúvida humana ou negociação é: **suporte@votzz.com.br**.\n\n" +
         
-        // Limpeza de layout para evitar "buracos" visuais gigantes no chat do React
-        return respostaRaw.replaceAll("\n{3,}", "\n\n").trim();
+        "DIRETRIZES DE COMPORTAMENTO DA S.I.R.I.U.S.:\n" +
+        "   - Você é cordial, altamente técnica, direta e profissional.\n" +
+        "   - Nunca use respostas robóticas padronizadas. Raciocine em cima da dúvida do usuário cruzando com as informações da base de conhecimento abaixo.\n" +
+        "   - Se a base abaixo não cobrir a dúvida, não invente funcionalidades ou valores: oriente o contato com o suporte.\n" +
+        "   - Se o usuário fugir do tema 'Gestão de Condomínio', 'Tecnologia' ou 'Votzz', recuse-se educadamente a responder e retorne o foco para a plataforma.\n" +
+        "   - Use **Negrito** para destacar valores financeiros, planos, nomes de funções ou etapas de processos.\n" +
+        "   - Mantenha o texto estruturado, limpo e escaneável (use tópicos e quebras de linha curtas).";
+
+    private static final String KNOWLEDGE_RESOURCE = "ai/sirius-knowledge.md";
+    private static final String KEYWORDS_PREFIX = "Palavras-chave:";
+
+
+    /**
+     * Perguntas de visitantes e moradores (FAQ). Pergunta igual ou quase igual a uma já
+     * respondida para o mesmo perfil sai do cache, sem chamada ao upstream.
+     */
+    public String getAiResponse(String message, String role) {
+        String pergunta = clip(message);
+        String cached = faqCache.get(role, pergunta);
+        if (cached != null) return cached;
+
+        AiReply reply = aiGateway.generate(Lane.PUBLIC, model, prompt(pergunta));
+        // Fallback (upstream fora, bulkhead cheio) nunca entra no cache
+        if (!reply.isOk()) return AiGateway.FALLBACK_MESSAGE;
+        String resposta = limpar(reply.text());
+        faqCache.put(role, pergunta, resposta);
+        return resposta;
+    }
+
+    // Rascunhos (descrição de assembleia, notificação): o texto muda a cada pedido, sem cache
+    public String draftText(String instruction, String role) {
+        return limpar(llamarApi(prompt(clip(instruction))));
     }
     
+    /**
+     * Resumo de um chat enviado pelo cliente (rota pública). Cada mensagem é cortada em
+     * max-question-chars e, passando de max-chat-chars no total, ficam só as mais recentes.
+     */
     public String summarizeChat(List<String> messages) {
-        if (messages.isEmpty()) return "Sem discussões no momento.";
-        String prompt = "Faça um breve resumo analítico deste chat sobre a Votzz:\n\n" + String.join("\n", messages);
-        return llamarApi(prompt);
+        if (messages == null || messages.isEmpty()) return "Sem discussões no momento.";
+        return llamarApi("Faça um breve resumo analítico deste chat sobre a Votzz:\n\n" + clipChat(messages));
     }
 
-    @SuppressWarnings("unchecked")
+    String clipChat(List<String> messages) {
+        List<String> kept = new ArrayList<>();
+        int total = 0;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            String message = clip(messages.get(i));
+            if (!kept.isEmpty() && total + message.length() + 1 > maxChatChars) break;
+            if (message.length() > maxChatChars) message = message.substring(0, maxChatChars);
+            kept.add(message);
+            total += message.length() + 1;
+        }
+        Collections.reverse(kept);
+        return String.join("\n", kept);
+    }
+
+    // Rotas públicas (/api/chat/ask-ai, /api/ai/**): raia PUBLIC do gateway, com bulkhead próprio
     private String llamarApi(String promptTexto) {
-        // Motor LLM: gemini-2.5-flash (alta velocidade e compreensão contextual)
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key=" + apiKey.trim();
-
-        Map<String, Object> requestBody = Map.of(
-            "contents", List.of(
-                Map.of("parts", List.of(Map.of("text", promptTexto)))
-            )
-        );
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-            if (response.getBody() != null && response.getBody().containsKey("candidates")) {
-                List<Map<String, Object>> candidates = (List<Map<String, Object>>) response.getBody().get("candidates");
-                if (candidates != null && !candidates.isEmpty()) {
-                    Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                    List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                    return (String) parts.get(0).get("text");
-                }
+        return aiGateway.generate(Lane.PUBLIC, model, promptTexto).textOr(AiGateway.FALLBACK_MESSAGE);
+    }
+
+    private String clip(String message) {
+        if (message == null) return "";
+        return message.length() > maxQuestionChars ? message.substring(0, maxQuestionChars) : message;
+    }
+
+    // Instruções fixas + só as seções da base que o BM25 considerou relevantes
+    private String prompt(String pergunta) {
+        StringBuilder sb = new StringBuilder(INSTRUCOES.length() + 2048);
+        sb.append(INSTRUCOES).append("\n\nBASE DE CONHECIMENTO RELEVANTE:\n");
+        List<Bm25Index.Hit> hits = knowledgeIndex.search(pergunta, knowledgeTopK);
+        if (hits.isEmpty()) {
+            sb.append("(nenhuma seção específica; responda com base nas diretrizes)\n");
+        } else {
+            // Ordem original do arquivo, não a do ranking: o texto fica mais coerente
+            hits.stream().mapToInt(Bm25Index.Hit::doc).sorted()
+                    .forEach(i -> sb.append("\n").append(knowledge.get(i).promptText()).append("\n"));
+        }
+        return sb.append("\nUsuário pergunta: ").append(pergunta).toString();
+    }
+
+    /**
+     * Seções "## Título" do arquivo de conhecimento. A linha "Palavras-chave:" entra no
+     * índice (com o título) mas não no texto enviado ao modelo.
+     */
+    static List<KnowledgeSection> parseKnowledge(String markdown) {
+        List<KnowledgeSection> sections = new ArrayList<>();
+        String title = null;
+        StringBuilder keywords = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (String line : markdown.split("\\R")) {
+            if (line.startsWith("## ")) {
+                if (title != null) sections.add(new KnowledgeSection(title, keywords.toString(), body.toString().trim()));
+                title = line.substring(3).trim();
+                keywords.setLength(0);
+                body.setLength(0);
+            } else if (title == null) {
+                continue; // cabeçalho/comentários antes da primeira seção
+            } else if (line.startsWith(KEYWORDS_PREFIX)) {
+                keywords.append(line.substring(KEYWORDS_PREFIX.length())).append(' ');
+            } else {
+                body.append(line).append('\n');
             }
-            return "A S.I.R.I.U.S. está processando novas diretrizes neste momento. Por favor, tente novamente em instantes ou contate **suporte@votzz.com.br**.";
-        } catch (Exception e) {
-            return "Falha temporária de comunicação com os servidores neurais. Erro: " + e.getMessage();
         }
+        if (title != null) sections.add(new KnowledgeSection(title, keywords.toString(), body.toString().trim()));
+        return sections;
+    }
+
+    record KnowledgeSection(String title, String keywords, String body) {
+        // Título duas vezes: pesa mais que uma menção no corpo
+        String indexText() {
+            return title + " " + title + " " + keywords + " " + body;
+        }
+
+        String promptText() {
+            return title.toUpperCase() + ":\n" + body;
+        }
+    }
+
+    // Limpeza de layout para evitar "buracos" visuais gigantes no chat do React
+    private static String limpar(String resposta) {
+        return resposta.replaceAll("\n{3,}", "\n\n").trim();
     }
-}
\ No newline at end of file
+}
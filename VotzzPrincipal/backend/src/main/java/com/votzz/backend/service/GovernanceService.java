@@ -4,6 +4,8 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfWriter;
 import com.votzz.backend.domain.*;
 import com.votzz.backend.repository.*;
+import com.votzz.backend.service.AuditWriter.AuditEvent;
+import com.votzz.backend.service.AudienceResolver.Audience;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -28,8 +30,10 @@ public class GovernanceService {
     private final PollRepository pollRepository;
     private final CalendarEventRepository calendarEventRepository;
     private final UserRepository userRepository;
-    private final EmailService emailService;
-    private final AuditLogRepository auditLogRepository;
+    private final NotificationDigestService notificationDigestService;
+    private final NotificationService notificationService;
+    private final AudienceResolver audienceResolver;
+    private final AuditWriter auditWriter;
 
     // --- DASHBOARD AGREGADO ---
     
@@ -152,7 +156,8 @@ public class GovernanceService {
     }
 
     // --- ARQUIVAMENTO AUTOMÁTICO ---
-    @Scheduled(cron = "0 0 * * * *") 
+    // Desligado por padrão ("-"); para rodar de hora em hora: votzz.governance.auto-archive-cron=0 0 * * * *
+    @Scheduled(cron = "${votzz.governance.auto-archive-cron:-}")
     @Transactional
     public void runAutoArchiving() {
         LocalDateTime now = LocalDateTime.now();
@@ -191,7 +196,17 @@ public class GovernanceService {
         if(ann.getCreatedAt() == null) ann.setCreatedAt(LocalDateTime.now());
         announcementRepository.save(ann);
         logAction(creator, "CRIAR_COMUNICADO", "Novo comunicado: " + ann.getTitle());
-        notifyAllUsers(creator.getTenant().getId(), "Novo Comunicado", "Aviso: " + ann.getTitle());
+        UUID tenantId = creator.getTenant().getId();
+        Audience audience = Audience.of(ann.getTargetType(), ann.getTargetValue());
+        NotificationService.Notice notice = new NotificationService.Notice(
+                NotificationService.TYPE_ANNOUNCEMENT, "Novo Comunicado", ann.getTitle(), "/governance", ann.getId());
+        if (audience.isAll()) {
+            notificationService.notifyTenant(tenantId, notice);
+        } else {
+            // Só ids/e-mails do público, vindos do índice do condomínio (sem carregar User)
+            notificationService.notifyUsers(tenantId, audienceResolver.resolveUserIds(tenantId, audience), notice);
+        }
+        notifyAllUsers(tenantId, EmailOutboxService.REF_ANNOUNCEMENT, ann.getId(), ann.getPriority(), audience, "Novo Comunicado", "Aviso: " + ann.getTitle());
     }
     
     @Transactional
@@ -200,7 +215,9 @@ public class GovernanceService {
         poll.setCreatedBy(creator.getId());
         pollRepository.save(poll);
         logAction(creator, "CRIAR_ENQUETE", "Nova enquete: " + poll.getTitle());
-        notifyAllUsers(creator.getTenant().getId(), "Nova Enquete", "Participe: " + poll.getTitle());
+        notificationService.notifyTenant(creator.getTenant().getId(), new NotificationService.Notice(
+                NotificationService.TYPE_POLL, "Nova Enquete", poll.getTitle(), "/governance", poll.getId()));
+        notifyAllUsers(creator.getTenant().getId(), EmailOutboxService.REF_POLL, poll.getId(), null, Audience.all(), "Nova Enquete", "Participe: " + poll.getTitle());
     }
 
     @Transactional
@@ -405,34 +422,24 @@ public class GovernanceService {
     // --- HELPERS ---
 
     private void logAction(User user, String action, String details) {
-        saveLog(user.getId().toString(), user.getNome(), user.getTenant(), action, details);
+        saveLog(user.getId().toString(), user.getNome(), user.getRole() != null ? user.getRole().name() : null, user.getTenant(), action, details);
     }
     
     private void logSystemAction(Tenant tenant, String action, String details) {
-        saveLog("SISTEMA", "Sistema Votzz", tenant, action, details);
+        saveLog("SISTEMA", "Sistema Votzz", null, tenant, action, details);
     }
 
-    private void saveLog(String userId, String userName, Tenant tenant, String action, String details) {
+    private void saveLog(String userId, String userName, String actorRole, Tenant tenant, String action, String details) {
         try {
-            AuditLog log = new AuditLog();
-            log.setTimestamp(LocalDateTime.now().toString());
-            log.setAction(action);
-            log.setDetails(details);
-            log.setUserId(userId);
-            log.setUserName(userName);
-            log.setTenant(tenant);
-            log.setResourceType("GOVERNANCA");
-            log.setIpAddress("APP_WEB"); 
-            auditLogRepository.save(log);
+            auditWriter.write(AuditEvent.of(action, userId, userName, actorRole, tenant != null ? tenant.getId() : null,
+                    details, "GOVERNANCA", "APP_WEB"));
         } catch (Exception e) { System.err.println("Erro auditoria: " + e.getMessage()); }
     }
 
-    private void notifyAllUsers(UUID tenantId, String subject, String body) {
-        try {
-            List<String> emails = userRepository.findByTenantId(tenantId)
-                    .stream().map(User::getEmail).collect(Collectors.toList());
-            if (!emails.isEmpty()) emailService.sendGenericNotification(emails, subject, body); 
-        } catch (Exception e) { System.err.println("Erro email: " + e.getMessage()); }
+    // Na mesma transação da criação: sem comunicado/enquete, sem e-mail (e vice-versa).
+    // Publicações próximas saem num único resumo; prioridade alta vai na hora.
+    private void notifyAllUsers(UUID tenantId, String refType, UUID refId, String priority, Audience audience, String subject, String body) {
+        notificationDigestService.notifyTenant(tenantId, refType, refId, priority, audience, subject, body);
     }
 
     // CORREÇÃO: Adicionado 'status' no helper item
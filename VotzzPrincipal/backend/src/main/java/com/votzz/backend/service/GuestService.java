@@ -7,11 +7,13 @@ import com.votzz.backend.domain.enums.GuestStatus;
 import com.votzz.backend.dto.GuestRequest;
 import com.votzz.backend.repository.GuestRepository;
 import com.votzz.backend.repository.UserRepository;
+import com.votzz.backend.service.NotificationService.Notice;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,6 +24,7 @@ public class GuestService {
     private final GuestRepository guestRepository;
     private final UserRepository userRepository; 
     private final AuditService auditService; // INJETADO PARA REGISTRAR A AUDITORIA
+    private final NotificationService notificationService;
 
     public List<Guest> findAllForCurrentTenant(String userEmail) {
         UUID tenantId = TenantContext.getCurrentTenant();
@@ -114,6 +117,7 @@ public class GuestService {
         String details = String.format("Acesso MANUAL autorizado para o visitante %s (RG: %s). Autorizado pelo funcionário %s. Morador responsável: %s (Bl %s Ap %s)",
                 savedGuest.getGuestName(), savedGuest.getGuestRg(), porteiro.getNome(), savedGuest.getResidentName(), savedGuest.getBlock(), savedGuest.getUnit());
         auditService.log(porteiro, null, "ENTRADA_CONVIDADO_MANUAL", details, "GUESTS");
+        notifyResident(savedGuest);
 
         return savedGuest;
     }
@@ -142,7 +146,17 @@ public class GuestService {
                     savedGuest.getGuestName(), savedGuest.getGuestRg(), porteiro.getNome(), savedGuest.getResidentName(), savedGuest.getBlock(), savedGuest.getUnit());
             auditService.log(porteiro, null, "ENTRADA_CONVIDADO_QRCODE", details, "GUESTS");
         }
+        notifyResident(savedGuest);
 
         return savedGuest;
     }
+
+    // Só no app: um e-mail de "seu visitante entrou" chegaria tarde demais para servir
+    private void notifyResident(Guest guest) {
+        String hora = guest.getEntryTime().format(DateTimeFormatter.ofPattern("HH:mm"));
+        notificationService.notifyUser(guest.getResidentId(), guest.getTenantId(),
+                new Notice(NotificationService.TYPE_GUEST, "Visitante na portaria",
+                        guest.getGuestName() + " teve a entrada liberada às " + hora + ".", "/guests", guest.getId()),
+                null, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.bloom.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unicidade de identidade (CPF ↔ pessoa).
+ *
+ * Uma pessoa pode ter várias linhas em users (uma por condomínio/unidade, "perfil
+ * universal" pelo e-mail), então o CPF não é único em users. A regra "um CPF = um
+ * e-mail" fica em user_identities (PK no CPF normalizado), que é a garantia real,
+ * inclusive entre requisições concorrentes e entre nós.
+ *
+ * Na frente do banco há filtros de Bloom (CPF e e-mail) montados na subida: o caso
+ * comum, "CPF/e-mail nunca visto", é respondido sem consulta. Um positivo (real ou
+ * falso) cai na consulta indexada.
+ */
+@Service
+@Slf4j
+public class IdentityService {
+
+    private static final long REPLAY_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${votzz.identity.bloom.expected-items:1000000}")
+    private long expectedItems;
+
+    @Value("${votzz.identity.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter cpfFilter;
+    private volatile BloomFilter emailFilter;
+    // Marcações dos últimos minutos, reaplicadas a cada rebuild
+    private final ConcurrentLinkedQueue<RecentPut> recentPuts = new ConcurrentLinkedQueue<>();
+
+    public IdentityService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        backfill();
+        rebuild();
+    }
+
+    public static String normalizeCpf(String cpf) {
+        if (cpf == null) return null;
+        String digits = cpf.replaceAll("\\D", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) return null;
+        return email.trim().toLowerCase();
+    }
+
+    // --- CONSULTAS ---
+
+    /**
+     * true se o CPF já pertence a uma pessoa com outro e-mail.
+     */
+    public boolean isCpfTakenByAnother(String cpf, String email) {
+        String cpfNorm = normalizeCpf(cpf);
+        if (cpfNorm == null || !cpfFilter.mightContain(cpfNorm)) return false;
+        String owner = ownerOf(cpfNorm);
+        return owner != null && !owner.equals(normalizeEmail(email));
+    }
+
+    public boolean emailExists(String email) {
+        String emailNorm = normalizeEmail(email);
+        if (emailNorm == null || !emailFilter.mightContain(emailNorm)) return false;
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE email_norm = ?)", Boolean.class, emailNorm);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Versão em lote para importações: uma consulta para todos os CPFs que passaram pelo
+     * filtro, mais a checagem de duplicidade dentro do próprio lote. Devolve, por CPF
+     * normalizado, o motivo do conflito.
+     */
+    public Map<String, String> findCpfConflicts(Collection<IdentityClaim> claims) {
+        Map<String, String> conflicts = new HashMap<>();
+        Map<String, String> inBatch = new HashMap<>();
+        List<String> toCheck = new ArrayList<>();
+
+        for (IdentityClaim c : claims) {
+            String cpfNorm = normalizeCpf(c.cpf());
+            if (cpfNorm == null) continue;
+            String emailNorm = normalizeEmail(c.email());
+            String previous = inBatch.putIfAbsent(cpfNorm, emailNorm);
+            if (previous != null && !previous.equals(emailNorm)) {
+                conflicts.put(cpfNorm, "CPF repetido no arquivo com e-mails diferentes.");
+            }
+            if (previous == null && cpfFilter.mightContain(cpfNorm)) toCheck.add(cpfNorm);
+        }
+        if (toCheck.isEmpty()) return conflicts;
+
+        jdbcTemplate.query("SELECT cpf_norm, email_norm FROM user_identities WHERE cpf_norm = ANY(?)",
+                rs -> {
+                    String cpfNorm = rs.getString("cpf_norm");
+                    if (!rs.getString("email_norm").equals(inBatch.get(cpfNorm))) {
+                        conflicts.putIfAbsent(cpfNorm, "CPF já vinculado a outro e-mail.");
+                    }
+                },
+                (Object) toCheck.toArray(new String[0]));
+        return conflicts;
+    }
+
+    // --- ESCRITA (na transação de quem cadastra) ---
+
+    /**
+     * Reserva o CPF para o e-mail. Idempotente para a mesma pessoa; se outro e-mail já
+     * tem o CPF (mesmo que tenha acabado de gravar em outra requisição), lança erro.
+     */
+    public void claimCpf(String cpf, String email) {
+        String cpfNorm = normalizeCpf(cpf);
+        String emailNorm = normalizeEmail(email);
+        if (cpfNorm == null || emailNorm == null) return;
+
+        jdbcTemplate.update("INSERT INTO user_identities (cpf_norm, email_norm) VALUES (?, ?) ON CONFLICT (cpf_norm) DO NOTHING",
+                cpfNorm, emailNorm);
+        String owner = ownerOf(cpfNorm);
+        if (owner != null && !owner.equals(emailNorm)) {
+            throw new RuntimeException("CPF já vinculado a outro e-mail.");
+        }
+        putCpf(cpfNorm);
+        putEmail(emailNorm);
+    }
+
+    public void claimCpfs(Collection<IdentityClaim> claims) {
+        List<Object[]> rows = new ArrayList<>();
+        for (IdentityClaim c : claims) {
+            String cpfNorm = normalizeCpf(c.cpf());
+            String emailNorm = normalizeEmail(c.email());
+            if (emailNorm != null) putEmail(emailNorm);
+            if (cpfNorm == null || emailNorm == null) continue;
+            rows.add(new Object[]{cpfNorm, emailNorm});
+            putCpf(cpfNorm);
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO user_identities (cpf_norm, email_norm) VALUES (?, ?) ON CONFLICT (cpf_norm) DO NOTHING", rows);
+        }
+    }
+
+    /**
+     * Troca de e-mail da pessoa: a identidade acompanha, senão o próprio CPF passaria a
+     * constar como "vinculado a outro e-mail".
+     */
+    public void changeEmail(String oldEmail, String newEmail) {
+        String oldNorm = normalizeEmail(oldEmail);
+        String newNorm = normalizeEmail(newEmail);
+        if (oldNorm == null || newNorm == null || oldNorm.equals(newNorm)) return;
+        jdbcTemplate.update("UPDATE user_identities SET email_norm = ? WHERE email_norm = ?", newNorm, oldNorm);
+        putEmail(newNorm);
+    }
+
+    public void rememberEmail(String email) {
+        String emailNorm = normalizeEmail(email);
+        if (emailNorm != null) putEmail(emailNorm);
+    }
+
+    /**
+     * Troca de CPF da pessoa: reserva o novo e libera o antigo se era dela.
+     */
+    public void changeCpf(String email, String oldCpf, String newCpf) {
+        claimCpf(newCpf, email);
+        String oldNorm = normalizeCpf(oldCpf);
+        if (oldNorm != null && !oldNorm.equals(normalizeCpf(newCpf))) {
+            jdbcTemplate.update("DELETE FROM user_identities WHERE cpf_norm = ? AND email_norm = ?", oldNorm, normalizeEmail(email));
+        }
+    }
+
+    /**
+     * Chamado após excluir um usuário: libera o CPF quando não resta nenhum perfil da pessoa.
+     */
+    public void releaseIfOrphan(String cpf) {
+        String cpfNorm = normalizeCpf(cpf);
+        if (cpfNorm == null) return;
+        jdbcTemplate.update("DELETE FROM user_identities i WHERE i.cpf_norm = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.cpf_norm = i.cpf_norm)", cpfNorm);
+    }
+
+    private String ownerOf(String cpfNorm) {
+        List<String> owner = jdbcTemplate.queryForList(
+                "SELECT email_norm FROM user_identities WHERE cpf_norm = ?", String.class, cpfNorm);
+        return owner.isEmpty() ? null : owner.get(0);
+    }
+
+    // --- FILTROS ---
+
+    // Bases antigas: cria a identidade a partir do perfil mais antigo de cada CPF
+    private void backfill() {
+        int created = jdbcTemplate.update(
+                "INSERT INTO user_identities (cpf_norm, email_norm) " +
+                "SELECT DISTINCT ON (cpf_norm) cpf_norm, email_norm FROM users " +
+                "WHERE cpf_norm IS NOT NULL AND email_norm IS NOT NULL ORDER BY cpf_norm, created_at " +
+                "ON CONFLICT (cpf_norm) DO NOTHING");
+        if (created > 0) log.info("Identidades criadas a partir de users: {}", created);
+    }
+
+    // Recria os filtros para incorporar cadastros feitos por outros nós
+    @Scheduled(fixedDelayString = "${votzz.identity.bloom.rebuild-minutes:60}",
+               initialDelayString = "${votzz.identity.bloom.rebuild-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Erro ao recriar filtros de identidade (mantidos os atuais): {}", e.getMessage());
+        }
+    }
+
+    private void putCpf(String cpfNorm) {
+        cpfFilter.put(cpfNorm);
+        recentPuts.add(new RecentPut(true, cpfNorm, System.nanoTime()));
+    }
+
+    private void putEmail(String emailNorm) {
+        emailFilter.put(emailNorm);
+        recentPuts.add(new RecentPut(false, emailNorm, System.nanoTime()));
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        BloomFilter cpfs = new BloomFilter(expectedItems, falsePositiveRate);
+        BloomFilter emails = new BloomFilter(expectedItems, falsePositiveRate);
+        jdbcTemplate.query("SELECT cpf_norm FROM user_identities", rs -> {
+            cpfs.put(rs.getString(1));
+        });
+        jdbcTemplate.query("SELECT DISTINCT email_norm FROM users WHERE email_norm IS NOT NULL", rs -> {
+            emails.put(rs.getString(1));
+        });
+        this.cpfFilter = cpfs;
+        this.emailFilter = emails;
+
+        // O snapshot não enxerga inserções de transações ainda abertas nem as feitas durante a
+        // leitura: o que foi marcado nos filtros antigos na janela recente vai para os novos
+        long keepFrom = started - REPLAY_WINDOW_NANOS;
+        recentPuts.removeIf(p -> p.at() - keepFrom < 0);
+        for (RecentPut p : recentPuts) {
+            (p.cpf() ? cpfs : emails).put(p.value());
+        }
+    }
+
+    private record RecentPut(boolean cpf, String value, long at) {}
+
+    public record IdentityClaim(String cpf, String email) {}
+}
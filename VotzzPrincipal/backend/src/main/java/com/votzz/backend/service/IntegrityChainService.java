@@ -0,0 +1,331 @@
+package com.votzz.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Cadeia de hashes por condomínio sobre logs de auditoria e votos.
+ *
+ * Um "selador" em segundo plano pega os registros ainda não encadeados (chain_seq nulo),
+ * na ordem de criação, e grava em integrity_chain: hash = SHA-256(hash anterior || payload
+ * canônico). A cada N elos um checkpoint é salvo, então verificar um intervalo custa
+ * O(distância até o checkpoint + tamanho do intervalo), nunca a cadeia inteira.
+ *
+ * Alterar, apagar ou inserir um registro selado quebra o recálculo a partir dele. Meses
+ * arquivados são verificados pelas tabelas reidratadas (audit_logs_restored_AAAAMM).
+ */
+@Service
+@Slf4j
+public class IntegrityChainService {
+
+    public static final String GENESIS = "0".repeat(64);
+    // Logs da plataforma (Super Admin, sem condomínio) formam uma cadeia própria
+    private static final UUID PLATFORM_CHAIN = new UUID(0, 0);
+    private static final long SEAL_LOCK = 0x766f747a7a02L;
+    private static final char SEP = '\u001F';
+
+    private static final String AUDIT_COLUMNS =
+            "id, created_at, tenant_id, action, user_id, user_name, actor_role, resource_type, details, ip_address";
+    private static final String VOTE_COLUMNS =
+            "v.id, v.created_at, a.tenant_id, v.assembly_id, v.user_id, v.option_id, v.unidade, v.fraction, v.hash";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${votzz.integrity.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${votzz.integrity.checkpoint-interval:1000}")
+    private int checkpointInterval;
+
+    public IntegrityChainService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // --- PAYLOAD CANÔNICO ---
+
+    private static final RowMapper<ChainRecord> AUDIT_MAPPER = (rs, i) -> new ChainRecord(
+            "AUDIT",
+            rs.getObject("id", UUID.class),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            chainOf(rs.getObject("tenant_id", UUID.class)),
+            canonical("AUDIT", rs.getObject("id"), rs.getTimestamp("created_at").toLocalDateTime(), rs.getObject("tenant_id"),
+                    rs.getString("action"), rs.getString("user_id"), rs.getString("user_name"), rs.getString("actor_role"),
+                    rs.getString("resource_type"), rs.getString("details"), rs.getString("ip_address")));
+
+    private static final RowMapper<ChainRecord> VOTE_MAPPER = (rs, i) -> new ChainRecord(
+            "VOTE",
+            rs.getObject("id", UUID.class),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            chainOf(rs.getObject("tenant_id", UUID.class)),
+            canonical("VOTE", rs.getObject("id"), rs.getTimestamp("created_at").toLocalDateTime(), rs.getObject("tenant_id"),
+                    rs.getObject("assembly_id"), rs.getObject("user_id"), rs.getString("option_id"), rs.getString("unidade"),
+                    plain(rs.getBigDecimal("fraction")), rs.getString("hash")));
+
+    private static String canonical(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (Object f : fields) {
+            if (sb.length() > 0) sb.append(SEP);
+            sb.append(f == null ? "" : f.toString());
+        }
+        return sb.toString();
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static UUID chainOf(UUID tenantId) {
+        return tenantId != null ? tenantId : PLATFORM_CHAIN;
+    }
+
+    private static String link(String prevHash, String canonical) {
+        return DigestUtils.sha256Hex(prevHash + canonical);
+    }
+
+    // --- SELAGEM ---
+
+    @Scheduled(fixedDelayString = "${votzz.integrity.seal-interval-ms:2000}",
+               initialDelayString = "${votzz.integrity.seal-interval-ms:2000}")
+    public void sealSafely() {
+        try {
+            int sealed;
+            do {
+                Integer result = transactionTemplate.execute(tx -> sealBatch());
+                sealed = result != null ? result : 0;
+            } while (sealed >= batchSize);
+        } catch (Exception e) {
+            log.error("Erro ao selar a cadeia de integridade: {}", e.getMessage());
+        }
+    }
+
+    private int sealBatch() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SEAL_LOCK);
+        if (!Boolean.TRUE.equals(locked)) return 0;
+
+        List<ChainRecord> pending = new ArrayList<>(jdbcTemplate.query(
+                "SELECT " + AUDIT_COLUMNS + " FROM audit_logs WHERE chain_seq IS NULL ORDER BY created_at, id LIMIT ?",
+                AUDIT_MAPPER, batchSize));
+        pending.addAll(jdbcTemplate.query(
+                "SELECT " + VOTE_COLUMNS + " FROM votes v JOIN assemblies a ON a.id = v.assembly_id " +
+                "WHERE v.chain_seq IS NULL ORDER BY v.created_at, v.id LIMIT ?",
+                VOTE_MAPPER, batchSize));
+        if (pending.isEmpty()) return 0;
+
+        pending.sort(Comparator.comparing(ChainRecord::createdAt).thenComparing(r -> r.id().toString()));
+        if (pending.size() > batchSize) pending = pending.subList(0, batchSize);
+
+        Map<UUID, Head> heads = loadHeads(pending.stream().map(ChainRecord::chainId).distinct().toList());
+        List<Object[]> links = new ArrayList<>(pending.size());
+        List<Object[]> checkpoints = new ArrayList<>();
+        List<Object[]> auditUpdates = new ArrayList<>();
+        List<Object[]> voteUpdates = new ArrayList<>();
+
+        for (ChainRecord r : pending) {
+            Head head = heads.getOrDefault(r.chainId(), new Head(0, GENESIS));
+            long seq = head.seq() + 1;
+            String hash = link(head.hash(), r.canonical());
+            heads.put(r.chainId(), new Head(seq, hash));
+
+            links.add(new Object[]{r.chainId(), seq, r.type(), r.id(), Timestamp.valueOf(r.createdAt()), hash});
+            if (seq % checkpointInterval == 0) checkpoints.add(new Object[]{r.chainId(), seq, hash});
+            if ("AUDIT".equals(r.type())) {
+                auditUpdates.add(new Object[]{seq, r.id(), Timestamp.valueOf(r.createdAt())});
+            } else {
+                voteUpdates.add(new Object[]{seq, r.id()});
+            }
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO integrity_chain (tenant_id, seq, record_type, record_id, record_created_at, hash) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", links);
+        if (!auditUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE audit_logs SET chain_seq = ? WHERE id = ? AND created_at = ?", auditUpdates);
+        }
+        if (!voteUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE votes SET chain_seq = ? WHERE id = ?", voteUpdates);
+        }
+        if (!checkpoints.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO integrity_checkpoint (tenant_id, seq, hash) VALUES (?, ?, ?)", checkpoints);
+        }
+        List<Object[]> headRows = new ArrayList<>();
+        heads.forEach((chainId, h) -> headRows.add(new Object[]{chainId, h.seq(), h.hash()}));
+        jdbcTemplate.batchUpdate("INSERT INTO integrity_chain_head (tenant_id, seq, hash) VALUES (?, ?, ?) " +
+                "ON CONFLICT (tenant_id) DO UPDATE SET seq = EXCLUDED.seq, hash = EXCLUDED.hash", headRows);
+
+        return pending.size();
+    }
+
+    private Map<UUID, Head> loadHeads(List<UUID> chainIds) {
+        Map<UUID, Head> heads = new HashMap<>();
+        jdbcTemplate.query("SELECT tenant_id, seq, hash FROM integrity_chain_head WHERE tenant_id = ANY(?)",
+                rs -> {
+                    heads.put(rs.getObject("tenant_id", UUID.class), new Head(rs.getLong("seq"), rs.getString("hash")));
+                },
+                (Object) chainIds.toArray(new UUID[0]));
+        return heads;
+    }
+
+    // --- VERIFICAÇÃO ---
+
+    /**
+     * Verifica os elos da cadeia do condomínio cujos registros foram criados no período
+     * [start, end]. Recalcula a partir do checkpoint anterior ao primeiro elo do período.
+     */
+    public IntegrityReport verify(UUID tenantId, LocalDateTime start, LocalDateTime end) {
+        UUID chainId = chainOf(tenantId);
+        Map<String, Object> range = jdbcTemplate.queryForMap(
+                "SELECT MIN(seq) AS min_seq, MAX(seq) AS max_seq FROM integrity_chain " +
+                "WHERE tenant_id = ? AND record_created_at BETWEEN ? AND ?",
+                chainId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        long unsealed = countUnsealed(tenantId, start, end);
+        if (range.get("min_seq") == null) {
+            return new IntegrityReport(chainId, 0, 0, 0, true, null, null, null, unsealed);
+        }
+        long minSeq = ((Number) range.get("min_seq")).longValue();
+        long maxSeq = ((Number) range.get("max_seq")).longValue();
+
+        Head anchor = jdbcTemplate.query(
+                "SELECT seq, hash FROM integrity_checkpoint WHERE tenant_id = ? AND seq < ? ORDER BY seq DESC LIMIT 1",
+                rs -> rs.next() ? new Head(rs.getLong("seq"), rs.getString("hash")) : new Head(0, GENESIS),
+                chainId, minSeq);
+
+        Map<Long, String> checkpointsInRange = new HashMap<>();
+        jdbcTemplate.query("SELECT seq, hash FROM integrity_checkpoint WHERE tenant_id = ? AND seq > ? AND seq <= ?",
+                rs -> {
+                    checkpointsInRange.put(rs.getLong("seq"), rs.getString("hash"));
+                },
+                chainId, anchor.seq(), maxSeq);
+
+        String prev = anchor.hash();
+        long expectedSeq = anchor.seq() + 1;
+        long checked = 0;
+        while (expectedSeq <= maxSeq) {
+            List<ChainLink> chunk = jdbcTemplate.query(
+                    "SELECT seq, record_type, record_id, record_created_at, hash FROM integrity_chain " +
+                    "WHERE tenant_id = ? AND seq >= ? AND seq <= ? ORDER BY seq LIMIT ?",
+                    (rs, i) -> new ChainLink(rs.getLong("seq"), rs.getString("record_type"), rs.getObject("record_id", UUID.class),
+                            rs.getTimestamp("record_created_at").toLocalDateTime(), rs.getString("hash")),
+                    chainId, expectedSeq, maxSeq, batchSize);
+            if (chunk.isEmpty()) {
+                return broken(chainId, minSeq, maxSeq, checked, expectedSeq, "Elo ausente na cadeia.", unsealed);
+            }
+            Map<UUID, String> payloads = loadCanonical(chunk);
+
+            for (ChainLink l : chunk) {
+                if (l.seq() != expectedSeq) {
+                    return broken(chainId, minSeq, maxSeq, checked, expectedSeq, "Elo ausente na cadeia.", unsealed);
+                }
+                String canonical = payloads.get(l.recordId());
+                if (canonical == null && "AUDIT".equals(l.recordType()) && isArchived(l.recordCreatedAt())) {
+                    // A partição foi para o arquivo morto e não está reidratada (senão loadRestored teria achado)
+                    return broken(chainId, minSeq, maxSeq, checked, l.seq(), "Registro em partição arquivada; reidrate o mês para verificar.", unsealed);
+                }
+                if (canonical == null) {
+                    return broken(chainId, minSeq, maxSeq, checked, l.seq(), "Registro removido (" + l.recordType() + " " + l.recordId() + ").", unsealed);
+                }
+                String recomputed = link(prev, canonical);
+                if (!recomputed.equals(l.hash())) {
+                    return broken(chainId, minSeq, maxSeq, checked, l.seq(), "Registro alterado (" + l.recordType() + " " + l.recordId() + ").", unsealed);
+                }
+                String checkpoint = checkpointsInRange.get(l.seq());
+                if (checkpoint != null && !checkpoint.equals(recomputed)) {
+                    return broken(chainId, minSeq, maxSeq, checked, l.seq(), "Checkpoint divergente.", unsealed);
+                }
+                prev = recomputed;
+                expectedSeq++;
+                checked++;
+            }
+        }
+        return new IntegrityReport(chainId, minSeq, maxSeq, checked, true, prev, null, null, unsealed);
+    }
+
+    private Map<UUID, String> loadCanonical(List<ChainLink> links) {
+        UUID[] auditIds = links.stream().filter(l -> "AUDIT".equals(l.recordType())).map(ChainLink::recordId).toArray(UUID[]::new);
+        UUID[] voteIds = links.stream().filter(l -> "VOTE".equals(l.recordType())).map(ChainLink::recordId).toArray(UUID[]::new);
+
+        Map<UUID, String> result = new HashMap<>();
+        if (auditIds.length > 0) {
+            jdbcTemplate.query("SELECT " + AUDIT_COLUMNS + " FROM audit_logs WHERE id = ANY(?)", AUDIT_MAPPER, (Object) auditIds)
+                    .forEach(r -> result.put(r.id(), r.canonical()));
+            List<ChainLink> missing = links.stream()
+                    .filter(l -> "AUDIT".equals(l.recordType()) && !result.containsKey(l.recordId())).toList();
+            if (!missing.isEmpty()) loadRestored(missing, result);
+        }
+        if (voteIds.length > 0) {
+            jdbcTemplate.query("SELECT " + VOTE_COLUMNS + " FROM votes v JOIN assemblies a ON a.id = v.assembly_id WHERE v.id = ANY(?)",
+                    VOTE_MAPPER, (Object) voteIds)
+                    .forEach(r -> result.put(r.id(), r.canonical()));
+        }
+        return result;
+    }
+
+    // Logs de partições arquivadas e já reidratadas (AuditArchiveService.rehydrate) estão em
+    // audit_logs_restored_AAAAMM, com as mesmas colunas: o recálculo usa essas linhas
+    private void loadRestored(List<ChainLink> missing, Map<UUID, String> result) {
+        LocalDateTime from = missing.stream().map(ChainLink::recordCreatedAt).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = missing.stream().map(ChainLink::recordCreatedAt).max(Comparator.naturalOrder()).orElseThrow();
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT restored_table FROM audit_archive WHERE restored_table ~ '^audit_logs_restored_[0-9]{6}$' " +
+                "AND to_regclass(restored_table) IS NOT NULL AND period_end > ?::date AND period_start <= ?::date",
+                String.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        UUID[] ids = missing.stream().map(ChainLink::recordId).toArray(UUID[]::new);
+        for (String table : tables) {
+            jdbcTemplate.query("SELECT " + AUDIT_COLUMNS + " FROM " + table + " WHERE id = ANY(?)", AUDIT_MAPPER, (Object) ids)
+                    .forEach(r -> result.put(r.id(), r.canonical()));
+        }
+    }
+
+    private boolean isArchived(LocalDateTime createdAt) {
+        Integer found = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_archive WHERE period_start <= ?::date AND period_end > ?::date",
+                Integer.class, Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt));
+        return found != null && found > 0;
+    }
+
+    private long countUnsealed(UUID tenantId, LocalDateTime start, LocalDateTime end) {
+        Long audits = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_logs WHERE chain_seq IS NULL AND tenant_id IS NOT DISTINCT FROM ? AND created_at BETWEEN ? AND ?",
+                Long.class, tenantId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        Long votes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM votes v JOIN assemblies a ON a.id = v.assembly_id " +
+                "WHERE v.chain_seq IS NULL AND a.tenant_id IS NOT DISTINCT FROM ? AND v.created_at BETWEEN ? AND ?",
+                Long.class, tenantId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        return Objects.requireNonNullElse(audits, 0L) + Objects.requireNonNullElse(votes, 0L);
+    }
+
+    private IntegrityReport broken(UUID chainId, long from, long to, long checked, long seq, String reason, long unsealed) {
+        log.warn("Cadeia de integridade {} quebrada no elo {}: {}", chainId, seq, reason);
+        return new IntegrityReport(chainId, from, to, checked, false, null, seq, reason, unsealed);
+    }
+
+    private record ChainRecord(String type, UUID id, LocalDateTime createdAt, UUID chainId, String canonical) {}
+
+    private record ChainLink(long seq, String recordType, UUID recordId, LocalDateTime recordCreatedAt, String hash) {}
+
+    private record Head(long seq, String hash) {}
+
+    /**
+     * Resultado da verificação. lastHash = hash recalculado do último elo do período;
+     * unsealed = registros do período ainda aguardando selagem.
+     */
+    public record IntegrityReport(UUID chainId, long fromSeq, long toSeq, long checked, boolean intact,
+                                  String lastHash, Long brokenAtSeq, String reason, long unsealed) {}
+}
@@ -0,0 +1,193 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.AudienceResolver.Audience;
+import com.votzz.backend.service.EmailService.EmailContent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Agrupa notificações por e-mail de um condomínio numa janela de tempo.
+ *
+ * Comunicados e enquetes não vão direto para o outbox: ficam pendentes em
+ * notification_digest_items. Quando a pendência mais antiga do condomínio completa a janela,
+ * tudo o que acumulou vira um único e-mail por morador (um resumo, ou o aviso original se
+ * houver só um item). Cinco publicações em dez minutos = um e-mail, não cinco. Itens com
+ * público restrito (ex.: só o Bloco B) entram apenas no resumo de quem faz parte dele.
+ *
+ * Tipos urgentes (convocação de assembleia, comunicado de prioridade alta) ignoram a janela.
+ * Janela 0 desliga o agrupamento. O estado fica no banco: itens pendentes sobrevivem a um
+ * restart e o fechamento usa FOR UPDATE SKIP LOCKED, então vários nós podem rodar o job.
+ */
+@Service
+@Slf4j
+public class NotificationDigestService {
+
+    public static final String REF_DIGEST = "DIGEST";
+    public static final String PRIORITY_HIGH = "HIGH";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final AudienceResolver audienceResolver;
+
+    @Value("${votzz.notifications.digest.window-minutes:15}")
+    private long windowMinutes;
+
+    // Com a caixa no app, o e-mail de massa pode ser desligado (false = só notificação no app)
+    @Value("${votzz.notifications.digest.email-enabled:true}")
+    private boolean emailEnabled;
+
+    @Value("${votzz.notifications.digest.urgent-types:ASSEMBLY}")
+    private String urgentTypesConfig;
+
+    private Set<String> urgentTypes;
+
+    public NotificationDigestService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                     EmailService emailService, EmailOutboxService emailOutboxService,
+                                     AudienceResolver audienceResolver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.audienceResolver = audienceResolver;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.urgentTypes = Arrays.stream(urgentTypesConfig.split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Registra a notificação na transação de quem chama. Urgente (ou janela desligada) vai
+     * direto para o outbox; o resto espera o fechamento do resumo do condomínio.
+     * Público diferente de ALL (bloco, unidade, perfil) é resolvido pelo AudienceResolver.
+     */
+    @Transactional
+    public void notifyTenant(UUID tenantId, String refType, UUID refId, String priority, Audience audience,
+                             String subject, String text) {
+        if (!emailEnabled) return;
+        Audience target = audience != null ? audience : Audience.all();
+        if (windowMinutes <= 0 || urgentTypes.contains(refType) || PRIORITY_HIGH.equalsIgnoreCase(priority)) {
+            EmailContent content = emailService.buildGenericNotification(subject, text);
+            if (target.isAll()) {
+                emailOutboxService.enqueueForTenant(tenantId, refType, refId, content);
+            } else {
+                emailOutboxService.enqueue(tenantId, refType, refId, content, audienceResolver.resolveEmails(tenantId, target));
+            }
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT INTO notification_digest_items (tenant_id, ref_type, ref_id, target_type, target_value, subject, text) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                tenantId, refType, refId, target.type(), target.value(), subject, text);
+    }
+
+    // --- FECHAMENTO ---
+
+    @Scheduled(fixedDelayString = "${votzz.notifications.digest.poll-seconds:30}",
+               initialDelayString = "${votzz.notifications.digest.poll-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void flushDueSafely() {
+        try {
+            List<UUID> due = jdbcTemplate.queryForList(
+                    "SELECT tenant_id FROM notification_digest_items WHERE digest_id IS NULL " +
+                    "GROUP BY tenant_id HAVING min(created_at) <= now() - make_interval(mins => ?)",
+                    UUID.class, (int) windowMinutes);
+            for (UUID tenantId : due) {
+                if (Thread.currentThread().isInterrupted()) return;
+                try {
+                    transactionTemplate.executeWithoutResult(status -> flushTenant(tenantId));
+                } catch (Exception e) {
+                    log.error("Erro ao fechar resumo de notificações do condomínio {}: {}", tenantId, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro no job de resumo de notificações: {}", e.getMessage());
+        }
+    }
+
+    private void flushTenant(UUID tenantId) {
+        // SKIP LOCKED: outro nó fechando o mesmo condomínio fica com os itens que pegou
+        List<PendingItem> items = jdbcTemplate.query(
+                "SELECT id, ref_type, ref_id, target_type, target_value, subject, text FROM notification_digest_items " +
+                "WHERE tenant_id = ? AND digest_id IS NULL ORDER BY created_at, id FOR UPDATE SKIP LOCKED",
+                (rs, i) -> new PendingItem(rs.getLong("id"), rs.getString("ref_type"), rs.getObject("ref_id", UUID.class),
+                        Audience.of(rs.getString("target_type"), rs.getString("target_value")),
+                        rs.getString("subject"), rs.getString("text")),
+                tenantId);
+        if (items.isEmpty()) return;
+
+        UUID digestId = UUID.randomUUID();
+        int recipients = 0;
+        int emails = 0;
+        if (items.stream().allMatch(item -> item.audience().isAll())) {
+            // Todos recebem a mesma lista: um INSERT ... SELECT, sem resolver ninguém
+            recipients = enqueueGroup(tenantId, digestId, items, null);
+            emails = 1;
+        } else {
+            // Públicos diferentes: cada morador recebe só os itens dele; quem recebe o mesmo
+            // conjunto de itens fica na mesma campanha
+            Map<String, BitSet> itemsByRecipient = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                for (String email : audienceResolver.resolveEmails(tenantId, items.get(i).audience())) {
+                    itemsByRecipient.computeIfAbsent(email, k -> new BitSet(items.size())).set(i);
+                }
+            }
+            Map<BitSet, List<String>> groups = new LinkedHashMap<>();
+            itemsByRecipient.forEach((email, set) -> groups.computeIfAbsent(set, k -> new ArrayList<>()).add(email));
+            for (Map.Entry<BitSet, List<String>> group : groups.entrySet()) {
+                List<PendingItem> groupItems = group.getKey().stream().mapToObj(items::get).toList();
+                recipients += enqueueGroup(tenantId, digestId, groupItems, group.getValue());
+                emails++;
+            }
+        }
+
+        jdbcTemplate.update("UPDATE notification_digest_items SET digest_id = ?, digested_at = now() WHERE id = ANY(?)",
+                digestId, items.stream().map(PendingItem::id).toArray(Long[]::new));
+        log.info("Resumo {} do condomínio {}: {} notificação(ões) em {} campanha(s) para {} destinatário(s).",
+                digestId, tenantId, items.size(), emails, recipients);
+    }
+
+    // recipients == null: todos do condomínio
+    private int enqueueGroup(UUID tenantId, UUID digestId, List<PendingItem> items, List<String> recipients) {
+        String refType;
+        UUID refId;
+        EmailContent content;
+        if (items.size() == 1) {
+            // Um item só: sai como aviso normal, com a referência original (rastreável)
+            PendingItem item = items.get(0);
+            refType = item.refType();
+            refId = item.refId();
+            content = emailService.buildGenericNotification(item.subject(), item.text());
+        } else {
+            String tenantName = jdbcTemplate.query("SELECT nome FROM tenants WHERE id = ?",
+                    rs -> rs.next() ? rs.getString(1) : null, tenantId);
+            refType = REF_DIGEST;
+            refId = digestId;
+            content = emailService.buildDigestNotification(tenantName, items.stream().map(PendingItem::text).toList());
+        }
+        return recipients == null
+                ? emailOutboxService.enqueueForTenant(tenantId, refType, refId, content)
+                : emailOutboxService.enqueue(tenantId, refType, refId, content, recipients);
+    }
+
+    private record PendingItem(long id, String refType, UUID refId, Audience audience, String subject, String text) {}
+}
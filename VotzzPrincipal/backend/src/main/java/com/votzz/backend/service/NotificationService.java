@@ -0,0 +1,260 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.EmailService.EmailContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Caixa de notificações no app, por usuário.
+ *
+ * Cada aviso vira uma linha em user_notifications e soma 1 no contador do usuário
+ * (user_notification_counters) no mesmo comando; o contador é a fonte do "não lidas",
+ * nunca um COUNT(*) sobre a caixa. Depois do commit o aviso é empurrado em tempo real
+ * para /user/queue/notifications (todas as abas, em qualquer nó, via ClusterFanOut).
+ *
+ * E-mail é canal de reserva: quem pede fallback ganha um envio no outbox agendado para
+ * daqui a email-fallback-minutes, cancelado se o aviso for lido antes disso.
+ */
+@Service
+@Slf4j
+public class NotificationService {
+
+    public static final String TYPE_POLL = "POLL";
+    public static final String TYPE_ANNOUNCEMENT = "ANNOUNCEMENT";
+    public static final String TYPE_ORDER = "ORDER";
+    public static final String TYPE_GUEST = "GUEST";
+    public static final String TYPE_BOOKING = "BOOKING";
+
+    public static final String QUEUE = "/queue/notifications";
+
+    // Insere a notificação para os destinatários e incrementa o contador de cada um.
+    // users.id é único, então o ON CONFLICT nunca toca a mesma linha duas vezes.
+    private static final String INSERT_SQL =
+            "WITH ins AS (" +
+            "  INSERT INTO user_notifications (user_id, tenant_id, type, title, body, link, ref_id) " +
+            "  SELECT u.id, ?, ?, ?, ?, ?, ? FROM users u WHERE %s " +
+            "  RETURNING id, user_id, created_at" +
+            "), cnt AS (" +
+            "  INSERT INTO user_notification_counters (user_id, unread) SELECT user_id, 1 FROM ins " +
+            "  ON CONFLICT (user_id) DO UPDATE SET unread = user_notification_counters.unread + 1, updated_at = now() " +
+            "  RETURNING user_id, unread" +
+            ") SELECT ins.id, ins.user_id, ins.created_at, cnt.unread FROM ins JOIN cnt ON cnt.user_id = ins.user_id";
+
+    private static final String TENANT_MEMBERS =
+            "(u.tenant_id = ? OR EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id = ?))";
+
+    private static final RowMapper<InboxItem> INBOX_MAPPER = (rs, i) -> new InboxItem(
+            rs.getLong("id"), (UUID) rs.getObject("tenant_id"), rs.getString("type"), rs.getString("title"),
+            rs.getString("body"), rs.getString("link"), (UUID) rs.getObject("ref_id"),
+            toLocal(rs.getTimestamp("created_at")), toLocal(rs.getTimestamp("read_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EmailOutboxService emailOutboxService;
+
+    // Minutos até o e-mail de reserva sair (se ainda não lido); < 0 desliga o fallback
+    @Value("${votzz.notifications.email-fallback-minutes:10}")
+    private long emailFallbackMinutes;
+
+    @Value("${votzz.notifications.inbox.page-size:30}")
+    private int pageSize;
+
+    public NotificationService(JdbcTemplate jdbcTemplate, SimpMessagingTemplate messagingTemplate, EmailOutboxService emailOutboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.emailOutboxService = emailOutboxService;
+    }
+
+    // --- ENVIO (na transação de quem chama) ---
+
+    /**
+     * Avisa um usuário. Com fallbackEmail + fallbackTo, o e-mail sai só se o aviso continuar
+     * não lido depois da janela de fallback.
+     */
+    @Transactional
+    public void notifyUser(UUID userId, UUID tenantId, Notice notice, String fallbackTo, EmailContent fallbackEmail) {
+        if (userId == null) return;
+        List<Delivered> delivered = insert(tenantId, notice, "u.id = ?", userId);
+        if (delivered.isEmpty()) return;
+
+        if (fallbackEmail != null && emailFallbackMinutes >= 0) {
+            long notificationId = delivered.get(0).id();
+            Long outboxId = emailOutboxService.enqueueDelayed(tenantId, EmailOutboxService.REF_NOTIFICATION, null,
+                    fallbackEmail, fallbackTo, emailFallbackMinutes * 60);
+            if (outboxId != null) {
+                jdbcTemplate.update("UPDATE user_notifications SET email_outbox_id = ? WHERE id = ?", outboxId, notificationId);
+            }
+        }
+        pushAfterCommit(delivered, tenantId, notice);
+    }
+
+    /**
+     * Avisa todos os usuários do condomínio (vínculo principal ou user_tenants) com um único
+     * INSERT ... SELECT. O e-mail de massa continua com o NotificationDigestService.
+     */
+    @Transactional
+    public int notifyTenant(UUID tenantId, Notice notice) {
+        List<Delivered> delivered = insert(tenantId, notice, TENANT_MEMBERS, tenantId, tenantId);
+        pushAfterCommit(delivered, tenantId, notice);
+        return delivered.size();
+    }
+
+    /**
+     * Avisa um grupo já resolvido (ex.: AudienceResolver para "Bloco B").
+     */
+    @Transactional
+    public int notifyUsers(UUID tenantId, Collection<UUID> userIds, Notice notice) {
+        if (userIds == null || userIds.isEmpty()) return 0;
+        List<Delivered> delivered = insert(tenantId, notice, "u.id = ANY(?)", (Object) userIds.toArray(new UUID[0]));
+        pushAfterCommit(delivered, tenantId, notice);
+        return delivered.size();
+    }
+
+    private List<Delivered> insert(UUID tenantId, Notice notice, String where, Object... whereArgs) {
+        Object[] args = new Object[6 + whereArgs.length];
+        args[0] = tenantId;
+        args[1] = notice.type();
+        args[2] = truncate(notice.title(), 255);
+        args[3] = truncate(notice.body(), 1000);
+        args[4] = notice.link();
+        args[5] = notice.refId();
+        System.arraycopy(whereArgs, 0, args, 6, whereArgs.length);
+        return jdbcTemplate.query(String.format(INSERT_SQL, where),
+                (rs, i) -> new Delivered(rs.getLong("id"), (UUID) rs.getObject("user_id"),
+                        toLocal(rs.getTimestamp("created_at")), rs.getLong("unread")),
+                args);
+    }
+
+    // --- CAIXA ---
+
+    /**
+     * Página da caixa, mais recente primeiro; before = menor id da página anterior.
+     */
+    public InboxPage inbox(UUID userId, Long before, Integer limit) {
+        int size = Math.min(Math.max(limit != null ? limit : pageSize, 1), 100);
+        List<InboxItem> items = jdbcTemplate.query(
+                "SELECT id, tenant_id, type, title, body, link, ref_id, created_at, read_at FROM user_notifications " +
+                "WHERE user_id = ? AND id < ? ORDER BY id DESC LIMIT ?",
+                INBOX_MAPPER, userId, before != null ? before : Long.MAX_VALUE, size + 1);
+        Long next = null;
+        if (items.size() > size) {
+            items = new ArrayList<>(items.subList(0, size));
+            next = items.get(size - 1).id();
+        }
+        return new InboxPage(items, unreadCount(userId), next);
+    }
+
+    public long unreadCount(UUID userId) {
+        List<Long> unread = jdbcTemplate.queryForList(
+                "SELECT unread FROM user_notification_counters WHERE user_id = ?", Long.class, userId);
+        return unread.isEmpty() ? 0 : Math.max(0, unread.get(0));
+    }
+
+    /**
+     * Marca como lidas (ids null = todas). O contador desce exatamente o que mudou de
+     * estado, e e-mails de reserva ainda na fila são cancelados.
+     */
+    @Transactional
+    public long markRead(UUID userId, List<Long> ids) {
+        if (ids != null && ids.isEmpty()) return unreadCount(userId);
+        String filter = ids == null ? "" : " AND id = ANY(?)";
+        Object[] args = ids == null ? new Object[]{userId} : new Object[]{userId, ids.toArray(new Long[0])};
+        List<Long> outboxIds = new ArrayList<>();
+        int[] changed = {0};
+        jdbcTemplate.query(
+                "UPDATE user_notifications SET read_at = now() WHERE user_id = ? AND read_at IS NULL" + filter +
+                " RETURNING email_outbox_id",
+                rs -> {
+                    changed[0]++;
+                    long outboxId = rs.getLong(1);
+                    if (!rs.wasNull()) outboxIds.add(outboxId);
+                },
+                args);
+        if (changed[0] == 0) return unreadCount(userId);
+
+        emailOutboxService.cancel(outboxIds);
+        Long unread = jdbcTemplate.queryForObject(
+                "UPDATE user_notification_counters SET unread = GREATEST(unread - ?, 0), updated_at = now() " +
+                "WHERE user_id = ? RETURNING unread",
+                Long.class, changed[0], userId);
+        long count = unread != null ? unread : 0;
+        // Outras abas/dispositivos do usuário atualizam o badge
+        afterCommit(() -> send(userId, new InboxEvent(InboxEvent.READ, null, count)));
+        return count;
+    }
+
+    // --- TEMPO REAL ---
+
+    private void pushAfterCommit(List<Delivered> delivered, UUID tenantId, Notice notice) {
+        if (delivered.isEmpty()) return;
+        afterCommit(() -> {
+            for (Delivered d : delivered) {
+                InboxItem item = new InboxItem(d.id(), tenantId, notice.type(), notice.title(), notice.body(),
+                        notice.link(), notice.refId(), d.createdAt(), null);
+                send(d.userId(), new InboxEvent(InboxEvent.NEW, item, d.unread()));
+            }
+        });
+    }
+
+    private void send(UUID userId, InboxEvent event) {
+        try {
+            messagingTemplate.convertAndSendToUser(userId.toString(), QUEUE, event);
+        } catch (Exception e) {
+            // A caixa já está gravada; o cliente recupera no próximo GET
+            log.warn("Falha ao empurrar notificação para {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String truncate(String s, int max) {
+        if (s == null) return "";
+        return s.length() > max ? s.substring(0, max) : s;
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    private record Delivered(long id, UUID userId, LocalDateTime createdAt, long unread) {}
+
+    /**
+     * O que mostrar: tipo (POLL, ORDER...), textos curtos e a rota do app para abrir.
+     */
+    public record Notice(String type, String title, String body, String link, UUID refId) {}
+
+    public record InboxItem(long id, UUID tenantId, String type, String title, String body, String link,
+                            UUID refId, LocalDateTime createdAt, LocalDateTime readAt) {}
+
+    public record InboxPage(List<InboxItem> items, long unread, Long nextBefore) {}
+
+    public record InboxEvent(String kind, InboxItem notification, long unread) {
+        public static final String NEW = "NEW";
+        public static final String READ = "READ";
+    }
+}
@@ -10,6 +10,8 @@ import com.votzz.backend.dto.OrderDTO;
 import com.votzz.backend.dto.SignOrderRequest;
 import com.votzz.backend.repository.OrderRepository;
 import com.votzz.backend.repository.TenantRepository;
+import com.votzz.backend.service.EmailService.EmailContent;
+import com.votzz.backend.service.NotificationService.Notice;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +29,7 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final TenantRepository tenantRepository;
     private final EmailService emailService; 
+    private final NotificationService notificationService;
     private final AuditService auditService;
 
     @Transactional(readOnly = true)
@@ -78,8 +81,15 @@ public class OrderService {
         
         auditService.log(currentUser, currentTenant, "REGISTRO_ENCOMENDA", details, "ENCOMENDA");
 
-        // Opcional: Enviar e-mail automaticamente ao criar
-        // sendNotificationEmail(savedOrder.getId());
+        // Aviso no app na hora; o e-mail só sai se o morador não abrir o aviso a tempo
+        String arrival = savedOrder.getArrivalDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+        String subject = "📦 Chegou Encomenda: " + savedOrder.getTrackingCode();
+        notificationService.notifyUser(savedOrder.getResidentId(), currentTenant.getId(),
+                new Notice(NotificationService.TYPE_ORDER, "📦 Chegou encomenda",
+                        savedOrder.getOrigin() + " - " + savedOrder.getTrackingCode() + " (" + arrival + ")", "/orders", savedOrder.getId()),
+                savedOrder.getResidentEmail(),
+                emailService.buildOrderArrival(subject, savedOrder.getResidentName(), savedOrder.getOrigin(),
+                        savedOrder.getTrackingCode(), arrival, currentTenant.getNome()));
 
         return new OrderDTO(savedOrder);
     }
@@ -201,29 +211,11 @@ public class OrderService {
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         String arrival = order.getArrivalDate() != null ? order.getArrivalDate().format(fmt) : "Hoje";
 
-        // Template HTML Bonito
-        String htmlBody = String.format(
-            "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto;'>" +
-            "<h2 style='color: #2563eb;'>Nova Encomenda na Portaria</h2>" +
-            "<p>Olá <strong>%s</strong>,</p>" +
-            "<p>Informamos que chegou uma nova encomenda para a sua unidade.</p>" +
-            "<div style='background: #f0f9ff; padding: 15px; border-radius: 8px; border-left: 4px solid #2563eb; margin: 20px 0;'>" +
-            "<p><strong>Origem:</strong> %s</p>" +
-            "<p><strong>Rastreio/Cód:</strong> %s</p>" +
-            "<p><strong>Data de Chegada:</strong> %s</p>" +
-            "</div>" +
-            "<p>Por favor, compareça à portaria para retirada apresentando um documento.</p>" +
-            "<hr style='border: 0; border-top: 1px solid #eee; margin: 20px 0;'/>" +
-            "<p style='font-size: 12px; color: #666;'>Atenciosamente,<br>Administração do Condomínio.</p>" +
-            "</div>",
-            order.getResidentName(),
-            order.getOrigin(),
-            order.getTrackingCode(),
-            arrival
-        );
+        EmailContent content = emailService.buildOrderArrival(subject, order.getResidentName(), order.getOrigin(),
+                order.getTrackingCode(), arrival, tenant != null ? tenant.getNome() : null);
 
         // CORREÇÃO AQUI: Chama sendHtmlEmail em vez de sendSimpleEmail
-        emailService.sendHtmlEmail(order.getResidentEmail(), subject, htmlBody);
+        emailService.sendHtmlEmail(order.getResidentEmail(), content.subject(), content.htmlBody());
 
         if (currentUser != null) {
             auditService.log(currentUser, tenant, "NOTIFICACAO_EMAIL", 
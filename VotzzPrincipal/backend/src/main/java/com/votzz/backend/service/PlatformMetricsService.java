@@ -0,0 +1,112 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.domain.event.TenantChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Snapshot das métricas da plataforma (painel do Super Admin).
+ *
+ * Calculado com agregados SQL (nenhuma entidade carregada) no agendador da aplicação:
+ * periodicamente e logo após mudanças de assinatura dos condomínios. O endpoint só
+ * lê a referência volátil, então o polling do painel não toca no banco.
+ */
+@Service
+@Slf4j
+public class PlatformMetricsService {
+
+    private static final BigDecimal TWELVE = new BigDecimal("12");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer refreshTimer;
+    private final TaskScheduler taskScheduler;
+
+    private final AtomicBoolean refreshRequested = new AtomicBoolean(false);
+    private volatile PlatformMetrics snapshot = new PlatformMetrics(0, 0, 0, 0, BigDecimal.ZERO, Map.of(), null);
+
+    public PlatformMetricsService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, TaskScheduler taskScheduler) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.refreshTimer = Timer.builder("votzz.metrics.platform.refresh")
+                .description("Tempo de recálculo do snapshot de métricas da plataforma")
+                .register(meterRegistry);
+    }
+
+    public PlatformMetrics getSnapshot() {
+        return snapshot;
+    }
+
+    // Após o commit de quem alterou o condomínio; rajadas de eventos viram um único recálculo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubscriptionChanged(TenantChangedEvent event) {
+        if (refreshRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::refreshSafely, Instant.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${votzz.metrics.refresh-interval-ms:15000}")
+    public void refreshSafely() {
+        refreshRequested.set(false);
+        try {
+            this.snapshot = refreshTimer.recordCallable(this::compute);
+        } catch (Exception e) {
+            log.error("Erro ao recalcular métricas da plataforma (mantido o snapshot anterior): {}", e.getMessage());
+        }
+    }
+
+    private PlatformMetrics compute() {
+        Map<String, Object> counts = jdbcTemplate.queryForMap(
+                "SELECT (SELECT COUNT(*) FROM users) AS total_users, " +
+                "(SELECT COUNT(*) FROM users WHERE last_seen >= ?) AS online_users, " +
+                "(SELECT COUNT(*) FROM tenants) AS total_tenants, " +
+                "(SELECT COUNT(*) FROM tenants WHERE ativo) AS active_tenants",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(5)));
+
+        // Agrupado por ciclo e preço: mesmo arredondamento por condomínio do cálculo antigo
+        Map<String, BigDecimal> mrrByCycle = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT p.ciclo, p.preco_base, COUNT(*) AS qtd FROM tenants t JOIN planos p ON p.id = t.plano_id " +
+                "WHERE t.ativo AND p.preco_base IS NOT NULL GROUP BY p.ciclo, p.preco_base",
+                rs -> {
+                    String ciclo = rs.getString("ciclo");
+                    BigDecimal preco = rs.getBigDecimal("preco_base");
+                    BigDecimal mensal = "ANUAL".equals(ciclo) ? preco.divide(TWELVE, 2, RoundingMode.HALF_EVEN) : preco;
+                    mrrByCycle.merge(ciclo, mensal.multiply(BigDecimal.valueOf(rs.getLong("qtd"))), BigDecimal::add);
+                });
+        BigDecimal mrr = mrrByCycle.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return new PlatformMetrics(
+                ((Number) counts.get("total_users")).longValue(),
+                ((Number) counts.get("online_users")).longValue(),
+                ((Number) counts.get("total_tenants")).longValue(),
+                ((Number) counts.get("active_tenants")).longValue(),
+                mrr,
+                Map.copyOf(mrrByCycle),
+                LocalDateTime.now());
+    }
+
+    public record PlatformMetrics(
+            long totalUsers,
+            long onlineUsers,
+            long totalTenants,
+            long activeTenants,
+            BigDecimal mrr,
+            Map<String, BigDecimal> mrrByCycle,
+            LocalDateTime computedAt
+    ) {}
+}
@@ -0,0 +1,396 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.votzz.backend.core.cluster.ClusterFanOut;
+import com.votzz.backend.core.cluster.ClusterFanOut.RelayedTopicMessageEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presença ao vivo nas salas de votação, montada a partir das inscrições STOMP em
+ * /topic/assembly/{id} de sessões autenticadas. Tudo em memória: contagem O(1) por
+ * assembleia; o banco só é lido na primeira entrada do morador (nome e unidades).
+ *
+ * Um morador com várias abas conta uma vez só. Quando a última sessão dele sai, o
+ * intervalo (entrada, saída) só é fechado após um período de tolerância, então uma
+ * reconexão rápida não gera linhas novas na lista de presença. Os intervalos fechados
+ * são gravados em lote na tabela assembly_attendance para o dossiê.
+ *
+ * Com vários nós, cada um publica a contagem local da sala em {@value #CLUSTER_DESTINATION}
+ * (marcada com o id do nó) e soma as dos outros antes de enviar o total aos clientes. Um
+ * nó que para de mandar heartbeat sai da soma depois de cluster-ttl. Um morador conectado
+ * em dois nós ao mesmo tempo conta uma vez em cada.
+ */
+@Service
+@Slf4j
+public class PresenceService {
+
+    public static final String CLUSTER_DESTINATION = "/topic/cluster/presence";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO assembly_attendance (id, assembly_id, user_id, user_name, units, joined_at, left_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // assemblyId -> presença da sala
+    private final Map<UUID, Room> rooms = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> inscrição), para resolver UNSUBSCRIBE/DISCONNECT
+    private final Map<String, Map<String, Subscription>> sessions = new ConcurrentHashMap<>();
+    // salas cuja contagem local mudou desde o último broadcast
+    private final Set<UUID> dirtyRooms = ConcurrentHashMap.newKeySet();
+    // salas cuja contagem de outro nó mudou: só reenvia o total aos clientes deste nó
+    private final Set<UUID> dirtyTotals = ConcurrentHashMap.newKeySet();
+    // assemblyId -> (nó -> contagem recebida)
+    private final Map<UUID, Map<String, RemoteCount>> remoteCounts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<AttendanceInterval> pendingIntervals = new ConcurrentLinkedQueue<>();
+
+    @Value("${votzz.presence.leave-grace-seconds:30}")
+    private long leaveGraceSeconds;
+
+    // Contagem de outro nó sem atualização por mais que isso deixa de ser somada
+    @Value("${votzz.presence.cluster-ttl-ms:45000}")
+    private long clusterTtlMs;
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    // --- EVENTOS DE SESSÃO ---
+
+    /**
+     * Entrada do usuário autenticado da sessão. Nome e unidades saem do cadastro; quem não
+     * pertence ao condomínio da assembleia não entra na lista de presença.
+     */
+    public void join(String sessionId, String subscriptionId, UUID assemblyId, UUID userId) {
+        Room existingRoom = rooms.get(assemblyId);
+        Attendee known = existingRoom != null ? existingRoom.attendees.get(userId) : null;
+        // Reconexão dentro da tolerância não consulta o banco de novo
+        Identity identity = known != null ? new Identity(known.userName, known.units) : loadIdentity(assemblyId, userId);
+        if (identity == null) {
+            log.warn("Presença ignorada: usuário {} não pertence ao condomínio da assembleia {}", userId, assemblyId);
+            return;
+        }
+
+        sessions.computeIfAbsent(sessionId, s -> new ConcurrentHashMap<>())
+                .put(subscriptionId, new Subscription(assemblyId, userId));
+
+        // compute no mapa de salas: não corre com a remoção de sala vazia em closeExpiredAndFlush
+        rooms.compute(assemblyId, (id, existing) -> {
+            Room room = existing != null ? existing : new Room();
+            room.attendees.compute(userId, (k, current) -> {
+                if (current == null) {
+                    room.online.incrementAndGet();
+                    return new Attendee(userId, identity.userName(), identity.units(), LocalDateTime.now());
+                }
+                if (current.sessions == 0) room.online.incrementAndGet(); // voltou dentro da tolerância
+                current.sessions++;
+                current.leftAt = null;
+                return current;
+            });
+            return room;
+        });
+        dirtyRooms.add(assemblyId);
+    }
+
+    private Identity loadIdentity(UUID assemblyId, UUID userId) {
+        List<Identity> found = jdbcTemplate.query(
+                "SELECT u.nome, (SELECT string_agg(uu.unidade_info, ', ') FROM user_unidades uu WHERE uu.user_id = u.id) AS units " +
+                "FROM users u JOIN assemblies a ON a.id = ? " +
+                "WHERE u.id = ? AND (u.tenant_id = a.tenant_id " +
+                "  OR EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id = a.tenant_id))",
+                (rs, i) -> new Identity(rs.getString("nome"), rs.getString("units")),
+                assemblyId, userId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public void leave(String sessionId, String subscriptionId) {
+        Map<String, Subscription> subs = sessions.get(sessionId);
+        if (subs == null) return;
+        Subscription sub = subs.remove(subscriptionId);
+        if (subs.isEmpty()) sessions.remove(sessionId, subs);
+        if (sub != null) release(sub);
+    }
+
+    public void disconnect(String sessionId) {
+        Map<String, Subscription> subs = sessions.remove(sessionId);
+        if (subs == null) return;
+        subs.values().forEach(this::release);
+    }
+
+    private void release(Subscription sub) {
+        Room room = rooms.get(sub.assemblyId());
+        if (room == null) return;
+        room.attendees.computeIfPresent(sub.attendeeKey(), (k, current) -> {
+            current.sessions--;
+            if (current.sessions <= 0) {
+                current.sessions = 0;
+                current.leftAt = LocalDateTime.now();
+                room.online.decrementAndGet();
+            }
+            return current;
+        });
+        dirtyRooms.add(sub.assemblyId());
+    }
+
+    // --- CONTAGEM DOS OUTROS NÓS ---
+
+    @EventListener
+    public void onRelayedMessage(RelayedTopicMessageEvent event) {
+        if (!CLUSTER_DESTINATION.equals(event.destination())) return;
+        try {
+            NodeCount count = objectMapper.readValue(event.payload(), NodeCount.class);
+            if (count.node() == null || count.assemblyId() == null || nodeId.equals(count.node())) return;
+
+            Map<String, RemoteCount> nodes = remoteCounts.computeIfAbsent(count.assemblyId(), id -> new ConcurrentHashMap<>());
+            RemoteCount previous = count.online() > 0
+                    ? nodes.put(count.node(), new RemoteCount(count.online(), System.currentTimeMillis()))
+                    : nodes.remove(count.node());
+            if (nodes.isEmpty()) remoteCounts.remove(count.assemblyId(), nodes);
+            if (previous == null || previous.online() != count.online()) dirtyTotals.add(count.assemblyId());
+        } catch (Exception e) {
+            log.warn("Contagem de presença inválida recebida de outro nó: {}", e.getMessage());
+        }
+    }
+
+    // --- CONSULTAS (SEM BANCO) ---
+
+    /**
+     * Total da sala no cluster: a contagem deste nó mais a dos outros nós ainda dentro do TTL.
+     */
+    public int getOnlineCount(UUID assemblyId) {
+        int total = getLocalCount(assemblyId);
+        Map<String, RemoteCount> nodes = remoteCounts.get(assemblyId);
+        if (nodes != null) {
+            long limit = System.currentTimeMillis() - clusterTtlMs;
+            for (RemoteCount remote : nodes.values()) {
+                if (remote.receivedAt() >= limit) total += remote.online();
+            }
+        }
+        return total;
+    }
+
+    private int getLocalCount(UUID assemblyId) {
+        Room room = rooms.get(assemblyId);
+        return room == null ? 0 : Math.max(0, room.online.get());
+    }
+
+    public List<PresenceEntry> getOnline(UUID assemblyId) {
+        Room room = rooms.get(assemblyId);
+        if (room == null) return List.of();
+        List<PresenceEntry> list = new ArrayList<>();
+        room.attendees.values().forEach(a -> {
+            if (a.sessions > 0) list.add(new PresenceEntry(a.userId, a.userName, a.units, a.joinedAt, null));
+        });
+        list.sort(Comparator.comparing(PresenceEntry::joinedAt));
+        return list;
+    }
+
+    /**
+     * Lista de presença para o dossiê: intervalos já gravados + os que ainda estão abertos em memória.
+     */
+    public List<PresenceEntry> getAttendance(UUID assemblyId) {
+        List<PresenceEntry> list = new ArrayList<>(jdbcTemplate.query(
+                "SELECT user_id, user_name, units, joined_at, left_at FROM assembly_attendance " +
+                "WHERE assembly_id = ? ORDER BY joined_at",
+                (rs, i) -> new PresenceEntry(
+                        rs.getObject("user_id", UUID.class),
+                        rs.getString("user_name"),
+                        rs.getString("units"),
+                        rs.getTimestamp("joined_at").toLocalDateTime(),
+                        rs.getTimestamp("left_at").toLocalDateTime()),
+                assemblyId));
+        for (AttendanceInterval pending : pendingIntervals) {
+            if (pending.assemblyId().equals(assemblyId)) list.add(pending.toEntry());
+        }
+        Room room = rooms.get(assemblyId);
+        if (room != null) {
+            room.attendees.values().forEach(a -> list.add(new PresenceEntry(a.userId, a.userName, a.units, a.joinedAt, a.leftAt)));
+        }
+        list.sort(Comparator.comparing(PresenceEntry::joinedAt));
+        return list;
+    }
+
+    // --- TAREFAS PERIÓDICAS ---
+
+    // Broadcast agrupado: um "reconnect storm" vira uma mensagem por sala por intervalo
+    @Scheduled(fixedDelayString = "${votzz.presence.broadcast-interval-ms:1000}",
+               initialDelayString = "${votzz.presence.broadcast-interval-ms:1000}")
+    public void broadcastDirtyRooms() {
+        try {
+            for (UUID assemblyId : List.copyOf(dirtyRooms)) {
+                dirtyRooms.remove(assemblyId);
+                publishNodeCount(assemblyId);
+                dirtyTotals.add(assemblyId);
+            }
+            for (UUID assemblyId : List.copyOf(dirtyTotals)) {
+                dirtyTotals.remove(assemblyId);
+                // Cada nó envia o total já somado aos próprios clientes: não vai para o relay
+                messagingTemplate.convertAndSend("/topic/assembly/" + assemblyId,
+                        Map.of("type", "PRESENCE", "assemblyId", assemblyId, "online", getOnlineCount(assemblyId)),
+                        Map.of(ClusterFanOut.LOCAL_ONLY_HEADER, "true"));
+            }
+        } catch (Exception e) {
+            log.error("Erro no broadcast de presença: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reenvia as contagens locais (um nó novo recebe o estado dos outros) e tira da soma
+     * os nós que pararam de mandar.
+     */
+    @Scheduled(fixedDelayString = "${votzz.presence.cluster-heartbeat-ms:15000}",
+               initialDelayString = "${votzz.presence.cluster-heartbeat-ms:15000}")
+    public void clusterHeartbeat() {
+        try {
+            rooms.keySet().forEach(this::publishNodeCount);
+
+            long limit = System.currentTimeMillis() - clusterTtlMs;
+            remoteCounts.forEach((assemblyId, nodes) -> {
+                if (nodes.values().removeIf(remote -> remote.receivedAt() < limit)) dirtyTotals.add(assemblyId);
+                remoteCounts.computeIfPresent(assemblyId, (id, n) -> n.isEmpty() ? null : n);
+            });
+        } catch (Exception e) {
+            log.error("Erro no heartbeat de presença: {}", e.getMessage());
+        }
+    }
+
+    private void publishNodeCount(UUID assemblyId) {
+        messagingTemplate.convertAndSend(CLUSTER_DESTINATION, new NodeCount(nodeId, assemblyId, getLocalCount(assemblyId)));
+    }
+
+    @Scheduled(fixedDelayString = "${votzz.presence.flush-interval-ms:5000}",
+               initialDelayString = "${votzz.presence.flush-interval-ms:5000}")
+    public void closeExpiredAndFlush() {
+        try {
+            LocalDateTime limit = LocalDateTime.now().minusSeconds(leaveGraceSeconds);
+            rooms.forEach((assemblyId, room) -> {
+                room.attendees.forEach((key, attendee) -> room.attendees.computeIfPresent(key, (k, a) -> {
+                    if (a.sessions == 0 && a.leftAt != null && a.leftAt.isBefore(limit)) {
+                        pendingIntervals.add(new AttendanceInterval(assemblyId, a));
+                        return null;
+                    }
+                    return a;
+                }));
+                rooms.computeIfPresent(assemblyId, (id, r) -> r.attendees.isEmpty() ? null : r);
+            });
+            flush();
+        } catch (Exception e) {
+            log.error("Erro ao gravar intervalos de presença: {}", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        List<AttendanceInterval> batch = new ArrayList<>();
+        AttendanceInterval next;
+        while ((next = pendingIntervals.peek()) != null && batch.size() < 500) {
+            batch.add(next);
+            pendingIntervals.poll();
+        }
+        if (batch.isEmpty()) return;
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, i) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setObject(2, i.assemblyId());
+                ps.setObject(3, i.userId());
+                ps.setString(4, i.userName());
+                ps.setString(5, i.units());
+                ps.setTimestamp(6, Timestamp.valueOf(i.joinedAt()));
+                ps.setTimestamp(7, Timestamp.valueOf(i.leftAt()));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Assembleia excluída no meio da sessão: não há onde gravar
+            log.warn("{} intervalos de presença descartados: {}", batch.size(), e.getMessage());
+        } catch (Exception e) {
+            // Devolve para a fila; a próxima rodada tenta de novo
+            pendingIntervals.addAll(batch);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Fecha todos os intervalos abertos no momento do desligamento
+        LocalDateTime now = LocalDateTime.now();
+        rooms.forEach((assemblyId, room) -> room.attendees.values().forEach(a -> {
+            if (a.leftAt == null) a.leftAt = now;
+            pendingIntervals.add(new AttendanceInterval(assemblyId, a));
+        }));
+        rooms.clear();
+        try {
+            while (!pendingIntervals.isEmpty()) flush();
+        } catch (Exception e) {
+            log.warn("Shutdown: {} intervalos de presença não gravados: {}", pendingIntervals.size(), e.getMessage());
+        }
+    }
+
+    // --- ESTRUTURAS INTERNAS ---
+
+    private static class Room {
+        private final Map<UUID, Attendee> attendees = new ConcurrentHashMap<>();
+        private final AtomicInteger online = new AtomicInteger(0);
+    }
+
+    // Mutado apenas dentro de compute/computeIfPresent do mapa da sala
+    private static class Attendee {
+        private final UUID userId;
+        private final LocalDateTime joinedAt;
+        private volatile String userName;
+        private volatile String units;
+        private volatile int sessions = 1;
+        private volatile LocalDateTime leftAt;
+
+        Attendee(UUID userId, String userName, String units, LocalDateTime joinedAt) {
+            this.userId = userId;
+            this.userName = userName;
+            this.units = units;
+            this.joinedAt = joinedAt;
+        }
+    }
+
+    private record Subscription(UUID assemblyId, UUID attendeeKey) {}
+
+    private record Identity(String userName, String units) {}
+
+    record NodeCount(String node, UUID assemblyId, int online) {}
+
+    private record RemoteCount(int online, long receivedAt) {}
+
+    private record AttendanceInterval(UUID assemblyId, UUID userId, String userName, String units,
+                                      LocalDateTime joinedAt, LocalDateTime leftAt) {
+        AttendanceInterval(UUID assemblyId, Attendee a) {
+            this(assemblyId, a.userId, a.userName, a.units, a.joinedAt, a.leftAt);
+        }
+
+        PresenceEntry toEntry() {
+            return new PresenceEntry(userId, userName, units, joinedAt, leftAt);
+        }
+    }
+
+    public record PresenceEntry(UUID userId, String userName, String units, LocalDateTime joinedAt, LocalDateTime leftAt) {}
+}
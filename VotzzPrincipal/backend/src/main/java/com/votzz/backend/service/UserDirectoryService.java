@@ -0,0 +1,179 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.pagination.KeysetCursor;
+import com.votzz.backend.dto.UserDTO;
+import com.votzz.backend.dto.UserDirectoryPage;
+import com.votzz.backend.dto.UserFolder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Diretório de usuários do painel do Super Admin, organizado em pastas
+ * (Afiliados, um por condomínio, Sem Condomínio).
+ *
+ * As contagens saem de um GROUP BY e cada pasta é paginada por keyset em
+ * (created_at, id) com projeção direta para UserDTO: nenhuma entidade User
+ * (e suas coleções EAGER) é carregada. A chave de ordenação é a mesma expressão
+ * dos índices idx_users_tenant_created / idx_users_afiliado_created, então cada
+ * página é uma varredura ordenada do índice a partir do cursor, sem sort da pasta.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryService {
+
+    public static final String FOLDER_AFILIADOS = "AFILIADOS";
+    public static final String FOLDER_SEM_CONDOMINIO = "SEM_CONDOMINIO";
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int SEARCH_LIMIT = 50;
+
+    // Moradores/síndicos: ADMIN fica em /admins e AFILIADO tem pasta própria
+    private static final String MEMBER_ROLES = "u.role NOT IN ('ADMIN', 'AFILIADO')";
+    // Mesma expressão dos índices (created_at nulo = cadastros antigos, vão para o fim)
+    private static final String CREATED = "COALESCE(u.created_at, TIMESTAMP '1970-01-01')";
+    private static final String ORDER = " ORDER BY created_key DESC, id DESC LIMIT :limit";
+
+    private static final String PROJECTION =
+            "SELECT u.id, u.nome, u.email, u.role, u.last_seen, u.bloco, u.unidade, u.cpf, u.whatsapp, " +
+            CREATED + " AS created_key, mt.id AS tenant_id, mt.nome AS tenant_nome, " +
+            "(SELECT COUNT(*) FROM user_tenants ut WHERE ut.user_id = u.id AND ut.tenant_id IS DISTINCT FROM u.tenant_id) AS extra_tenants " +
+            "FROM users u LEFT JOIN tenants mt ON mt.id = u.tenant_id ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, i) -> {
+        String tenantNome = rs.getString("tenant_nome");
+        long extra = rs.getLong("extra_tenants");
+        String condominio = tenantNome == null
+                ? (extra > 0 ? extra + " condomínio(s)" : "Sem Condomínio")
+                : tenantNome + (extra > 0 ? " (+" + extra + ")" : "");
+        Timestamp lastSeen = rs.getTimestamp("last_seen");
+        UserDTO dto = new UserDTO(
+                rs.getObject("id", UUID.class), rs.getString("nome"), rs.getString("email"), rs.getString("role"),
+                condominio, lastSeen != null ? lastSeen.toLocalDateTime() : null, null,
+                rs.getString("bloco"), rs.getString("unidade"), rs.getObject("tenant_id", UUID.class),
+                rs.getString("cpf"), rs.getString("whatsapp"));
+        return new Row(rs.getTimestamp("created_key").toLocalDateTime(), dto);
+    };
+
+    public List<UserFolder> listFolders() {
+        List<UserFolder> folders = new ArrayList<>();
+        folders.add(new UserFolder(FOLDER_AFILIADOS, "Afiliados", count("SELECT COUNT(*) FROM users u WHERE u.role = 'AFILIADO'")));
+
+        // Vínculo = users.tenant_id (principal) ou user_tenants (multi-condomínio)
+        folders.addAll(jdbcTemplate.query(
+                "WITH links AS (" +
+                "  SELECT ut.user_id, ut.tenant_id FROM user_tenants ut" +
+                "  UNION SELECT u.id, u.tenant_id FROM users u WHERE u.tenant_id IS NOT NULL" +
+                ") " +
+                "SELECT t.id, t.nome, COUNT(u.id) AS total FROM tenants t " +
+                "LEFT JOIN links l ON l.tenant_id = t.id " +
+                "LEFT JOIN users u ON u.id = l.user_id AND " + MEMBER_ROLES + " " +
+                "GROUP BY t.id, t.nome ORDER BY t.nome",
+                new MapSqlParameterSource(),
+                (rs, i) -> new UserFolder(rs.getString("id"), rs.getString("nome"), rs.getLong("total"))));
+
+        folders.add(new UserFolder(FOLDER_SEM_CONDOMINIO, "Sem Condomínio", count(
+                "SELECT COUNT(*) FROM users u WHERE " + MEMBER_ROLES + " AND u.tenant_id IS NULL " +
+                "AND NOT EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id)")));
+        return folders;
+    }
+
+    public UserDirectoryPage listFolder(String folder, String cursor, Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        KeysetCursor keyset = KeysetCursor.decode(cursor);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String after = "";
+        if (keyset != null) {
+            after = " AND (" + CREATED + ", u.id) < (:cursorAt, :cursorId)";
+            params.addValue("cursorAt", Timestamp.valueOf(keyset.createdAt()));
+            params.addValue("cursorId", keyset.id());
+        }
+        params.addValue("limit", size + 1);
+
+        String sql;
+        if (FOLDER_AFILIADOS.equals(folder)) {
+            sql = PROJECTION + "WHERE u.role = 'AFILIADO'" + after + ORDER;
+        } else if (FOLDER_SEM_CONDOMINIO.equals(folder)) {
+            sql = PROJECTION + "WHERE u.tenant_id IS NULL AND " + MEMBER_ROLES +
+                  " AND NOT EXISTS (SELECT 1 FROM user_tenants ut WHERE ut.user_id = u.id)" + after + ORDER;
+        } else {
+            // Condomínio principal (índice por tenant) + vínculos extras em user_tenants (poucos).
+            // Um OR entre os dois impediria a varredura ordenada do índice.
+            params.addValue("tenantId", parseFolder(folder));
+            sql = "SELECT * FROM ((" +
+                  PROJECTION + "WHERE u.tenant_id = :tenantId AND " + MEMBER_ROLES + after + ORDER +
+                  ") UNION ALL (" +
+                  PROJECTION + "JOIN user_tenants ut ON ut.user_id = u.id AND ut.tenant_id = :tenantId " +
+                  "WHERE u.tenant_id IS DISTINCT FROM :tenantId AND " + MEMBER_ROLES + after + ORDER +
+                  ")) page" + ORDER;
+        }
+
+        List<Row> rows = jdbcTemplate.query(sql, params, ROW_MAPPER);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows = rows.subList(0, size);
+
+        List<UserDTO> items = rows.stream().map(Row::user).toList();
+        String next = hasMore ? rows.get(rows.size() - 1).cursor().encode() : null;
+        return new UserDirectoryPage(items, next);
+    }
+
+    /**
+     * Busca por nome, e-mail ou CPF (trecho em qualquer posição), apoiada nos índices
+     * trigram de users. Termos com menos de 3 caracteres não usam o índice e são ignorados.
+     */
+    public List<UserDTO> search(String q) {
+        String term = q == null ? "" : q.trim();
+        if (term.length() < 3) return List.of();
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("pattern", "%" + escapeLike(term) + "%")
+                .addValue("term", term)
+                .addValue("limit", SEARCH_LIMIT);
+        StringBuilder sql = new StringBuilder(PROJECTION)
+                .append("WHERE u.role <> 'ADMIN' AND (u.nome ILIKE :pattern OR u.email ILIKE :pattern");
+        String digits = term.replaceAll("\\D", "");
+        if (digits.length() >= 3) {
+            // Mesma expressão do índice idx_users_cpf_trgm (CPF com ou sem máscara)
+            sql.append(" OR regexp_replace(coalesce(u.cpf, ''), '\\D', '', 'g') LIKE :cpf");
+            params.addValue("cpf", "%" + digits + "%");
+        }
+        sql.append(") ORDER BY similarity(u.nome, :term) DESC, u.nome LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER).stream().map(Row::user).toList();
+    }
+
+    private long count(String sql) {
+        Long total = jdbcTemplate.queryForObject(sql, new MapSqlParameterSource(), Long.class);
+        return total != null ? total : 0;
+    }
+
+    private static UUID parseFolder(String folder) {
+        try {
+            return UUID.fromString(folder);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Pasta inválida: " + folder);
+        }
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record Row(LocalDateTime createdAt, UserDTO user) {
+        KeysetCursor cursor() {
+            return new KeysetCursor(createdAt, user.getId());
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.controller.UserController.ImportJobStatus;
+import com.votzz.backend.controller.UserController.ImportReport;
+import com.votzz.backend.controller.UserController.ImportRowResult;
+import com.votzz.backend.domain.User;
+import com.votzz.backend.domain.enums.Role;
+import com.votzz.backend.service.IdentityService.IdentityClaim;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importação em lote de moradores (CSV).
+ *
+ * O arquivo é lido em streaming e processado em blocos: as checagens (e-mail no condomínio,
+ * CPF de outra pessoa, perfil universal) são uma consulta por bloco, o BCrypt roda num pool
+ * limitado e users/user_unidades entram por JDBC batch. Cada bloco é uma transação que
+ * também grava o resultado das linhas e avança user_import_jobs.last_row.
+ *
+ * Retomada: o job é identificado pelo condomínio + SHA-256 do arquivo. Reenviar o mesmo
+ * arquivo após uma queda continua da última linha confirmada; reenviar um arquivo já
+ * concluído só devolve o relatório.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String ROW_CREATED = "CRIADO";
+    private static final String ROW_ERROR = "ERRO";
+
+    private static final RowMapper<ImportJobStatus> JOB_MAPPER = (rs, i) -> new ImportJobStatus(
+            rs.getObject("id", UUID.class), rs.getString("status"), rs.getString("file_name"),
+            rs.getInt("last_row"), rs.getInt("created_count"), rs.getInt("error_count"), rs.getString("message"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdentityService identityService;
+    private final PasswordEncoder passwordEncoder;
+    private final AuditService auditService;
+    private final AudienceResolver audienceResolver;
+
+    @Value("${votzz.users.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${votzz.users.import.hash-threads:0}")
+    private int hashThreads;
+
+    // Job RUNNING sem progresso há mais que isso é considerado abandonado (nó caiu)
+    @Value("${votzz.users.import.stale-seconds:120}")
+    private long staleSeconds;
+
+    private ExecutorService runner;
+    private ThreadPoolExecutor hashPool;
+
+    // Hash de um segredo aleatório descartado: contas sem senha no arquivo não têm senha
+    // utilizável e fazem o primeiro acesso pelo "Esqueci minha senha" (convite)
+    private String inviteHash;
+
+    public UserImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             IdentityService identityService, PasswordEncoder passwordEncoder,
+                             AuditService auditService, AudienceResolver audienceResolver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.identityService = identityService;
+        this.passwordEncoder = passwordEncoder;
+        this.auditService = auditService;
+        this.audienceResolver = audienceResolver;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "user-import");
+            t.setDaemon(true);
+            return t;
+        });
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger seq = new AtomicInteger();
+        // Fila limitada + CallerRuns: a thread do import ajuda a fazer hash em vez de acumular tarefas
+        this.hashPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), r -> {
+                    Thread t = new Thread(r, "user-import-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.inviteHash = passwordEncoder.encode(UUID.randomUUID() + ":" + UUID.randomUUID());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        hashPool.shutdownNow();
+    }
+
+    // --- API ---
+
+    public ImportJobStatus startImport(MultipartFile file, User actor) {
+        if (file == null || file.isEmpty()) throw new RuntimeException("Arquivo vazio.");
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : "import.csv";
+        if (!name.toLowerCase().endsWith(".csv")) {
+            throw new RuntimeException("Formato não suportado. Envie um arquivo .csv (no Excel: Salvar como > CSV).");
+        }
+        UUID tenantId = actor.getTenant().getId();
+
+        Path tmp = null;
+        try {
+            // O upload é copiado para disco: o processamento roda depois que a requisição termina
+            tmp = Files.createTempFile("votzz-import-", ".csv");
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String fileHash = Hex.encodeHexString(sha.digest());
+
+            ImportJobStatus job = acquireJob(tenantId, actor.getId(), name, fileHash);
+            if (!STATUS_RUNNING.equals(job.status())) {
+                Files.deleteIfExists(tmp);
+                return job;
+            }
+            Path source = tmp;
+            runner.execute(() -> run(job, source, actor));
+            return job;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            deleteQuietly(tmp);
+            throw new RuntimeException("Falha ao ler o arquivo: " + e.getMessage());
+        } catch (RuntimeException e) {
+            deleteQuietly(tmp);
+            throw e;
+        }
+    }
+
+    public ImportReport getReport(UUID jobId, UUID tenantId) {
+        List<ImportJobStatus> jobs = jdbcTemplate.query(
+                "SELECT * FROM user_import_jobs WHERE id = ? AND tenant_id = ?", JOB_MAPPER, jobId, tenantId);
+        if (jobs.isEmpty()) throw new RuntimeException("Importação não encontrada.");
+        List<ImportRowResult> rows = jdbcTemplate.query(
+                "SELECT row_number, status, email, message FROM user_import_rows WHERE job_id = ? ORDER BY row_number",
+                (rs, i) -> new ImportRowResult(rs.getInt("row_number"), rs.getString("status"),
+                        rs.getString("email"), rs.getString("message")),
+                jobId);
+        return new ImportReport(jobs.get(0), rows);
+    }
+
+    /**
+     * Cria o job ou retoma o existente para o mesmo arquivo. A retomada só acontece se o job
+     * anterior falhou ou ficou parado (UPDATE condicional: dois envios simultâneos não rodam juntos).
+     */
+    private ImportJobStatus acquireJob(UUID tenantId, UUID actorId, String fileName, String fileHash) {
+        List<UUID> created = jdbcTemplate.query(
+                "INSERT INTO user_import_jobs (tenant_id, created_by, file_name, file_hash, status) VALUES (?, ?, ?, ?, ?) " +
+                "ON CONFLICT (tenant_id, file_hash) DO NOTHING RETURNING id",
+                (rs, i) -> rs.getObject(1, UUID.class), tenantId, actorId, fileName, fileHash, STATUS_RUNNING);
+        if (!created.isEmpty()) return findJob(created.get(0));
+
+        ImportJobStatus existing = jdbcTemplate.queryForObject(
+                "SELECT * FROM user_import_jobs WHERE tenant_id = ? AND file_hash = ?", JOB_MAPPER, tenantId, fileHash);
+        if (STATUS_DONE.equals(existing.status())) return existing;
+
+        int taken = jdbcTemplate.update(
+                "UPDATE user_import_jobs SET status = ?, message = NULL, updated_at = now() WHERE id = ? " +
+                "AND (status <> ? OR updated_at < now() - make_interval(secs => ?))",
+                STATUS_RUNNING, existing.id(), STATUS_RUNNING, staleSeconds);
+        if (taken == 0) throw new RuntimeException("Este arquivo já está sendo importado. Acompanhe o progresso pelo relatório.");
+        log.info("Retomando importação {} a partir da linha {}", existing.id(), existing.lastRow() + 1);
+        return findJob(existing.id());
+    }
+
+    private ImportJobStatus findJob(UUID jobId) {
+        return jdbcTemplate.queryForObject("SELECT * FROM user_import_jobs WHERE id = ?", JOB_MAPPER, jobId);
+    }
+
+    // --- PROCESSAMENTO ---
+
+    private void run(ImportJobStatus job, Path source, User actor) {
+        UUID tenantId = actor.getTenant().getId();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            CSVParser parser = format(reader).parse(reader);
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            for (CSVRecord record : parser) {
+                int rowNumber = (int) record.getRecordNumber();
+                if (rowNumber <= job.lastRow()) continue; // já confirmada numa execução anterior
+                chunk.add(ImportRow.parse(rowNumber, record));
+                if (chunk.size() >= chunkSize) {
+                    processChunk(job.id(), tenantId, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) processChunk(job.id(), tenantId, chunk);
+
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = ?, updated_at = now() WHERE id = ?", STATUS_DONE, job.id());
+            ImportJobStatus done = findJob(job.id());
+            auditService.log(actor, actor.getTenant(), "IMPORTAR_USUARIOS",
+                    "Importou " + done.created() + " usuário(s) de " + done.fileName() + " (" + done.errors() + " linha(s) com erro)",
+                    "USUARIOS");
+        } catch (Exception e) {
+            log.error("Importação {} interrompida: {}", job.id(), e.getMessage());
+            jdbcTemplate.update("UPDATE user_import_jobs SET status = ?, message = ?, updated_at = now() WHERE id = ?",
+                    STATUS_FAILED, "Interrompida: " + e.getMessage() + ". Reenvie o mesmo arquivo para continuar.", job.id());
+        } finally {
+            deleteQuietly(source);
+        }
+    }
+
+    private void processChunk(UUID jobId, UUID tenantId, List<ImportRow> rows) {
+        List<ImportRow> valid = rows.stream().filter(r -> r.error == null).toList();
+
+        // Perfil universal: e-mail já existente em outro condomínio reaproveita senha/CPF/2FA
+        Map<String, ReferenceProfile> references = findReferenceProfiles(valid);
+        hashPasswords(valid, references);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            rejectDuplicatedEmails(tenantId, valid);
+
+            // Quem tem perfil universal já tem o CPF reservado
+            List<ImportRow> newPeople = valid.stream()
+                    .filter(r -> r.error == null && !references.containsKey(r.emailNorm)).toList();
+            markCpfConflicts(newPeople, identityService.findCpfConflicts(claimsOf(newPeople)));
+            identityService.claimCpfs(claimsOf(newPeople));
+            // Segunda leitura depois de reservar: pega quem reservou o mesmo CPF em paralelo
+            markCpfConflicts(newPeople, identityService.findCpfConflicts(claimsOf(newPeople)));
+
+            List<ImportRow> toInsert = valid.stream().filter(r -> r.error == null).toList();
+            insertUsers(tenantId, toInsert);
+
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO user_import_rows (job_id, row_number, status, email, message, user_id) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (job_id, row_number) DO NOTHING",
+                    rows.stream().map(r -> new Object[]{jobId, r.rowNumber, r.error == null ? ROW_CREATED : ROW_ERROR,
+                            r.email, r.error, r.userId}).toList());
+
+            int created = toInsert.size();
+            jdbcTemplate.update(
+                    "UPDATE user_import_jobs SET last_row = ?, created_count = created_count + ?, error_count = error_count + ?, " +
+                    "updated_at = now() WHERE id = ?",
+                    rows.get(rows.size() - 1).rowNumber, created, rows.size() - created, jobId);
+        });
+        // Usuários gravados via JDBC não passam pelo UserChangeListener
+        audienceResolver.evict(tenantId);
+    }
+
+    // Mesma regra do POST /api/users: um e-mail aparece uma vez por condomínio
+    private void rejectDuplicatedEmails(UUID tenantId, List<ImportRow> rows) {
+        Set<String> seen = new HashSet<>();
+        for (ImportRow r : rows) {
+            if (r.error == null && !seen.add(r.emailNorm)) r.error = "E-mail repetido no arquivo.";
+        }
+        if (seen.isEmpty()) return;
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT email_norm FROM users WHERE tenant_id = ? AND email_norm = ANY(?)",
+                String.class, tenantId, seen.toArray(new String[0])));
+        for (ImportRow r : rows) {
+            if (r.error == null && existing.contains(r.emailNorm)) r.error = "E-mail já cadastrado neste condomínio.";
+        }
+    }
+
+    private Map<String, ReferenceProfile> findReferenceProfiles(List<ImportRow> rows) {
+        Map<String, ReferenceProfile> refs = new HashMap<>();
+        if (rows.isEmpty()) return refs;
+        String[] emails = rows.stream().map(r -> r.emailNorm).distinct().toArray(String[]::new);
+        jdbcTemplate.query(
+                "SELECT DISTINCT ON (email_norm) email_norm, password, cpf, secret_2fa, is_2fa_enabled FROM users " +
+                "WHERE email_norm = ANY(?) ORDER BY email_norm, created_at",
+                rs -> {
+                    refs.put(rs.getString("email_norm"), new ReferenceProfile(rs.getString("password"), rs.getString("cpf"),
+                            rs.getString("secret_2fa"), rs.getBoolean("is_2fa_enabled")));
+                },
+                (Object) emails);
+        return refs;
+    }
+
+    private void hashPasswords(List<ImportRow> rows, Map<String, ReferenceProfile> references) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (ImportRow r : rows) {
+            ReferenceProfile ref = references.get(r.emailNorm);
+            if (ref != null) {
+                r.passwordHash = ref.password();
+                r.cpf = ref.cpf();
+                r.secret2fa = ref.secret2fa();
+                r.is2faEnabled = ref.is2faEnabled();
+            } else if (r.password == null) {
+                r.passwordHash = inviteHash;
+            } else {
+                pending.add(CompletableFuture.runAsync(() -> r.passwordHash = passwordEncoder.encode(r.password), hashPool));
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture<?>[]::new)).join();
+    }
+
+    private void insertUsers(UUID tenantId, List<ImportRow> rows) {
+        if (rows.isEmpty()) return;
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> unidades = new ArrayList<>(rows.size());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (ImportRow r : rows) {
+            r.userId = UUID.randomUUID();
+            users.add(new Object[]{r.userId, tenantId, r.nome, r.email, r.passwordHash, r.cpf, r.whatsapp,
+                    r.unidade, r.bloco, r.role.name(), r.secret2fa, r.is2faEnabled, now, now});
+            if (r.unidade != null) {
+                unidades.add(new Object[]{r.userId, r.unidade + (r.bloco != null ? " - " + r.bloco : "")});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (id, tenant_id, nome, email, password, cpf, whatsapp, unidade, bloco, role, " +
+                "secret_2fa, is_2fa_enabled, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                users);
+        if (!unidades.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO user_unidades (user_id, unidade_info) VALUES (?, ?)", unidades);
+        }
+        rows.forEach(r -> identityService.rememberEmail(r.email));
+    }
+
+    private static void markCpfConflicts(List<ImportRow> rows, Map<String, String> conflicts) {
+        if (conflicts.isEmpty()) return;
+        for (ImportRow r : rows) {
+            String reason = conflicts.get(IdentityService.normalizeCpf(r.cpf));
+            if (r.error == null && reason != null) r.error = reason;
+        }
+    }
+
+    private static List<IdentityClaim> claimsOf(List<ImportRow> rows) {
+        return rows.stream().filter(r -> r.error == null).map(r -> new IdentityClaim(r.cpf, r.email)).toList();
+    }
+
+    // Aceita "," ou ";" (padrão do Excel em pt-BR), cabeçalho sem diferenciar maiúsculas
+    private static CSVFormat format(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') reader.reset(); // BOM do Excel
+        reader.mark(8192);
+        String header = reader.readLine();
+        reader.reset();
+        if (header == null) throw new RuntimeException("Arquivo vazio.");
+        char delimiter = header.chars().filter(c -> c == ';').count() > header.chars().filter(c -> c == ',').count() ? ';' : ',';
+        return CSVFormat.Builder.create(CSVFormat.DEFAULT)
+                .setDelimiter(delimiter)
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record ReferenceProfile(String password, String cpf, String secret2fa, boolean is2faEnabled) {}
+
+    /**
+     * Linha do arquivo. Colunas: nome, email, cpf, whatsapp, bloco, unidade, role, senha
+     * (só nome e email obrigatórias).
+     */
+    private static final class ImportRow {
+        final int rowNumber;
+        String nome;
+        String email;
+        String emailNorm;
+        String cpf;
+        String whatsapp;
+        String bloco;
+        String unidade;
+        Role role = Role.MORADOR;
+        String password;
+
+        String error;
+        String passwordHash;
+        String secret2fa;
+        boolean is2faEnabled;
+        UUID userId;
+
+        private ImportRow(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+
+        static ImportRow parse(int rowNumber, CSVRecord record) {
+            ImportRow r = new ImportRow(rowNumber);
+            r.nome = column(record, "nome");
+            r.email = column(record, "email");
+            r.emailNorm = IdentityService.normalizeEmail(r.email);
+            r.cpf = column(record, "cpf");
+            r.whatsapp = column(record, "whatsapp");
+            r.bloco = column(record, "bloco");
+            r.unidade = column(record, "unidade");
+            r.password = column(record, "senha");
+
+            if (r.nome == null) r.error = "Nome obrigatório.";
+            else if (r.emailNorm == null || !r.emailNorm.matches("[^@\\s]+@[^@\\s]+\\.[^@\\s]+")) r.error = "E-mail inválido.";
+            else if (r.cpf != null && IdentityService.normalizeCpf(r.cpf) != null && IdentityService.normalizeCpf(r.cpf).length() != 11) r.error = "CPF inválido.";
+            else if (r.password != null && r.password.length() < 6) r.error = "Senha deve ter ao menos 6 caracteres.";
+
+            String role = column(record, "role");
+            if (r.error == null && role != null) {
+                try {
+                    r.role = Role.valueOf(role.toUpperCase());
+                    // Mesma proteção do cadastro individual: não cria ADMIN por esta rota
+                    if (r.role == Role.ADMIN) r.role = Role.MORADOR;
+                } catch (IllegalArgumentException e) {
+                    r.error = "Cargo inválido: " + role;
+                }
+            }
+            return r;
+        }
+
+        private static String column(CSVRecord record, String name) {
+            if (!record.isMapped(name) || !record.isSet(name)) return null;
+            String value = record.get(name);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.votzz.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Árvore de Merkle por assembleia sobre os recibos dos votos (layout do RFC 6962).
+ *
+ * Os votos entram como folhas na ordem de chegada, em segundo plano: cada folha nova
+ * só cria os nós completos que ela fecha (O(log n)), gravados em vote_merkle_node.
+ * Ao encerrar a assembleia a raiz é congelada e publicada no dossiê e no log de auditoria.
+ *
+ * A prova de inclusão de um voto são os ~log2(n) hashes irmãos até a raiz, lidos em
+ * uma única consulta; qualquer morador confere o próprio recibo sem a tabela de votos.
+ */
+@Service
+@Slf4j
+public class VoteMerkleService {
+
+    private static final long MERKLE_LOCK = 0x766f747a7a03L;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${votzz.merkle.batch-size:2000}")
+    private int batchSize;
+
+    public VoteMerkleService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // --- HASHES (RFC 6962: 0x00 para folha, 0x01 para nó interno) ---
+
+    static String leafHash(String voteHash) {
+        MessageDigest md = sha256();
+        md.update((byte) 0x00);
+        md.update(voteHash.getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(md.digest());
+    }
+
+    static String nodeHash(String left, String right) {
+        MessageDigest md = sha256();
+        md.update((byte) 0x01);
+        md.update(HEX.parseHex(left));
+        md.update(HEX.parseHex(right));
+        return HEX.formatHex(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // --- INSERÇÃO DAS FOLHAS ---
+
+    @Scheduled(fixedDelayString = "${votzz.merkle.append-interval-ms:1000}",
+               initialDelayString = "${votzz.merkle.append-interval-ms:1000}")
+    public void appendSafely() {
+        try {
+            int appended;
+            do {
+                Integer result = transactionTemplate.execute(tx -> {
+                    Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MERKLE_LOCK);
+                    return Boolean.TRUE.equals(locked) ? appendPending(null) : 0;
+                });
+                appended = result != null ? result : 0;
+            } while (appended >= batchSize);
+        } catch (Exception e) {
+            log.error("Erro ao atualizar as árvores de Merkle dos votos: {}", e.getMessage());
+        }
+    }
+
+    // Deve rodar com MERKLE_LOCK adquirido
+    private int appendPending(UUID onlyAssembly) {
+        String sql = "SELECT v.id, v.assembly_id, v.hash FROM votes v " +
+                "LEFT JOIN vote_merkle_tree t ON t.assembly_id = v.assembly_id " +
+                "WHERE v.merkle_index IS NULL AND v.hash IS NOT NULL AND t.frozen_at IS NULL " +
+                (onlyAssembly != null ? "AND v.assembly_id = ? " : "") +
+                "ORDER BY v.created_at, v.id LIMIT ?";
+        Object[] args = onlyAssembly != null ? new Object[]{onlyAssembly, batchSize} : new Object[]{batchSize};
+
+        Map<UUID, List<PendingLeaf>> byAssembly = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            UUID assemblyId = rs.getObject("assembly_id", UUID.class);
+            byAssembly.computeIfAbsent(assemblyId, k -> new ArrayList<>())
+                    .add(new PendingLeaf(rs.getObject("id", UUID.class), rs.getString("hash")));
+        }, args);
+
+        int total = 0;
+        for (Map.Entry<UUID, List<PendingLeaf>> e : byAssembly.entrySet()) {
+            appendLeaves(e.getKey(), e.getValue());
+            total += e.getValue().size();
+        }
+        return total;
+    }
+
+    private void appendLeaves(UUID assemblyId, List<PendingLeaf> leaves) {
+        jdbcTemplate.update("INSERT INTO vote_merkle_tree (assembly_id) VALUES (?) ON CONFLICT (assembly_id) DO NOTHING", assemblyId);
+        long size = jdbcTemplate.queryForObject(
+                "SELECT size FROM vote_merkle_tree WHERE assembly_id = ? FOR UPDATE", Long.class, assemblyId);
+
+        NodeCache nodes = new NodeCache(assemblyId);
+        List<Object[]> voteUpdates = new ArrayList<>(leaves.size());
+        for (PendingLeaf leaf : leaves) {
+            long index = size++;
+            String hash = leafHash(leaf.voteHash());
+            nodes.put(0, index, hash);
+            // Cada índice ímpar fecha um nó completo com o irmão da esquerda
+            int level = 0;
+            long i = index;
+            while ((i & 1) == 1) {
+                hash = nodeHash(nodes.get(level, i - 1), hash);
+                level++;
+                i >>= 1;
+                nodes.put(level, i, hash);
+            }
+            voteUpdates.add(new Object[]{index, leaf.voteId()});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO vote_merkle_node (assembly_id, level, idx, hash) VALUES (?, ?, ?, ?)", nodes.created());
+        jdbcTemplate.batchUpdate("UPDATE votes SET merkle_index = ? WHERE id = ?", voteUpdates);
+        jdbcTemplate.update("UPDATE vote_merkle_tree SET size = ?, root = ?, updated_at = ? WHERE assembly_id = ?",
+                size, rootOf(size, nodes), Timestamp.valueOf(LocalDateTime.now()), assemblyId);
+    }
+
+    // Raiz = picos (subárvores completas da esquerda para a direita) combinados da direita para a esquerda
+    private static String rootOf(long size, NodeCache nodes) {
+        if (size == 0) return null;
+        List<String> peaks = new ArrayList<>();
+        long start = 0;
+        for (int level = 63 - Long.numberOfLeadingZeros(size); level >= 0; level--) {
+            if ((size & (1L << level)) != 0) {
+                peaks.add(nodes.get(level, start >> level));
+                start += 1L << level;
+            }
+        }
+        String root = peaks.get(peaks.size() - 1);
+        for (int j = peaks.size() - 2; j >= 0; j--) root = nodeHash(peaks.get(j), root);
+        return root;
+    }
+
+    /**
+     * Congela a árvore no encerramento: inclui os votos ainda pendentes e fixa a raiz.
+     * O chamador segura a assembleia com FOR UPDATE (votos usam FOR SHARE), então nenhum
+     * voto commita depois daqui e fica fora da raiz publicada.
+     */
+    public MerkleRoot freeze(UUID assemblyId) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            // Bloqueante: espera o ciclo do appender em andamento terminar
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, MERKLE_LOCK);
+            int appended;
+            do {
+                appended = appendPending(assemblyId);
+            } while (appended >= batchSize);
+            jdbcTemplate.update("INSERT INTO vote_merkle_tree (assembly_id) VALUES (?) ON CONFLICT (assembly_id) DO NOTHING", assemblyId);
+            jdbcTemplate.update("UPDATE vote_merkle_tree SET frozen_at = COALESCE(frozen_at, ?) WHERE assembly_id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), assemblyId);
+        });
+        return getRoot(assemblyId);
+    }
+
+    public MerkleRoot getRoot(UUID assemblyId) {
+        List<MerkleRoot> rows = jdbcTemplate.query(
+                "SELECT size, root, frozen_at FROM vote_merkle_tree WHERE assembly_id = ?",
+                (rs, i) -> new MerkleRoot(assemblyId, rs.getLong("size"), rs.getString("root"),
+                        rs.getTimestamp("frozen_at") != null ? rs.getTimestamp("frozen_at").toLocalDateTime() : null),
+                assemblyId);
+        return rows.isEmpty() ? new MerkleRoot(assemblyId, 0, null, null) : rows.get(0);
+    }
+
+    // --- PROVA DE INCLUSÃO ---
+
+    /**
+     * Prova de inclusão do voto cujo recibo (hash completo ou prefixo de 8+ caracteres) foi informado.
+     */
+    public MerkleProof getProof(UUID assemblyId, String receipt) {
+        if (receipt == null || receipt.length() < 8) throw new RuntimeException("Informe ao menos 8 caracteres do recibo.");
+        List<Object[]> votes = jdbcTemplate.query(
+                "SELECT id, hash, merkle_index FROM votes WHERE assembly_id = ? AND hash LIKE ? LIMIT 2",
+                (rs, i) -> new Object[]{rs.getObject("id", UUID.class), rs.getString("hash"), rs.getObject("merkle_index", Long.class)},
+                assemblyId, receipt.toLowerCase().replace("%", "").replace("_", "") + "%");
+        if (votes.isEmpty()) throw new RuntimeException("Recibo não encontrado nesta assembleia.");
+        if (votes.size() > 1) throw new RuntimeException("Recibo ambíguo; informe mais caracteres.");
+
+        UUID voteId = (UUID) votes.get(0)[0];
+        String voteHash = (String) votes.get(0)[1];
+        Long index = (Long) votes.get(0)[2];
+        if (index == null) throw new RuntimeException("Voto ainda não incluído na árvore; tente novamente em alguns segundos.");
+
+        MerkleRoot root = getRoot(assemblyId);
+        long size = root.size();
+
+        // Primeiro calcula quais nós completos a prova usa; depois lê todos de uma vez
+        Set<NodeKey> keys = new LinkedHashSet<>();
+        collectPath(index, 0, size, keys);
+        NodeCache nodes = new NodeCache(assemblyId);
+        nodes.preload(keys);
+
+        List<ProofStep> path = new ArrayList<>();
+        buildPath(index, 0, size, nodes, path);
+        return new MerkleProof(voteId, voteHash, leafHash(voteHash), index, size, root.root(), root.frozenAt(), path);
+    }
+
+    // PATH(m, D[start:start+n]) do RFC 6962, do nível da folha para a raiz
+    private static void buildPath(long m, long start, long n, NodeCache nodes, List<ProofStep> path) {
+        if (n <= 1) return;
+        long k = Long.highestOneBit(n - 1);
+        if (m < k) {
+            buildPath(m, start, k, nodes, path);
+            path.add(new ProofStep("RIGHT", subtreeHash(start + k, n - k, nodes)));
+        } else {
+            buildPath(m - k, start + k, n - k, nodes, path);
+            path.add(new ProofStep("LEFT", subtreeHash(start, k, nodes)));
+        }
+    }
+
+    private static void collectPath(long m, long start, long n, Set<NodeKey> keys) {
+        if (n <= 1) return;
+        long k = Long.highestOneBit(n - 1);
+        if (m < k) {
+            collectPath(m, start, k, keys);
+            collectSubtree(start + k, n - k, keys);
+        } else {
+            collectPath(m - k, start + k, n - k, keys);
+            collectSubtree(start, k, keys);
+        }
+    }
+
+    // Subárvore [start, start+n): completa vira um nó gravado; incompleta é combinada
+    private static String subtreeHash(long start, long n, NodeCache nodes) {
+        if (Long.bitCount(n) == 1) {
+            int level = Long.numberOfTrailingZeros(n);
+            return nodes.get(level, start >> level);
+        }
+        long k = Long.highestOneBit(n - 1);
+        return nodeHash(subtreeHash(start, k, nodes), subtreeHash(start + k, n - k, nodes));
+    }
+
+    private static void collectSubtree(long start, long n, Set<NodeKey> keys) {
+        if (Long.bitCount(n) == 1) {
+            int level = Long.numberOfTrailingZeros(n);
+            keys.add(new NodeKey(level, start >> level));
+            return;
+        }
+        long k = Long.highestOneBit(n - 1);
+        collectSubtree(start, k, keys);
+        collectSubtree(start + k, n - k, keys);
+    }
+
+    /**
+     * Nós já gravados (lidos sob demanda) mais os criados no lote atual.
+     */
+    private class NodeCache {
+        private final UUID assemblyId;
+        private final Map<NodeKey, String> hashes = new HashMap<>();
+        private final List<Object[]> created = new ArrayList<>();
+
+        NodeCache(UUID assemblyId) {
+            this.assemblyId = assemblyId;
+        }
+
+        void put(int level, long idx, String hash) {
+            hashes.put(new NodeKey(level, idx), hash);
+            created.add(new Object[]{assemblyId, level, idx, hash});
+        }
+
+        String get(int level, long idx) {
+            return hashes.computeIfAbsent(new NodeKey(level, idx), k -> jdbcTemplate.queryForObject(
+                    "SELECT hash FROM vote_merkle_node WHERE assembly_id = ? AND level = ? AND idx = ?",
+                    String.class, assemblyId, k.level(), k.idx()));
+        }
+
+        void preload(Set<NodeKey> keys) {
+            if (keys.isEmpty()) return;
+            Integer[] levels = keys.stream().map(NodeKey::level).toArray(Integer[]::new);
+            Long[] idxs = keys.stream().map(NodeKey::idx).toArray(Long[]::new);
+            jdbcTemplate.query("SELECT n.level, n.idx, n.hash FROM vote_merkle_node n " +
+                            "JOIN unnest(?::int[], ?::bigint[]) AS k(level, idx) ON n.level = k.level AND n.idx = k.idx " +
+                            "WHERE n.assembly_id = ?",
+                    rs -> {
+                        hashes.put(new NodeKey(rs.getInt("level"), rs.getLong("idx")), rs.getString("hash"));
+                    },
+                    levels, idxs, assemblyId);
+        }
+
+        List<Object[]> created() {
+            return created;
+        }
+    }
+
+    private record NodeKey(int level, long idx) {}
+
+    private record PendingLeaf(UUID voteId, String voteHash) {}
+
+    public record MerkleRoot(UUID assemblyId, long size, String root, LocalDateTime frozenAt) {}
+
+    /**
+     * side = lado do irmão: LEFT → hash = H(0x01 || irmão || atual); RIGHT → H(0x01 || atual || irmão).
+     */
+    public record ProofStep(String side, String hash) {}
+
+    /**
+     * Verificação: parte de leafHash = SHA-256(0x00 || voteHash), aplica os passos em ordem
+     * e compara com root.
+     */
+    public record MerkleProof(UUID voteId, String voteHash, String leafHash, long leafIndex, long treeSize,
+                              String root, LocalDateTime frozenAt, List<ProofStep> path) {}
+}
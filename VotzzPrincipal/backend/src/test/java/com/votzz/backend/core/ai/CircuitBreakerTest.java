@@ -0,0 +1,111 @@
+package com.votzz.backend.core.ai;
+
+import com.votzz.backend.core.ai.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+	private static final long OPEN_MILLIS = 50;
+
+	@Test
+	void staysClosedBelowMinCalls() {
+		CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, OPEN_MILLIS);
+
+		for (int i = 0; i < 4; i++) fail(breaker);
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void opensWhenFailureRateReachesThreshold() {
+		CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN_MILLIS);
+
+		succeed(breaker);
+		succeed(breaker);
+		fail(breaker);
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+		fail(breaker); // 2 de 4
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void oldResultsLeaveTheSlidingWindow() {
+		CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, OPEN_MILLIS);
+
+		fail(breaker);
+		fail(breaker);
+		succeed(breaker);
+		succeed(breaker);
+		// As duas falhas iniciais saem da janela
+		succeed(breaker);
+		succeed(breaker);
+		fail(breaker);
+		fail(breaker);
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		fail(breaker); // janela: S F F F
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void halfOpenAllowsASingleProbeThenClosesOnSuccess() throws Exception {
+		CircuitBreaker breaker = openBreaker();
+		Thread.sleep(OPEN_MILLIS + 20);
+
+		assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).as("segunda chamada durante o teste").isFalse();
+
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		// Janela zerada: uma falha isolada não reabre
+		fail(breaker);
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void failedProbeReopens() throws Exception {
+		CircuitBreaker breaker = openBreaker();
+		Thread.sleep(OPEN_MILLIS + 20);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void releasedProbeLetsAnotherCallThrough() throws Exception {
+		CircuitBreaker breaker = openBreaker();
+		Thread.sleep(OPEN_MILLIS + 20);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.release();
+
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	private static CircuitBreaker openBreaker() {
+		CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, OPEN_MILLIS);
+		fail(breaker);
+		fail(breaker);
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		return breaker;
+	}
+
+	private static void succeed(CircuitBreaker breaker) {
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onSuccess();
+	}
+
+	private static void fail(CircuitBreaker breaker) {
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+	}
+}
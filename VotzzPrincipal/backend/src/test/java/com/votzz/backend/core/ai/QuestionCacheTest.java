@@ -0,0 +1,77 @@
+package com.votzz.backend.core.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuestionCacheTest {
+
+	@Test
+	void normalizeDropsAccentsPunctuationStopwordsAndOrder() {
+		assertThat(QuestionCache.normalize("Quais são os Planos?!")).isEqualTo("planos quais");
+		assertThat(QuestionCache.normalize("quais sao os planos da Votzz")).isEqualTo("planos quais");
+		assertThat(QuestionCache.normalize("Olá! Como funciona a votação?")).isEqualTo("como funciona votacao");
+		assertThat(QuestionCache.normalize(null)).isEmpty();
+		assertThat(QuestionCache.normalize("Oi, bom dia!")).isEmpty();
+	}
+
+	@Test
+	void normalizedEqualQuestionsAreExactHits() {
+		QuestionCache cache = new QuestionCache(100, 3600, 0.7);
+		cache.put("MORADOR", "Quais são os planos?", "Básico e Pro.");
+
+		assertThat(cache.get("MORADOR", "quais sao os planos da Votzz")).isEqualTo("Básico e Pro.");
+		assertThat(cache.getExactHits()).isEqualTo(1);
+	}
+
+	@Test
+	void nearDuplicateIsANearHit() {
+		QuestionCache cache = new QuestionCache(100, 3600, 0.7);
+		cache.put("MORADOR", "Como funciona o programa de afiliados?", "Comissão recorrente.");
+
+		assertThat(cache.get("MORADOR", "como funciona programa de afiliado")).isEqualTo("Comissão recorrente.");
+		assertThat(cache.getNearHits()).isEqualTo(1);
+	}
+
+	@Test
+	void differentNumbersNeverMatch() {
+		QuestionCache cache = new QuestionCache(100, 3600, 0.7);
+		cache.put("SINDICO", "Quanto custa para 80 unidades?", "R$ 190/mês.");
+
+		assertThat(cache.get("SINDICO", "Quanto custa para 200 unidades?")).isNull();
+		assertThat(cache.get("SINDICO", "Quanto custa para 80 unidades")).isEqualTo("R$ 190/mês.");
+	}
+
+	@Test
+	void answersAreScopedByRole() {
+		QuestionCache cache = new QuestionCache(100, 3600, 0.7);
+		cache.put("SINDICO", "Como criar uma assembleia?", "Menu Assembleias > Nova.");
+
+		assertThat(cache.get("MORADOR", "Como criar uma assembleia?")).isNull();
+		assertThat(cache.get("MORADOR", "Como criar assembleias?")).isNull();
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvicted() {
+		QuestionCache cache = new QuestionCache(2, 3600, 1.0);
+		cache.put("", "primeira pergunta", "1");
+		cache.put("", "segunda pergunta", "2");
+		cache.get("", "primeira pergunta"); // vira a mais recente
+		cache.put("", "terceira pergunta", "3");
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getEvictions()).isEqualTo(1);
+		assertThat(cache.get("", "segunda pergunta")).isNull();
+		assertThat(cache.get("", "primeira pergunta")).isEqualTo("1");
+	}
+
+	@Test
+	void expiredEntriesAreNotReturned() throws Exception {
+		QuestionCache cache = new QuestionCache(10, 1, 0.7);
+		cache.put("", "horario da portaria", "24h");
+		Thread.sleep(1_100);
+
+		assertThat(cache.get("", "horario da portaria")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+}
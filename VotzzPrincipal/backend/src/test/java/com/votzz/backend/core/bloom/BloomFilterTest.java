@@ -0,0 +1,71 @@
+package com.votzz.backend.core.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+	@Test
+	void neverReportsAnInsertedValueAsAbsent() {
+		BloomFilter filter = new BloomFilter(20_000, 0.01);
+		for (int i = 0; i < 20_000; i++) filter.put(cpf(i));
+
+		for (int i = 0; i < 20_000; i++) {
+			assertThat(filter.mightContain(cpf(i))).as(cpf(i)).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredRate() {
+		BloomFilter filter = new BloomFilter(20_000, 0.01);
+		for (int i = 0; i < 20_000; i++) filter.put(cpf(i));
+
+		int falsePositives = 0;
+		int probes = 200_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(cpf(1_000_000 + i))) falsePositives++;
+		}
+		assertThat((double) falsePositives / probes).isLessThan(0.02);
+	}
+
+	@Test
+	void emptyFilterContainsNothing() {
+		BloomFilter filter = new BloomFilter(0, 0.01);
+
+		assertThat(filter.mightContain("")).isFalse();
+		assertThat(filter.mightContain("ana@votzz.com.br")).isFalse();
+	}
+
+	@Test
+	void concurrentPutsAreNotLost() throws Exception {
+		BloomFilter filter = new BloomFilter(40_000, 0.01);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int offset = t * 10_000;
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < 10_000; i++) filter.put(cpf(offset + i));
+				}));
+			}
+			for (Future<?> f : futures) f.get();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		for (int i = 0; i < 40_000; i++) {
+			assertThat(filter.mightContain(cpf(i))).as(cpf(i)).isTrue();
+		}
+	}
+
+	private static String cpf(int i) {
+		return String.format("%011d", 10_000_000_000L + i * 7_919L);
+	}
+}
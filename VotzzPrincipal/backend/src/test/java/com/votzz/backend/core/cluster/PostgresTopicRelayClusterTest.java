@@ -0,0 +1,214 @@
+package com.votzz.backend.core.cluster;
+
+import com.votzz.backend.core.cluster.ClusterFanOut.RelayedTopicMessageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dois nós (dois contextos Spring) ligados ao mesmo Postgres pelo relay LISTEN/NOTIFY.
+ * Cada nó sobe só o broker STOMP, o ClusterFanOut e o PostgresTopicRelay.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresTopicRelayClusterTest {
+
+	private static final int MAX_PAYLOAD_BYTES = 64 * 1024;
+	private static final long TIMEOUT_MS = 10_000;
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startNodes() throws Exception {
+		// Mesma definição do DDL.sql (9.1 RELAY DE WEBSOCKET ENTRE NÓS)
+		try (Connection conn = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+			 Statement st = conn.createStatement()) {
+			st.execute("CREATE UNLOGGED TABLE ws_relay_payload (id UUID PRIMARY KEY, payload BYTEA NOT NULL, " +
+					"created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+		}
+		nodeA = startNode();
+		nodeB = startNode();
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		if (nodeA != null) nodeA.close();
+		if (nodeB != null) nodeB.close();
+	}
+
+	@BeforeEach
+	void clearReceived() {
+		received(nodeA).clear();
+		received(nodeB).clear();
+	}
+
+	@Test
+	void topicPublishedOnOneNodeArrivesOnceOnTheOther() throws Exception {
+		String destination = "/topic/assembly/" + UUID.randomUUID();
+
+		template(nodeA).convertAndSend(destination, Map.of("type", "CHAT", "text", "olá do nó A"));
+
+		awaitMessages(nodeB, 1);
+		// Espera um pouco mais: uma entrega duplicada chegaria logo depois
+		Thread.sleep(1_000);
+		List<RelayedTopicMessageEvent> onB = received(nodeB);
+		assertThat(onB).hasSize(1);
+		assertThat(onB.get(0).destination()).isEqualTo(destination);
+		assertThat(new String(onB.get(0).payload(), StandardCharsets.UTF_8)).contains("olá do nó A");
+		// O nó de origem descarta o próprio NOTIFY
+		assertThat(received(nodeA)).isEmpty();
+	}
+
+	@Test
+	void payloadAboveTheNotifyLimitGoesThroughTheTable() throws Exception {
+		String destination = "/topic/assembly/" + UUID.randomUUID();
+		String text = "x".repeat(20 * 1024);
+
+		template(nodeA).convertAndSend(destination, Map.of("type", "CHAT", "text", text));
+
+		awaitMessages(nodeB, 1);
+		Thread.sleep(500);
+		assertThat(received(nodeB)).hasSize(1);
+		assertThat(new String(received(nodeB).get(0).payload(), StandardCharsets.UTF_8)).contains(text);
+	}
+
+	@Test
+	void oversizedPayloadIsNotRelayed() throws Exception {
+		String destination = "/topic/assembly/" + UUID.randomUUID();
+
+		template(nodeA).convertAndSend(destination, Map.of("type", "CHAT", "text", "x".repeat(MAX_PAYLOAD_BYTES + 1)));
+		// Publicador de thread única: quando o marcador chega, a mensagem anterior já teria chegado
+		template(nodeA).convertAndSend(destination, Map.of("type", "MARKER"));
+
+		awaitMessages(nodeB, 1);
+		Thread.sleep(500);
+		assertThat(received(nodeB)).hasSize(1);
+		assertThat(new String(received(nodeB).get(0).payload(), StandardCharsets.UTF_8)).contains("MARKER");
+		assertThat(nodeA.getBean(MeterRegistry.class).counter("votzz.ws.relay.dropped").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void localOnlyMessagesStayOnTheirNode() throws Exception {
+		String destination = "/topic/assembly/" + UUID.randomUUID();
+
+		template(nodeA).convertAndSend(destination, Map.of("type", "PRESENCE", "online", 3),
+				Map.of(ClusterFanOut.LOCAL_ONLY_HEADER, "true"));
+		template(nodeA).convertAndSend(destination, Map.of("type", "MARKER"));
+
+		awaitMessages(nodeB, 1);
+		Thread.sleep(500);
+		assertThat(received(nodeB)).hasSize(1);
+		assertThat(new String(received(nodeB).get(0).payload(), StandardCharsets.UTF_8)).contains("MARKER");
+	}
+
+	// --- APOIO ---
+
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(RelayNode.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+						"spring.datasource.username=" + POSTGRES.getUsername(),
+						"spring.datasource.password=" + POSTGRES.getPassword(),
+						"votzz.cluster.relay=postgres",
+						"votzz.cluster.relay.max-payload-bytes=" + MAX_PAYLOAD_BYTES)
+				.run();
+	}
+
+	private static SimpMessagingTemplate template(ConfigurableApplicationContext node) {
+		return node.getBean(SimpMessagingTemplate.class);
+	}
+
+	private static List<RelayedTopicMessageEvent> received(ConfigurableApplicationContext node) {
+		return node.getBean(ReceivedMessages.class).events;
+	}
+
+	private static void awaitMessages(ConfigurableApplicationContext node, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+		while (received(node).size() < count && System.nanoTime() < deadline) Thread.sleep(50);
+		assertThat(received(node)).as("mensagens recebidas no nó").hasSizeGreaterThanOrEqualTo(count);
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ImportAutoConfiguration({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, JacksonAutoConfiguration.class})
+	@Import({BrokerConfig.class, ClusterFanOut.class, PostgresTopicRelay.class, ReceivedMessages.class})
+	static class RelayNode {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	// Mesmo broker do WebSocketConfig, sem SockJS nem autenticação (o contexto não sobe servidor web)
+	@Configuration(proxyBeanMethods = false)
+	@EnableWebSocketMessageBroker
+	static class BrokerConfig implements WebSocketMessageBrokerConfigurer {
+
+		private final ClusterFanOut clusterFanOut;
+
+		BrokerConfig(ClusterFanOut clusterFanOut) {
+			this.clusterFanOut = clusterFanOut;
+		}
+
+		@Override
+		public void registerStompEndpoints(StompEndpointRegistry registry) {
+			registry.addEndpoint("/ws-votzz");
+		}
+
+		@Override
+		public void configureMessageBroker(MessageBrokerRegistry registry) {
+			registry.enableSimpleBroker("/topic", "/queue");
+			registry.configureBrokerChannel().interceptors(clusterFanOut);
+			registry.setApplicationDestinationPrefixes("/app");
+			registry.setUserDestinationPrefix("/user");
+		}
+	}
+
+	static class ReceivedMessages {
+
+		final List<RelayedTopicMessageEvent> events = new CopyOnWriteArrayList<>();
+
+		@EventListener
+		void onRelayed(RelayedTopicMessageEvent event) {
+			events.add(event);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.votzz.backend.core.minhash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MinHashTest {
+
+	@Test
+	void exactJaccardOfSortedSets() {
+		assertThat(MinHash.jaccard(new int[]{1, 2, 3, 4}, new int[]{3, 4, 5, 6})).isEqualTo(2.0 / 6);
+		assertThat(MinHash.jaccard(new int[]{1, 2}, new int[]{1, 2})).isEqualTo(1.0);
+		assertThat(MinHash.jaccard(new int[]{1}, new int[]{2})).isEqualTo(0.0);
+		assertThat(MinHash.jaccard(new int[0], new int[0])).isEqualTo(1.0);
+	}
+
+	@Test
+	void signatureEstimateTracksExactJaccard() {
+		MinHash minHash = new MinHash(256, 42);
+		int[] a = IntStream.range(0, 1_000).toArray();
+		int[] b = IntStream.range(500, 1_500).toArray(); // Jaccard 1/3
+
+		double estimate = MinHash.estimate(minHash.signature(a), minHash.signature(b));
+
+		assertThat(estimate).isCloseTo(MinHash.jaccard(a, b), within(0.1));
+	}
+
+	@Test
+	void sameSetAndSeedGiveSameSignatureAndBands() {
+		int[] set = {7, 11, 13, 17, 19};
+		MinHash first = new MinHash(64, 7);
+		MinHash second = new MinHash(64, 7);
+
+		int[] sig = first.signature(set);
+		assertThat(second.signature(set)).isEqualTo(sig);
+		assertThat(MinHash.estimate(sig, second.signature(set))).isEqualTo(1.0);
+		assertThat(second.bandKeys(sig, 16, 4)).isEqualTo(first.bandKeys(sig, 16, 4));
+	}
+
+	@Test
+	void similarSetsShareABandAndDisjointSetsDoNot() {
+		MinHash minHash = new MinHash(64, 1);
+		int[] a = IntStream.range(0, 100).toArray();
+		int[] similar = IntStream.range(5, 105).toArray(); // Jaccard ~0.9
+		int[] disjoint = IntStream.range(10_000, 10_100).toArray();
+
+		long[] bandsA = minHash.bandKeys(minHash.signature(a), 16, 4);
+		assertThat(shareBand(bandsA, minHash.bandKeys(minHash.signature(similar), 16, 4))).isTrue();
+		assertThat(shareBand(bandsA, minHash.bandKeys(minHash.signature(disjoint), 16, 4))).isFalse();
+	}
+
+	private static boolean shareBand(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) if (a[i] == b[i]) return true;
+		return false;
+	}
+}
@@ -0,0 +1,79 @@
+package com.votzz.backend.core.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Tempos reais com margens largas: o limite inferior é o que importa (o bucket não deixa passar além da taxa)
+class TokenBucketTest {
+
+	@Test
+	void burstIsGrantedImmediately() throws Exception {
+		TokenBucket bucket = new TokenBucket(1, 20);
+
+		long elapsed = elapsedMillis(() -> {
+			for (int i = 0; i < 20; i++) bucket.acquire(1);
+		});
+
+		assertThat(elapsed).isLessThan(200);
+	}
+
+	@Test
+	void permitsBeyondTheBurstFollowTheRate() throws Exception {
+		TokenBucket bucket = new TokenBucket(100, 10);
+
+		// 10 do burst + 30 a 100/s = ~300 ms
+		long elapsed = elapsedMillis(() -> {
+			for (int i = 0; i < 40; i++) bucket.acquire(1);
+		});
+
+		assertThat(elapsed).isBetween(250L, 2_000L);
+	}
+
+	@Test
+	void concurrentCallersShareTheSameRate() throws Exception {
+		TokenBucket bucket = new TokenBucket(200, 1);
+
+		// 4 threads x 10 permissões, 1 do burst + 39 a 200/s = ~195 ms no total
+		long elapsed = elapsedMillis(() -> {
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				threads.add(Thread.ofPlatform().start(() -> {
+					try {
+						for (int i = 0; i < 10; i++) bucket.acquire(1);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}));
+			}
+			for (Thread thread : threads) thread.join();
+		});
+
+		assertThat(elapsed).isBetween(170L, 2_000L);
+	}
+
+	@Test
+	void nonPositiveRateDisablesTheLimit() throws Exception {
+		TokenBucket bucket = new TokenBucket(0, 1);
+
+		long elapsed = elapsedMillis(() -> {
+			for (int i = 0; i < 10_000; i++) bucket.acquire(5);
+		});
+
+		assertThat(elapsed).isLessThan(200);
+	}
+
+	private interface Block {
+		void run() throws Exception;
+	}
+
+	private static long elapsedMillis(Block block) throws Exception {
+		long start = System.nanoTime();
+		block.run();
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,79 @@
+package com.votzz.backend.core.search;
+
+import com.votzz.backend.core.search.Bm25Index.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25IndexTest {
+
+	private static final List<String> DOCS = List.of(
+			"Reserva do salão de festas para convidados",          // 0
+			"Lista de convidadas na portaria",                     // 1
+			"Assembleia geral ordinária: prestação de contas",     // 2
+			"Encomenda chegou na portaria",                        // 3
+			"Reserva da churrasqueira");                           // 4
+
+	@Test
+	void stemmerFoldsPluralGenderAndInfinitive() {
+		assertThat(Bm25Index.stem("convidadas")).isEqualTo(Bm25Index.stem("convidado"));
+		assertThat(Bm25Index.stem("reservas")).isEqualTo(Bm25Index.stem("reserva"));
+		assertThat(Bm25Index.stem("votacoes")).isEqualTo(Bm25Index.stem("votacao"));
+		assertThat(Bm25Index.stem("reservar")).isEqualTo(Bm25Index.stem("reserva"));
+		assertThat(Bm25Index.stem("2026")).isEqualTo("2026");
+	}
+
+	@Test
+	void tokenizeDropsAccentsAndStopwords() {
+		assertThat(Bm25Index.tokenize("Quais são as regras do Salão?"))
+				.containsExactly(Bm25Index.stem("regras"), Bm25Index.stem("salao"));
+		assertThat(Bm25Index.tokenize(null)).isEmpty();
+	}
+
+	@Test
+	void findsDocumentsThroughInflectedForms() {
+		Bm25Index index = new Bm25Index(DOCS);
+
+		assertThat(index.search("convidado", 10)).extracting(Hit::doc).containsExactlyInAnyOrder(0, 1);
+		assertThat(index.search("reservar salão", 10)).extracting(Hit::doc).first().isEqualTo(0);
+	}
+
+	@Test
+	void rareTermsOutweighCommonOnes() {
+		Bm25Index index = new Bm25Index(DOCS);
+
+		// "portaria" está em 2 documentos, "encomenda" em 1
+		List<Hit> hits = index.search("encomenda portaria", 10);
+
+		assertThat(hits).extracting(Hit::doc).containsExactly(3, 1);
+		assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+	}
+
+	@Test
+	void shorterDocumentWinsForTheSameTermFrequency() {
+		Bm25Index index = new Bm25Index(List.of(
+				"reserva",
+				"reserva de espaço com regras longas sobre horários limpeza e multas"));
+
+		assertThat(index.search("reserva", 10)).extracting(Hit::doc).containsExactly(0, 1);
+	}
+
+	@Test
+	void repeatedQueryTermCountsOnceAndKLimitsResults() {
+		Bm25Index index = new Bm25Index(DOCS);
+
+		assertThat(index.search("portaria portaria portaria", 10))
+				.usingRecursiveFieldByFieldElementComparator()
+				.isEqualTo(index.search("portaria", 10));
+		assertThat(index.search("portaria", 1)).hasSize(1);
+	}
+
+	@Test
+	void noMatchesOrEmptyIndexReturnNothing() {
+		assertThat(new Bm25Index(DOCS).search("piscina", 10)).isEmpty();
+		assertThat(new Bm25Index(List.of()).search("reserva", 10)).isEmpty();
+		assertThat(new Bm25Index(DOCS).search("reserva", 0)).isEmpty();
+	}
+}
@@ -0,0 +1,53 @@
+package com.votzz.backend.core.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HtmlTemplateTest {
+
+	@Test
+	void escapesDoubleBraceSlotsAndKeepsTripleBraceRaw() {
+		HtmlTemplate template = HtmlTemplate.compile("<p>{{text}}</p>{{{html}}}");
+
+		String out = template.render(Map.of("text", "<b>A & B's \"x\"</b>", "html", "<i>ok</i>"));
+
+		assertThat(out).isEqualTo("<p>&lt;b&gt;A &amp; B&#39;s &quot;x&quot;&lt;/b&gt;</p><i>ok</i>");
+	}
+
+	@Test
+	void missingValueRendersEmpty() {
+		assertThat(HtmlTemplate.compile("a{{x}}b").render(Map.of())).isEqualTo("ab");
+	}
+
+	@Test
+	void bindFillsSomeSlotsAndKeepsTheRest() {
+		HtmlTemplate template = HtmlTemplate.compile("{{tenant}}: {{title}} ({{tenant}})");
+
+		HtmlTemplate bound = template.bind(Map.of("tenant", "Ed. Sol & Mar"));
+
+		assertThat(bound.slotCount()).isEqualTo(1);
+		assertThat(bound.render(Map.of("title", "AGO"))).isEqualTo("Ed. Sol &amp; Mar: AGO (Ed. Sol &amp; Mar)");
+		// Mesmo resultado de renderizar tudo de uma vez
+		assertThat(bound.render(Map.of("title", "AGO")))
+				.isEqualTo(template.render(Map.of("tenant", "Ed. Sol & Mar", "title", "AGO")));
+	}
+
+	@Test
+	void oversizedRenderDoesNotLeakIntoNextRender() {
+		HtmlTemplate template = HtmlTemplate.compile("[{{{v}}}]");
+
+		String big = "x".repeat(300 * 1024);
+		assertThat(template.render(Map.of("v", big))).hasSize(big.length() + 2);
+		assertThat(template.render(Map.of("v", "y"))).isEqualTo("[y]");
+	}
+
+	@Test
+	void unclosedSlotIsRejected() {
+		assertThatThrownBy(() -> HtmlTemplate.compile("a {{x b"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,108 @@
+package com.votzz.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AuditArchiveServiceTest {
+
+	private static final YearMonth STRANDED = YearMonth.of(2020, 1);
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+	@Test
+	void rowsInTheDefaultPartitionAreMovedIntoTheNewMonth() {
+		JdbcTemplate jdbc = partitionedJdbc();
+		service(jdbc).runMaintenance();
+
+		String partition = "audit_logs_p202001";
+		InOrder order = inOrder(jdbc);
+		order.verify(jdbc).execute("ALTER TABLE audit_logs DETACH PARTITION audit_logs_default");
+		order.verify(jdbc).execute(startsWith("CREATE TABLE " + partition + " PARTITION OF audit_logs FOR VALUES FROM ('2020-01-01') TO ('2020-02-01')"));
+		order.verify(jdbc).update(startsWith("INSERT INTO " + partition + " SELECT * FROM audit_logs_default"), any(Timestamp.class), any(Timestamp.class));
+		order.verify(jdbc).update(startsWith("DELETE FROM audit_logs_default"), any(Timestamp.class), any(Timestamp.class));
+		order.verify(jdbc).execute("ALTER TABLE audit_logs ATTACH PARTITION audit_logs_default DEFAULT");
+	}
+
+	@Test
+	void monthsWithoutDefaultRowsAreCreatedWithoutDetaching() {
+		JdbcTemplate jdbc = partitionedJdbc();
+		service(jdbc).runMaintenance();
+
+		String current = "audit_logs_p" + YearMonth.now().format(SUFFIX);
+		verify(jdbc).execute(startsWith("CREATE TABLE " + current + " PARTITION OF"));
+		// Só o mês com linhas presas na DEFAULT passa pelo DETACH
+		verify(jdbc).execute("ALTER TABLE audit_logs DETACH PARTITION audit_logs_default");
+	}
+
+	@Test
+	void aFailingMonthDoesNotBlockTheOthersNorRetention() {
+		JdbcTemplate jdbc = partitionedJdbc();
+		doThrow(new RuntimeException("default partition constraint"))
+				.when(jdbc).execute("ALTER TABLE audit_logs DETACH PARTITION audit_logs_default");
+
+		service(jdbc).runMaintenance();
+
+		verify(jdbc, never()).execute(startsWith("CREATE TABLE audit_logs_p202001"));
+		verify(jdbc).execute(startsWith("CREATE TABLE audit_logs_p" + YearMonth.now().plusMonths(3).format(SUFFIX)));
+		// A retenção ainda lista as partições para arquivar
+		verify(jdbc).queryForList(startsWith("SELECT c.relname FROM pg_inherits"), eq(String.class), any());
+	}
+
+	// --- APOIO ---
+
+	/**
+	 * audit_logs particionada, DEFAULT existente com linhas de 2020-01 e nenhuma partição mensal criada.
+	 */
+	private static JdbcTemplate partitionedJdbc() {
+		JdbcTemplate jdbc = mock(JdbcTemplate.class);
+		doReturn("p").when(jdbc).query(startsWith("SELECT relkind"), any(ResultSetExtractor.class), any());
+		doReturn(true).when(jdbc).queryForObject(eq("SELECT pg_try_advisory_xact_lock(?)"), eq(Boolean.class), any());
+		doAnswer(inv -> "audit_logs_default".equals(inv.getArgument(2)))
+				.when(jdbc).queryForObject(eq("SELECT to_regclass(?) IS NOT NULL"), eq(Boolean.class), anyString());
+		doReturn(List.of(STRANDED)).when(jdbc).query(startsWith("SELECT DISTINCT date_trunc"), any(RowMapper.class));
+		doAnswer(inv -> {
+			Timestamp from = inv.getArgument(2);
+			return YearMonth.from(from.toLocalDateTime()).equals(STRANDED);
+		}).when(jdbc).queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class), any(), any());
+		doReturn(List.of()).when(jdbc).queryForList(startsWith("SELECT c.relname FROM pg_inherits"), eq(String.class), any());
+		return jdbc;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static AuditArchiveService service(JdbcTemplate jdbc) {
+		TransactionTemplate tx = mock(TransactionTemplate.class);
+		doAnswer(inv -> {
+			((Consumer<TransactionStatus>) inv.getArgument(0)).accept(null);
+			return null;
+		}).when(tx).executeWithoutResult(any());
+
+		AuditArchiveService service = new AuditArchiveService(jdbc, tx, mock(FileStorageService.class));
+		ReflectionTestUtils.setField(service, "monthsAhead", 3);
+		ReflectionTestUtils.setField(service, "retentionMonths", 24);
+		ReflectionTestUtils.setField(service, "archivePrefix", "audit-archive/");
+		return service;
+	}
+}
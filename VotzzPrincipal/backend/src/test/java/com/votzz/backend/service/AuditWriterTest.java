@@ -0,0 +1,82 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.AuditWriter.AuditEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AuditWriterTest {
+
+	private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+	private AuditWriter writer;
+
+	@BeforeEach
+	void start() {
+		writer = new AuditWriter(jdbc, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(writer, "capacity", 100);
+		ReflectionTestUtils.setField(writer, "batchSize", 50);
+		// Intervalo longo: o escritor não drena a fila durante o teste
+		ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+		ReflectionTestUtils.setField(writer, "syncActionList", new String[]{"VOTO_REGISTRADO"});
+		writer.start();
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void stop() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+		writer.shutdown();
+	}
+
+	@Test
+	void asyncEventWaitsForTheCallerCommit() {
+		writer.write(event("CRIAR_RESERVA"));
+		assertThat(writer.getQueueDepth()).isZero();
+
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertThat(writer.getQueueDepth()).isEqualTo(1);
+	}
+
+	@Test
+	void rolledBackTransactionLeavesNoAuditRow() {
+		writer.write(event("CRIAR_RESERVA"));
+
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(writer.getQueueDepth()).isZero();
+		verifyNoInteractions(jdbc);
+	}
+
+	@Test
+	void withoutTransactionTheEventIsQueuedRightAway() {
+		TransactionSynchronizationManager.clearSynchronization();
+
+		writer.write(event("CRIAR_RESERVA"));
+
+		assertThat(writer.getQueueDepth()).isEqualTo(1);
+	}
+
+	// Simula o fim da transação como o AbstractPlatformTransactionManager faz
+	private static void complete(int status) {
+		var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		if (status == TransactionSynchronization.STATUS_COMMITTED) synchronizations.forEach(TransactionSynchronization::afterCommit);
+		synchronizations.forEach(s -> s.afterCompletion(status));
+	}
+
+	private static AuditEvent event(String action) {
+		return AuditEvent.of(action, "u1", "Ana", "MORADOR", UUID.randomUUID(), "detalhe", "BOOKING", "127.0.0.1");
+	}
+}
@@ -0,0 +1,282 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.votzz.backend.core.ai.AiGateway;
+import com.votzz.backend.core.ai.StubAiServer;
+import com.votzz.backend.service.ChatSummarizer.Chunk;
+import com.votzz.backend.service.ChatSummarizer.Line;
+import com.votzz.backend.service.ChatSummarizer.Summary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+// Caminho real até o modelo: ChatSummarizer -> AiGateway (HttpClient, bulkhead, disjuntor) -> StubAiServer local
+class ChatSummarizerTest {
+
+	private static final UUID ASSEMBLY = UUID.randomUUID();
+	// 100 tokens = 400 caracteres por janela, ~3 mensagens; com 12 mensagens os parciais cabem num reduce só
+	private static final int CHUNK_TOKENS = 100;
+
+	private final ChatStore store = new ChatStore();
+	private StubAiServer stub;
+	private ChatSummarizer summarizer;
+
+	@AfterEach
+	void stop() {
+		if (summarizer != null) summarizer.shutdown();
+		if (stub != null) stub.stop();
+	}
+
+	@Test
+	void chatIsSplitInTokenBoundedWindows() throws Exception {
+		start(0);
+		List<Line> lines = lines(23);
+
+		List<Chunk> chunks = summarizer.chunk(lines);
+
+		assertThat(chunks).hasSizeGreaterThan(1);
+		assertThat(chunks).allSatisfy(c -> assertThat(c.text().length()).isLessThanOrEqualTo(CHUNK_TOKENS * 4));
+		assertThat(chunks.stream().mapToInt(Chunk::count).sum()).isEqualTo(lines.size());
+		// Janelas contíguas, na ordem do chat
+		int next = 0;
+		for (Chunk c : chunks) {
+			assertThat(c.firstId()).isEqualTo(lines.get(next).id());
+			next += c.count();
+			assertThat(c.lastId()).isEqualTo(lines.get(next - 1).id());
+		}
+		// Mensagem nova não mexe nas janelas fechadas
+		List<Line> grown = new ArrayList<>(lines);
+		grown.add(line(23));
+		List<Chunk> after = summarizer.chunk(grown);
+		assertThat(after.subList(0, chunks.size() - 1)).isEqualTo(chunks.subList(0, chunks.size() - 1));
+	}
+
+	@Test
+	void firstRunSummarizesEveryWindowAndReduces() throws Exception {
+		start(0);
+		store.add(12);
+
+		Summary summary = summarizer.summarize(ASSEMBLY);
+
+		assertThat(summary.ok()).isTrue();
+		assertThat(summary.chunks()).isGreaterThan(1);
+		assertThat(summary.computed()).isEqualTo(summary.chunks());
+		assertThat(stub.getRequestCount()).isEqualTo(summary.chunks() + 1);
+		assertThat(summary.text()).startsWith("[stub]");
+	}
+
+	@Test
+	void rerunWithoutNewMessagesMakesNoUpstreamCalls() throws Exception {
+		start(0);
+		store.add(12);
+		Summary first = summarizer.summarize(ASSEMBLY);
+		long calls = stub.getRequestCount();
+
+		Summary again = summarizer.summarize(ASSEMBLY);
+
+		assertThat(stub.getRequestCount()).isEqualTo(calls);
+		assertThat(again.text()).isEqualTo(first.text());
+		assertThat(again.computed()).isZero();
+	}
+
+	@Test
+	void newMessageRecomputesOnlyTheTrailingWindowAndTheReduce() throws Exception {
+		start(0);
+		store.add(12);
+		Summary first = summarizer.summarize(ASSEMBLY);
+		long calls = stub.getRequestCount();
+
+		store.add(1);
+		Summary second = summarizer.summarize(ASSEMBLY);
+
+		assertThat(second.ok()).isTrue();
+		assertThat(second.computed()).isEqualTo(1);
+		assertThat(stub.getRequestCount() - calls).isEqualTo(2);
+		// Janelas fechadas continuam no cache; a última antiga saiu
+		assertThat(store.cachedChunks()).hasSize(second.chunks());
+		assertThat(first.chunks()).isLessThanOrEqualTo(second.chunks());
+	}
+
+	@Test
+	void promptAboveTheModelLimitReturnsUnavailableWithoutCaching() throws Exception {
+		// Menor que qualquer prompt de janela: o stub responde HTTP 400
+		start(300);
+		store.add(12);
+
+		Summary summary = summarizer.summarize(ASSEMBLY);
+		long calls = stub.getRequestCount();
+
+		assertThat(summary.ok()).isFalse();
+		assertThat(summary.text()).isEqualTo(ChatSummarizer.UNAVAILABLE);
+		assertThat(store.cache).isEmpty();
+		// Nada foi guardado: a próxima tentativa chama o modelo de novo
+		summarizer.summarize(ASSEMBLY);
+		assertThat(stub.getRequestCount()).isGreaterThan(calls);
+	}
+
+	// --- APOIO ---
+
+	@SuppressWarnings("unchecked")
+	private void start(int maxPromptChars) throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		stub = new StubAiServer(mapper);
+		ReflectionTestUtils.setField(stub, "threads", 4);
+		ReflectionTestUtils.setField(stub, "maxPromptChars", maxPromptChars);
+		stub.start();
+
+		ObjectProvider<StubAiServer> provider = mock(ObjectProvider.class);
+		doReturn(stub).when(provider).getIfAvailable();
+		AiGateway gateway = new AiGateway(mapper, new SimpleMeterRegistry(), provider);
+		ReflectionTestUtils.setField(gateway, "baseUrl", "http://127.0.0.1:1");
+		ReflectionTestUtils.setField(gateway, "apiKey", "");
+		ReflectionTestUtils.setField(gateway, "connectTimeoutMs", 2_000L);
+		ReflectionTestUtils.setField(gateway, "readTimeoutMs", 5_000L);
+		ReflectionTestUtils.setField(gateway, "internalReadTimeoutMs", 5_000L);
+		ReflectionTestUtils.setField(gateway, "publicMaxConcurrent", 8);
+		ReflectionTestUtils.setField(gateway, "internalMaxConcurrent", 4);
+		ReflectionTestUtils.setField(gateway, "maxWaitMs", 5_000L);
+		ReflectionTestUtils.setField(gateway, "breakerWindow", 20);
+		ReflectionTestUtils.setField(gateway, "breakerMinCalls", 10);
+		ReflectionTestUtils.setField(gateway, "breakerFailureRate", 0.5);
+		ReflectionTestUtils.setField(gateway, "breakerOpenSeconds", 30L);
+		gateway.start();
+
+		summarizer = new ChatSummarizer(store, gateway);
+		ReflectionTestUtils.setField(summarizer, "model", "gemini-pro");
+		ReflectionTestUtils.setField(summarizer, "chunkTokens", CHUNK_TOKENS);
+		ReflectionTestUtils.setField(summarizer, "parallelism", 3);
+		ReflectionTestUtils.setField(summarizer, "maxMessageChars", 4_000);
+		summarizer.start();
+	}
+
+	private static List<Line> lines(int count) {
+		return IntStream.range(0, count).mapToObj(ChatSummarizerTest::line).toList();
+	}
+
+	private static Line line(int i) {
+		return new Line(UUID.randomUUID(), "[Morador " + i + "]: " + message(i) + "\n");
+	}
+
+	private static String message(int i) {
+		return "Proposta " + i + " sobre a pintura da fachada e o orçamento da obra, com votação na próxima reunião.";
+	}
+
+	/**
+	 * chat_message e chat_summary_cache em memória, respondendo às consultas do ChatSummarizer.
+	 */
+	private static class ChatStore extends JdbcTemplate {
+
+		private final List<Object[]> messages = new CopyOnWriteArrayList<>();
+		// kind|first|last|count -> resumo
+		final Map<String, String> cache = new ConcurrentHashMap<>();
+
+		void add(int count) {
+			int base = messages.size();
+			for (int i = 0; i < count; i++) {
+				messages.add(new Object[]{UUID.randomUUID(), "Morador " + (base + i), message(base + i)});
+			}
+		}
+
+		List<String> cachedChunks() {
+			return cache.keySet().stream().filter(k -> k.startsWith(ChatSummarizer.KIND_CHUNK + "|")).toList();
+		}
+
+		@Override
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			List<T> rows = new ArrayList<>();
+			try {
+				for (int i = 0; i < messages.size(); i++) {
+					Object[] m = messages.get(i);
+					ResultSet rs = mock(ResultSet.class);
+					doReturn(m[0]).when(rs).getObject("id");
+					doReturn(m[1]).when(rs).getString("sender_name");
+					doReturn(m[2]).when(rs).getString("content");
+					rows.add(rowMapper.mapRow(rs, i));
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return rows;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			String summary = cache.get(key(args[1], args[2], args[3], args[4]));
+			return summary == null ? List.of() : List.of((T) summary);
+		}
+
+		@Override
+		public void query(String sql, RowCallbackHandler rch, Object... args) {
+			try {
+				for (Map.Entry<String, String> e : cache.entrySet()) {
+					String[] k = e.getKey().split("\\|");
+					if (!k[0].equals(args[1])) continue;
+					ResultSet rs = mock(ResultSet.class);
+					doReturn(UUID.fromString(k[1])).when(rs).getObject(1);
+					doReturn(UUID.fromString(k[2])).when(rs).getObject(2);
+					doReturn(Integer.parseInt(k[3])).when(rs).getInt(3);
+					doReturn(e.getValue()).when(rs).getString(4);
+					rch.processRow(rs);
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			if (sql.startsWith("INSERT INTO chat_summary_cache")) {
+				return cache.putIfAbsent(key(args[1], args[2], args[3], args[4]), (String) args[6]) == null ? 1 : 0;
+			}
+			if (sql.startsWith("DELETE FROM chat_summary_cache WHERE")) {
+				// Resumos finais de outra faixa
+				String keep = args[2] + "|" + args[3];
+				return remove(k -> k.startsWith(args[1] + "|") && !k.endsWith("|" + keep));
+			}
+			if (sql.startsWith("DELETE FROM chat_summary_cache c")) {
+				UUID[] firsts = (UUID[]) args[2];
+				UUID[] lasts = (UUID[]) args[3];
+				Integer[] counts = (Integer[]) args[4];
+				Set<String> keep = IntStream.range(0, firsts.length)
+						.mapToObj(i -> key(args[1], firsts[i], lasts[i], counts[i]))
+						.collect(Collectors.toSet());
+				return remove(k -> k.startsWith(args[1] + "|") && !keep.contains(k));
+			}
+			throw new IllegalArgumentException("SQL inesperado: " + sql + " " + Arrays.toString(args));
+		}
+
+		private int remove(Predicate<String> match) {
+			List<String> keys = cache.keySet().stream().filter(match).toList();
+			keys.forEach(cache::remove);
+			return keys.size();
+		}
+
+		private static String key(Object kind, Object first, Object last, Object count) {
+			return kind + "|" + first + "|" + last + "|" + count;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.EmailService.EmailContent;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Alocação e tempo por e-mail de convocação: String.format (implementação antiga) contra
+ * o HtmlTemplate pré-compilado com cabeçalho/rodapé do condomínio em cache.
+ *
+ * Não é teste (não roda no mvn test). Para medir, depois de mvn test-compile:
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.votzz.backend.service.EmailRenderBenchmark [iterações]
+ */
+public class EmailRenderBenchmark {
+
+    private static final String TENANT = "Residencial Jardim das Flores";
+    private static final String TITLE = "Assembleia Geral Ordinária 2026";
+    private static final String DESCRIPTION = "1. Aprovação das contas; 2. Eleição do síndico; 3. Obras da fachada & pintura";
+    private static final String PERIODO = "20/10/2026 19:00 até 20/10/2026 22:00";
+    private static final String LINK = "https://app.votzz.com.br/#/voting-room/3f2b9c1e-7d4a-4f7e-9a55-0c6b1d2e8f90";
+
+    // Blackhole simples: impede o JIT de descartar o resultado
+    private static long sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        EmailService emailService = new EmailService();
+
+        // Aquecimento das duas versões antes de medir
+        for (int round = 0; round < 3; round++) {
+            measure("aquecimento format", iterations / 4, () -> legacyAssemblyNotification(TITLE, DESCRIPTION, PERIODO, LINK, TENANT), false);
+            measure("aquecimento template", iterations / 4, () -> emailService.buildAssemblyNotification(TITLE, DESCRIPTION, PERIODO, LINK, TENANT), false);
+        }
+
+        measure("String.format", iterations, () -> legacyAssemblyNotification(TITLE, DESCRIPTION, PERIODO, LINK, TENANT), true);
+        measure("HtmlTemplate ", iterations, () -> emailService.buildAssemblyNotification(TITLE, DESCRIPTION, PERIODO, LINK, TENANT), true);
+        System.out.println("(sink " + (sink & 1) + ")");
+    }
+
+    private static void measure(String label, int iterations, Supplier<EmailContent> render, boolean print) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            EmailContent content = render.get();
+            sink += content.subject().length() + content.htmlBody().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        if (print) {
+            System.out.printf("%s  %8.1f KB/e-mail  %6.2f us/e-mail%n",
+                    label, bytes / 1024.0 / iterations, elapsed / 1000.0 / iterations);
+        }
+    }
+
+    // Cópia da montagem anterior ao HtmlTemplate, só para comparação
+    private static EmailContent legacyAssemblyNotification(String title, String description, String periodo, String link, String tenantName) {
+        String subject = String.format("%s - 📢 Convocação: %s", tenantName, title);
+        String body = String.format(
+            "<div style='font-family: Arial, sans-serif; color: #333; max-width: 600px; margin: 0 auto; line-height: 1.6; border: 1px solid #e0e0e0; border-radius: 8px; overflow: hidden;'>" +
+                "<div style='background-color: #10b981; padding: 20px; text-align: center;'>" +
+                    "<h2 style='color: white; margin: 0;'>Convocação de Assembleia</h2>" +
+                    "<p style='color: #ecfdf5; margin: 5px 0 0 0;'>%s</p>" +
+                "</div>" +
+                "<div style='padding: 30px;'>" +
+                    "<p>Olá vizinho(a),</p>" +
+                    "<p>Você está sendo convocado(a) para participar de uma assembleia oficial no nosso condomínio.</p>" +
+                    "<div style='background: #f8fafc; padding: 20px; border-radius: 8px; border-left: 4px solid #10b981; margin: 20px 0;'>" +
+                        "<p style='margin: 0 0 10px 0;'><strong>📌 TÍTULO:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
+                        "<p style='margin: 0 0 10px 0;'><strong>📝 PAUTA:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
+                        "<p style='margin: 0;'><strong>📅 PERÍODO:</strong> <br/><span style='color: #475569;'>%s</span></p>" +
+                    "</div>" +
+                    "<div style='text-align: center; margin: 40px 0;'>" +
+                        "<a href='%s' style='background-color: #2563eb; color: white; padding: 15px 30px; text-decoration: none; border-radius: 6px; font-weight: bold; font-size: 16px; display: inline-block;'>CLIQUE AQUI PARA ACESSAR A SALA</a>" +
+                    "</div>" +
+                    "<p style='font-size: 13px; color: #94a3b8;'>Se o botão acima não funcionar, copie e cole este link no seu navegador:<br/>" +
+                    "<a href='%s' style='color: #2563eb;'>%s</a></p>" +
+                "</div>" +
+                "<div style='background-color: #f1f5f9; padding: 20px; text-align: center; font-size: 12px; color: #64748b;'>" +
+                    "<p style='margin: 0;'>Atenciosamente,</p>" +
+                    "<p style='margin: 5px 0 0 0;'><strong>Administração do Condomínio \"%s\" via Votzz.</strong></p>" +
+                "</div>" +
+            "</div>",
+            tenantName, title, (description != null ? description : "Ver pauta completa no sistema"),
+            periodo, link, link, link, tenantName);
+        return new EmailContent(subject, body);
+    }
+}
@@ -0,0 +1,64 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.mail.StubMailSender;
+import com.votzz.backend.service.EmailService.DeliveryResult;
+import com.votzz.backend.service.EmailService.EmailContent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailServiceTest {
+
+	private static final EmailContent CONTENT = new EmailContent("Convocação", "<p>Assembleia</p>");
+
+	@Test
+	void batchUsesOneConnectionAndGivesEveryCopyItsOwnMessageId() {
+		StubMailSender stub = stubSender("");
+		EmailService emailService = emailService(stub);
+
+		List<DeliveryResult> results = emailService.deliverBatch(CONTENT,
+				List.of("ana@votzz.com.br", "bruno@votzz.com.br", "carla@votzz.com.br"));
+
+		assertThat(stub.getConnectionCount()).isEqualTo(1);
+		assertThat(results).extracting(DeliveryResult::error).containsOnlyNulls();
+		assertThat(results).extracting(DeliveryResult::messageId).doesNotContainNull().doesNotHaveDuplicates();
+		// O comprovante devolvido é o mesmo Message-ID que chegou ao servidor
+		assertThat(stub.getLastSent()).extracting(StubMailSender.SentMessage::messageId)
+				.containsExactlyInAnyOrderElementsOf(results.stream().map(DeliveryResult::messageId).toList());
+	}
+
+	@Test
+	void resultsKeepInputOrderWithPartialAndAddressFailures() {
+		StubMailSender stub = stubSender("recusado@");
+		EmailService emailService = emailService(stub);
+
+		List<DeliveryResult> results = emailService.deliverBatch(CONTENT,
+				List.of("ana@votzz.com.br", "nao é e-mail", "recusado@votzz.com.br", "carla@votzz.com.br"));
+
+		assertThat(results).extracting(DeliveryResult::recipient)
+				.containsExactly("ana@votzz.com.br", "nao é e-mail", "recusado@votzz.com.br", "carla@votzz.com.br");
+		assertThat(results.get(0).messageId()).isNotNull();
+		// Endereço inválido não tem retry; recusa do servidor tem
+		assertThat(results.get(1).permanent()).isTrue();
+		assertThat(results.get(2).error()).contains("550");
+		assertThat(results.get(2).permanent()).isFalse();
+		assertThat(results.get(3).messageId()).isNotNull();
+		assertThat(stub.getAcceptedCount()).isEqualTo(2);
+	}
+
+	private static StubMailSender stubSender(String failPattern) {
+		StubMailSender stub = new StubMailSender();
+		ReflectionTestUtils.setField(stub, "failPattern", failPattern);
+		return stub;
+	}
+
+	private static EmailService emailService(StubMailSender stub) {
+		EmailService emailService = new EmailService();
+		ReflectionTestUtils.setField(emailService, "mailSender", stub);
+		ReflectionTestUtils.setField(emailService, "senderEmail", "no-reply@votzz.com.br");
+		return emailService;
+	}
+}
@@ -0,0 +1,68 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.core.ai.AiGateway;
+import com.votzz.backend.core.ai.AiGateway.AiReply;
+import com.votzz.backend.core.ai.AiGateway.Lane;
+import com.votzz.backend.core.ai.AiGateway.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class GeminiServiceTest {
+
+	private final AiGateway gateway = mock(AiGateway.class);
+	private final GeminiService service = geminiService(gateway);
+
+	@Test
+	void chatPromptIsCappedKeepingTheMostRecentMessages() {
+		List<String> messages = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) messages.add("mensagem " + i + " " + "x".repeat(90));
+
+		service.summarizeChat(messages);
+
+		String prompt = sentPrompt();
+		assertThat(prompt.length()).isLessThan(1_000 + 200);
+		assertThat(prompt).contains("mensagem 4999 ").doesNotContain("mensagem 0 ");
+	}
+
+	@Test
+	void eachMessageIsClippedLikeAQuestion() {
+		String clipped = service.clipChat(List.of("a".repeat(5_000), "b"));
+
+		assertThat(clipped).isEqualTo("a".repeat(300) + "\nb");
+	}
+
+	@Test
+	void emptyOrMissingChatDoesNotCallTheModel() {
+		assertThat(service.summarizeChat(null)).isEqualTo("Sem discussões no momento.");
+		assertThat(service.summarizeChat(List.of())).isEqualTo("Sem discussões no momento.");
+		verifyNoInteractions(gateway);
+	}
+
+	private String sentPrompt() {
+		ArgumentCaptor<String> prompt = ArgumentCaptor.forClass(String.class);
+		verify(gateway).generate(eq(Lane.PUBLIC), anyString(), prompt.capture());
+		return prompt.getValue();
+	}
+
+	private static GeminiService geminiService(AiGateway gateway) {
+		doReturn(new AiReply("resumo", Outcome.OK)).when(gateway).generate(eq(Lane.PUBLIC), anyString(), anyString());
+		GeminiService service = new GeminiService(gateway, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "model", "gemini-2.5-flash");
+		ReflectionTestUtils.setField(service, "maxQuestionChars", 300);
+		ReflectionTestUtils.setField(service, "maxChatChars", 1_000);
+		return service;
+	}
+}
@@ -0,0 +1,398 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.IntegrityChainService.IntegrityReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class IntegrityChainServiceTest {
+
+	private static final UUID TENANT = UUID.randomUUID();
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+	private static final LocalDateTime END = LocalDateTime.of(2025, 12, 31, 23, 59);
+	private static final int CHECKPOINT_INTERVAL = 10;
+
+	@Test
+	void untouchedChainVerifies() {
+		ChainStore store = sealed(25);
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isTrue();
+		assertThat(report.fromSeq()).isEqualTo(1);
+		assertThat(report.toSeq()).isEqualTo(25);
+		assertThat(report.checked()).isEqualTo(25);
+		assertThat(report.unsealed()).isZero();
+	}
+
+	@Test
+	void alteredRowBreaksTheChainAtItsLink() {
+		ChainStore store = sealed(25);
+		store.rowAt(7).put("details", "valor adulterado");
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(7);
+		assertThat(report.reason()).contains("alterado");
+	}
+
+	@Test
+	void removedRowBreaksTheChainAtItsLink() {
+		ChainStore store = sealed(25);
+		store.table("audit_logs").remove(store.rowAt(12).get("id"));
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(12);
+		assertThat(report.reason()).contains("removido");
+	}
+
+	@Test
+	void removedLinkIsReportedAsMissing() {
+		ChainStore store = sealed(25);
+		store.chain.removeIf(l -> l.seq() == 15);
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(15);
+		assertThat(report.reason()).contains("ausente");
+	}
+
+	@Test
+	void partialVerificationStartsAtTheNearestCheckpointAndMatchesAFullRescan() {
+		ChainStore store = sealed(25);
+		IntegrityChainService service = service(store);
+
+		// Registros 22..24: o checkpoint anterior é o do elo 20
+		IntegrityReport partial = service.verify(TENANT, createdAt(22), createdAt(24));
+		assertThat(store.lowestLinkRead).isEqualTo(21);
+
+		// Recalculado do gênese até o mesmo registro
+		IntegrityReport full = service.verify(TENANT, START, createdAt(24));
+		assertThat(store.lowestLinkRead).isEqualTo(1);
+
+		assertThat(partial.intact()).isTrue();
+		assertThat(partial.fromSeq()).isEqualTo(22);
+		assertThat(partial.toSeq()).isEqualTo(24);
+		assertThat(partial.checked()).isEqualTo(4);
+		assertThat(full.checked()).isEqualTo(24);
+		assertThat(partial.lastHash()).isEqualTo(full.lastHash()).isEqualTo(store.linkAt(24).hash());
+	}
+
+	@Test
+	void divergentCheckpointIsReported() {
+		ChainStore store = sealed(25);
+		store.checkpoints.get(TENANT).put(20L, "f".repeat(64));
+
+		IntegrityReport report = service(store).verify(TENANT, createdAt(15), END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(20);
+		assertThat(report.reason()).contains("Checkpoint");
+	}
+
+	@Test
+	void archivedMonthIsVerifiedFromTheRestoredTable() {
+		ChainStore store = sealed(25);
+		// Registros 1..10 são de janeiro; o mês foi arquivado e reidratado
+		store.archive(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), "audit_logs_restored_202501");
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isTrue();
+		assertThat(report.checked()).isEqualTo(25);
+	}
+
+	@Test
+	void archivedMonthWithoutRestoredCopyAsksForRehydration() {
+		ChainStore store = sealed(25);
+		store.archive(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), null);
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(1);
+		assertThat(report.reason()).contains("reidrate");
+	}
+
+	@Test
+	void alteredRowInTheRestoredTableIsDetected() {
+		ChainStore store = sealed(25);
+		store.archive(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), "audit_logs_restored_202501");
+		Map<String, Object> restored = store.table("audit_logs_restored_202501").values().stream()
+				.filter(r -> r.get("created_at").equals(Timestamp.valueOf(createdAt(4)))).findFirst().orElseThrow();
+		restored.put("action", "OUTRA_ACAO");
+
+		IntegrityReport report = service(store).verify(TENANT, START, END);
+
+		assertThat(report.intact()).isFalse();
+		assertThat(report.brokenAtSeq()).isEqualTo(4);
+		assertThat(report.reason()).contains("alterado");
+	}
+
+	// --- APOIO ---
+
+	// Registro n (1..count): janeiro para n <= 10, fevereiro em diante depois
+	private static LocalDateTime createdAt(int n) {
+		return n <= 10 ? START.plusDays(n) : LocalDateTime.of(2025, 2, 1, 9, 0).plusHours(n);
+	}
+
+	private static ChainStore sealed(int count) {
+		ChainStore store = new ChainStore();
+		for (int n = 1; n <= count; n++) {
+			Map<String, Object> row = new HashMap<>();
+			row.put("id", UUID.randomUUID());
+			row.put("created_at", Timestamp.valueOf(createdAt(n)));
+			row.put("tenant_id", TENANT);
+			row.put("action", "CRIAR_RESERVA");
+			row.put("user_id", "u" + n);
+			row.put("user_name", "Morador " + n);
+			row.put("actor_role", "MORADOR");
+			row.put("resource_type", "BOOKING");
+			row.put("details", "Reserva " + n);
+			row.put("ip_address", "10.0.0." + n);
+			row.put("chain_seq", null);
+			store.table("audit_logs").put((UUID) row.get("id"), row);
+		}
+		service(store).sealSafely();
+		assertThat(store.chain).hasSize(count);
+		assertThat(store.checkpoints.get(TENANT)).containsOnlyKeys(
+				Arrays.stream(new long[]{10, 20, 30, 40}).filter(s -> s <= count).boxed().toArray(Long[]::new));
+		store.lowestLinkRead = Long.MAX_VALUE;
+		return store;
+	}
+
+	private static IntegrityChainService service(ChainStore store) {
+		TransactionTemplate tx = mock(TransactionTemplate.class);
+		doAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null)).when(tx).execute(any());
+		IntegrityChainService service = new IntegrityChainService(store, tx);
+		ReflectionTestUtils.setField(service, "batchSize", 1000);
+		ReflectionTestUtils.setField(service, "checkpointInterval", CHECKPOINT_INTERVAL);
+		return service;
+	}
+
+	/**
+	 * audit_logs, integrity_chain, integrity_checkpoint, integrity_chain_head e audit_archive em
+	 * memória, respondendo às consultas do IntegrityChainService (sem votos).
+	 */
+	private static class ChainStore extends JdbcTemplate {
+
+		record Link(UUID tenantId, long seq, String type, UUID recordId, Timestamp createdAt, String hash) {}
+
+		record Archive(LocalDate start, LocalDate end, String restoredTable) {}
+
+		private final Map<String, Map<UUID, Map<String, Object>>> tables = new HashMap<>();
+		final List<Link> chain = new ArrayList<>();
+		final Map<UUID, TreeMap<Long, String>> checkpoints = new HashMap<>();
+		private final Map<UUID, Object[]> heads = new HashMap<>();
+		private final List<Archive> archives = new ArrayList<>();
+		long lowestLinkRead = Long.MAX_VALUE;
+
+		Map<UUID, Map<String, Object>> table(String name) {
+			return tables.computeIfAbsent(name, n -> new LinkedHashMap<>());
+		}
+
+		Link linkAt(long seq) {
+			return chain.stream().filter(l -> l.seq() == seq).findFirst().orElseThrow();
+		}
+
+		Map<String, Object> rowAt(long seq) {
+			return table("audit_logs").get(linkAt(seq).recordId());
+		}
+
+		// Como o AuditArchiveService: as linhas do período saem de audit_logs (e, se reidratado, vão para a tabela restaurada)
+		void archive(LocalDate start, LocalDate end, String restoredTable) {
+			Map<UUID, Map<String, Object>> hot = table("audit_logs");
+			List<UUID> ids = hot.values().stream().filter(r -> inPeriod((Timestamp) r.get("created_at"), start, end))
+					.map(r -> (UUID) r.get("id")).toList();
+			for (UUID id : ids) {
+				Map<String, Object> row = hot.remove(id);
+				if (restoredTable != null) table(restoredTable).put(id, new HashMap<>(row));
+			}
+			archives.add(new Archive(start, end, restoredTable));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+			if (sql.contains("pg_try_advisory_xact_lock")) return (T) Boolean.TRUE;
+			if (sql.startsWith("SELECT COUNT(*) FROM audit_archive")) {
+				LocalDate day = ((Timestamp) args[0]).toLocalDateTime().toLocalDate();
+				return (T) Integer.valueOf((int) archives.stream()
+						.filter(a -> !a.start().isAfter(day) && a.end().isAfter(day)).count());
+			}
+			if (sql.contains("FROM audit_logs WHERE chain_seq IS NULL")) {
+				return (T) Long.valueOf(table("audit_logs").values().stream().filter(r -> r.get("chain_seq") == null).count());
+			}
+			if (sql.contains("FROM votes v")) return (T) Long.valueOf(0);
+			throw unexpected(sql, args);
+		}
+
+		@Override
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			List<Map<String, Object>> rows;
+			if (sql.contains("FROM audit_logs WHERE chain_seq IS NULL")) {
+				rows = table("audit_logs").values().stream().filter(r -> r.get("chain_seq") == null)
+						.sorted(Comparator.comparing((Map<String, Object> r) -> (Timestamp) r.get("created_at"))
+								.thenComparing(r -> r.get("id").toString()))
+						.limit((Integer) args[0]).toList();
+			} else if (sql.contains("FROM votes v")) {
+				rows = List.of();
+			} else if (sql.startsWith("SELECT seq, record_type")) {
+				long from = (Long) args[1];
+				long to = (Long) args[2];
+				lowestLinkRead = Math.min(lowestLinkRead, from);
+				rows = chain.stream().filter(l -> l.tenantId().equals(args[0]) && l.seq() >= from && l.seq() <= to)
+						.sorted(Comparator.comparingLong(Link::seq)).limit((Integer) args[3])
+						.map(l -> Map.<String, Object>of("seq", l.seq(), "record_type", l.type(), "record_id", l.recordId(),
+								"record_created_at", l.createdAt(), "hash", l.hash()))
+						.toList();
+			} else if (sql.contains(" WHERE id = ANY(?)")) {
+				String name = sql.substring(sql.indexOf(" FROM ") + 6, sql.indexOf(" WHERE "));
+				List<UUID> ids = Arrays.asList((UUID[]) args[0]);
+				rows = table(name).values().stream().filter(r -> ids.contains(r.get("id"))).toList();
+			} else {
+				throw unexpected(sql, args);
+			}
+			List<T> result = new ArrayList<>();
+			ResultSet rs = resultSet(rows);
+			try {
+				for (int i = 0; rs.next(); i++) result.add(rowMapper.mapRow(rs, i));
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			return result;
+		}
+
+		@Override
+		public void query(String sql, RowCallbackHandler rch, Object... args) {
+			List<Map<String, Object>> rows = new ArrayList<>();
+			if (sql.contains("FROM integrity_chain_head")) {
+				for (UUID id : (UUID[]) args[0]) {
+					Object[] head = heads.get(id);
+					if (head != null) rows.add(Map.of("tenant_id", id, "seq", head[0], "hash", head[1]));
+				}
+			} else if (sql.contains("FROM integrity_checkpoint WHERE tenant_id = ? AND seq > ?")) {
+				checkpoints.getOrDefault((UUID) args[0], new TreeMap<>()).subMap((Long) args[1], false, (Long) args[2], true)
+						.forEach((seq, hash) -> rows.add(Map.of("seq", seq, "hash", hash)));
+			} else {
+				throw unexpected(sql, args);
+			}
+			ResultSet rs = resultSet(rows);
+			try {
+				while (rs.next()) rch.processRow(rs);
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public <T> T query(String sql, ResultSetExtractor<T> rse, Object... args) {
+			if (!sql.contains("FROM integrity_checkpoint WHERE tenant_id = ? AND seq < ?")) throw unexpected(sql, args);
+			Map.Entry<Long, String> anchor = checkpoints.getOrDefault((UUID) args[0], new TreeMap<>()).lowerEntry((Long) args[1]);
+			List<Map<String, Object>> rows = anchor == null ? List.of() : List.of(Map.of("seq", anchor.getKey(), "hash", anchor.getValue()));
+			try {
+				return rse.extractData(resultSet(rows));
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public Map<String, Object> queryForMap(String sql, Object... args) {
+			Timestamp from = (Timestamp) args[1];
+			Timestamp to = (Timestamp) args[2];
+			List<Long> seqs = chain.stream()
+					.filter(l -> l.tenantId().equals(args[0]) && !l.createdAt().before(from) && !l.createdAt().after(to))
+					.map(Link::seq).toList();
+			Map<String, Object> range = new HashMap<>();
+			range.put("min_seq", seqs.stream().min(Long::compare).orElse(null));
+			range.put("max_seq", seqs.stream().max(Long::compare).orElse(null));
+			return range;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			if (!sql.startsWith("SELECT restored_table FROM audit_archive")) throw unexpected(sql, args);
+			LocalDate from = ((Timestamp) args[0]).toLocalDateTime().toLocalDate();
+			LocalDate to = ((Timestamp) args[1]).toLocalDateTime().toLocalDate();
+			return (List<T>) archives.stream()
+					.filter(a -> a.restoredTable() != null && tables.containsKey(a.restoredTable()))
+					.filter(a -> a.end().isAfter(from) && !a.start().isAfter(to))
+					.map(Archive::restoredTable).toList();
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			for (Object[] a : batchArgs) {
+				if (sql.startsWith("INSERT INTO integrity_chain ")) {
+					chain.add(new Link((UUID) a[0], (Long) a[1], (String) a[2], (UUID) a[3], (Timestamp) a[4], (String) a[5]));
+				} else if (sql.startsWith("UPDATE audit_logs SET chain_seq")) {
+					table("audit_logs").get((UUID) a[1]).put("chain_seq", a[0]);
+				} else if (sql.startsWith("INSERT INTO integrity_checkpoint")) {
+					checkpoints.computeIfAbsent((UUID) a[0], t -> new TreeMap<>()).put((Long) a[1], (String) a[2]);
+				} else if (sql.startsWith("INSERT INTO integrity_chain_head")) {
+					heads.put((UUID) a[0], new Object[]{a[1], a[2]});
+				} else {
+					throw unexpected(sql, a);
+				}
+			}
+			return new int[batchArgs.size()];
+		}
+
+		private static boolean inPeriod(Timestamp at, LocalDate start, LocalDate end) {
+			LocalDate day = at.toLocalDateTime().toLocalDate();
+			return !day.isBefore(start) && day.isBefore(end);
+		}
+
+		// ResultSet com cursor sobre linhas em mapa coluna -> valor
+		private static ResultSet resultSet(List<Map<String, Object>> rows) {
+			AtomicInteger cursor = new AtomicInteger(-1);
+			return mock(ResultSet.class, inv -> {
+				String method = inv.getMethod().getName();
+				if (method.equals("next")) return cursor.incrementAndGet() < rows.size();
+				Object value = rows.get(cursor.get()).get((String) inv.getArgument(0));
+				return switch (method) {
+					case "getLong" -> ((Number) value).longValue();
+					case "getInt" -> ((Number) value).intValue();
+					case "getString" -> value == null ? null : value.toString();
+					default -> value;
+				};
+			});
+		}
+
+		private static IllegalArgumentException unexpected(String sql, Object[] args) {
+			return new IllegalArgumentException("SQL inesperado: " + sql + " " + Arrays.toString(args));
+		}
+	}
+}
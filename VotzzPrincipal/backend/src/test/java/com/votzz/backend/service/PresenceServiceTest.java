@@ -0,0 +1,129 @@
+package com.votzz.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.votzz.backend.core.cluster.ClusterFanOut;
+import com.votzz.backend.core.cluster.ClusterFanOut.RelayedTopicMessageEvent;
+import com.votzz.backend.service.PresenceService.NodeCount;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PresenceServiceTest {
+
+	private static final UUID ASSEMBLY = UUID.randomUUID();
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final SimpMessagingTemplate messaging = mock(SimpMessagingTemplate.class);
+	private final PresenceService presence = presenceService(messaging);
+
+	@Test
+	void countIncludesTheOtherNodes() throws Exception {
+		presence.join("s1", "sub1", ASSEMBLY, UUID.randomUUID());
+		presence.join("s2", "sub2", ASSEMBLY, UUID.randomUUID());
+
+		presence.onRelayedMessage(nodeCount("no-b", 3));
+		presence.onRelayedMessage(nodeCount("no-c", 1));
+
+		assertThat(presence.getOnlineCount(ASSEMBLY)).isEqualTo(6);
+		presence.broadcastDirtyRooms();
+		assertThat(lastTotalSentToClients()).isEqualTo(6);
+	}
+
+	@Test
+	void localChangePublishesTheNodeCountForTheOtherNodes() {
+		presence.join("s1", "sub1", ASSEMBLY, UUID.randomUUID());
+
+		presence.broadcastDirtyRooms();
+
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(messaging).convertAndSend(eq(PresenceService.CLUSTER_DESTINATION), payload.capture());
+		NodeCount sent = (NodeCount) payload.getValue();
+		assertThat(sent.assemblyId()).isEqualTo(ASSEMBLY);
+		assertThat(sent.online()).isEqualTo(1);
+		assertThat(sent.node()).isNotBlank();
+	}
+
+	@Test
+	void remoteUpdateOnlyRefreshesLocalClients() throws Exception {
+		presence.onRelayedMessage(nodeCount("no-b", 2));
+
+		presence.broadcastDirtyRooms();
+
+		// Sem eco: a contagem de outro nó não faz este republicar a sua
+		verify(messaging, never()).convertAndSend(eq(PresenceService.CLUSTER_DESTINATION), any(Object.class));
+		assertThat(lastTotalSentToClients()).isEqualTo(2);
+	}
+
+	@Test
+	void nodeThatReportsZeroOrGoesSilentLeavesTheSum() throws Exception {
+		presence.onRelayedMessage(nodeCount("no-b", 2));
+		presence.onRelayedMessage(nodeCount("no-c", 4));
+
+		presence.onRelayedMessage(nodeCount("no-b", 0));
+		assertThat(presence.getOnlineCount(ASSEMBLY)).isEqualTo(4);
+
+		ReflectionTestUtils.setField(presence, "clusterTtlMs", -1L);
+		assertThat(presence.getOnlineCount(ASSEMBLY)).isZero();
+		presence.clusterHeartbeat();
+		clearInvocations(messaging);
+		presence.broadcastDirtyRooms();
+		assertThat(lastTotalSentToClients()).isZero();
+	}
+
+	@Test
+	void otherDestinationsAreIgnored() throws Exception {
+		presence.onRelayedMessage(new RelayedTopicMessageEvent("/topic/assembly/" + ASSEMBLY,
+				MAPPER.writeValueAsBytes(new NodeCount("no-b", ASSEMBLY, 5))));
+
+		assertThat(presence.getOnlineCount(ASSEMBLY)).isZero();
+	}
+
+	// --- APOIO ---
+
+	@SuppressWarnings("unchecked")
+	private int lastTotalSentToClients() {
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(messaging).convertAndSend(eq("/topic/assembly/" + ASSEMBLY), payload.capture(),
+				eq(Map.of(ClusterFanOut.LOCAL_ONLY_HEADER, "true")));
+		return (Integer) ((Map<String, Object>) payload.getValue()).get("online");
+	}
+
+	private static RelayedTopicMessageEvent nodeCount(String node, int online) throws Exception {
+		return new RelayedTopicMessageEvent(PresenceService.CLUSTER_DESTINATION,
+				MAPPER.writeValueAsBytes(new NodeCount(node, ASSEMBLY, online)));
+	}
+
+	private static PresenceService presenceService(SimpMessagingTemplate messaging) {
+		JdbcTemplate jdbc = mock(JdbcTemplate.class);
+		// Todo usuário pertence ao condomínio da assembleia
+		doAnswer(inv -> {
+			ResultSet rs = mock(ResultSet.class);
+			doReturn("Morador").when(rs).getString("nome");
+			doReturn("Apto 101").when(rs).getString("units");
+			return List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0));
+		}).when(jdbc).query(startsWith("SELECT u.nome"), any(RowMapper.class), any(), any());
+		PresenceService service = new PresenceService(messaging, jdbc, MAPPER);
+		ReflectionTestUtils.setField(service, "leaveGraceSeconds", 30L);
+		ReflectionTestUtils.setField(service, "clusterTtlMs", 45_000L);
+		return service;
+	}
+}
@@ -0,0 +1,147 @@
+package com.votzz.backend.service;
+
+import com.votzz.backend.service.VoteMerkleService.MerkleProof;
+import com.votzz.backend.service.VoteMerkleService.MerkleRoot;
+import com.votzz.backend.service.VoteMerkleService.ProofStep;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VoteMerkleServiceTest {
+
+	private static final UUID ASSEMBLY = UUID.randomUUID();
+
+	@Test
+	void leafAndNodeHashesAreDomainSeparated() {
+		// RFC 6962: hash da folha vazia = SHA-256(0x00)
+		assertThat(VoteMerkleService.leafHash(""))
+				.isEqualTo("6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d");
+
+		String a = VoteMerkleService.leafHash("a");
+		String b = VoteMerkleService.leafHash("b");
+		assertThat(VoteMerkleService.nodeHash(a, b)).isNotEqualTo(VoteMerkleService.nodeHash(b, a));
+		assertThat(VoteMerkleService.nodeHash(a, b)).isNotEqualTo(VoteMerkleService.leafHash(a + b));
+	}
+
+	@Test
+	void everyProofRebuildsTheRootForTreesUpTo33Leaves() {
+		for (int size = 1; size <= 33; size++) {
+			List<String> votes = votes(size);
+			String root = referenceRoot(leaves(votes), 0, size);
+			for (int index = 0; index < size; index++) {
+				MerkleProof proof = proofFor(votes, index);
+
+				assertThat(proof.root()).isEqualTo(root);
+				assertThat(proof.treeSize()).isEqualTo(size);
+				assertThat(proof.path()).hasSizeLessThanOrEqualTo(64 - Long.numberOfLeadingZeros(size));
+				assertThat(verify(proof.leafHash(), proof.path()))
+						.as("size=%d index=%d", size, index)
+						.isEqualTo(root);
+			}
+		}
+	}
+
+	@Test
+	void proofDoesNotVerifyAnotherVote() {
+		List<String> votes = votes(10);
+		MerkleProof proof = proofFor(votes, 4);
+
+		String forged = VoteMerkleService.leafHash(votes.get(5));
+		assertThat(verify(forged, proof.path())).isNotEqualTo(proof.root());
+	}
+
+	@Test
+	void shortReceiptIsRejected() {
+		VoteMerkleService service = new VoteMerkleService(mock(JdbcTemplate.class), mock(TransactionTemplate.class));
+
+		assertThatThrownBy(() -> service.getProof(ASSEMBLY, "abc"))
+				.isInstanceOf(RuntimeException.class)
+				.hasMessageContaining("8 caracteres");
+	}
+
+	// --- APOIO ---
+
+	/**
+	 * Monta a prova com o JdbcTemplate simulado: os nós completos vêm da árvore de referência
+	 * e só podem ser lidos pelo preload (uma consulta), nunca nó a nó.
+	 */
+	private static MerkleProof proofFor(List<String> votes, int index) {
+		int size = votes.size();
+		List<String> leaves = leaves(votes);
+		String voteHash = votes.get(index);
+		JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+		doReturn(List.<Object[]>of(new Object[]{UUID.randomUUID(), voteHash, (long) index}))
+				.when(jdbc).query(startsWith("SELECT id, hash, merkle_index"), any(RowMapper.class), any(), any());
+		doReturn(List.of(new MerkleRoot(ASSEMBLY, size, referenceRoot(leaves, 0, size), null)))
+				.when(jdbc).query(startsWith("SELECT size, root"), any(RowMapper.class), any());
+		doAnswer(inv -> {
+			Integer[] levels = inv.getArgument(2);
+			Long[] idxs = inv.getArgument(3);
+			RowCallbackHandler handler = inv.getArgument(1);
+			for (int i = 0; i < levels.length; i++) {
+				int level = levels[i];
+				long idx = idxs[i];
+				ResultSet rs = mock(ResultSet.class);
+				when(rs.getInt("level")).thenReturn(level);
+				when(rs.getLong("idx")).thenReturn(idx);
+				when(rs.getString("hash")).thenReturn(referenceRoot(leaves, (int) (idx << level), 1 << level));
+				handler.processRow(rs);
+			}
+			return null;
+		}).when(jdbc).query(startsWith("SELECT n.level, n.idx, n.hash"), any(RowCallbackHandler.class), any(), any(), any());
+		doThrow(new AssertionError("nó lido fora do preload"))
+				.when(jdbc).queryForObject(anyString(), eq(String.class), any(), any(), any());
+
+		return new VoteMerkleService(jdbc, mock(TransactionTemplate.class)).getProof(ASSEMBLY, voteHash);
+	}
+
+	private static String verify(String leafHash, List<ProofStep> path) {
+		String hash = leafHash;
+		for (ProofStep step : path) {
+			hash = "LEFT".equals(step.side())
+					? VoteMerkleService.nodeHash(step.hash(), hash)
+					: VoteMerkleService.nodeHash(hash, step.hash());
+		}
+		return hash;
+	}
+
+	// MTH(D[start:start+n]) do RFC 6962, recursivo
+	private static String referenceRoot(List<String> leaves, int start, int n) {
+		if (n == 1) return leaves.get(start);
+		int k = Integer.highestOneBit(n - 1);
+		return VoteMerkleService.nodeHash(referenceRoot(leaves, start, k), referenceRoot(leaves, start + k, n - k));
+	}
+
+	private static List<String> leaves(List<String> votes) {
+		List<String> leaves = new ArrayList<>(votes.size());
+		for (String vote : votes) leaves.add(VoteMerkleService.leafHash(vote));
+		return leaves;
+	}
+
+	private static List<String> votes(int size) {
+		// Recibos no formato dos votos: SHA-256 em hex
+		List<String> votes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) votes.add(VoteMerkleService.leafHash("voto-" + i));
+		return votes;
+	}
+}
@@ -17,11 +17,14 @@ DROP TABLE IF EXISTS polls CASCADE;
 DROP TABLE IF EXISTS ticket_messages CASCADE;
 DROP TABLE IF EXISTS password_reset_tokens CASCADE;
 DROP TABLE IF EXISTS audit_logs CASCADE;
+DROP TABLE IF EXISTS audit_archive CASCADE;
 DROP TABLE IF EXISTS financial_reports CASCADE;
 DROP TABLE IF EXISTS tickets CASCADE;
 DROP TABLE IF EXISTS reservations CASCADE;
 DROP TABLE IF EXISTS announcement_reads CASCADE;
 DROP TABLE IF EXISTS announcements CASCADE;
+DROP TABLE IF EXISTS assembly_attendance CASCADE;
+DROP TABLE IF EXISTS chat_summary_cache CASCADE;
 DROP TABLE IF EXISTS chat_message CASCADE;
 DROP TABLE IF EXISTS votes CASCADE;
 DROP TABLE IF EXISTS condo_financial CASCADE;
@@ -32,15 +35,30 @@ DROP TABLE IF EXISTS comissoes CASCADE;
 DROP TABLE IF EXISTS afiliados CASCADE;
 DROP TABLE IF EXISTS leads_captura CASCADE;
 DROP TABLE IF EXISTS user_tenants CASCADE;
+DROP TABLE IF EXISTS user_identities CASCADE;
+DROP TABLE IF EXISTS user_import_rows CASCADE;
+DROP TABLE IF EXISTS user_import_jobs CASCADE;
 DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS subscriptions CASCADE; 
 DROP TABLE IF EXISTS tenants CASCADE;
 DROP TABLE IF EXISTS coupons CASCADE;
 DROP TABLE IF EXISTS planos CASCADE;
 DROP TABLE IF EXISTS tb_guests CASCADE;
+DROP TABLE IF EXISTS ws_relay_payload CASCADE;
+DROP TABLE IF EXISTS integrity_checkpoint CASCADE;
+DROP TABLE IF EXISTS vote_merkle_node CASCADE;
+DROP TABLE IF EXISTS vote_merkle_tree CASCADE;
+DROP TABLE IF EXISTS integrity_chain_head CASCADE;
+DROP TABLE IF EXISTS integrity_chain CASCADE;
+DROP TABLE IF EXISTS user_notification_counters CASCADE;
+DROP TABLE IF EXISTS user_notifications CASCADE;
+DROP TABLE IF EXISTS notification_digest_items CASCADE;
+DROP TABLE IF EXISTS email_outbox CASCADE;
+DROP TABLE IF EXISTS email_campaigns CASCADE;
 
 -- Habilita extensão para UUID (Necessário para gen_random_uuid())
 CREATE EXTENSION IF NOT EXISTS "pgcrypto";
+CREATE EXTENSION IF NOT EXISTS pg_trgm; -- Busca por trecho (ILIKE) no diretório de usuários
 
 -- ====================================================================
 -- 2. CAMADA SAAS E CONFIGURAÇÃO
@@ -165,7 +183,11 @@ CREATE TABLE users (
     reset_token_expiry TIMESTAMP,
 
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Formas normalizadas usadas nas checagens de unicidade (não mapeadas no JPA)
+    email_norm VARCHAR(255) GENERATED ALWAYS AS (lower(btrim(email))) STORED,
+    cpf_norm VARCHAR(14) GENERATED ALWAYS AS (NULLIF(regexp_replace(coalesce(cpf, ''), '\D', '', 'g'), '')) STORED
 );
 
 -- ====================================================================
@@ -177,12 +199,21 @@ CREATE TABLE user_unidades (
 );
 CREATE INDEX idx_user_unidades_user ON user_unidades(user_id);
 
+-- Diretório do admin: busca por nome/e-mail/CPF em qualquer posição e paginação por pasta
+CREATE INDEX idx_users_nome_trgm ON users USING GIN (nome gin_trgm_ops);
+CREATE INDEX idx_users_email_trgm ON users USING GIN (email gin_trgm_ops);
+CREATE INDEX idx_users_cpf_trgm ON users USING GIN (regexp_replace(coalesce(cpf, ''), '\D', '', 'g') gin_trgm_ops);
+-- Mesma expressão de ordenação do UserDirectoryService (created_at nulo vai para o fim)
+CREATE INDEX idx_users_tenant_created ON users(tenant_id, (COALESCE(created_at, TIMESTAMP '1970-01-01')) DESC, id DESC);
+CREATE INDEX idx_users_afiliado_created ON users((COALESCE(created_at, TIMESTAMP '1970-01-01')) DESC, id DESC) WHERE role = 'AFILIADO';
+
 -- Tabela de Junção para Multi-Tenancy
 CREATE TABLE user_tenants (
     user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     tenant_id UUID NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
     PRIMARY KEY (user_id, tenant_id)
 );
+CREATE INDEX idx_user_tenants_tenant ON user_tenants(tenant_id, user_id);
 
 -- ====================================================================
 -- AJUSTE CRÍTICO DE ÍNDICES PARA MULTI-UNIDADE
@@ -197,6 +228,48 @@ CREATE UNIQUE INDEX idx_users_cpf_tenant_unit ON users (cpf, tenant_id, unidade,
 -- 3. Mantém unicidade global apenas para usuários SEM condomínio (Admin/Afiliado)
 CREATE UNIQUE INDEX idx_users_email_global ON users (email) WHERE tenant_id IS NULL;
 
+-- 4. Identidade: consultas por e-mail/CPF normalizados e pelo findByEmailIgnoreCase (upper)
+CREATE INDEX idx_users_email_norm ON users (email_norm);
+CREATE INDEX idx_users_cpf_norm ON users (cpf_norm) WHERE cpf_norm IS NOT NULL;
+CREATE INDEX idx_users_email_upper ON users (upper(email));
+
+-- 5. Um CPF pertence a uma única pessoa (e-mail). Os perfis (users) de uma pessoa se
+--    repetem por condomínio/unidade, então a regra fica aqui, com PK no CPF normalizado.
+CREATE TABLE user_identities (
+    cpf_norm VARCHAR(14) PRIMARY KEY,
+    email_norm VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_user_identities_email ON user_identities (email_norm);
+
+-- Importação em lote de moradores: um job por (condomínio, SHA-256 do arquivo).
+-- last_row é a última linha confirmada; reenviar o mesmo arquivo retoma dali.
+CREATE TABLE user_import_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    tenant_id UUID NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    created_by UUID REFERENCES users(id) ON DELETE SET NULL,
+    file_name VARCHAR(255),
+    file_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL, -- RUNNING, DONE, FAILED
+    last_row INT NOT NULL DEFAULT 0,
+    created_count INT NOT NULL DEFAULT 0,
+    error_count INT NOT NULL DEFAULT 0,
+    message TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (tenant_id, file_hash)
+);
+
+CREATE TABLE user_import_rows (
+    job_id UUID NOT NULL REFERENCES user_import_jobs(id) ON DELETE CASCADE,
+    row_number INT NOT NULL,
+    status VARCHAR(10) NOT NULL, -- CRIADO, ERRO
+    email VARCHAR(255),
+    message VARCHAR(255),
+    user_id UUID,
+    PRIMARY KEY (job_id, row_number)
+);
+
 CREATE TABLE password_reset_tokens (
     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
     user_id UUID REFERENCES users(id),
@@ -288,6 +361,8 @@ CREATE TABLE votes (
     
     hash VARCHAR(255),                                    
     fraction NUMERIC(10, 6) DEFAULT 0.0015,
+    chain_seq BIGINT,          -- Posição na cadeia de integridade (nulo = aguardando selagem)
+    merkle_index BIGINT,       -- Folha na árvore de Merkle da assembleia (nulo = pendente)
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
@@ -309,6 +384,33 @@ CREATE TABLE chat_message (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP 
 );
 
+-- Resumos por IA do chat (ChatSummarizer): CHUNK = resumo de uma janela de mensagens,
+-- FINAL = resumo completo até last_message_id. A faixa (primeira, última, quantidade) é a chave.
+CREATE TABLE chat_summary_cache (
+    id BIGSERIAL PRIMARY KEY,
+    assembly_id UUID NOT NULL REFERENCES assemblies(id) ON DELETE CASCADE,
+    kind VARCHAR(10) NOT NULL,       -- CHUNK | FINAL
+    first_message_id UUID NOT NULL,
+    last_message_id UUID NOT NULL,
+    message_count INT NOT NULL,
+    prompt_version INT NOT NULL,
+    summary TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (assembly_id, kind, first_message_id, last_message_id, message_count, prompt_version)
+);
+
+-- Intervalos de permanência na sala de votação (Lista de Presença do dossiê).
+-- user_id sem FK: sessões de suporte (impersonação) usam ids temporários.
+CREATE TABLE assembly_attendance (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    assembly_id UUID NOT NULL REFERENCES assemblies(id) ON DELETE CASCADE,
+    user_id UUID,
+    user_name VARCHAR(255),
+    units VARCHAR(255),
+    joined_at TIMESTAMP NOT NULL,
+    left_at TIMESTAMP NOT NULL
+);
+
 -- ====================================================================
 -- 6. GOVERNANÇA (ENQUETES RÁPIDAS E COMUNICADOS)
 -- ====================================================================
@@ -514,13 +616,14 @@ CREATE TABLE financial_reports (
 );
 
 CREATE TABLE audit_logs (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
     
     timestamp VARCHAR(50),        
     action VARCHAR(255),            
     
     user_id VARCHAR(255),        
     user_name VARCHAR(255),        
+    actor_role VARCHAR(50),        -- Papel do autor no momento da ação
     
     tenant_id UUID REFERENCES tenants(id), 
     
@@ -529,7 +632,37 @@ CREATE TABLE audit_logs (
     
     ip_address VARCHAR(45),
     
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    chain_seq BIGINT,             -- Posição na cadeia de integridade (nulo = aguardando selagem)
+
+    -- Em tabela particionada a PK precisa conter a chave de partição
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Partições mensais (audit_logs_pAAAAMM). A aplicação (AuditArchiveService) cria as
+-- dos próximos meses e arquiva/remove as que passam do prazo de retenção.
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+DO $$
+DECLARE m DATE;
+BEGIN
+    FOR m IN SELECT generate_series(date_trunc('month', CURRENT_DATE), date_trunc('month', CURRENT_DATE) + INTERVAL '3 months', INTERVAL '1 month')::date LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS audit_logs_p%s PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+    END LOOP;
+END $$;
+
+-- Catálogo do arquivo morto da auditoria (NDJSON gzip no S3)
+CREATE TABLE audit_archive (
+    partition_name VARCHAR(64) PRIMARY KEY,
+    period_start DATE NOT NULL,
+    period_end DATE NOT NULL,
+    storage_key VARCHAR(512) NOT NULL,
+    row_count BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    restored_table VARCHAR(64),
+    restored_at TIMESTAMP
 );
 
 -- ====================================================================
@@ -547,11 +680,141 @@ CREATE TABLE trusted_devices (
     UNIQUE(user_id, device_identifier)
 );
 
+-- ====================================================================
+-- 9.1 RELAY DE WEBSOCKET ENTRE NÓS (LISTEN/NOTIFY)
+-- ====================================================================
+-- Payloads acima do limite do NOTIFY (~8 KB). Transitório: UNLOGGED e limpo a cada minuto.
+CREATE UNLOGGED TABLE ws_relay_payload (
+    id UUID PRIMARY KEY,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Cadeia de hashes por condomínio (auditoria + votos): hash = SHA-256(hash anterior || registro)
+CREATE TABLE integrity_chain (
+    tenant_id UUID NOT NULL,          -- 00000000-... = cadeia da plataforma
+    seq BIGINT NOT NULL,
+    record_type VARCHAR(10) NOT NULL, -- AUDIT | VOTE
+    record_id UUID NOT NULL,
+    record_created_at TIMESTAMP NOT NULL,
+    hash VARCHAR(64) NOT NULL,
+    sealed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, seq),
+    UNIQUE (record_type, record_id)
+);
+
+CREATE TABLE integrity_chain_head (
+    tenant_id UUID PRIMARY KEY,
+    seq BIGINT NOT NULL,
+    hash VARCHAR(64) NOT NULL
+);
+
+-- Checkpoints periódicos: a verificação parte do mais próximo em vez da origem
+CREATE TABLE integrity_checkpoint (
+    tenant_id UUID NOT NULL,
+    seq BIGINT NOT NULL,
+    hash VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, seq)
+);
+
+-- Árvore de Merkle dos votos por assembleia (RFC 6962); só nós de subárvores completas
+CREATE TABLE vote_merkle_tree (
+    assembly_id UUID PRIMARY KEY REFERENCES assemblies(id) ON DELETE CASCADE,
+    size BIGINT NOT NULL DEFAULT 0,
+    root VARCHAR(64),
+    frozen_at TIMESTAMP,             -- Preenchido no encerramento: raiz publicada
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE vote_merkle_node (
+    assembly_id UUID NOT NULL REFERENCES assemblies(id) ON DELETE CASCADE,
+    level SMALLINT NOT NULL,         -- 0 = folha
+    idx BIGINT NOT NULL,
+    hash VARCHAR(64) NOT NULL,
+    PRIMARY KEY (assembly_id, level, idx)
+);
+
+-- ====================================================================
+-- 9.2 OUTBOX DE E-MAILS
+-- ====================================================================
+-- Conteúdo gravado uma vez por disparo; uma linha de outbox por destinatário
+CREATE TABLE email_campaigns (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    tenant_id UUID REFERENCES tenants(id) ON DELETE CASCADE,
+    ref_type VARCHAR(30),            -- ASSEMBLY | POLL | ANNOUNCEMENT | DIGEST
+    ref_id UUID,
+    subject VARCHAR(255) NOT NULL,
+    html_body TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_email_campaigns_ref ON email_campaigns(ref_type, ref_id);
+
+CREATE TABLE email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    campaign_id UUID NOT NULL REFERENCES email_campaigns(id) ON DELETE CASCADE,
+    tenant_id UUID,
+    recipient VARCHAR(255) NOT NULL,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING', -- PENDING | SENDING | SENT | FAILED | CANCELLED
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP,          -- Lease enquanto SENDING
+    last_error VARCHAR(500),
+    message_id VARCHAR(255),         -- Message-ID aceito pelo SMTP (comprovante)
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (campaign_id, recipient)
+);
+CREATE INDEX idx_email_outbox_due ON email_outbox(next_attempt_at, tenant_id) WHERE status = 'PENDING';
+CREATE INDEX idx_email_outbox_leased ON email_outbox(locked_until) WHERE status = 'SENDING';
+
+-- Notificações aguardando o resumo do condomínio (NotificationDigestService)
+CREATE TABLE notification_digest_items (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id UUID NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    ref_type VARCHAR(30) NOT NULL,   -- POLL | ANNOUNCEMENT
+    ref_id UUID,
+    target_type VARCHAR(20) NOT NULL DEFAULT 'ALL',  -- ALL | BLOCK | UNIT | ROLE (público do aviso)
+    target_value VARCHAR(100),
+    subject VARCHAR(255) NOT NULL,
+    text VARCHAR(1000) NOT NULL,
+    digest_id UUID,                  -- Preenchido no fechamento (ref_id da campanha, se agrupado)
+    digested_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_digest_items_pending ON notification_digest_items(tenant_id, created_at) WHERE digest_id IS NULL;
+
+-- Caixa de notificações no app (NotificationService); tempo real via /user/queue/notifications
+CREATE TABLE user_notifications (
+    id BIGSERIAL PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    tenant_id UUID REFERENCES tenants(id) ON DELETE CASCADE,
+    type VARCHAR(30) NOT NULL,       -- POLL | ANNOUNCEMENT | ORDER | GUEST | BOOKING
+    title VARCHAR(255) NOT NULL,
+    body VARCHAR(1000),
+    link VARCHAR(255),               -- Rota do app (ex: /orders)
+    ref_id UUID,
+    email_outbox_id BIGINT,          -- E-mail de reserva agendado (cancelado se lido antes)
+    read_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_user_notifications_inbox ON user_notifications(user_id, id DESC);
+CREATE INDEX idx_user_notifications_unread ON user_notifications(user_id) WHERE read_at IS NULL;
+
+-- Contador de não lidas mantido junto com a caixa (evita COUNT(*) a cada badge)
+CREATE TABLE user_notification_counters (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    unread BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- ====================================================================
 -- 10. ÍNDICES DE PERFORMANCE
 -- ====================================================================
-CREATE INDEX idx_chat_assembly ON chat_message(assembly_id);
+-- Keyset do histórico do chat: (assembly_id, created_at, id)
+CREATE INDEX idx_chat_assembly_created ON chat_message(assembly_id, created_at DESC, id DESC);
 CREATE INDEX idx_votes_assembly ON votes(assembly_id);
+CREATE INDEX idx_attendance_assembly ON assembly_attendance(assembly_id, joined_at);
 CREATE INDEX idx_reservations_date ON reservations(booking_date);
 CREATE INDEX idx_comissoes_status ON comissoes(status);
 CREATE INDEX idx_afiliados_codigo ON afiliados(codigo_ref);
@@ -560,7 +823,21 @@ CREATE INDEX idx_tickets_tenant ON tickets(tenant_id);
 CREATE INDEX idx_tickets_user ON tickets(user_id);
 CREATE INDEX idx_planos_nome ON planos(nome);
 CREATE INDEX idx_fin_reports_tenant ON financial_reports(tenant_id);
-CREATE INDEX IF NOT EXISTS idx_audit_tenant ON audit_logs(tenant_id);
+-- Auditoria: keyset (created_at, id) por condomínio e global, filtros e busca textual
+CREATE INDEX IF NOT EXISTS idx_audit_tenant_created ON audit_logs(tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_created ON audit_logs(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_tenant_action ON audit_logs(tenant_id, action, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_tenant_user ON audit_logs(tenant_id, user_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_details_fts ON audit_logs USING GIN (to_tsvector('portuguese', coalesce(details, '')));
+-- Tela de auditoria do Super Admin: só ações de administradores
+CREATE INDEX IF NOT EXISTS idx_audit_admin_actions ON audit_logs(created_at DESC) WHERE actor_role = 'ADMIN';
+-- Fila de selagem da cadeia de integridade (índices parciais: só o que ainda não foi encadeado)
+CREATE INDEX IF NOT EXISTS idx_audit_unsealed ON audit_logs(created_at, id) WHERE chain_seq IS NULL;
+CREATE INDEX IF NOT EXISTS idx_votes_unsealed ON votes(created_at, id) WHERE chain_seq IS NULL;
+-- Folhas pendentes da árvore de Merkle e busca da prova pelo prefixo do recibo
+CREATE INDEX IF NOT EXISTS idx_votes_merkle_pending ON votes(created_at, id) WHERE merkle_index IS NULL;
+CREATE INDEX IF NOT EXISTS idx_votes_assembly_hash ON votes(assembly_id, hash varchar_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_chain_tenant_created ON integrity_chain(tenant_id, record_created_at);
 
 CREATE INDEX idx_poll_votes_poll ON poll_votes(poll_id);
 CREATE INDEX idx_calendar_events_tenant ON calendar_events(tenant_id);
@@ -5,6 +5,7 @@ import { AuthProvider, useAuth } from './context/AuthContext';
 import Layout from './components/Layout';
 import SockJS from 'sockjs-client';
 import { Client } from '@stomp/stompjs';
+import { NOTIFICATION_EVENT } from './components/NotificationBell';
 
 // --- PÁGINAS PÚBLICAS ---
 import LandingPage from './pages/LandingPage';
@@ -66,6 +67,16 @@ const PrivateRoute = ({ children, allowedRoles }: { children: React.ReactNode, a
   return <>{children}</>;
 };
 
+const currentTenantId = (): string => {
+    try {
+        const user = JSON.parse(localStorage.getItem('@Votzz:user') || 'null');
+        const tenantId = user?.tenantId || user?.tenant?.id;
+        return tenantId ? String(tenantId) : '';
+    } catch (e) {
+        return '';
+    }
+};
+
 const AppRoutes: React.FC = () => {
     const { isAuthenticated } = useAuth(); 
     const clientRef = useRef<Client | null>(null);
@@ -93,12 +104,16 @@ const AppRoutes: React.FC = () => {
 
         const client = new Client({
             webSocketFactory: () => new SockJS(socketUrl),
-            connectHeaders: { Authorization: `Bearer ${token}` },
+            // X-Tenant-ID escolhe o cadastro do condomínio ativo (fila /user/queue/notifications)
+            connectHeaders: { Authorization: `Bearer ${token}`, 'X-Tenant-ID': currentTenantId() },
             reconnectDelay: 5000,
             heartbeatIncoming: 4000,
             heartbeatOutgoing: 4000,
             onConnect: () => {
                 console.log("Votzz WebSocket Conectado");
+                client.subscribe('/user/queue/notifications', (message) => {
+                    window.dispatchEvent(new CustomEvent(NOTIFICATION_EVENT, { detail: JSON.parse(message.body) }));
+                });
             }, 
             onStompError: (frame) => {
                 console.error('Erro no Broker: ' + frame.headers['message']);
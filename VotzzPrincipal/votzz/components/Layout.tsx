@@ -16,6 +16,7 @@ import {
 } from 'lucide-react';
 import { useAuth } from '../context/AuthContext';
 import { Logo } from './Logo';
+import NotificationBell from './NotificationBell';
 
 interface LayoutProps {
   children: React.ReactNode;
@@ -182,6 +183,7 @@ const Layout: React.FC<LayoutProps> = ({ children }) => {
                 {userSubtitle}
               </p>
             </div>
+            {user && user.role !== 'ADMIN' && user.role !== 'AFILIADO' && <NotificationBell />}
           </div>
           
           <div className="grid grid-cols-2 gap-2">
@@ -0,0 +1,122 @@
+import React, { useState, useEffect, useCallback } from 'react';
+import { useNavigate } from 'react-router-dom';
+import { Bell, CheckCheck } from 'lucide-react';
+import api from '../services/api';
+
+interface InboxItem {
+  id: number;
+  type: string;
+  title: string;
+  body: string;
+  link?: string;
+  createdAt: string;
+  readAt?: string | null;
+}
+
+// Evento disparado pelo App.tsx a cada mensagem em /user/queue/notifications
+export const NOTIFICATION_EVENT = 'votzz:notification';
+
+const NotificationBell: React.FC = () => {
+  const navigate = useNavigate();
+  const [items, setItems] = useState<InboxItem[]>([]);
+  const [unread, setUnread] = useState(0);
+  const [isOpen, setIsOpen] = useState(false);
+
+  const load = useCallback(async () => {
+    try {
+      const res = await api.get('/notifications', { params: { limit: 20 } });
+      setItems(res.data.items || []);
+      setUnread(res.data.unread || 0);
+    } catch (e) {
+      console.error('Erro ao carregar notificações', e);
+    }
+  }, []);
+
+  useEffect(() => {
+    load();
+
+    const onEvent = (e: Event) => {
+      const data = (e as CustomEvent).detail;
+      if (!data) return;
+      setUnread(data.unread ?? 0);
+      if (data.kind === 'NEW' && data.notification) {
+        setItems(prev => [data.notification, ...prev].slice(0, 20));
+      } else if (data.kind === 'READ') {
+        // Lidas em outra aba/dispositivo
+        load();
+      }
+    };
+    window.addEventListener(NOTIFICATION_EVENT, onEvent);
+    return () => window.removeEventListener(NOTIFICATION_EVENT, onEvent);
+  }, [load]);
+
+  const openItem = async (item: InboxItem) => {
+    setIsOpen(false);
+    if (!item.readAt) {
+      try {
+        const res = await api.post('/notifications/read', { ids: [item.id] });
+        setUnread(res.data.unread);
+        setItems(prev => prev.map(i => i.id === item.id ? { ...i, readAt: new Date().toISOString() } : i));
+      } catch (e) {
+        console.error('Erro ao marcar notificação', e);
+      }
+    }
+    if (item.link) navigate(item.link);
+  };
+
+  const markAllRead = async () => {
+    try {
+      const res = await api.post('/notifications/read-all');
+      setUnread(res.data.unread);
+      setItems(prev => prev.map(i => i.readAt ? i : { ...i, readAt: new Date().toISOString() }));
+    } catch (e) {
+      console.error('Erro ao marcar notificações', e);
+    }
+  };
+
+  return (
+    <div className="relative">
+      <button
+        onClick={() => setIsOpen(!isOpen)}
+        className="relative p-2 rounded-lg text-slate-300 hover:text-white hover:bg-slate-800 transition-colors"
+        title="Notificações"
+      >
+        <Bell size={18} />
+        {unread > 0 && (
+          <span className="absolute -top-1 -right-1 bg-red-500 text-white text-[10px] font-bold rounded-full min-w-[18px] h-[18px] px-1 flex items-center justify-center">
+            {unread > 99 ? '99+' : unread}
+          </span>
+        )}
+      </button>
+
+      {isOpen && (
+        <div className="absolute bottom-12 left-0 w-80 max-h-96 bg-white text-slate-800 rounded-xl shadow-2xl border border-slate-200 z-50 flex flex-col">
+          <div className="flex justify-between items-center p-3 border-b border-slate-100">
+            <span className="font-bold text-sm">Notificações</span>
+            {unread > 0 && (
+              <button onClick={markAllRead} className="text-xs text-emerald-600 hover:text-emerald-700 flex items-center gap-1">
+                <CheckCheck size={14} /> Marcar todas como lidas
+              </button>
+            )}
+          </div>
+          <div className="overflow-y-auto custom-scrollbar">
+            {items.length === 0 && <p className="text-xs text-slate-400 text-center p-6">Nenhuma notificação.</p>}
+            {items.map(item => (
+              <button
+                key={item.id}
+                onClick={() => openItem(item)}
+                className={`w-full text-left p-3 border-b border-slate-50 hover:bg-slate-50 ${item.readAt ? '' : 'bg-emerald-50/60'}`}
+              >
+                <p className="text-sm font-bold">{item.title}</p>
+                <p className="text-xs text-slate-500">{item.body}</p>
+                <p className="text-[10px] text-slate-400 mt-1">{new Date(item.createdAt).toLocaleString('pt-BR')}</p>
+              </button>
+            ))}
+          </div>
+        </div>
+      )}
+    </div>
+  );
+};
+
+export default NotificationBell;
@@ -569,6 +569,33 @@ const Governance: React.FC = () => {
                                            Exigir Leitura
                                    </label>
                                </div>
+                               <div className="flex gap-4 bg-slate-50 p-3 rounded-lg border border-slate-100">
+                                   <div className="flex-1">
+                                           <label className="block text-xs font-bold text-slate-500 mb-1 uppercase">Público</label>
+                                           <select className="w-full p-2 border rounded bg-white" value={annForm.targetType} onChange={e => setAnnForm({...annForm, targetType: e.target.value, targetValue: e.target.value === 'ROLE' ? 'MORADOR' : ''})}>
+                                               <option value="ALL">Todos os moradores</option>
+                                               <option value="BLOCK">Um bloco</option>
+                                               <option value="UNIT">Uma unidade</option>
+                                               <option value="ROLE">Um perfil</option>
+                                           </select>
+                                   </div>
+                                   {annForm.targetType === 'ROLE' && (
+                                       <div className="flex-1">
+                                           <label className="block text-xs font-bold text-slate-500 mb-1 uppercase">Perfil</label>
+                                           <select className="w-full p-2 border rounded bg-white" value={annForm.targetValue} onChange={e => setAnnForm({...annForm, targetValue: e.target.value})}>
+                                               <option value="MORADOR">Moradores</option>
+                                               <option value="SINDICO">Síndicos</option>
+                                               <option value="ADM_CONDO">Administração</option>
+                                           </select>
+                                       </div>
+                                   )}
+                                   {(annForm.targetType === 'BLOCK' || annForm.targetType === 'UNIT') && (
+                                       <div className="flex-1">
+                                           <label className="block text-xs font-bold text-slate-500 mb-1 uppercase">{annForm.targetType === 'BLOCK' ? 'Bloco' : 'Unidade'}</label>
+                                           <input type="text" required className="w-full p-2 border rounded bg-white" placeholder={annForm.targetType === 'BLOCK' ? 'Ex: B' : 'Ex: 101 - Bloco B'} value={annForm.targetValue} onChange={e => setAnnForm({...annForm, targetValue: e.target.value})}/>
+                                       </div>
+                                   )}
+                               </div>
                                <div>
                                    <label className="text-xs font-bold text-slate-500 uppercase">Arquivar Automaticamente (Data)</label>
                                    <input type="date" className="w-full p-3 border rounded-lg mt-1" value={annForm.autoArchiveDate} onChange={e => setAnnForm({...annForm, autoArchiveDate: e.target.value})}/>
@@ -1,4 +1,4 @@
-import React, { useEffect, useState, useMemo } from 'react';
+import React, { useEffect, useState } from 'react';
 import { Download, Search, ShieldAlert } from 'lucide-react';
 import api from '../services/api';
 import { AuditLog } from '../types';
@@ -8,20 +8,47 @@ const Reports: React.FC = () => {
   const { user } = useAuth();
   const [logs, setLogs] = useState<AuditLog[]>([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [searchTerm, setSearchTerm] = useState('');
   const [tenantName, setTenantName] = useState('MeuCondominio');
 
+  // Paginação por cursor; a busca roda no servidor (texto completo em "detalhes")
+  const fetchLogs = async (cursor: string | null, q: string) => {
+    const params: Record<string, string> = { limit: '100' };
+    if (cursor) params.cursor = cursor;
+    if (q.trim()) params.q = q.trim();
+    const res = await api.get('/tenants/audit-logs/page', { params });
+    return res.data || { items: [], nextCursor: null };
+  };
+
   useEffect(() => {
-    api.get('/tenants/audit-logs')
-       .then(res => {
-           setLogs(res.data || []);
-           setLoading(false);
-       })
-       .catch(err => {
-           console.error("Erro ao carregar auditoria:", err);
-           setLoading(false);
-       });
+    setLoading(true);
+    const timer = setTimeout(() => {
+      fetchLogs(null, searchTerm)
+        .then(page => {
+          setLogs(page.items || []);
+          setNextCursor(page.nextCursor);
+        })
+        .catch(err => console.error("Erro ao carregar auditoria:", err))
+        .finally(() => setLoading(false));
+    }, searchTerm ? 400 : 0);
+    return () => clearTimeout(timer);
+  }, [searchTerm]);
+
+  const loadMore = () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    fetchLogs(nextCursor, searchTerm)
+      .then(page => {
+        setLogs(prev => [...prev, ...(page.items || [])]);
+        setNextCursor(page.nextCursor);
+      })
+      .catch(err => console.error("Erro ao carregar auditoria:", err))
+      .finally(() => setLoadingMore(false));
+  };
 
+  useEffect(() => {
     if (user?.tenantId) {
         api.get('/tenants/public-list')
            .then(res => {
@@ -32,18 +59,6 @@ const Reports: React.FC = () => {
     }
   }, [user]);
 
-  const filteredLogs = useMemo(() => {
-    if (!searchTerm) return logs;
-    const lowerTerm = searchTerm.toLowerCase();
-    
-    return logs.filter(log => 
-      log.action?.toLowerCase().includes(lowerTerm) ||
-      log.userName?.toLowerCase().includes(lowerTerm) ||
-      log.details?.toLowerCase().includes(lowerTerm) ||
-      log.userId?.toLowerCase().includes(lowerTerm)
-    );
-  }, [logs, searchTerm]);
-
   const handleExportPDF = () => {
     const originalTitle = document.title;
     const safeTenantName = tenantName.replace(/[^a-z0-9]/gi, '_');
@@ -123,9 +138,9 @@ const Reports: React.FC = () => {
             <tbody className="divide-y divide-slate-100">
               {loading ? (
                   <tr><td colSpan={4} className="px-6 py-8 text-center text-slate-400 animate-pulse">Carregando registros...</td></tr>
-              ) : filteredLogs.length === 0 ? (
+              ) : logs.length === 0 ? (
                   <tr><td colSpan={4} className="px-6 py-8 text-center text-slate-400">Nenhum registro encontrado.</td></tr>
-              ) : filteredLogs.map((log) => (
+              ) : logs.map((log) => (
                 <tr key={log.id} className="hover:bg-slate-50 transition-colors">
                   <td className="px-6 py-4 font-mono text-xs text-slate-500 font-bold align-top">
                     {new Date(log.timestamp).toLocaleString()}
@@ -150,6 +165,17 @@ const Reports: React.FC = () => {
             </tbody>
           </table>
         </div>
+        {nextCursor && !loading && (
+          <div className="p-4 border-t border-slate-100 text-center no-print">
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="text-sm font-medium text-emerald-700 hover:text-emerald-800 disabled:opacity-50"
+            >
+              {loadingMore ? 'Carregando...' : 'Carregar mais registros'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
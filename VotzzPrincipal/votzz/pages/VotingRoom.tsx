@@ -10,6 +10,9 @@ import { over } from 'stompjs';
 
 let stompClient: any = null;
 
+// Página do histórico do chat (a rota /history limita a 100)
+const CHAT_PAGE_SIZE = 50;
+
 const VotingRoom: React.FC = () => {
   const { user } = useAuth();
   const { id } = useParams<{ id: string }>();
@@ -19,6 +22,9 @@ const VotingRoom: React.FC = () => {
   const [hasVoted, setHasVoted] = useState(false);
   const [voteReceipt, setVoteReceipt] = useState<string | null>(null);
   const [messages, setMessages] = useState<any[]>([]);
+  // Cursor da mensagem mais antiga carregada; null = não há histórico anterior
+  const [olderCursor, setOlderCursor] = useState<string | null>(null);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   
   const [myUnits, setMyUnits] = useState<string[]>([]);
   const [totalWeight, setTotalWeight] = useState(1); 
@@ -28,6 +34,7 @@ const VotingRoom: React.FC = () => {
   const [selectedOption, setSelectedOption] = useState<string | null>(null);
   const [chatMsg, setChatMsg] = useState('');
   const [connected, setConnected] = useState(false);
+  const [onlineCount, setOnlineCount] = useState(0);
   const [activeTab, setActiveTab] = useState<'VOTE' | 'MANAGE'>('VOTE');
   
   const [isNotStarted, setIsNotStarted] = useState(false);
@@ -38,6 +45,7 @@ const VotingRoom: React.FC = () => {
   const [isDownloading, setIsDownloading] = useState(false);
   
   const chatEndRef = useRef<HTMLDivElement>(null);
+  const chatBoxRef = useRef<HTMLDivElement>(null);
   
   const isManager = user?.role === 'MANAGER' || user?.role === 'SINDICO' || user?.role === 'ADM_CONDO' || user?.role === 'ADMIN';
   const isSecret = assembly?.votePrivacy === 'SECRET';
@@ -203,8 +211,15 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
         stompClient = over(socket);
         stompClient.debug = () => {}; 
 
+        // A presença é registrada pelo usuário autenticado no CONNECT, nunca por dados do cliente
+        const token = localStorage.getItem('@Votzz:token');
+        const tenantId = (user as any)?.tenantId || (user as any)?.tenant?.id;
+        const connectHeaders: Record<string, string> = {};
+        if (token) connectHeaders.Authorization = `Bearer ${token}`;
+        if (tenantId) connectHeaders['X-Tenant-ID'] = String(tenantId);
+
         stompClient.connect(
-            {}, 
+            connectHeaders, 
             () => { 
                 if (!isMounted) return;
                 setConnected(true);
@@ -221,6 +236,9 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
                         if (newMsg.type === 'STATUS_UPDATE') {
                             setAssembly((prev: any) => ({ ...prev, status: newMsg.status }));
                         }
+                        if (newMsg.type === 'PRESENCE') {
+                            setOnlineCount(newMsg.online || 0);
+                        }
                     }
                 });
             },
@@ -261,18 +279,45 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
     }
 
     try {
-        const resChat = await api.get(`/chat/assemblies/${id}`);
-        if (Array.isArray(resChat.data)) {
-            setMessages(resChat.data);
+        const resChat = await api.get(`/chat/assemblies/${id}/history`, { params: { limit: CHAT_PAGE_SIZE } });
+        if (Array.isArray(resChat.data?.messages)) {
+            setMessages(resChat.data.messages);
+            setOlderCursor(resChat.data.nextCursor || null);
             setTimeout(() => chatEndRef.current?.scrollIntoView(), 500);
         } else {
             setMessages([]);
+            setOlderCursor(null);
         }
     } catch (e: any) {
         if (e.response && e.response.status !== 400) {
              console.warn("Histórico de chat indisponível:", e);
         }
         setMessages([]); 
+        setOlderCursor(null);
+    }
+  };
+
+  // Histórico anterior sob demanda, mantendo a posição de leitura
+  const loadOlderMessages = async () => {
+    if (!id || !olderCursor || loadingOlder) return;
+    setLoadingOlder(true);
+    const box = chatBoxRef.current;
+    const previousHeight = box ? box.scrollHeight : 0;
+    try {
+        const res = await api.get(`/chat/assemblies/${id}/history`, { params: { before: olderCursor, limit: CHAT_PAGE_SIZE } });
+        const older: any[] = Array.isArray(res.data?.messages) ? res.data.messages : [];
+        setMessages(prev => {
+            const known = new Set(prev.map(m => m.id));
+            return [...older.filter(m => !known.has(m.id)), ...prev];
+        });
+        setOlderCursor(res.data?.nextCursor || null);
+        requestAnimationFrame(() => {
+            if (box) box.scrollTop = box.scrollHeight - previousHeight;
+        });
+    } catch (e) {
+        console.warn("Falha ao carregar mensagens anteriores:", e);
+    } finally {
+        setLoadingOlder(false);
     }
   };
 
@@ -718,7 +763,7 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
                             {isSecret ? <><EyeOff size={14}/> Voto Secreto</> : <><Eye size={14}/> Voto Aberto</>}
                         </div>
                         {connected ? (
-                            <span className="text-[10px] font-black text-emerald-500 uppercase flex items-center gap-1 mt-1"><span className="w-2 h-2 bg-emerald-500 rounded-full animate-pulse"/> Conectado</span>
+                            <span className="text-[10px] font-black text-emerald-500 uppercase flex items-center gap-1 mt-1"><span className="w-2 h-2 bg-emerald-500 rounded-full animate-pulse"/> Conectado{onlineCount > 0 && ` · ${onlineCount} na sala`}</span>
                         ) : (
                             <span className="text-[10px] font-black text-red-500 uppercase flex items-center gap-1 mt-1"><span className="w-2 h-2 bg-red-500 rounded-full"/> Offline</span>
                         )}
@@ -870,7 +915,14 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
                         </div>
                     </div>
                     
-                    <div className="flex-1 overflow-y-auto p-4 space-y-4 bg-slate-50/30">
+                    <div ref={chatBoxRef} className="flex-1 overflow-y-auto p-4 space-y-4 bg-slate-50/30">
+                        {olderCursor && (
+                            <div className="text-center">
+                                <button onClick={loadOlderMessages} disabled={loadingOlder} className="text-[10px] font-bold uppercase text-blue-600 hover:underline disabled:opacity-50">
+                                    {loadingOlder ? 'Carregando...' : 'Carregar mensagens anteriores'}
+                                </button>
+                            </div>
+                        )}
                         {messages.length === 0 && (
                             <div className="text-center mt-20 opacity-30">
                                 <MessageSquare size={48} className="mx-auto mb-2"/>
@@ -878,7 +930,7 @@ Assinado digitalmente pelo Presidente da Mesa / Síndico.`;
                             </div>
                         )}
                         {messages.map((m, idx) => (
-                            <div key={idx} className={`flex flex-col ${m.userId === user?.id ? 'items-end' : 'items-start'}`}>
+                            <div key={m.id || idx} className={`flex flex-col ${m.userId === user?.id ? 'items-end' : 'items-start'}`}>
                                 <div className="flex items-center gap-2 mb-1">
                                     <span className="text-[10px] font-black text-slate-400 uppercase">{m.senderName}</span>
                                     <span className="text-[9px] text-slate-300">
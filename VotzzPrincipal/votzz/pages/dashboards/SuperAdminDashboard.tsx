@@ -517,21 +517,52 @@ function CouponsManager() {
 
 // 5. ORGANIZED USERS VIEW (COM SELETOR DE CONDOMÍNIO)
 function OrganizedUsersView() {
-  const [data, setData] = useState<any>(null);
+  const [folders, setFolders] = useState<any[] | null>(null);
+  // Páginas já carregadas por pasta (só as pastas abertas)
+  const [folderPages, setFolderPages] = useState<Record<string, { items: any[]; nextCursor: string | null; loading: boolean }>>({});
   const [tenantsList, setTenantsList] = useState<any[]>([]);
   const [search, setSearch] = useState('');
+  const [searchResults, setSearchResults] = useState<any[] | null>(null);
   const [editingUser, setEditingUser] = useState<any>(null);
   const [isCreatingUser, setIsCreatingUser] = useState(false);
   const [showPassword, setShowPassword] = useState(false);
   
   const [newUser, setNewUser] = useState({ tenantId: '', nome: '', email: '', password: 'votzz', role: 'MORADOR', cpf: '', whatsapp: '', unidade: '', bloco: '' });
 
+  const loadFolderPage = async (key: string, cursor: string | null) => {
+      setFolderPages(prev => ({ ...prev, [key]: { items: cursor ? prev[key]?.items || [] : [], nextCursor: null, loading: true } }));
+      try {
+          const res = await api.get(`/admin/users/folders/${key}`, { params: { cursor: cursor || undefined, limit: 50 } });
+          setFolderPages(prev => ({
+              ...prev,
+              [key]: { items: [...(cursor ? prev[key]?.items || [] : []), ...res.data.items], nextCursor: res.data.nextCursor, loading: false }
+          }));
+      } catch (e) {
+          setFolderPages(prev => ({ ...prev, [key]: { ...(prev[key] || { items: [] }), nextCursor: null, loading: false } }));
+      }
+  };
+
   const loadData = () => {
-      api.get('/admin/organized-users').then(res => setData(res.data)).catch(() => {});
+      api.get('/admin/users/folders').then(res => setFolders(res.data)).catch(() => {});
       api.get('/admin/tenants').then(res => setTenantsList(res.data)).catch(() => {});
+      // Recarrega só as pastas que estavam abertas
+      Object.keys(folderPages).forEach(key => loadFolderPage(key, null));
+      if (search.trim().length >= 3) runSearch(search);
   };
   useEffect(() => { loadData(); }, []);
 
+  const runSearch = (q: string) => {
+      api.get('/admin/users/search', { params: { q } }).then(res => setSearchResults(res.data)).catch(() => setSearchResults([]));
+  };
+
+  // Busca no servidor (nome, e-mail ou CPF) com debounce
+  useEffect(() => {
+      const q = search.trim();
+      if (q.length < 3) { setSearchResults(null); return; }
+      const timer = setTimeout(() => runSearch(q), 300);
+      return () => clearTimeout(timer);
+  }, [search]);
+
   const handleCreateUser = async (e: React.FormEvent) => {
       e.preventDefault();
       try {
@@ -570,14 +601,14 @@ function OrganizedUsersView() {
     try { await api.delete(`/admin/users/${id}`); loadData(); } catch (e) { alert("Erro ao excluir."); }
   };
 
-  if (!data) return <div className="p-20 text-center animate-pulse font-black text-slate-400">CARREGANDO DADOS...</div>;
+  if (!folders) return <div className="p-20 text-center animate-pulse font-black text-slate-400">CARREGANDO DADOS...</div>;
 
   return (
     <div className="space-y-6">
       <div className="flex gap-4">
           <div className="bg-white p-4 rounded-3xl shadow-sm border flex items-center gap-3 flex-1">
             <Search size={20} className="text-slate-300 ml-2" />
-            <input className="w-full outline-none font-medium text-slate-600" placeholder="Buscar usuário por nome..." onChange={e => setSearch(e.target.value)} />
+            <input className="w-full outline-none font-medium text-slate-600" placeholder="Buscar por nome, e-mail ou CPF (mín. 3 caracteres)..." onChange={e => setSearch(e.target.value)} />
           </div>
           <button onClick={() => setIsCreatingUser(true)} className="bg-blue-600 text-white px-6 rounded-3xl font-bold flex items-center gap-2 hover:bg-blue-700 transition-colors">
               <UserPlus size={20} /> Novo Morador
@@ -664,29 +695,48 @@ function OrganizedUsersView() {
         </div>
       )}
 
-      <details className="bg-indigo-900 text-white rounded-[2rem] border border-indigo-800 shadow-xl group overflow-hidden" open>
-        <summary className="p-6 cursor-pointer font-black flex justify-between items-center"><div className="flex gap-4 items-center"><Users /> Afiliados</div><Plus /></summary>
-        <div className="p-6 bg-white text-slate-800"><UserTable users={data.afiliados} search={search} onEdit={setEditingUser} onDelete={handleDelete} /></div>
-      </details>
-      {Object.entries(data.pastas).map(([nome, moradores]: any) => (
-        <details key={nome} className="bg-white rounded-[2rem] border shadow-sm overflow-hidden group mb-4">
-          <summary className="p-6 cursor-pointer font-black flex justify-between items-center"><div className="flex gap-4 items-center"><Folder className="text-blue-500" /> {nome}</div><div className="flex items-center gap-2"><span className="text-xs bg-slate-100 px-2 py-1 rounded-lg text-slate-500 font-bold">{moradores.length}</span><Plus size={16} className="text-slate-300"/></div></summary>
-          <div className="p-6 border-t"><UserTable users={moradores} search={search} onEdit={setEditingUser} onDelete={handleDelete} /></div>
-        </details>
-      ))}
+      {searchResults ? (
+        <div className="bg-white rounded-[2rem] border shadow-sm p-6">
+          <p className="text-xs font-black uppercase text-slate-400 mb-4">{searchResults.length} resultado(s) para "{search.trim()}"</p>
+          <UserTable users={searchResults} onEdit={setEditingUser} onDelete={handleDelete} />
+        </div>
+      ) : folders.map((folder: any) => {
+        const page = folderPages[folder.key];
+        const isAfiliados = folder.key === 'AFILIADOS';
+        return (
+          <details
+            key={folder.key}
+            className={isAfiliados ? "bg-indigo-900 text-white rounded-[2rem] border border-indigo-800 shadow-xl group overflow-hidden mb-4" : "bg-white rounded-[2rem] border shadow-sm overflow-hidden group mb-4"}
+            onToggle={e => { if ((e.target as HTMLDetailsElement).open && !page) loadFolderPage(folder.key, null); }}
+          >
+            <summary className="p-6 cursor-pointer font-black flex justify-between items-center">
+              <div className="flex gap-4 items-center">{isAfiliados ? <Users /> : <Folder className="text-blue-500" />} {folder.nome}</div>
+              <div className="flex items-center gap-2"><span className="text-xs bg-slate-100 px-2 py-1 rounded-lg text-slate-500 font-bold">{folder.count}</span><Plus size={16} className="text-slate-300"/></div>
+            </summary>
+            <div className="p-6 border-t bg-white text-slate-800">
+              {page && !(page.loading && page.items.length === 0) && <UserTable users={page.items} onEdit={setEditingUser} onDelete={handleDelete} />}
+              {page?.loading && <div className="text-center py-4 text-slate-400 text-xs font-bold uppercase animate-pulse">Carregando...</div>}
+              {page?.nextCursor && !page.loading && (
+                <button onClick={() => loadFolderPage(folder.key, page.nextCursor)} className="w-full mt-4 py-3 bg-slate-100 hover:bg-slate-200 rounded-xl text-xs font-black uppercase text-slate-500">
+                  Carregar mais
+                </button>
+              )}
+            </div>
+          </details>
+        );
+      })}
     </div>
   );
 }
 
-const UserTable = ({ users, search, onEdit, onDelete }: any) => {
-  const filtered = users.filter((u: any) => u.nome.toLowerCase().includes(search.toLowerCase()));
-  if (filtered.length === 0) return <div className="text-center py-4 text-slate-400 text-xs font-bold uppercase">Nenhum usuário nesta pasta</div>;
+const UserTable = ({ users, onEdit, onDelete }: any) => {
+  if (users.length === 0) return <div className="text-center py-4 text-slate-400 text-xs font-bold uppercase">Nenhum usuário nesta pasta</div>;
   return (
     <div className="overflow-x-auto">
       <table className="w-full text-left text-sm">
         <thead><tr className="text-slate-400 text-[9px] font-black uppercase border-b"><th className="pb-4">Membro</th><th className="pb-4">Contato</th><th className="pb-4 text-center">Ações</th></tr></thead>
         <tbody>
-          {filtered.map((u: any) => (
+          {users.map((u: any) => (
             <tr key={u.id} className="border-b last:border-0 hover:bg-slate-50">
               <td className="py-4 font-black">{u.nome}<br/><span className="font-normal text-xs text-slate-400">{u.email}</span></td>
               <td>{u.cpf}<br/><span className="text-emerald-600 font-bold">{u.whatsapp}</span></td>
@@ -889,25 +939,61 @@ function StatsView() {
   const [latencyHistory, setLatencyHistory] = useState<number[]>([]);
   const [currentLatency, setCurrentLatency] = useState(0);
   
+  // Métricas por SSE: snapshot ao conectar e depois só os campos que mudaram
   useEffect(() => {
-    const load = async () => {
+    const controller = new AbortController();
+
+    const connect = async () => {
+        while (!controller.signal.aborted) {
+            try {
+                const res = await fetch(`${api.defaults.baseURL}/admin/dashboard-stats/stream`, {
+                    headers: { Authorization: `Bearer ${localStorage.getItem('@Votzz:token')}` },
+                    signal: controller.signal,
+                });
+                if (!res.ok || !res.body) throw new Error(`HTTP ${res.status}`);
+
+                const reader = res.body.getReader();
+                const decoder = new TextDecoder();
+                let buffer = '';
+                while (true) {
+                    const { value, done } = await reader.read();
+                    if (done) break;
+                    buffer += decoder.decode(value, { stream: true });
+                    const events = buffer.split('\n\n');
+                    buffer = events.pop() || '';
+                    for (const evt of events) {
+                        const data = evt.split('\n').filter(l => l.startsWith('data:')).map(l => l.slice(5)).join('');
+                        if (!data) continue; // heartbeat
+                        const payload = JSON.parse(data);
+                        setStats((prev: any) => evt.includes('event:snapshot') ? payload : { ...prev, ...payload });
+                    }
+                }
+            } catch (e) {
+                if (controller.signal.aborted) return;
+            }
+            await new Promise(r => setTimeout(r, 3000)); // reconecta
+        }
+    };
+    connect();
+    return () => controller.abort();
+  }, []);
+
+  // Sonda de latência da API (endpoint servido da memória), bem mais espaçada que o antigo polling
+  useEffect(() => {
+    const probe = async () => {
         const start = Date.now();
         try {
-            const res = await api.get('/admin/dashboard-stats');
-            const end = Date.now();
-            const latency = end - start;
-            
+            await api.get('/admin/dashboard-stats');
+            const latency = Date.now() - start;
             setCurrentLatency(latency);
             setLatencyHistory(prev => {
                 const newHistory = [...prev, latency];
                 return newHistory.slice(-20); // Mantém os últimos 20 pontos
             });
-            setStats(res.data);
         } catch(e) {}
     };
-    load(); // Carregamento inicial
-
-    const interval = setInterval(load, 3000); // Polling a cada 3 segundos
+    probe();
+    const interval = setInterval(probe, 15000);
     return () => clearInterval(interval);
   }, []);
 